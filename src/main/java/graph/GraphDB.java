@@ -1,20 +1,47 @@
 package graph;
 
+import graph.WAL.Durability;
+import graph.WAL.WALPosition;
 import graph.WAL.WALReader;
+import graph.WAL.WALRecordBuffer;
+import graph.WAL.WALWriter;
+import graph.dataModel.Checkpoint;
 import graph.dataModel.Graph;
+import graph.dataModel.GraphCatalog;
+import graph.dataModel.LogCompactor;
 import graph.dataModel.RecoveryManager;
 import graph.exceptions.GraphNotFoundException;
+import graph.exceptions.InvalidLogOperationException;
 import graph.queryModel.GraphQueryClient;
+import graph.storage.GraphStorage;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
 
 public class GraphDB {
 
+    // a checkpoint is taken once the log has grown past this size
+    private static final long CHECKPOINT_LOG_SIZE = 64L << 20;
+    private static final long CHECKPOINT_CHECK_INTERVAL_SECONDS = 60;
+
     private Map<String, Graph> graphs;
+    // the recovered graphs not loaded yet; null once they all are, or when the log had to be recovered at once
+    private volatile GraphCatalog catalog;
+    private final WALWriter wal;
     private static GraphDB instance;
 
     public static synchronized GraphDB getInstance() {
@@ -25,35 +52,200 @@ public class GraphDB {
     }
 
     private GraphDB() {
+        Path log = WALWriter.DEFAULT_LOG;
+        catalog = openCatalog(log);
+        if (catalog != null) {
+            graphs = new ConcurrentHashMap<>();
+        } else {
+            recoverAll(log);
+        }
+        // every transaction group commits through the one shared appender; opening it here makes an unwritable
+        // log fail at startup rather than on the first commit
+        try {
+            wal = WALWriter.defaultWALWriter();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open the WAL for writing", e);
+        }
+        ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::maintainLog,
+                CHECKPOINT_CHECK_INTERVAL_SECONDS, CHECKPOINT_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Locates the graphs of the checkpoint and the log without loading any of them, so that startup does not wait on
+    // graphs that are never used; returns null when the log is a text one that can only be recovered at once.
+    private static GraphCatalog openCatalog(Path log) {
         try {
-            RecoveryManager recoveryManager = new RecoveryManager(WALReader.defaultWALReader());
-            graphs = recoveryManager.recoverGraphs();
+            return GraphCatalog.open(log);
+        } catch (IOException | InvalidLogOperationException e) {
+            throw new IllegalStateException("Cannot index the checkpoint and log of " + log, e);
+        }
+    }
+
+    private void recoverAll(Path log) {
+        Checkpoint checkpoint = readCheckpoint(log);
+        try {
+            WALReader reader = checkpoint == null ? WALReader.forLog(log) : WALReader.forLog(log, checkpoint.getPosition());
+            RecoveryManager recoveryManager = new RecoveryManager(reader, checkpoint);
+            graphs = new ConcurrentHashMap<>(recoveryManager.recoverGraphs(Runtime.getRuntime().availableProcessors()));
         } catch (FileNotFoundException ignored) {
-            graphs = new HashMap<String, Graph>();
+            graphs = new ConcurrentHashMap<>();
             System.out.println("WAL file not found; starting with an empty database.");
         }
     }
 
+    // the log has been truncated up to the checkpoint, so a checkpoint that cannot be read cannot be skipped either
+    private static Checkpoint readCheckpoint(Path log) {
+        try {
+            return Checkpoint.read(Checkpoint.checkpointFor(log));
+        } catch (IOException | InvalidLogOperationException e) {
+            throw new IllegalStateException("Cannot read the checkpoint of " + log, e);
+        }
+    }
+
+    // Snapshots the graphs of the database and truncates the log, bounding the work of the next recovery.
+    public void checkpoint() throws IOException {
+        Path log = wal.getLog();
+        wal.checkpoint(position -> writeCheckpoint(Checkpoint.checkpointFor(log), position, log));
+    }
+
+    // The graphs not loaded yet are taken from the checkpoint and log about to be replaced, and stay unloaded: the
+    // catalog they are loaded from keeps reading the files it was opened on. So are the graphs created outside the
+    // database with Graph.createGraph, which log their transactions to the same log without the database holding
+    // them, so that they are snapshotted too rather than truncated away.
+    private void writeCheckpoint(Path file, WALPosition position, Path log) throws IOException {
+        Map<String, Graph> loaded = new HashMap<>(graphs);
+        try (GraphCatalog logged = GraphCatalog.open(log)) {
+            if (logged == null) {
+                Checkpoint.write(file, position, loaded);
+            } else {
+                logged.writeCheckpoint(file, position, loaded);
+            }
+        }
+    }
+
+    // Folds the sealed segments of the log into the checkpoint without holding off commits, so that the next recovery
+    // loads the live graphs rather than replaying their history. Returns whether there were segments to fold.
+    public boolean compactLog() throws IOException {
+        return wal.compact(LogCompactor.create(wal.getLog()));
+    }
+
+    // compacting keeps what is left of the log small, so a checkpoint is only needed when the active segment is large
+    private void maintainLog() {
+        try {
+            compactLog();
+            if (wal.logSize() >= CHECKPOINT_LOG_SIZE) {
+                checkpoint();
+            }
+        } catch (IOException | RuntimeException e) {
+            // the next run tries again, so nothing may escape and cancel the schedule
+            System.out.println("Log maintenance failed: " + e.getMessage());
+        }
+    }
+
+    // the durability of transactions that commit without choosing one
+    public void setDurability(Durability durability) {
+        wal.setDurability(durability);
+    }
+
+    // hands the writing of the log to a dedicated appender thread, which commits then wait on
+    public void startWALAppender() throws IOException {
+        wal.startAppender();
+    }
+
     public Graph createGraph() {
         Graph graph = Graph.createGraph();
         graphs.put(graph.getId(), graph);
         return graph;
     }
 
+    public Graph createGraph(GraphStorage storage) {
+        Graph graph = Graph.createGraph(storage);
+        graphs.put(graph.getId(), graph);
+        return graph;
+    }
+
     public List<Graph> getGraphs() {
+        loadAll();
         return new ArrayList<Graph>(graphs.values());
     }
 
     public Graph getGraph(String id) {
-        return graphs.get(id);
+        Graph graph = graphs.get(id);
+        return graph != null ? graph : load(id);
     }
 
-    public Graph deleteGraph(String id) {
-        return graphs.remove(id);
+    // builds a recovered graph the first time it is asked for; a graph is only ever built by one thread
+    private Graph load(String id) {
+        GraphCatalog current = catalog;
+        if (current == null || !current.contains(id)) {
+            return null;
+        }
+        Graph graph = graphs.computeIfAbsent(id, graphId -> {
+            try {
+                return current.load(graphId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load graph " + graphId, e);
+            }
+        });
+        if (current.graphIds().isEmpty()) {
+            closeCatalog(current);
+        }
+        return graph;
+    }
+
+    private void loadAll() {
+        GraphCatalog current = catalog;
+        if (current != null) {
+            for (String id : List.copyOf(current.graphIds())) {
+                load(id);
+            }
+        }
+    }
+
+    // the files the catalog holds open are released once every graph has been loaded
+    private synchronized void closeCatalog(GraphCatalog current) {
+        if (catalog != current) {
+            return;
+        }
+        catalog = null;
+        try {
+            current.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close the log index: " + e.getMessage());
+        }
+    }
+
+    // The deletion is logged, so that recovery does not bring the graph back. A graph not loaded yet is dropped from
+    // the catalog without being loaded. Returns whether there was such a graph.
+    public boolean deleteGraph(String id) {
+        GraphCatalog current = catalog;
+        if (!graphs.containsKey(id) && (current == null || !current.contains(id))) {
+            return false;
+        }
+        WALRecordBuffer records = new WALRecordBuffer();
+        records.append(aLoggingInfo(BEGIN_TRANSACTION).withId(UUID.randomUUID().toString()).withSource(id).build());
+        records.append(aLoggingInfo(DELETE_GRAPH).withId(id).build());
+        records.append(aLoggingInfo(COMMIT).build());
+        try {
+            wal.commit(records, () -> {
+                // a load in progress finishes before the graph it built is removed
+                if (current != null && current.remove(id) && current.graphIds().isEmpty()) {
+                    closeCatalog(current);
+                }
+                graphs.remove(id);
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write graph deletion to WAL", e);
+        }
+        return true;
     }
 
     public GraphQueryClient createQueryClient(String graphId) throws GraphNotFoundException {
-        Graph graph = graphs.get(graphId);
+        Graph graph = getGraph(graphId);
         if (graph == null) {
             throw new GraphNotFoundException(graphId);
         }
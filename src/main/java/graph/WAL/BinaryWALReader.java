@@ -0,0 +1,202 @@
+package graph.WAL;
+
+import graph.exceptions.InvalidLogOperationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.zip.Checksum;
+
+// Streams the committed transactions of a binary log to a sink, reading its sealed segments (see WALSegments) and
+// then the active one through a mapped window, so that memory does not grow with the log. Reading stops at the first
+// corrupt record, since nothing after it can be trusted; a segment ending in a torn record was cut short by a crash
+// and reading goes on with the next one. A transaction without its COMMIT record is dropped. When reading after a
+// checkpoint, only the part of the log the checkpoint does not cover is read. A reader may also be limited to some
+// of the sealed segments, as the compactor is.
+class BinaryWALReader extends WALReader {
+
+    private static final int CHUNK_RECORDS = 4096;
+    private static final int MAX_CHUNKS_IN_FLIGHT = 64;
+
+    private final Path log;
+    private final WALPosition from;
+    // null when the reader reads all of the log rather than some of its sealed segments
+    private final List<Path> only;
+
+    BinaryWALReader(Path log, WALPosition from) {
+        this(log, from, null);
+    }
+
+    BinaryWALReader(Path log, WALPosition from, List<Path> only) {
+        super(new WALParser(), () -> null);
+        this.log = log;
+        this.from = from;
+        this.only = only;
+    }
+
+    @Override
+    public void readTransactions(Consumer<List<LoggingInfo>> sink) throws IOException {
+        List<Path> segments = readTextLogs(sink);
+        TransactionAssembler assembler = new TransactionAssembler(sink);
+        try {
+            for (int i = 0; i < segments.size(); i++) {
+                try (LogWindow window = LogWindow.open(segments.get(i), i == 0 ? from : null)) {
+                    Checksum crc = window.newChecksum();
+                    while (window.fill()) {
+                        assembler.accept(WALCodec.decode(window.buffer(), crc));
+                    }
+                }
+            }
+        } catch (InvalidLogOperationException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // Reads the legacy text log and a text log in place of the binary one, and returns the binary segments left to
+    // read in log order.
+    private List<Path> readTextLogs(Consumer<List<LoggingInfo>> sink) throws IOException {
+        Path legacy = WALWriter.legacyLog(log);
+        if (from == null && Files.exists(legacy)) {
+            readTextLog(legacy, sink);
+        }
+        List<Path> segments;
+        if (only != null) {
+            segments = new ArrayList<>(only);
+        } else {
+            segments = WALSegments.sealed(log);
+            if (WALCodec.isBinaryLog(log)) {
+                segments.add(log);
+            } else if (Files.exists(log)) {
+                readTextLog(log, sink);
+            }
+        }
+        return startingAt(segments, from);
+    }
+
+    // the segments from the one the checkpoint position is in on, or all of them when none has its log id
+    static List<Path> startingAt(List<Path> segments, WALPosition from) throws IOException {
+        for (int i = 0; from != null && i < segments.size(); i++) {
+            if (WALCodec.readLogId(segments.get(i)) == from.getLogId()) {
+                return segments.subList(i, segments.size());
+            }
+        }
+        return segments;
+    }
+
+    static List<List<LoggingInfo>> readBinaryLog(ByteBuffer buffer) {
+        List<List<LoggingInfo>> transactions = new LinkedList<>();
+        TransactionAssembler assembler = new TransactionAssembler(transactions::add);
+        try {
+            Checksum crc = WALCodec.newChecksum(WALCodec.readVersion(buffer));
+            WALCodec.readHeader(buffer);
+            for (LoggingInfo info = WALCodec.decode(buffer, crc); info != null; info = WALCodec.decode(buffer, crc)) {
+                assembler.accept(info);
+            }
+        } catch (InvalidLogOperationException e) {
+            System.out.println(e.getMessage());
+        }
+        return transactions;
+    }
+
+    // Splits the segments into chunks of whole records that the decoders check and decode in parallel, while the
+    // calling thread assembles the decoded chunks in log order. A bounded number of chunks is in flight at a time.
+    @Override
+    public void readTransactions(ExecutorService decoders, Consumer<List<LoggingInfo>> sink) throws IOException {
+        List<Path> segments = readTextLogs(sink);
+        TransactionAssembler assembler = new TransactionAssembler(sink);
+        Deque<Future<DecodedChunk>> inFlight = new ArrayDeque<>();
+        try {
+            boolean intact = true;
+            for (int i = 0; intact && i < segments.size(); i++) {
+                // chunks stay readable after the window is closed, as a mapping outlives its channel
+                try (LogWindow window = LogWindow.open(segments.get(i), i == 0 ? from : null)) {
+                    while (intact) {
+                        ByteBuffer chunk = nextChunk(window);
+                        if (chunk == null) {
+                            break;
+                        }
+                        Checksum crc = window.newChecksum();
+                        inFlight.add(decoders.submit(() -> decode(chunk, crc)));
+                        if (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+                            intact = assemble(inFlight.poll(), assembler);
+                        }
+                    }
+                }
+            }
+            while (intact && !inFlight.isEmpty()) {
+                intact = assemble(inFlight.poll(), assembler);
+            }
+        } catch (InvalidLogOperationException e) {
+            // the chunks before a corrupt record still count
+            while (!inFlight.isEmpty() && assemble(inFlight.poll(), assembler)) {}
+            System.out.println(e.getMessage());
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    // The next run of whole records, as a view of the mapped region rather than a copy. Returns null at the end of the
+    // log or of its last whole record.
+    private static ByteBuffer nextChunk(LogWindow window) throws IOException {
+        if (!window.fill()) {
+            return null;
+        }
+        ByteBuffer buffer = window.buffer();
+        int start = buffer.position();
+        int records = 0;
+        try {
+            for (int size; records < CHUNK_RECORDS && (size = WALCodec.recordSize(buffer)) >= 0; records++) {
+                buffer.position(buffer.position() + size);
+            }
+        } catch (InvalidLogOperationException e) {
+            // end the chunk before the corrupt record, which the next call reports
+            if (records == 0) {
+                throw e;
+            }
+        }
+        return buffer.duplicate().position(start).limit(buffer.position());
+    }
+
+    private static DecodedChunk decode(ByteBuffer chunk, Checksum crc) {
+        List<LoggingInfo> records = new ArrayList<>(CHUNK_RECORDS);
+        try {
+            for (LoggingInfo info = WALCodec.decode(chunk, crc); info != null; info = WALCodec.decode(chunk, crc)) {
+                records.add(info);
+            }
+            return new DecodedChunk(records, null);
+        } catch (InvalidLogOperationException e) {
+            return new DecodedChunk(records, e);
+        }
+    }
+
+    // returns false when the chunk holds a corrupt record, after which nothing more is read
+    private static boolean assemble(Future<DecodedChunk> future, TransactionAssembler assembler) throws IOException {
+        DecodedChunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the WAL", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to decode the WAL", e.getCause());
+        }
+        chunk.records().forEach(assembler::accept);
+        if (chunk.error() != null) {
+            System.out.println(chunk.error().getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private record DecodedChunk(List<LoggingInfo> records, InvalidLogOperationException error) {}
+}
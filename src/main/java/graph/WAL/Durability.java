@@ -0,0 +1,10 @@
+package graph.WAL;
+
+// When a commit returns relative to its records reaching the disk. SYNC waits for a force covering the commit, GROUP
+// returns once the records are written and forces at most a bounded time or number of commits later, and ASYNC leaves
+// the force to the OS; a crash may lose GROUP and ASYNC commits that returned but were not forced yet.
+public enum Durability {
+    SYNC,
+    GROUP,
+    ASYNC;
+}
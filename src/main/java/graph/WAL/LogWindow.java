@@ -0,0 +1,94 @@
+package graph.WAL;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Checksum;
+
+// A window sliding over a binary log by mapping it a region at a time, so that records are checked and decoded
+// straight from the page cache without being copied onto the heap first. Regions start at a record boundary and are
+// only made larger than the region size to hold a record larger than that. A region stays mapped for as long as a
+// buffer taken from it is referenced.
+class LogWindow implements AutoCloseable {
+
+    private static final long REGION_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+    private int version;
+    private long regionStart;
+    private ByteBuffer buffer;
+
+    private LogWindow(FileChannel channel, long regionSize) throws IOException {
+        this.channel = channel;
+        this.regionSize = regionSize;
+        // the log as it was when opened; anything appended later is not read
+        this.size = channel.size();
+    }
+
+    // opens the log past its header, or past the part of it a checkpoint at the given position covers
+    static LogWindow open(Path log, WALPosition from) throws IOException {
+        return open(log, from, REGION_SIZE);
+    }
+
+    static LogWindow open(Path log, WALPosition from, long regionSize) throws IOException {
+        LogWindow window = new LogWindow(FileChannel.open(log, StandardOpenOption.READ), regionSize);
+        try {
+            window.map(0, regionSize);
+            window.version = WALCodec.readVersion(window.buffer);
+            long logId = WALCodec.readHeader(window.buffer);
+            // a position in another log means that log was replaced after the checkpoint, so all of this one is newer
+            if (from != null && from.getLogId() == logId && from.getOffset() > window.buffer.position()) {
+                window.map(Math.min(from.getOffset(), window.size), regionSize);
+            }
+            return window;
+        } catch (IOException | RuntimeException e) {
+            window.close();
+            throw e;
+        }
+    }
+
+    // a checksum for the records of this log's version
+    Checksum newChecksum() {
+        return WALCodec.newChecksum(version);
+    }
+
+    // the mapped region, positioned at the next record
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    // the offset in the log of the next record
+    long position() {
+        return regionStart + buffer.position();
+    }
+
+    // Makes sure the region holds the whole of the next record, mapping the next region as needed. Returns false at
+    // the end of the log, including when it ends inside a record.
+    boolean fill() throws IOException {
+        while (WALCodec.recordSize(buffer) < 0) {
+            long recordStart = regionStart + buffer.position();
+            long needed = buffer.remaining() < WALCodec.RECORD_HEADER_SIZE
+                    ? WALCodec.RECORD_HEADER_SIZE
+                    : WALCodec.RECORD_HEADER_SIZE + (long) buffer.getInt(buffer.position());
+            if (needed > size - recordStart) {
+                return false;
+            }
+            map(recordStart, Math.max(regionSize, needed));
+        }
+        return true;
+    }
+
+    private void map(long start, long length) throws IOException {
+        regionStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(length, size - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
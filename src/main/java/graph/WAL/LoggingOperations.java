@@ -13,5 +13,7 @@ public enum LoggingOperations {
     REMOVE_EDGE,
     DELETE_EDGE,
     BEGIN_TRANSACTION,
-    COMMIT;
+    COMMIT,
+    // the records hold the ordinal, so new operations go last
+    DELETE_GRAPH;
 }
@@ -0,0 +1,33 @@
+package graph.WAL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static graph.WAL.LoggingOperations.BEGIN_TRANSACTION;
+import static graph.WAL.LoggingOperations.COMMIT;
+
+// Groups records read in log order into transactions, handing each one on when its COMMIT arrives. Records outside a
+// BEGIN..COMMIT pair are dropped, as is a transaction that is never committed.
+class TransactionAssembler {
+
+    private final Consumer<List<LoggingInfo>> sink;
+    private List<LoggingInfo> transaction;
+
+    TransactionAssembler(Consumer<List<LoggingInfo>> sink) {
+        this.sink = sink;
+    }
+
+    void accept(LoggingInfo info) {
+        if (info.getOperation() == BEGIN_TRANSACTION) {
+            transaction = new ArrayList<>();
+            transaction.add(info);
+        } else if (transaction != null) {
+            transaction.add(info);
+            if (info.getOperation() == COMMIT) {
+                sink.accept(transaction);
+                transaction = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package graph.WAL;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// The appender thread a WALWriter hands its writing to once started. Committing threads claim the next slot of a
+// pre-allocated ring, publish their encoded transaction in it and wait on its future, so that nothing but the claim
+// is shared between them. The appender drains the published slots in claim order into large sequential writes,
+// forcing a batch when a SYNC commit is in it or the GROUP limits are reached, and forces the GROUP commits left
+// behind once it runs out of work. A committing thread that finds the ring full waits for a slot to be freed.
+final class WALAppender implements Runnable {
+
+    private static final int INITIAL_BATCH_SIZE = 64 << 10;
+    private static final int MAX_BATCH_SIZE = 1 << 20;
+    private static final int FULL_RING_SPINS = 64;
+    private static final long FULL_RING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    // how soon the appender tries again to force GROUP commits when a checkpoint held it off
+    private static final long CHECKPOINT_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final WALWriter writer;
+    private final Slot[] slots;
+    private final int mask;
+    // the sequence last published in each slot; a slot holds sequence s once published.get(s & mask) == s
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final Thread thread;
+    private volatile long consumed;
+    private volatile boolean parked;
+    private volatile boolean stopping;
+    private volatile IOException failure;
+
+    // only touched by the appender thread
+    private ByteBuffer batch = ByteBuffer.allocateDirect(INITIAL_BATCH_SIZE);
+    private final Set<String> batchGraphIds = new HashSet<>();
+    private boolean batchSync;
+    private int batchGroupCommits;
+    private int unforcedGroupCommits;
+    private long oldestUnforcedGroupCommit;
+    private boolean unforcedWrites;
+
+    private WALAppender(WALWriter writer, int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Appender ring capacity must be a power of two");
+        }
+        this.writer = writer;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            published.set(i, -1);
+        }
+        this.thread = new Thread(this, "wal-appender");
+        thread.setDaemon(true);
+    }
+
+    static WALAppender start(WALWriter writer, int capacity) {
+        WALAppender appender = new WALAppender(writer, capacity);
+        appender.thread.start();
+        return appender;
+    }
+
+    // publishes the records and waits until they are as durable as the mode asks for
+    void append(WALRecordBuffer records, Durability mode) throws IOException {
+        if (failure != null) {
+            throw new IOException("WAL is unusable after a failed write", failure);
+        }
+        long sequence = claimed.getAndIncrement();
+        // the ring is full until the appender has written what is ahead; spinning long would take its processor
+        for (int spins = 0; sequence - consumed >= slots.length; spins++) {
+            if (spins < FULL_RING_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(FULL_RING_PARK_NANOS);
+            }
+        }
+        int index = (int) sequence & mask;
+        Slot slot = slots[index];
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        slot.records = records;
+        slot.mode = mode;
+        slot.done = done;
+        published.set(index, sequence);
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to write WAL batch", e.getCause());
+        }
+    }
+
+    // called by a checkpoint, which makes what a failed write lost irrelevant
+    void clearFailure() {
+        failure = null;
+    }
+
+    // drains what has been published and stops the thread; no commit may be in flight or start
+    void stop() throws InterruptedException {
+        stopping = true;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    @Override
+    public void run() {
+        long next = 0;
+        while (true) {
+            int drained = drain(next);
+            if (drained > 0) {
+                complete(next, drained, write());
+                next += drained;
+                consumed = next;
+            } else if (stopping && claimed.get() == next) {
+                // the writer being closed holds off checkpoints
+                if (unforcedWrites && failure == null) {
+                    try {
+                        writer.force();
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                return;
+            } else {
+                waitForWork(next);
+            }
+        }
+    }
+
+    // copies the published slots from the given sequence on into the batch, up to the batch size
+    private int drain(long next) {
+        batch.clear();
+        batchGraphIds.clear();
+        batchSync = false;
+        batchGroupCommits = 0;
+        int drained = 0;
+        for (long sequence = next; published.get((int) sequence & mask) == sequence; sequence++, drained++) {
+            WALRecordBuffer records = slots[(int) sequence & mask].records;
+            if (drained > 0 && batch.position() + records.byteSize() > MAX_BATCH_SIZE) {
+                break;
+            }
+            if (batch.remaining() < records.byteSize()) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(batch.capacity() * 2, batch.position() + records.byteSize()));
+                batch = larger.put(batch.flip());
+            }
+            records.copyTo(batch);
+            batchGraphIds.addAll(records.graphIds());
+            Durability mode = slots[(int) sequence & mask].mode;
+            if (mode == Durability.SYNC) {
+                batchSync = true;
+            } else if (mode == Durability.GROUP) {
+                if (unforcedGroupCommits == 0 && batchGroupCommits == 0) {
+                    oldestUnforcedGroupCommit = System.nanoTime();
+                }
+                batchGroupCommits++;
+            }
+        }
+        return drained;
+    }
+
+    // writes the drained batch; returns the error that keeps it from being durable, if any
+    private IOException write() {
+        if (failure != null) {
+            return failure;
+        }
+        int groupCommits = unforcedGroupCommits + batchGroupCommits;
+        boolean force = batchSync || groupCommits >= writer.groupForceCommits()
+                || groupCommits > 0 && System.nanoTime() - oldestUnforcedGroupCommit >= writer.groupForceNanos();
+        try {
+            if (writer.writeBatch(batch.flip(), batchGraphIds, force)) {
+                writer.countForce();
+                unforcedGroupCommits = 0;
+                unforcedWrites = false;
+            } else {
+                unforcedGroupCommits = groupCommits;
+                unforcedWrites = true;
+            }
+            return null;
+        } catch (IOException e) {
+            // a failed write may leave a torn record behind, after which nothing appended would be readable
+            failure = e;
+            return e;
+        }
+    }
+
+    private void complete(long next, int drained, IOException error) {
+        for (long sequence = next; sequence < next + drained; sequence++) {
+            Slot slot = slots[(int) sequence & mask];
+            CompletableFuture<Void> done = slot.done;
+            slot.records = null;
+            slot.done = null;
+            if (error == null) {
+                done.complete(null);
+            } else {
+                done.completeExceptionally(error);
+            }
+        }
+    }
+
+    // parks until the next slot is published, or until the oldest unforced GROUP commit is due
+    private void waitForWork(long next) {
+        long wait = 0;
+        if (unforcedGroupCommits > 0 && failure == null) {
+            wait = oldestUnforcedGroupCommit + writer.groupForceNanos() - System.nanoTime();
+            if (wait <= 0) {
+                if (!force()) {
+                    wait = CHECKPOINT_RETRY_NANOS;
+                } else {
+                    return;
+                }
+            }
+        }
+        parked = true;
+        // a slot published before parked was set would not unpark the thread
+        if (published.get((int) next & mask) != next && !stopping) {
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        parked = false;
+    }
+
+    private boolean force() {
+        try {
+            if (!writer.forceUnlessCheckpointing()) {
+                return false;
+            }
+            unforcedGroupCommits = 0;
+            unforcedWrites = false;
+            return true;
+        } catch (IOException e) {
+            // commits that already returned may be lost, later ones must not pretend otherwise
+            failure = e;
+            return true;
+        }
+    }
+
+    private static final class Slot {
+        private WALRecordBuffer records;
+        private Durability mode;
+        private CompletableFuture<Void> done;
+    }
+}
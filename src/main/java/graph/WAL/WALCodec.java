@@ -0,0 +1,227 @@
+package graph.WAL;
+
+import graph.exceptions.InvalidLogOperationException;
+import graph.storage.AttributeCodec;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+
+// Binary WAL format. A log starts with a magic number, a version and a random id naming this log file (so that a
+// checkpoint can tell whether a position refers to the current log or to one it has since replaced), followed by
+// records of the form
+// [payload length][crc32c of payload][payload]. The payload is the operation, a mask of the fields present and then
+// those fields, with strings, values and attribute maps in the type tagged encoding of AttributeCodec.
+//
+// Encoding and decoding work in place on the caller's buffer, heap or direct, and checksum with a CRC32C reused per
+// thread, so that logging an operation allocates nothing. Logs of version 2 and older checksum with CRC32.
+public final class WALCodec {
+
+    static final int MAGIC = 0x4757414C;
+    static final int VERSION = 3;
+    static final int HEADER_SIZE = 16;
+    // version 1 logs have no id
+    private static final int V1_HEADER_SIZE = 8;
+    private static final int LAST_CRC32_VERSION = 2;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final ThreadLocal<CRC32C> ENCODER_CRC = ThreadLocal.withInitial(CRC32C::new);
+
+    private static final int ID = 1;
+    private static final int KEY = 1 << 1;
+    private static final int VALUE = 1 << 2;
+    private static final int SOURCE = 1 << 3;
+    private static final int TARGET = 1 << 4;
+    private static final int WEIGHT = 1 << 5;
+    private static final int ATTRIBUTES = 1 << 6;
+
+    private static final LoggingOperations[] OPERATIONS = LoggingOperations.values();
+
+    private WALCodec() {}
+
+    static void writeHeader(ByteBuffer buffer, long logId) {
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(logId);
+    }
+
+    public static boolean isBinaryLog(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < V1_HEADER_SIZE) {
+            return false;
+        }
+        return readHeader(path).getInt(0) == MAGIC;
+    }
+
+    // the id of a binary log file
+    public static long readLogId(Path path) throws IOException {
+        return readHeader(readHeader(path));
+    }
+
+    static int readVersion(Path path) throws IOException {
+        return readVersion(readHeader(path));
+    }
+
+    private static ByteBuffer readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {}
+            return header.flip();
+        }
+    }
+
+    // checks the header, moves the buffer past it and returns the log id
+    static long readHeader(ByteBuffer buffer) {
+        int version = readVersion(buffer);
+        buffer.position(buffer.position() + V1_HEADER_SIZE);
+        if (version == 1) {
+            return 0;
+        }
+        if (buffer.remaining() < Long.BYTES) {
+            throw new InvalidLogOperationException("truncated WAL header");
+        }
+        return buffer.getLong();
+    }
+
+    // the format version of the log whose header is at the buffer's position, which is left unchanged
+    static int readVersion(ByteBuffer buffer) {
+        if (buffer.remaining() < V1_HEADER_SIZE || buffer.getInt(buffer.position()) != MAGIC) {
+            throw new InvalidLogOperationException("not a binary WAL");
+        }
+        int version = buffer.getInt(buffer.position() + 4);
+        if (version < 1 || version > VERSION) {
+            throw new InvalidLogOperationException("unsupported WAL version " + version);
+        }
+        return version;
+    }
+
+    // a checksum for the records of a log of the given version
+    static Checksum newChecksum(int version) {
+        return version <= LAST_CRC32_VERSION ? new CRC32() : new CRC32C();
+    }
+
+    // appends one record at the buffer's position; throws BufferOverflowException when the buffer is too small
+    public static void encode(LoggingInfo info, ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            throw new BufferOverflowException();
+        }
+        buffer.position(start + RECORD_HEADER_SIZE);
+        int fields = (info.getId() != null ? ID : 0)
+                | (info.getKey() != null ? KEY : 0)
+                | (info.getValue() != null ? VALUE : 0)
+                | (info.getSource() != null ? SOURCE : 0)
+                | (info.getTarget() != null ? TARGET : 0)
+                | (info.getWeight() != null ? WEIGHT : 0)
+                | (info.getAttributes() != null ? ATTRIBUTES : 0);
+        buffer.put((byte) info.getOperation().ordinal()).put((byte) fields);
+        if ((fields & ID) != 0) AttributeCodec.encodeString(info.getId(), buffer);
+        if ((fields & KEY) != 0) AttributeCodec.encodeString(info.getKey(), buffer);
+        if ((fields & VALUE) != 0) AttributeCodec.encodeValue(info.getValue(), buffer);
+        if ((fields & SOURCE) != 0) AttributeCodec.encodeString(info.getSource(), buffer);
+        if ((fields & TARGET) != 0) AttributeCodec.encodeString(info.getTarget(), buffer);
+        if ((fields & WEIGHT) != 0) buffer.putDouble(info.getWeight());
+        if ((fields & ATTRIBUTES) != 0) AttributeCodec.encode(info.getAttributes(), buffer);
+
+        int payloadStart = start + RECORD_HEADER_SIZE;
+        int end = buffer.position();
+        buffer.putInt(start, end - payloadStart).putInt(start + 4, checksum(buffer, payloadStart, end, ENCODER_CRC.get()));
+    }
+
+    // the checksum of buffer[from, to), leaving the buffer's position and limit as they were
+    private static int checksum(ByteBuffer buffer, int from, int to, Checksum crc) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        crc.reset();
+        crc.update(buffer.limit(to).position(from));
+        buffer.limit(limit).position(position);
+        return (int) crc.getValue();
+    }
+
+    // the size of the record at the buffer's position including its header, or -1 when the buffer ends inside it
+    static int recordSize(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return -1;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        if (length < 2) {
+            throw new InvalidLogOperationException("record length " + length + " at offset " + start);
+        }
+        return buffer.remaining() - RECORD_HEADER_SIZE < length ? -1 : RECORD_HEADER_SIZE + length;
+    }
+
+    // the operation of the whole record at the buffer's position, read without checking the record
+    static LoggingOperations peekOperation(ByteBuffer buffer) {
+        int operation = buffer.get(buffer.position() + RECORD_HEADER_SIZE);
+        if (operation < 0 || operation >= OPERATIONS.length) {
+            throw new InvalidLogOperationException("operation " + operation + " at offset " + buffer.position());
+        }
+        return OPERATIONS[operation];
+    }
+
+    // checks the record at the buffer's position as decode does and moves past it without decoding it; returns false
+    // when the buffer ends inside it
+    static boolean skip(ByteBuffer buffer, Checksum crc) {
+        int size = recordSize(buffer);
+        if (size < 0) {
+            return false;
+        }
+        int start = buffer.position();
+        if (checksum(buffer, start + RECORD_HEADER_SIZE, start + size, crc) != buffer.getInt(start + 4)) {
+            throw new InvalidLogOperationException("checksum mismatch at offset " + start);
+        }
+        buffer.position(start + size);
+        return true;
+    }
+
+    // decodes a record of the current version
+    public static LoggingInfo decode(ByteBuffer buffer) {
+        return decode(buffer, ENCODER_CRC.get());
+    }
+
+    // Reads the record at the buffer's position with the checksum of its log's version, or returns null when the
+    // buffer ends inside it (a torn write). The payload is decoded in place with the limit moved to its end.
+    public static LoggingInfo decode(ByteBuffer buffer, Checksum crc) {
+        int size = recordSize(buffer);
+        if (size < 0) {
+            return null;
+        }
+        int start = buffer.position();
+        int payloadStart = start + RECORD_HEADER_SIZE;
+        int end = start + size;
+        if (checksum(buffer, payloadStart, end, crc) != buffer.getInt(start + 4)) {
+            throw new InvalidLogOperationException("checksum mismatch at offset " + start);
+        }
+
+        int limit = buffer.limit();
+        ByteBuffer payload = buffer.limit(end).position(payloadStart);
+        try {
+            int operation = payload.get();
+            if (operation < 0 || operation >= OPERATIONS.length) {
+                throw new InvalidLogOperationException("operation " + operation + " at offset " + start);
+            }
+            int fields = payload.get();
+            LoggingInfo.LoggingInfoBuilder builder = aLoggingInfo(OPERATIONS[operation]);
+            if ((fields & ID) != 0) builder.withId(AttributeCodec.decodeString(payload));
+            if ((fields & KEY) != 0) builder.withKey(AttributeCodec.decodeString(payload));
+            if ((fields & VALUE) != 0) builder.withValue(AttributeCodec.decodeValue(payload));
+            if ((fields & SOURCE) != 0) builder.withSource(AttributeCodec.decodeString(payload));
+            if ((fields & TARGET) != 0) builder.withTarget(AttributeCodec.decodeString(payload));
+            if ((fields & WEIGHT) != 0) builder.withWeight(payload.getDouble());
+            if ((fields & ATTRIBUTES) != 0) builder.withAttributes(AttributeCodec.decode(payload));
+            return builder.build();
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new InvalidLogOperationException("corrupt record at offset " + start);
+        } finally {
+            buffer.limit(limit).position(end);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package graph.WAL;
 
+// Text form of a log entry, as written by older versions; only kept to describe legacy logs
 public class WALFormatter {
 
     public String formatLogEntry(LoggingInfo loggingInfo) {
@@ -9,7 +10,7 @@ public class WALFormatter {
             case UPDATE_NODE_ATTRS -> formatUpdateNodeAttrs(loggingInfo);
             case UPDATE_NODE_ATTR, UPDATE_EDGE_PROP -> formatUpdateKeyValue(loggingInfo);
             case REMOVE_NODE, REMOVE_EDGE -> formatRemove(loggingInfo);
-            case DELETE_NODE, DELETE_EDGE -> formatDelete(loggingInfo);
+            case DELETE_NODE, DELETE_EDGE, DELETE_GRAPH -> formatDelete(loggingInfo);
             case ADD_EDGE -> formatAddEdge(loggingInfo);
             case UPDATE_EDGE_PROPS -> formatUpdateEdgeProps(loggingInfo);
             case UPDATE_EDGE_WEIGHT -> formatUpdateEdgeWeight(loggingInfo);
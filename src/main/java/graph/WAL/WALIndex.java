@@ -0,0 +1,296 @@
+package graph.WAL;
+
+import graph.exceptions.InvalidLogOperationException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.Checksum;
+
+import static graph.WAL.LoggingOperations.*;
+
+// Where the committed transactions of each graph are in a binary log, so that one graph can be read without reading
+// the others. Building the index checks every record as a reader would, stopping at the first corrupt one, but only
+// decodes the BEGIN_TRANSACTION records naming the graphs; the index then holds one offset per transaction. The files
+// of the log are held open until the index is closed, so that sealing, compacting or checkpointing the log meanwhile
+// does not change what the index reads. Anything appended after the index was built is not part of it.
+public final class WALIndex implements AutoCloseable {
+
+    private static final int READ_SIZE = 1 << 20;
+    // a transaction's position is its file in the high bits and its offset in that file in the low ones
+    private static final int OFFSET_BITS = 40;
+
+    private final List<LogFile> files = new ArrayList<>();
+    private final Map<String, Transactions> graphs = new HashMap<>();
+
+    private WALIndex() {}
+
+    // Indexes what a reader would read after the given checkpoint position, or all of the log when it is null.
+    // Returns null when part of that is a text log written by an older version, which cannot be indexed.
+    public static WALIndex build(Path log, WALPosition from) throws IOException {
+        if (from == null && Files.exists(WALWriter.legacyLog(log)) || Files.exists(log) && !WALCodec.isBinaryLog(log)) {
+            return null;
+        }
+        List<Path> paths = WALSegments.sealed(log);
+        if (Files.exists(log)) {
+            paths.add(log);
+        }
+        WALIndex index = new WALIndex();
+        try {
+            List<Path> read = BinaryWALReader.startingAt(paths, from);
+            for (int i = 0; i < read.size(); i++) {
+                index.files.add(LogFile.open(read.get(i), i == 0 ? from : null));
+            }
+            index.scan();
+            return index;
+        } catch (IOException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+    }
+
+    private void scan() throws IOException {
+        try {
+            for (int file = 0; file < files.size(); file++) {
+                scan(file);
+            }
+        } catch (InvalidLogOperationException e) {
+            // nothing after a corrupt record can be trusted
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void scan(int file) throws IOException {
+        LogFile logFile = files.get(file);
+        RecordCursor cursor = new RecordCursor(logFile, logFile.start);
+        Checksum crc = logFile.newChecksum();
+        String graphId = null;
+        long position = 0;
+        int records = 0;
+        boolean deletion = false;
+        while (cursor.fill()) {
+            ByteBuffer buffer = cursor.buffer();
+            long offset = cursor.offset();
+            LoggingOperations operation = WALCodec.peekOperation(buffer);
+            if (operation == BEGIN_TRANSACTION) {
+                graphId = WALCodec.decode(buffer, crc).getSource();
+                position = (long) file << OFFSET_BITS | offset;
+                records = 1;
+                deletion = false;
+                continue;
+            }
+            WALCodec.skip(buffer, crc);
+            if (graphId == null) {
+                continue;
+            }
+            deletion |= records++ == 1 && operation == DELETE_GRAPH;
+            if (operation == COMMIT) {
+                Transactions transactions = graphs.computeIfAbsent(graphId, id -> new Transactions());
+                if (deletion) {
+                    transactions.delete();
+                } else {
+                    transactions.add(position);
+                }
+                graphId = null;
+            }
+        }
+    }
+
+    // the graphs with transactions in the indexed part of the log, deleted ones included
+    public Set<String> graphIds() {
+        return Collections.unmodifiableSet(graphs.keySet());
+    }
+
+    // whether the graph was deleted in the indexed part of the log, so that only what it committed since counts
+    public boolean isDeleted(String graphId) {
+        Transactions transactions = graphs.get(graphId);
+        return transactions != null && transactions.deleted;
+    }
+
+    // whether the graph exists as far as the indexed part of the log goes, given whether it existed before it
+    public boolean exists(String graphId, boolean existedBefore) {
+        Transactions transactions = graphs.get(graphId);
+        if (transactions == null) {
+            return existedBefore;
+        }
+        return transactions.count > 0 || existedBefore && !transactions.deleted;
+    }
+
+    // Hands the graph's transactions committed since it was last deleted to the sink in log order. May be called
+    // from several threads.
+    public synchronized void readTransactions(String graphId, Consumer<List<LoggingInfo>> sink) throws IOException {
+        Transactions transactions = graphs.get(graphId);
+        if (transactions == null) {
+            return;
+        }
+        TransactionAssembler assembler = new TransactionAssembler(sink);
+        RecordCursor cursor = null;
+        Checksum crc = null;
+        for (int i = 0; i < transactions.count; i++) {
+            int file = (int) (transactions.positions[i] >>> OFFSET_BITS);
+            long offset = transactions.positions[i] & ((1L << OFFSET_BITS) - 1);
+            if (cursor == null || cursor.file != files.get(file)) {
+                cursor = new RecordCursor(files.get(file), offset);
+                crc = files.get(file).newChecksum();
+            } else {
+                cursor.seek(offset);
+            }
+            // the scan saw every record of the transaction whole, up to its COMMIT
+            LoggingInfo info;
+            do {
+                if (!cursor.fill()) {
+                    throw new EOFException("WAL transaction cut short at offset " + cursor.offset());
+                }
+                info = WALCodec.decode(cursor.buffer(), crc);
+                assembler.accept(info);
+            } while (info.getOperation() != COMMIT);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (LogFile file : files) {
+            try {
+                file.channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static final class Transactions {
+
+        private long[] positions = new long[4];
+        private int count;
+        private boolean deleted;
+
+        void add(long position) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            positions[count++] = position;
+        }
+
+        // what the graph committed before it was deleted no longer counts, nor does a checkpoint of it
+        void delete() {
+            positions = new long[4];
+            count = 0;
+            deleted = true;
+        }
+    }
+
+    // an open file of the log, with the part of it that is read
+    private static final class LogFile {
+
+        private final FileChannel channel;
+        private final int version;
+        private final long start;
+        private final long size;
+
+        private LogFile(FileChannel channel, int version, long start, long size) {
+            this.channel = channel;
+            this.version = version;
+            this.start = start;
+            this.size = size;
+        }
+
+        // past its header, or past the part a checkpoint at the given position covers
+        static LogFile open(Path path, WALPosition from) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                ByteBuffer header = ByteBuffer.allocate(WALCodec.HEADER_SIZE);
+                while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {}
+                header.flip();
+                int version = WALCodec.readVersion(header);
+                long logId = WALCodec.readHeader(header);
+                long start = header.position();
+                if (from != null && from.getLogId() == logId && from.getOffset() > start) {
+                    start = Math.min(from.getOffset(), size);
+                }
+                return new LogFile(channel, version, start, size);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        Checksum newChecksum() {
+            return WALCodec.newChecksum(version);
+        }
+    }
+
+    // Reads the records of a log file forward from an offset with positional reads into a reused buffer, so that the
+    // file is read the same whether or not it has since been renamed or deleted.
+    private static final class RecordCursor {
+
+        private final LogFile file;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(READ_SIZE).limit(0);
+        private long bufferStart;
+
+        RecordCursor(LogFile file, long offset) {
+            this.file = file;
+            seek(offset);
+        }
+
+        // moves to the given offset, keeping what has been read if it is in there
+        void seek(long offset) {
+            if (offset >= bufferStart && offset <= bufferStart + buffer.limit()) {
+                buffer.position((int) (offset - bufferStart));
+            } else {
+                bufferStart = offset;
+                buffer.limit(0);
+            }
+        }
+
+        long offset() {
+            return bufferStart + buffer.position();
+        }
+
+        ByteBuffer buffer() {
+            return buffer;
+        }
+
+        // Makes sure the buffer holds the whole of the next record. Returns false at the end of the file, including
+        // when it ends inside a record.
+        boolean fill() throws IOException {
+            while (WALCodec.recordSize(buffer) < 0) {
+                long recordStart = offset();
+                long needed = buffer.remaining() < WALCodec.RECORD_HEADER_SIZE
+                        ? WALCodec.RECORD_HEADER_SIZE
+                        : WALCodec.RECORD_HEADER_SIZE + (long) buffer.getInt(buffer.position());
+                if (needed > file.size - recordStart) {
+                    return false;
+                }
+                if (needed > buffer.capacity()) {
+                    buffer = ByteBuffer.allocateDirect((int) needed);
+                }
+                buffer.clear().limit((int) Math.min(buffer.capacity(), file.size - recordStart));
+                bufferStart = recordStart;
+                while (buffer.hasRemaining()) {
+                    if (file.channel.read(buffer, bufferStart + buffer.position()) < 0) {
+                        throw new EOFException("WAL file shorter than when it was indexed");
+                    }
+                }
+                buffer.flip();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package graph.WAL;
+
+// A point in the WAL: an offset into the log file with the given id. Checkpoints record the position they cover.
+public final class WALPosition {
+
+    private final long logId;
+    private final long offset;
+
+    private WALPosition(long logId, long offset) {
+        this.logId = logId;
+        this.offset = offset;
+    }
+
+    public static WALPosition of(long logId, long offset) {
+        return new WALPosition(logId, offset);
+    }
+
+    public long getLogId() {
+        return logId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WALPosition other && logId == other.logId && offset == other.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(logId) * 31 + Long.hashCode(offset);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(logId) + "@" + offset;
+    }
+}
@@ -6,8 +6,12 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 import static graph.WAL.LoggingOperations.BEGIN_TRANSACTION;
 import static graph.WAL.LoggingOperations.COMMIT;
@@ -23,13 +27,57 @@ public class WALReader {
     }
 
     public static WALReader defaultWALReader() throws FileNotFoundException {
-        LineReader lineReader = new BufferedLineReader(new BufferedReader(new FileReader("log")));
-        return new WALReader(new WALParser(), lineReader);
+        return forLog(Path.of("log"));
     }
 
+    // reads a binary log with its sealed segments, or a text log written by an older version, after the text log it
+    // replaced if there is one
+    public static WALReader forLog(Path log) throws FileNotFoundException {
+        if (!Files.exists(log) && !Files.exists(WALWriter.legacyLog(log)) && !hasSealedSegments(log)) {
+            throw new FileNotFoundException(log.toString());
+        }
+        return new BinaryWALReader(log, null);
+    }
+
+    private static boolean hasSealedSegments(Path log) {
+        try {
+            return !WALSegments.sealed(log).isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // reads what was committed after the checkpoint that covers the given position
+    public static WALReader forLog(Path log, WALPosition checkpointed) {
+        return new BinaryWALReader(log, checkpointed);
+    }
+
+    // reads the given sealed segments of the log, oldest first, after the legacy text log unless a checkpoint covers it
+    public static WALReader forSegments(Path log, List<Path> segments, WALPosition checkpointed) {
+        return new BinaryWALReader(log, checkpointed, segments);
+    }
+
+    static void readTextLog(Path log, Consumer<List<LoggingInfo>> sink) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(log.toFile()))) {
+            new WALReader(new WALParser(), new BufferedLineReader(reader)).readTransactions(sink);
+        }
+    }
+
+    // hands each committed transaction to the sink in log order; readers that can decode in parallel use the decoders
+    public void readTransactions(ExecutorService decoders, Consumer<List<LoggingInfo>> sink) throws IOException {
+        readTransactions(sink);
+    }
+
+    // collects every committed transaction; recovery streams them with readTransactions instead
     public List<List<LoggingInfo>> readFromFile() throws IOException {
-        List<String> transaction = new LinkedList<>();
         List<List<LoggingInfo>> loggingInfos = new LinkedList<>();
+        readTransactions(loggingInfos::add);
+        return loggingInfos;
+    }
+
+    // hands each committed transaction to the sink as soon as its COMMIT has been read
+    public void readTransactions(Consumer<List<LoggingInfo>> sink) throws IOException {
+        List<String> transaction = new LinkedList<>();
 
         for (String line = reader.readLine(); line != null; line = reader.readLine()) {
             if (line.startsWith(BEGIN_TRANSACTION.name())) {
@@ -37,16 +85,17 @@ public class WALReader {
                 transaction.add(line);
             } else if (line.startsWith(COMMIT.name())) {
                 transaction.add(line);
+                List<LoggingInfo> parsed;
                 try {
-                    loggingInfos.add(parser.parseTransaction(transaction));
+                    parsed = parser.parseTransaction(transaction);
                 } catch (InvalidLogOperationException e) {
                     System.out.println(e.getMessage());
                     break;
                 }
+                sink.accept(parsed);
             } else {
                 transaction.add(line);
             }
         }
-        return loggingInfos;
     }
 }
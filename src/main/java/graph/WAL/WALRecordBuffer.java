@@ -0,0 +1,70 @@
+package graph.WAL;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// The encoded records of one transaction, kept in memory until commit hands them to WALWriter as one contiguous
+// append. Encoding when the operation happens also snapshots its attribute maps, which the caller may go on to
+// change.
+public class WALRecordBuffer {
+
+    private static final int INITIAL_SIZE = 256;
+
+    private final Set<String> graphIds = new HashSet<>(2);
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_SIZE);
+    private int records;
+
+    public void append(LoggingInfo record) {
+        int start = buffer.position();
+        while (true) {
+            try {
+                WALCodec.encode(record, buffer);
+                records++;
+                if (record.getOperation() == LoggingOperations.BEGIN_TRANSACTION) {
+                    graphIds.add(record.getSource());
+                }
+                return;
+            } catch (BufferOverflowException e) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                larger.put(buffer.flip().limit(start));
+                buffer = larger;
+            }
+        }
+    }
+
+    public int recordCount() {
+        return records;
+    }
+
+    // the graphs whose transactions the buffer holds, for the index of the segment they are written to
+    Set<String> graphIds() {
+        return graphIds;
+    }
+
+    public int byteSize() {
+        return buffer.position();
+    }
+
+    // decodes the buffered records again
+    public List<LoggingInfo> records() {
+        List<LoggingInfo> decoded = new ArrayList<>(records);
+        ByteBuffer contents = contents();
+        for (LoggingInfo info = WALCodec.decode(contents); info != null; info = WALCodec.decode(contents)) {
+            decoded.add(info);
+        }
+        return decoded;
+    }
+
+    ByteBuffer contents() {
+        return buffer.duplicate().flip();
+    }
+
+    // copies the records to the target's position without allocating
+    void copyTo(ByteBuffer target) {
+        target.put(buffer.array(), buffer.arrayOffset(), buffer.position());
+    }
+}
@@ -0,0 +1,88 @@
+package graph.WAL;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The sealed segments of a log. The active segment is the log file itself; when it reaches the segment size it is
+// renamed to <log>.<sequence> and a new one is started. Next to each sealed segment, <segment>.graphs lists the ids
+// of the graphs it holds transactions for, so that the compactor can leave the graphs no segment touches as they are.
+// Sealed segments never change again and can be archived or deleted once a checkpoint, or the compactor, covers them.
+public final class WALSegments {
+
+    private static final String INDEX_SUFFIX = ".graphs";
+
+    private WALSegments() {}
+
+    static Path segment(Path log, long sequence) {
+        return log.resolveSibling(String.format("%s.%08d", log.getFileName(), sequence));
+    }
+
+    static Path index(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + INDEX_SUFFIX);
+    }
+
+    // the sealed segments of the log, oldest first
+    public static List<Path> sealed(Path log) throws IOException {
+        return new ArrayList<>(sealedBySequence(log).values());
+    }
+
+    static long nextSequence(Path log) throws IOException {
+        TreeMap<Long, Path> segments = sealedBySequence(log);
+        return segments.isEmpty() ? 1 : segments.lastKey() + 1;
+    }
+
+    private static TreeMap<Long, Path> sealedBySequence(Path log) throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        Path directory = log.toAbsolutePath().getParent();
+        Pattern name = Pattern.compile(Pattern.quote(log.getFileName().toString()) + "\\.(\\d{8,})");
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                Matcher matcher = name.matcher(entry.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), log.resolveSibling(entry.getFileName()));
+                }
+            }
+        }
+        return segments;
+    }
+
+    static void writeIndex(Path segment, Collection<String> graphIds) throws IOException {
+        Files.write(index(segment), graphIds, StandardCharsets.UTF_8);
+    }
+
+    // the graphs a sealed segment holds transactions for, or null when it has no index and may hold any graph
+    public static Set<String> graphIds(Path segment) throws IOException {
+        Path index = index(segment);
+        return Files.exists(index) ? new HashSet<>(Files.readAllLines(index, StandardCharsets.UTF_8)) : null;
+    }
+
+    static void deleteSealed(Path log) throws IOException {
+        delete(sealed(log));
+    }
+
+    static void delete(List<Path> segments) throws IOException {
+        for (Path segment : segments) {
+            Files.deleteIfExists(index(segment));
+            Files.delete(segment);
+        }
+    }
+
+    static long sealedSize(Path log) throws IOException {
+        long size = 0;
+        for (Path segment : sealed(log)) {
+            size += Files.size(segment);
+        }
+        return size;
+    }
+}
@@ -1,39 +1,680 @@
 package graph.WAL;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import graph.exceptions.InvalidLogOperationException;
+
 import java.io.IOException;
-import java.io.Writer;
-import java.util.zip.CRC32;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.Checksum;
 
+// Appends binary WAL records (see WALCodec) to a log file. A text log left by an older version is moved to
+// <log>.legacy the first time the log is opened for writing, so that the file only ever holds one format.
+//
+// Transactions are made durable with group commit: a committing thread copies its records into the pending batch
+// and then either becomes the leader, which writes everything pending with one write and one force, or waits for
+// the leader whose batch holds its records. Transactions committing while a batch is being forced queue up behind
+// it and go out together in the next one, so the cost of a force is shared by every transaction in the batch.
+//
+// How long a commit waits is up to its durability (see Durability). A SYNC commit waits for a force covering its
+// batch; GROUP and ASYNC commits only wait for the batch to be written. Batches holding GROUP commits are forced once
+// enough GROUP commits are waiting for a force or the oldest has waited long enough, and a flusher thread forces the
+// ones left behind when no further batch comes. SYNC is the default for commits that do not choose.
+//
+// Instead of committing threads taking turns as the leader, an appender thread can be started (see WALAppender) to
+// do all writing; commits then only publish their records to it and wait to hear they are durable.
+//
+// The log file is the active segment of the WAL. Once a batch takes it past the segment size it is sealed (see
+// WALSegments) and a new active segment is started.
+//
+// A checkpoint waits for the commits in flight, lets the caller snapshot the state they produced together with the
+// log position it covers, and then deletes the sealed segments and replaces the log with an empty one, so that
+// recovery only replays what was committed after the latest checkpoint.
+//
+// Between checkpoints, a compactor can fold the sealed segments into the state they leave behind (see compact), so
+// that recovery does not replay history that later records supersede, without holding off commits while it works.
 public class WALWriter implements AutoCloseable {
 
-    private final WALFormatter formatter;
-    private final BufferedWriter writer;
+    public static final Path DEFAULT_LOG = Path.of("log");
+    public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+    public static final long DEFAULT_GROUP_FORCE_MILLIS = 10;
+    public static final int DEFAULT_GROUP_FORCE_COMMITS = 64;
+    public static final int DEFAULT_APPENDER_SLOTS = 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private static WALWriter defaultWriter;
+
+    private final Path log;
+    private final long segmentSize;
+    // held shared from the append of a transaction until it has been applied, and exclusively by a checkpoint
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+    // held by a checkpoint and by a compaction, which both replace the segments and what covers them
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchWritten = lock.newCondition();
+    private FileChannel channel;
+    private Object fileKey;
+    private long logId;
+    // set once the active segment has been sealed, until the next batch or a checkpoint opens a new one
+    private boolean sealed;
+    // only touched by the leader writing a batch, or by a checkpoint
+    private final Set<String> segmentGraphIds = new HashSet<>();
+
+    // guarded by lock; batches are numbered in commit order
+    // direct, so that the channel writes them without copying them off the heap first
+    private ByteBuffer pending = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+    private Set<String> pendingGraphIds = new HashSet<>();
+    private Set<String> spareGraphIds = new HashSet<>();
+    private boolean pendingSync;
+    private int pendingGroupCommits;
+    private long appended;
+    private long written;
+    private long forced;
+    private long forces;
+    // GROUP commits written but not forced yet, and when the oldest of them or of the pending ones was appended
+    private int unforcedGroupCommits;
+    private long oldestUnforcedGroupCommit;
+    private volatile Durability durability = Durability.SYNC;
+    private volatile long groupForceMillis = DEFAULT_GROUP_FORCE_MILLIS;
+    private volatile int groupForceCommits = DEFAULT_GROUP_FORCE_COMMITS;
+    private ScheduledExecutorService flusher;
+    private volatile WALAppender appender;
+    private long failedFrom;
+    private IOException failure;
+    private boolean leaderActive;
+
+    public WALWriter(String filename) throws IOException {
+        this(filename, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public WALWriter(String filename, long segmentSize) throws IOException {
+        if (segmentSize <= WALCodec.HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be larger than the log header");
+        }
+        this.log = Path.of(filename);
+        this.segmentSize = segmentSize;
+        this.channel = openLog(log);
+        this.fileKey = Files.readAttributes(log, BasicFileAttributes.class).fileKey();
+        this.logId = WALCodec.readLogId(log);
+    }
+
+    // the writer shared by every transaction of the process, appending to "log" in the working directory
+    public static synchronized WALWriter defaultWALWriter() throws IOException {
+        if (defaultWriter == null) {
+            defaultWriter = new WALWriter(DEFAULT_LOG.toString());
+        }
+        return defaultWriter;
+    }
+
+    // closes the shared writer, so that the next one opens the log afresh; for tests that start over with a new log
+    public static synchronized void closeDefaultWALWriter() throws Exception {
+        if (defaultWriter != null) {
+            defaultWriter.close();
+            defaultWriter = null;
+        }
+    }
+
+    public static Path legacyLog(Path log) {
+        return log.resolveSibling(log.getFileName() + ".legacy");
+    }
+
+    // synchronized so that writers opening a new log at the same time do not both write the header
+    static synchronized FileChannel openLog(Path log) throws IOException {
+        if (Files.exists(log) && Files.size(log) > 0 && !WALCodec.isBinaryLog(log)) {
+            Files.write(legacyLog(log), Files.readAllBytes(log), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Files.delete(log);
+        } else if (WALCodec.isBinaryLog(log) && WALCodec.readVersion(log) != WALCodec.VERSION) {
+            // records are appended in the current version only, so a log of an older one is sealed as it is
+            Files.move(log, WALSegments.segment(log, WALSegments.nextSequence(log)), StandardCopyOption.ATOMIC_MOVE);
+        } else if (WALCodec.isBinaryLog(log)) {
+            truncateTornTail(log);
+        }
+        FileChannel channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            if (channel.size() == 0) {
+                writeHeader(channel);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    // A crash can leave the log ending inside a record, or in one that fails its checksum. Records appended after it
+    // would be read as part of it, so that readers stop there and never reach them; the log is cut back to the end of
+    // its last whole, valid record instead. A log whose header was cut short is emptied and gets a new one.
+    private static void truncateTornTail(Path log) throws IOException {
+        long end;
+        if (Files.size(log) < WALCodec.HEADER_SIZE) {
+            end = 0;
+        } else {
+            try (LogWindow window = LogWindow.open(log, null)) {
+                Checksum crc = window.newChecksum();
+                try {
+                    while (window.fill() && WALCodec.skip(window.buffer(), crc)) {}
+                } catch (InvalidLogOperationException e) {
+                    // the corrupt record is cut off with everything after it
+                }
+                end = window.position();
+            }
+        }
+        if (end < Files.size(log)) {
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+        }
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(WALCodec.HEADER_SIZE);
+        WALCodec.writeHeader(header, ThreadLocalRandom.current().nextLong());
+        writeFully(channel, header.flip());
+    }
+
+    // the durability of commits that do not choose one
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    // GROUP commits are forced at most maxDelayMillis after they were appended, or once maxCommits of them wait
+    public void setGroupForce(long maxDelayMillis, int maxCommits) {
+        if (maxDelayMillis <= 0 || maxCommits <= 0) {
+            throw new IllegalArgumentException("Group force limits must be positive");
+        }
+        lock.lock();
+        try {
+            groupForceMillis = maxDelayMillis;
+            groupForceCommits = maxCommits;
+            // the next GROUP commit starts the flusher again with the new delay
+            stopFlusher();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the number of times the log was forced to disk
+    long forceCount() {
+        lock.lock();
+        try {
+            return forces;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void startAppender() throws IOException {
+        startAppender(DEFAULT_APPENDER_SLOTS);
+    }
+
+    // Hands all writing to an appender thread draining a ring of the given number of slots, a power of two. It is
+    // started once no commit is in flight and runs until the writer is closed.
+    public void startAppender(int slots) throws IOException {
+        commitLock.writeLock().lock();
+        lock.lock();
+        try {
+            if (appender != null) {
+                return;
+            }
+            appender = WALAppender.start(this, slots);
+            // the appender forces its GROUP commits itself; the ones the leaders left behind are forced now
+            stopFlusher();
+            if (forced < written) {
+                channel.force(false);
+                forced = written;
+                forces++;
+            }
+        } finally {
+            lock.unlock();
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    long groupForceNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(groupForceMillis);
+    }
+
+    int groupForceCommits() {
+        return groupForceCommits;
+    }
 
-    public WALWriter(WALFormatter formatter, String filename) throws IOException {
-        this.formatter = formatter;
-        this.writer = new BufferedWriter(new FileWriter(filename, true));
+    public Path getLog() {
+        return log;
     }
 
-    WALWriter(WALFormatter formatter, Writer writer) {
-        this.formatter = formatter;
-        this.writer = new BufferedWriter(writer);
+    // the size of the WAL a recovery would read, sealed segments included
+    public long logSize() throws IOException {
+        long sealed = WALSegments.sealedSize(log);
+        try {
+            return sealed + Files.size(log);
+        } catch (NoSuchFileException e) {
+            return sealed;
+        }
     }
 
     public void writeToFile(LoggingInfo loggingInfo) throws IOException {
-        String formattedLog = formatter.formatLogEntry(loggingInfo);
-        CRC32 crc = new CRC32();
-        crc.update(formattedLog.getBytes());
-        String lineToWrite = formattedLog + " | " + Long.toHexString(crc.getValue());
+        commit(List.of(loggingInfo));
+    }
+
+    public void commit(List<LoggingInfo> records) throws IOException {
+        WALRecordBuffer buffer = new WALRecordBuffer();
+        records.forEach(buffer::append);
+        commit(buffer);
+    }
+
+    public void commit(WALRecordBuffer records) throws IOException {
+        commit(records, () -> {});
+    }
+
+    // appends the records as one unit and, once they are on disk, applies the transaction; a checkpoint never sees
+    // a transaction that is logged but not yet applied
+    public void commit(WALRecordBuffer records, Runnable apply) throws IOException {
+        commit(records, apply, null);
+    }
+
+    public void commit(WALRecordBuffer records, Runnable apply, Durability durability) throws IOException {
+        commitLock.readLock().lock();
+        try {
+            append(records, durability);
+            apply.run();
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    private void append(WALRecordBuffer records, Durability requested) throws IOException {
+        Durability mode = requested == null ? durability : requested;
+        WALAppender current = appender;
+        if (current != null) {
+            current.append(records, mode);
+            return;
+        }
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new IOException("WAL is unusable after a failed write", failure);
+            }
+            if (pending.remaining() < records.byteSize()) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(pending.capacity() * 2, pending.position() + records.byteSize()));
+                pending = larger.put(pending.flip());
+            }
+            records.copyTo(pending);
+            pendingGraphIds.addAll(records.graphIds());
+            if (mode == Durability.SYNC) {
+                pendingSync = true;
+            } else if (mode == Durability.GROUP) {
+                if (unforcedGroupCommits == 0 && pendingGroupCommits == 0) {
+                    oldestUnforcedGroupCommit = System.nanoTime();
+                }
+                pendingGroupCommits++;
+                startFlusher();
+            }
+            long batch = ++appended;
+            while ((mode == Durability.SYNC ? forced : written) < batch && failure == null) {
+                if (leaderActive) {
+                    batchWritten.awaitUninterruptibly();
+                } else {
+                    writePending();
+                }
+            }
+            if (failure != null && batch >= failedFrom) {
+                throw new IOException("Failed to write WAL batch", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waits for the commits in flight and blocks new ones while the checkpoint writer records the state they produced
+    // as covering the current end of the log. The log is then atomically replaced by an empty one with a new id.
+    public void checkpoint(CheckpointWriter checkpointWriter) throws IOException {
+        maintenanceLock.lock();
+        commitLock.writeLock().lock();
+        try {
+            reopenIfSealed();
+            checkNotReplaced();
+            checkpointWriter.write(WALPosition.of(logId, channel.size()));
+            // the sealed segments and the legacy text log are covered by the checkpoint too; they go before the log
+            // is replaced, as a reader only skips what comes before the segment the checkpoint position is in
+            WALSegments.deleteSealed(log);
+            segmentGraphIds.clear();
+            Files.deleteIfExists(legacyLog(log));
+            startNewLog();
+        } finally {
+            commitLock.writeLock().unlock();
+            maintenanceLock.unlock();
+        }
+    }
+
+    // Hands the sealed segments to the compactor together with the position where what follows them starts, and
+    // deletes them once it has recorded the state they leave behind as covering that position. Only the listing of
+    // the segments holds off commits, so that no segment is sealed in between; checkpoints wait for the compaction.
+    // Returns whether the segments were compacted.
+    public boolean compact(SegmentCompactor compactor) throws IOException {
+        if (WALSegments.sealed(log).isEmpty()) {
+            return false;
+        }
+        maintenanceLock.lock();
+        try {
+            List<Path> segments;
+            WALPosition next;
+            commitLock.writeLock().lock();
+            try {
+                reopenIfSealed();
+                checkNotReplaced();
+                segments = WALSegments.sealed(log);
+                next = WALPosition.of(logId, WALCodec.HEADER_SIZE);
+            } finally {
+                commitLock.writeLock().unlock();
+            }
+            if (segments.isEmpty() || !compactor.compact(segments, next)) {
+                return false;
+            }
+            // as after a checkpoint, a reader skips whatever comes before the position
+            WALSegments.delete(segments);
+            Files.deleteIfExists(legacyLog(log));
+            return true;
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private void startNewLog() throws IOException {
+        Path next = log.resolveSibling(log.getFileName() + ".next");
+        try (FileChannel nextChannel = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(nextChannel);
+            nextChannel.force(true);
+        }
+        Files.move(next, log, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel.close();
+        channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileKey = Files.readAttributes(log, BasicFileAttributes.class).fileKey();
+        logId = WALCodec.readLogId(log);
+        lock.lock();
+        try {
+            // everything the storage holds is in the checkpoint, so a failed write no longer matters
+            pending.clear();
+            pendingGraphIds.clear();
+            pendingSync = false;
+            pendingGroupCommits = 0;
+            unforcedGroupCommits = 0;
+            written = appended;
+            forced = appended;
+            failure = null;
+            if (appender != null) {
+                appender.clearFailure();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public interface CheckpointWriter {
+        void write(WALPosition covered) throws IOException;
+    }
+
+    public interface SegmentCompactor {
+        // returns whether the state the segments leave behind has been recorded as covering the next position
+        boolean compact(List<Path> segments, WALPosition next) throws IOException;
+    }
+
+    // called with the lock held; the lock is released while the batch is written so the next one can fill up
+    private void writePending() {
+        leaderActive = true;
+        ByteBuffer batch = pending;
+        Set<String> batchGraphIds = pendingGraphIds;
+        long through = appended;
+        int groupCommits = unforcedGroupCommits + pendingGroupCommits;
+        boolean force = pendingSync || groupCommits >= groupForceCommits
+                || groupCommits > 0 && System.nanoTime() - oldestUnforcedGroupCommit >= TimeUnit.MILLISECONDS.toNanos(groupForceMillis);
+        pending = spare.clear();
+        pendingGraphIds = spareGraphIds;
+        pendingSync = false;
+        pendingGroupCommits = 0;
+        IOException error = null;
+        lock.unlock();
+        try {
+            force = writeBatch(batch.flip(), batchGraphIds, force);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        // a failed write may leave a torn record behind, after which nothing appended would be readable
+        if (error != null && failure == null) {
+            failure = error;
+            failedFrom = written + 1;
+        }
+        spare = batch;
+        spareGraphIds = batchGraphIds;
+        spareGraphIds.clear();
+        written = through;
+        if (force && error == null) {
+            forced = through;
+            forces++;
+            unforcedGroupCommits = 0;
+        } else {
+            unforcedGroupCommits = groupCommits;
+        }
+        leaderActive = false;
+        batchWritten.signalAll();
+    }
+
+    // Writes a batch to the active segment, forcing it when asked to, and seals the segment once it is full; returns
+    // whether the batch was forced. Only the leader or the appender calls it, one batch at a time.
+    boolean writeBatch(ByteBuffer batch, Set<String> graphIds, boolean force) throws IOException {
+        reopenIfSealed();
+        writeFully(channel, batch);
+        segmentGraphIds.addAll(graphIds);
+        boolean full = channel.size() >= segmentSize;
+        // a segment is forced before it is sealed, as only the active one is forced later
+        if (force || full) {
+            channel.force(false);
+        }
+        if (full) {
+            try {
+                sealSegment();
+            } catch (SegmentSealException e) {
+                // the batch is durable already; the log keeps growing until a later batch manages to seal it
+                System.out.println(e.getMessage());
+            }
+        }
+        return force || full;
+    }
+
+    // forces what the appender wrote, unless a checkpoint is replacing the log; returns whether it did
+    boolean forceUnlessCheckpointing() throws IOException {
+        if (!commitLock.readLock().tryLock()) {
+            return false;
+        }
+        try {
+            force();
+            return true;
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+        countForce();
+    }
+
+    void countForce() {
+        lock.lock();
+        try {
+            forces++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held
+    private void startFlusher() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::forceGroupCommits, groupForceMillis, groupForceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void stopFlusher() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher = null;
+        }
+    }
+
+    // Forces the GROUP commits no batch has forced since the flusher last ran. It acts as the leader while it forces,
+    // so that no batch is written or segment sealed at the same time, and leaves the log alone during a checkpoint.
+    private void forceGroupCommits() {
+        if (!commitLock.readLock().tryLock()) {
+            return;
+        }
+        try {
+            long through;
+            lock.lock();
+            try {
+                if (leaderActive || unforcedGroupCommits == 0 || failure != null) {
+                    return;
+                }
+                leaderActive = true;
+                through = written;
+            } finally {
+                lock.unlock();
+            }
+            IOException error = null;
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            lock.lock();
+            try {
+                if (error == null) {
+                    forced = Math.max(forced, through);
+                    forces++;
+                    unforcedGroupCommits = 0;
+                } else if (failure == null) {
+                    // commits that already returned may be lost, later ones must not pretend otherwise
+                    failure = error;
+                    failedFrom = written + 1;
+                }
+                leaderActive = false;
+                batchWritten.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    // The index is written before the segment is renamed into place, so a sealed segment always has one. A crash
+    // in between leaves an index without a segment, which the next seal overwrites. A log that is not the one the
+    // writer has been appending to is never sealed; that fails the batch instead.
+    private void sealSegment() throws IOException {
+        checkNotReplaced();
+        Path segment = null;
+        try {
+            segment = WALSegments.segment(log, WALSegments.nextSequence(log));
+            WALSegments.writeIndex(segment, segmentGraphIds);
+            channel.close();
+            sealed = true;
+            Files.move(log, segment, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new SegmentSealException("Failed to seal WAL segment " + segment + ": " + e.getMessage());
+        }
+        segmentGraphIds.clear();
+    }
+
+    private static class SegmentSealException extends IOException {
+        SegmentSealException(String message) {
+            super(message);
+        }
+    }
+
+    // a sealed segment is followed by a new log at the path; if the seal failed before the log was moved, the log
+    // is opened again and the next batch retries it
+    private void reopenIfSealed() throws IOException {
+        if (!sealed) {
+            return;
+        }
+        channel = openLog(log);
+        fileKey = Files.readAttributes(log, BasicFileAttributes.class).fileKey();
+        logId = WALCodec.readLogId(log);
+        sealed = false;
+    }
+
+    // Only the writer replaces the log. One deleted or swapped underneath it has lost what was appended to it, which
+    // is a failure rather than something to paper over with a new log.
+    private void checkNotReplaced() throws IOException {
+        Object current;
+        try {
+            current = Files.readAttributes(log, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            throw new IOException("WAL log " + log + " was deleted while being written", e);
+        }
+        if (!Objects.equals(fileKey, current)) {
+            throw new IOException("WAL log " + log + " was replaced while being written");
+        }
+    }
 
-        writer.write(lineToWrite);
-        writer.newLine();
-        writer.flush();
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
     }
 
     @Override
     public void close() throws Exception {
-        writer.close();
+        WALAppender current = appender;
+        if (current != null) {
+            // waits for the commits in flight, so that none is left in the ring
+            commitLock.writeLock().lock();
+            try {
+                current.stop();
+                appender = null;
+            } finally {
+                commitLock.writeLock().unlock();
+            }
+        }
+        lock.lock();
+        try {
+            stopFlusher();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            // GROUP and ASYNC commits written since the last force
+            if (channel.isOpen() && forced < written) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package graph.dataModel;
+
+import java.util.Map;
+
+// Backing store for the attributes of a node or the properties of an edge
+public interface AttributeStore {
+
+    Object get(String key);
+    void put(String key, Object value);
+    void putAll(Map<String, Object> values);
+    Object remove(String key);
+    boolean contains(String key);
+    Map<String, Object> asMap();
+}
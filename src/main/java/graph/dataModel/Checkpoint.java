@@ -0,0 +1,382 @@
+package graph.dataModel;
+
+import graph.WAL.WALPosition;
+import graph.exceptions.InvalidLogOperationException;
+import graph.storage.AttributeCodec;
+import graph.storage.BulkGraphLoader;
+import graph.storage.GraphStorage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// A snapshot of every graph together with the WAL position it covers. The file is written next to the log as
+// [magic][version][log id][offset], then per graph its id, its nodes and its edges, each entity preceded by a
+// marker byte and each list ended by a zero byte, and finally the crc32 of everything before it. It is written to a
+// temporary file and moved into place, so a crash leaves either the old checkpoint or the new one.
+public class Checkpoint {
+
+    private static final int MAGIC = 0x47434B50;
+    private static final int VERSION = 1;
+    private static final int MORE = 1;
+    private static final int END = 0;
+
+    private final WALPosition position;
+    private final Map<String, BulkGraphLoader> loaders;
+
+    private Checkpoint(WALPosition position, Map<String, BulkGraphLoader> loaders) {
+        this.position = position;
+        this.loaders = loaders;
+    }
+
+    public static Path checkpointFor(Path log) {
+        return log.resolveSibling(log.getFileName() + ".checkpoint");
+    }
+
+    public WALPosition getPosition() {
+        return position;
+    }
+
+    public Map<String, GraphStorage> getStorages() {
+        Map<String, GraphStorage> storages = new HashMap<>();
+        loaders.forEach((graphId, loader) -> storages.put(graphId, loader.build()));
+        return storages;
+    }
+
+    // the graphs as loaded, which recovery goes on loading the log into before building them
+    Map<String, BulkGraphLoader> getLoaders() {
+        return loaders;
+    }
+
+    public static void write(Path file, WALPosition position, Map<String, Graph> graphs) throws IOException {
+        write(file, position, graphs, null, Set.of());
+    }
+
+    // writes the graphs together with the given ones of an earlier checkpoint, which are copied as they are
+    static void write(Path file, WALPosition position, Map<String, Graph> graphs, Index earlier, Set<String> copied) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel));
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(stream, crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(position.getLogId());
+            out.writeLong(position.getOffset());
+            out.writeInt(graphs.size() + copied.size());
+            for (Map.Entry<String, Graph> entry : graphs.entrySet()) {
+                writeGraph(out, entry.getKey(), entry.getValue());
+            }
+            for (String graphId : copied) {
+                earlier.copy(graphId, out);
+            }
+            out.flush();
+            // the trailer goes past the checked stream, since the checksum covers everything before it
+            new DataOutputStream(stream).writeInt((int) crc.getValue());
+            stream.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeGraph(DataOutputStream out, String graphId, Graph graph) throws IOException {
+        writeString(out, graphId);
+        try {
+            graph.forEachNode(node -> {
+                try {
+                    out.writeByte(MORE);
+                    writeString(out, node.getId());
+                    writeAttributes(out, node.getAttributes());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeByte(END);
+            graph.forEachEdge(edge -> {
+                try {
+                    out.writeByte(MORE);
+                    writeString(out, edge.getId());
+                    writeString(out, edge.getSource());
+                    writeString(out, edge.getDestination());
+                    out.writeDouble(edge.getWeight());
+                    writeAttributes(out, edge.getProperties());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeByte(END);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // returns null when there is no checkpoint
+    public static Checkpoint read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream raw = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+             DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new InvalidLogOperationException("not a checkpoint: " + file);
+            }
+            WALPosition position = WALPosition.of(in.readLong(), in.readLong());
+            int graphCount = in.readInt();
+            Map<String, BulkGraphLoader> loaders = new HashMap<>();
+            for (int i = 0; i < graphCount; i++) {
+                String graphId = readString(in);
+                loaders.put(graphId, readGraph(in));
+            }
+            int expected = (int) crc.getValue();
+            if (raw.readInt() != expected) {
+                throw new InvalidLogOperationException("checkpoint checksum mismatch: " + file);
+            }
+            return new Checkpoint(position, loaders);
+        } catch (EOFException e) {
+            throw new InvalidLogOperationException("truncated checkpoint: " + file);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new InvalidLogOperationException("corrupt checkpoint: " + file);
+        }
+    }
+
+    // Locates the graphs of the checkpoint without loading them, after checking all of it as read does; returns null
+    // when there is no checkpoint.
+    public static Index index(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        CRC32 crc = new CRC32();
+        try {
+            CountingInputStream counted = new CountingInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataInputStream raw = new DataInputStream(counted);
+            DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new InvalidLogOperationException("not a checkpoint: " + file);
+            }
+            WALPosition position = WALPosition.of(in.readLong(), in.readLong());
+            int graphCount = in.readInt();
+            Map<String, Section> sections = new HashMap<>();
+            for (int i = 0; i < graphCount; i++) {
+                long offset = counted.count;
+                String graphId = readString(in);
+                skipGraph(in);
+                sections.put(graphId, new Section(offset, counted.count - offset));
+            }
+            int expected = (int) crc.getValue();
+            if (raw.readInt() != expected) {
+                throw new InvalidLogOperationException("checkpoint checksum mismatch: " + file);
+            }
+            return new Index(channel, position, sections);
+        } catch (EOFException e) {
+            channel.close();
+            throw new InvalidLogOperationException("truncated checkpoint: " + file);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void skipGraph(DataInputStream in) throws IOException {
+        while (in.readByte() == MORE) {
+            skipBytes(in);
+            skipBytes(in);
+        }
+        while (in.readByte() == MORE) {
+            skipBytes(in);
+            skipBytes(in);
+            skipBytes(in);
+            in.readDouble();
+            skipBytes(in);
+        }
+    }
+
+    private static void skipBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new InvalidLogOperationException("corrupt checkpoint length " + length);
+        }
+        in.skipNBytes(length);
+    }
+
+    // The graphs of a checkpoint, each read from where it starts in the file when it is loaded. The file is held
+    // open until the index is closed, so that a checkpoint replacing it meanwhile does not change what is read.
+    public static final class Index implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final WALPosition position;
+        // where each graph is in the file, from its id to the end of its edges
+        private final Map<String, Section> sections;
+
+        private Index(FileChannel channel, WALPosition position, Map<String, Section> sections) {
+            this.channel = channel;
+            this.position = position;
+            this.sections = sections;
+        }
+
+        public WALPosition getPosition() {
+            return position;
+        }
+
+        public Set<String> graphIds() {
+            return Collections.unmodifiableSet(sections.keySet());
+        }
+
+        // the graph as the checkpoint holds it, or null when it holds no such graph
+        public synchronized BulkGraphLoader load(String graphId) throws IOException {
+            Section section = sections.get(graphId);
+            if (section == null) {
+                return null;
+            }
+            channel.position(section.offset());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            try {
+                readString(in);
+                return readGraph(in);
+            } catch (EOFException e) {
+                throw new InvalidLogOperationException("truncated checkpoint graph " + graphId);
+            }
+        }
+
+        // the given graphs as a checkpoint read in full would hold them
+        Checkpoint read(Set<String> graphIds) throws IOException {
+            Map<String, BulkGraphLoader> loaders = new HashMap<>();
+            for (String graphId : graphIds) {
+                BulkGraphLoader loader = load(graphId);
+                if (loader != null) {
+                    loaders.put(graphId, loader);
+                }
+            }
+            return new Checkpoint(position, loaders);
+        }
+
+        // writes the graph as it is in the file, without decoding it
+        synchronized void copy(String graphId, DataOutputStream out) throws IOException {
+            Section section = sections.get(graphId);
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(section.length(), 1 << 16));
+            for (long copied = 0; copied < section.length(); ) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), section.length() - copied));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, section.offset() + copied + buffer.position()) < 0) {
+                        throw new InvalidLogOperationException("truncated checkpoint graph " + graphId);
+                    }
+                }
+                out.write(buffer.array(), 0, buffer.limit());
+                copied += buffer.limit();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private record Section(long offset, long length) {}
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    private static BulkGraphLoader readGraph(DataInputStream in) throws IOException {
+        BulkGraphLoader loader = BulkGraphLoader.create();
+        while (in.readByte() == MORE) {
+            loader.putNode(new Node(readString(in), readAttributes(in)));
+        }
+        while (in.readByte() == MORE) {
+            String id = readString(in);
+            String source = readString(in);
+            String target = readString(in);
+            double weight = in.readDouble();
+            loader.putEdge(new Edge(id, source, target, weight, readAttributes(in)));
+        }
+        return loader;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeAttributes(DataOutputStream out, Map<String, Object> attributes) throws IOException {
+        byte[] bytes = AttributeCodec.encode(attributes);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Map<String, Object> readAttributes(DataInputStream in) throws IOException {
+        return AttributeCodec.decode(readBytes(in));
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new InvalidLogOperationException("corrupt checkpoint length " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,379 @@
+package graph.dataModel;
+
+import java.util.*;
+
+// Attributes of many nodes or edges stored column by column instead of one map per entity. Every attribute name
+// has one column indexed by row: ints, longs, doubles and booleans are kept unboxed in primitive arrays, strings are
+// dictionary encoded, and anything else goes into an object column. A column that receives a value of a different
+// type is rewritten as an object column, so reads always return exactly the value that was put. Every row keeps the
+// numbers of the columns it has values in, so that listing its attributes only visits those.
+public class ColumnarAttributeTable {
+
+    private final Map<String, Column> columns = new HashMap<>();
+    // column numbers in the order the columns were created
+    private final Map<String, Integer> columnNumbers = new HashMap<>();
+    private final List<String> columnKeys = new ArrayList<>();
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+    private int rows;
+
+    public Row newRow(Map<String, Object> values) {
+        Row row = new Row(freeRows.isEmpty() ? rows++ : freeRows.pop());
+        row.putAll(values);
+        return row;
+    }
+
+    // frees the row for reuse; the row keeps a private copy of its values so holders can still read them
+    public void release(Row row) {
+        if (row.row < 0) {
+            return;
+        }
+        Map<String, Object> values = new HashMap<>(row.asMap());
+        row.clear();
+        row.detached = values;
+        freeRows.push(row.row);
+        row.row = -1;
+    }
+
+    public int liveRows() {
+        return rows - freeRows.size();
+    }
+
+    Column column(String key) {
+        return columns.get(key);
+    }
+
+    // returns the number of the column the value went into
+    private int set(int row, String key, Object value) {
+        Column column = columns.get(key);
+        if (column == null) {
+            column = Column.forValue(value);
+            columns.put(key, column);
+            columnNumbers.put(key, columnKeys.size());
+            columnKeys.add(key);
+        } else if (!column.accepts(value)) {
+            column = new ObjectColumn(column);
+            columns.put(key, column);
+        }
+        column.set(row, value);
+        return columnNumbers.get(key);
+    }
+
+    public class Row implements AttributeStore {
+
+        private int row;
+        private Map<String, Object> detached;
+        // the numbers of the columns this row has a value in
+        private final BitSet keys = new BitSet();
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(String key) {
+            if (detached != null) {
+                return detached.get(key);
+            }
+            Column column = columns.get(key);
+            return column == null || !column.isSet(row) ? null : column.get(row);
+        }
+
+        @Override
+        public void put(String key, Object value) {
+            if (detached != null) {
+                detached.put(key, value);
+            } else {
+                keys.set(set(row, key, value));
+            }
+        }
+
+        @Override
+        public void putAll(Map<String, Object> values) {
+            values.forEach(this::put);
+        }
+
+        @Override
+        public Object remove(String key) {
+            if (detached != null) {
+                return detached.remove(key);
+            }
+            Column column = columns.get(key);
+            if (column == null || !column.isSet(row)) {
+                return null;
+            }
+            Object previous = column.get(row);
+            column.clear(row);
+            keys.clear(columnNumbers.get(key));
+            return previous;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            if (detached != null) {
+                return detached.containsKey(key);
+            }
+            Column column = columns.get(key);
+            return column != null && column.isSet(row);
+        }
+
+        @Override
+        public Map<String, Object> asMap() {
+            if (detached != null) {
+                return Collections.unmodifiableMap(detached);
+            }
+            Map<String, Object> values = new HashMap<>();
+            for (int number = keys.nextSetBit(0); number >= 0; number = keys.nextSetBit(number + 1)) {
+                String key = columnKeys.get(number);
+                values.put(key, columns.get(key).get(row));
+            }
+            return Collections.unmodifiableMap(values);
+        }
+
+        public void clear() {
+            if (detached != null) {
+                detached.clear();
+            } else {
+                for (int number = keys.nextSetBit(0); number >= 0; number = keys.nextSetBit(number + 1)) {
+                    columns.get(columnKeys.get(number)).clear(row);
+                }
+                keys.clear();
+            }
+        }
+    }
+
+    abstract static class Column {
+
+        private final BitSet present = new BitSet();
+
+        static Column forValue(Object value) {
+            if (value instanceof Integer) return new IntColumn();
+            if (value instanceof Long) return new LongColumn();
+            if (value instanceof Double) return new DoubleColumn();
+            if (value instanceof Boolean) return new BooleanColumn();
+            if (value instanceof String) return new StringColumn();
+            return new ObjectColumn();
+        }
+
+        boolean isSet(int row) {
+            return present.get(row);
+        }
+
+        void set(int row, Object value) {
+            if (present.get(row)) {
+                release(row);
+            }
+            present.set(row);
+            store(row, value);
+        }
+
+        void clear(int row) {
+            if (present.get(row)) {
+                present.clear(row);
+                release(row);
+            }
+        }
+
+        // lets go of what the value of a row held on to before it is overwritten or cleared
+        void release(int row) {}
+
+        int nextSetRow(int from) {
+            return present.nextSetBit(from);
+        }
+
+        abstract boolean accepts(Object value);
+        abstract Object get(int row);
+        abstract void store(int row, Object value);
+
+        static int grow(int length, int row) {
+            return Math.max(row + 1, Math.max(16, length * 2));
+        }
+    }
+
+    static class IntColumn extends Column {
+
+        private int[] values = new int[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Integer;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void store(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = (Integer) value;
+        }
+    }
+
+    static class LongColumn extends Column {
+
+        private long[] values = new long[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Long;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void store(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = (Long) value;
+        }
+    }
+
+    static class DoubleColumn extends Column {
+
+        private double[] values = new double[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void store(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = (Double) value;
+        }
+    }
+
+    static class BooleanColumn extends Column {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Boolean;
+        }
+
+        @Override
+        Object get(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        void store(int row, Object value) {
+            values.set(row, (Boolean) value);
+        }
+    }
+
+    // Strings are replaced by codes into a dictionary, so repeated values are stored once. Every code counts the rows
+    // using it; a string no row uses any more is dropped and its code handed to the next new string.
+    static class StringColumn extends Column {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int[] references = new int[0];
+        private final Deque<Integer> freeCodes = new ArrayDeque<>();
+        private int[] values = new int[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof String;
+        }
+
+        @Override
+        Object get(int row) {
+            return dictionary.get(values[row]);
+        }
+
+        @Override
+        void store(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            int code = codes.computeIfAbsent((String) value, string -> {
+                if (!freeCodes.isEmpty()) {
+                    int free = freeCodes.pop();
+                    dictionary.set(free, string);
+                    return free;
+                }
+                dictionary.add(string);
+                if (dictionary.size() > references.length) {
+                    references = Arrays.copyOf(references, grow(references.length, dictionary.size() - 1));
+                }
+                return dictionary.size() - 1;
+            });
+            references[code]++;
+            values[row] = code;
+        }
+
+        @Override
+        void release(int row) {
+            int code = values[row];
+            if (--references[code] == 0) {
+                codes.remove(dictionary.get(code));
+                dictionary.set(code, null);
+                freeCodes.push(code);
+            }
+        }
+
+        // the strings some row still uses
+        int dictionarySize() {
+            return codes.size();
+        }
+
+        // the codes handed out, used or free
+        int dictionaryCapacity() {
+            return dictionary.size();
+        }
+    }
+
+    static class ObjectColumn extends Column {
+
+        private Object[] values = new Object[0];
+
+        ObjectColumn() {}
+
+        // takes over the values of a typed column that was given a value of another type
+        ObjectColumn(Column column) {
+            for (int row = column.nextSetRow(0); row >= 0; row = column.nextSetRow(row + 1)) {
+                set(row, column.get(row));
+            }
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void store(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = value;
+        }
+
+        @Override
+        void release(int row) {
+            values[row] = null;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package graph.dataModel;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 public class Edge {
@@ -10,14 +8,18 @@ public class Edge {
     private final String from;
     private final String to;
     private double weight;
-    private final Map<String, Object> properties;
+    private final AttributeStore properties;
 
     public Edge(String id, String from, String to, double weight, Map<String, Object> properties) {
+        this(id, from, to, weight, new MapAttributeStore(properties));
+    }
+
+    public Edge(String id, String from, String to, double weight, AttributeStore properties) {
         this.id = id;
         this.from = from;
         this.to = to;
         this.weight = weight;
-        this.properties = new HashMap<>(properties);
+        this.properties = properties;
     }
 
     public String getId() {
@@ -29,9 +31,7 @@ public class Edge {
     }
 
     public void setProperties(Map<String, Object> properties) {
-        for (Map.Entry<String, Object> entry : properties.entrySet()) {
-            setProperty(entry.getKey(), entry.getValue());
-        }
+        this.properties.putAll(properties);
     }
 
     public Object getProperty(String key) {
@@ -43,11 +43,16 @@ public class Edge {
     }
 
     public boolean hasProperty(String key) {
-        return properties.containsKey(key);
+        return properties.contains(key);
     }
 
     public Map<String, Object> getProperties() {
-        return Collections.unmodifiableMap(properties);
+        return properties.asMap();
+    }
+
+    // the store the properties are read from and written to, for storages that keep them themselves
+    public AttributeStore getPropertyStore() {
+        return properties;
     }
 
     public Object deleteProperty(String key) {
@@ -72,6 +77,6 @@ public class Edge {
 
     @Override
     public String toString() {
-        return "Edge [id=" + id + ", from=" + from + ", to=" + to + ", weight=" + weight + ", properties=" + properties + "]";
+        return "Edge [id=" + id + ", from=" + from + ", to=" + to + ", weight=" + weight + ", properties=" + properties.asMap() + "]";
     }
 }
@@ -6,15 +6,20 @@ import graph.events.ObservableGraphOperations;
 import graph.exceptions.EdgeExistsException;
 import graph.exceptions.EdgeNotFoundException;
 import graph.exceptions.NodeNotFoundException;
+import graph.exceptions.SnapshotNotSupportedException;
 import graph.operations.GraphOperations;
 import graph.operations.GraphService;
 import graph.storage.GraphStorage;
 import graph.storage.InMemoryGraphStorage;
+import graph.traversalAlgorithms.GraphSnapshot;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
 import java.util.stream.Collectors;
 
 public class Graph implements GraphOperations, GraphTraversalView {
@@ -32,7 +37,10 @@ public class Graph implements GraphOperations, GraphTraversalView {
     }
 
     public static Graph createGraph() {
-        GraphStorage storage = InMemoryGraphStorage.create();
+        return createGraph(InMemoryGraphStorage.create());
+    }
+
+    public static Graph createGraph(GraphStorage storage) {
         return createRecoveryGraph(storage, UUID.randomUUID().toString());
     }
 
@@ -160,6 +168,46 @@ public class Graph implements GraphOperations, GraphTraversalView {
         return service.getNodesIdWithEdgeToNode(nodeId);
     }
 
+    @Override
+    public void forEachNode(Consumer<Node> consumer) {
+        service.forEachNode(consumer);
+    }
+
+    @Override
+    public void forEachEdge(Consumer<Edge> consumer) {
+        service.forEachEdge(consumer);
+    }
+
+    @Override
+    public void forEachEdgeFrom(String nodeId, Consumer<Edge> consumer) throws NodeNotFoundException {
+        service.forEachEdgeFrom(nodeId, consumer);
+    }
+
+    @Override
+    public void forEachNodeIdWithEdgeTo(String nodeId, Consumer<String> consumer) throws NodeNotFoundException {
+        service.forEachNodeIdWithEdgeTo(nodeId, consumer);
+    }
+
+    @Override
+    public void forEachNeighbour(String nodeId, ObjDoubleConsumer<String> consumer) throws NodeNotFoundException {
+        service.forEachNeighbour(nodeId, consumer);
+    }
+
+    @Override
+    public int getNodeCount() {
+        return service.getNodeCount();
+    }
+
+    @Override
+    public NodeHandles nodeHandles() {
+        return service.nodeHandles();
+    }
+
+    @Override
+    public GraphSnapshot openSnapshot() throws SnapshotNotSupportedException {
+        return service.openSnapshot();
+    }
+
     @Override
     public Edge getEdgeByNodeIds(String source, String target) {
         return service.getEdgeByNodeIds(source, target);
@@ -170,6 +218,16 @@ public class Graph implements GraphOperations, GraphTraversalView {
         return service.createTransaction();
     }
 
+    @Override
+    public void createNodeIndex(String attribute) {
+        service.createNodeIndex(attribute);
+    }
+
+    @Override
+    public void createEdgeIndex(String property) {
+        service.createEdgeIndex(property);
+    }
+
     @Override
     public String toString() {
         return
@@ -0,0 +1,116 @@
+package graph.dataModel;
+
+import graph.WAL.WALIndex;
+import graph.WAL.WALPosition;
+import graph.storage.BulkGraphLoader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The graphs of a database that recovery has located but not loaded. Opening a catalog indexes the latest checkpoint
+// and the log after it (see Checkpoint.Index and WALIndex) without building a single graph; a graph is built from its
+// part of the checkpoint and its own transactions the first time it is loaded. The catalog holds the files it reads
+// open until it is closed.
+public class GraphCatalog implements AutoCloseable {
+
+    private final Checkpoint.Index checkpoint;
+    private final WALIndex log;
+    private final Set<String> unloaded = ConcurrentHashMap.newKeySet();
+
+    private GraphCatalog(Checkpoint.Index checkpoint, WALIndex log) {
+        this.checkpoint = checkpoint;
+        this.log = log;
+        Set<String> located = new HashSet<>(log.graphIds());
+        if (checkpoint != null) {
+            located.addAll(checkpoint.graphIds());
+        }
+        for (String graphId : located) {
+            if (log.exists(graphId, checkpoint != null && checkpoint.graphIds().contains(graphId))) {
+                unloaded.add(graphId);
+            }
+        }
+    }
+
+    // returns null when the log cannot be indexed, and has to be recovered all at once
+    public static GraphCatalog open(Path log) throws IOException {
+        Checkpoint.Index checkpoint = Checkpoint.index(Checkpoint.checkpointFor(log));
+        WALIndex index = null;
+        try {
+            index = WALIndex.build(log, checkpoint == null ? null : checkpoint.getPosition());
+        } finally {
+            if (index == null && checkpoint != null) {
+                checkpoint.close();
+            }
+        }
+        return index == null ? null : new GraphCatalog(checkpoint, index);
+    }
+
+    // the graphs not loaded yet
+    public Set<String> graphIds() {
+        return Collections.unmodifiableSet(unloaded);
+    }
+
+    public boolean contains(String graphId) {
+        return unloaded.contains(graphId);
+    }
+
+    // Builds the graph and takes it out of the catalog; returns null when the catalog does not hold it. A graph must
+    // not be loaded by two threads at once.
+    public Graph load(String graphId) throws IOException {
+        if (!unloaded.contains(graphId)) {
+            return null;
+        }
+        Graph graph = build(graphId);
+        unloaded.remove(graphId);
+        return graph;
+    }
+
+    // Takes the graph out of the catalog without loading it, once it has been deleted; returns whether it was held.
+    public boolean remove(String graphId) {
+        return unloaded.remove(graphId);
+    }
+
+    // Writes a checkpoint at the position of the given graphs and of every graph of the catalog not among them,
+    // leaving those unloaded. A graph with no transactions after the checkpoint the catalog indexes is copied from it
+    // as it is; the others are built from their part of it and their own transactions only to be written.
+    public void writeCheckpoint(Path file, WALPosition position, Map<String, Graph> graphs) throws IOException {
+        Map<String, Graph> written = new HashMap<>(graphs);
+        Set<String> copied = new HashSet<>();
+        for (String graphId : List.copyOf(unloaded)) {
+            if (written.containsKey(graphId)) {
+                continue;
+            }
+            if (checkpoint != null && checkpoint.graphIds().contains(graphId) && !log.graphIds().contains(graphId)) {
+                copied.add(graphId);
+            } else {
+                written.put(graphId, build(graphId));
+            }
+        }
+        Checkpoint.write(file, position, written, checkpoint, copied);
+    }
+
+    private Graph build(String graphId) throws IOException {
+        BulkGraphLoader loaded = checkpoint == null || log.isDeleted(graphId) ? null : checkpoint.load(graphId);
+        BulkGraphLoader loader = loaded != null ? loaded : BulkGraphLoader.create();
+        log.readTransactions(graphId, transaction -> RecoveryManager.apply(loader, transaction));
+        return Graph.createRecoveryGraph(loader.build(), graphId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            log.close();
+        } finally {
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package graph.dataModel;
+
+import graph.WAL.WALCodec;
+import graph.WAL.WALPosition;
+import graph.WAL.WALReader;
+import graph.WAL.WALSegments;
+import graph.WAL.WALWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Folds the sealed segments of a log into its checkpoint. The graphs of the current checkpoint, if there is one, are
+// replayed up to the end of the segments, and the state they reach is written as the checkpoint covering the start
+// of whatever follows them: superseded updates, deleted entities and deleted graphs are gone from it, so recovery
+// loads only what is live and replays the rest of the log on top. The graphs no segment holds transactions for, going
+// by the index each segment is sealed with (see WALSegments), are copied over from the current checkpoint as they are.
+// The checkpoint is moved into place before the writer deletes the segments, and a reader skips the segments a crash
+// in between leaves behind.
+public class LogCompactor implements WALWriter.SegmentCompactor {
+
+    private final Path log;
+
+    private LogCompactor(Path log) {
+        this.log = log;
+    }
+
+    public static LogCompactor create(Path log) {
+        return new LogCompactor(log);
+    }
+
+    @Override
+    public boolean compact(List<Path> segments, WALPosition next) throws IOException {
+        Path file = Checkpoint.checkpointFor(log);
+        try (Checkpoint.Index checkpoint = Checkpoint.index(file)) {
+            WALPosition covered = checkpoint == null ? null : checkpoint.getPosition();
+            // A checkpoint position names the log that was active when it was taken. When no segment has that log
+            // id, either that log is still the active one, and the segments were left behind by a crash before the
+            // checkpoint could delete them, or a full checkpoint replaced that log, and every segment came after it.
+            if (covered != null && !startsIn(segments, covered) && covered.getLogId() == next.getLogId()) {
+                return false;
+            }
+            Set<String> untouched = new HashSet<>();
+            Set<String> touched = graphIds(segments);
+            if (checkpoint != null && touched != null) {
+                untouched.addAll(checkpoint.graphIds());
+                untouched.removeAll(touched);
+            }
+            Checkpoint replayed = null;
+            if (checkpoint != null) {
+                Set<String> loaded = new HashSet<>(checkpoint.graphIds());
+                loaded.removeAll(untouched);
+                replayed = checkpoint.read(loaded);
+            }
+            Map<String, Graph> graphs = new RecoveryManager(WALReader.forSegments(log, segments, covered), replayed).recoverGraphs();
+            Checkpoint.write(file, next, graphs, checkpoint, untouched);
+            return true;
+        }
+    }
+
+    // the graphs the segments hold transactions for, or null when one of them has no index and may hold any graph
+    private static Set<String> graphIds(List<Path> segments) throws IOException {
+        Set<String> graphIds = new HashSet<>();
+        for (Path segment : segments) {
+            Set<String> held = WALSegments.graphIds(segment);
+            if (held == null) {
+                return null;
+            }
+            graphIds.addAll(held);
+        }
+        return graphIds;
+    }
+
+    private static boolean startsIn(List<Path> segments, WALPosition position) throws IOException {
+        for (Path segment : segments) {
+            if (WALCodec.readLogId(segment) == position.getLogId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
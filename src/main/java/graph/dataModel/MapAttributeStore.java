@@ -0,0 +1,44 @@
+package graph.dataModel;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MapAttributeStore implements AttributeStore {
+
+    private final Map<String, Object> values;
+
+    public MapAttributeStore(Map<String, Object> values) {
+        this.values = new HashMap<>(values);
+    }
+
+    @Override
+    public Object get(String key) {
+        return values.get(key);
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<String, Object> values) {
+        this.values.putAll(values);
+    }
+
+    @Override
+    public Object remove(String key) {
+        return values.remove(key);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Map<String, Object> asMap() {
+        return Collections.unmodifiableMap(values);
+    }
+}
@@ -1,17 +1,19 @@
 package graph.dataModel;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 public class Node {
 
     private final String id;
-    private final Map<String, Object> attributes;
+    private final AttributeStore attributes;
 
     public Node(String id, Map<String, Object> attributes) {
+        this(id, new MapAttributeStore(attributes));
+    }
+
+    public Node(String id, AttributeStore attributes) {
         this.id = id;
-        this.attributes = new HashMap<>(attributes);
+        this.attributes = attributes;
     }
 
     public String getId() {
@@ -23,9 +25,7 @@ public class Node {
     }
 
     public void setAttributes(Map<String, Object> attributes) {
-        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
-            setAttribute(entry.getKey(), entry.getValue());
-        }
+        this.attributes.putAll(attributes);
     }
 
     public Object deleteAttribute(String key) {
@@ -41,15 +41,20 @@ public class Node {
     }
 
     public boolean hasAttribute(String key) {
-        return attributes.containsKey(key);
+        return attributes.contains(key);
     }
 
     public Map<String, Object> getAttributes() {
-        return Collections.unmodifiableMap(attributes);
+        return attributes.asMap();
+    }
+
+    // the store the attributes are read from and written to, for storages that keep them themselves
+    public AttributeStore getAttributeStore() {
+        return attributes;
     }
 
     @Override
     public String toString() {
-        return "Node [id=" + id + ", attributes=" + attributes + "]";
+        return "Node [id=" + id + ", attributes=" + attributes.asMap() + "]";
     }
 }
\ No newline at end of file
@@ -3,76 +3,129 @@ package graph.dataModel;
 import graph.WAL.LoggingInfo;
 import graph.WAL.LoggingOperations;
 import graph.WAL.WALReader;
-import graph.storage.GraphStorage;
-import graph.storage.InMemoryGraphStorage;
+import graph.storage.BulkGraphLoader;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiConsumer;
 
 import static graph.WAL.LoggingOperations.*;
 
+// Replays the log onto the graphs of the latest checkpoint. Records are applied to bulk loaders (see BulkGraphLoader),
+// which keep no adjacency lists or weight index up to date while the log is replayed; each graph is built once at the
+// end.
 public class RecoveryManager {
 
+    private static final int APPLY_QUEUE_SIZE = 1024;
+
+    private static final Map<LoggingOperations, BiConsumer<BulkGraphLoader, LoggingInfo>> OPERATIONS = new EnumMap<>(Map.ofEntries(
+            Map.entry(ADD_NODE, RecoveryManager::addNode),
+            Map.entry(UPDATE_NODE_ATTRS, RecoveryManager::updateNodeAttrs),
+            Map.entry(UPDATE_NODE_ATTR, RecoveryManager::updateNodeAttr),
+            Map.entry(REMOVE_NODE, RecoveryManager::removeNode),
+            Map.entry(DELETE_NODE, RecoveryManager::deleteNode),
+            Map.entry(ADD_EDGE, RecoveryManager::addEdge),
+            Map.entry(UPDATE_EDGE_PROPS, RecoveryManager::updateEdgeProps),
+            Map.entry(UPDATE_EDGE_PROP, RecoveryManager::updateEdgeProp),
+            Map.entry(UPDATE_EDGE_WEIGHT, RecoveryManager::updateEdgeWeight),
+            Map.entry(REMOVE_EDGE, RecoveryManager::removeEdge),
+            Map.entry(DELETE_EDGE, RecoveryManager::deleteEdge)
+    ));
+
     private final WALReader reader;
-    private final Map<String, GraphStorage> graphStorageMap = new HashMap<>();
+    private final Map<String, BulkGraphLoader> loaders = new ConcurrentHashMap<>();
 
     public RecoveryManager(WALReader reader) {
+        this(reader, null);
+    }
+
+    // replays the log on top of the graphs of the checkpoint, if there is one
+    public RecoveryManager(WALReader reader, Checkpoint checkpoint) {
         this.reader = reader;
+        if (checkpoint != null) {
+            loaders.putAll(checkpoint.getLoaders());
+        }
     }
 
     public Map<String, Graph> recoverGraphs() {
         try {
-            List<List<LoggingInfo>> transactionLoggingInfos = reader.readFromFile();
-            transactionLoggingInfos.forEach(this::recoverTransaction);
+            reader.readTransactions(this::recoverTransaction);
         } catch (IOException ignored) {}
-
         Map<String, Graph> graphMap = new HashMap<>();
-        graphStorageMap.forEach((graphId, storage) ->
-                graphMap.put(graphId, Graph.createRecoveryGraph(storage, graphId))
-        );
+        loaders.forEach((graphId, loader) -> graphMap.put(graphId, build(graphId, loader)));
         return graphMap;
     }
 
+    // Pipelined recovery: a pool of decoders checks and decodes the log in parallel, and the transactions of each
+    // graph are applied in log order by the one apply worker that owns that graph, which also builds it at the end.
+    public Map<String, Graph> recoverGraphs(int threads) {
+        ExecutorService decoders = Executors.newFixedThreadPool(threads);
+        Map<String, Graph> graphMap = new ConcurrentHashMap<>();
+        List<ApplyWorker> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(new ApplyWorker(i, threads, graphMap));
+        }
+        try {
+            reader.readTransactions(decoders, transaction -> {
+                String graphId = transaction.getFirst().getSource();
+                workers.get(owner(graphId, threads)).submit(transaction);
+            });
+        } catch (IOException ignored) {
+        } finally {
+            decoders.shutdownNow();
+            workers.forEach(ApplyWorker::finish);
+        }
+        for (ApplyWorker worker : workers) {
+            if (worker.failure != null) {
+                throw worker.failure;
+            }
+        }
+        return new HashMap<>(graphMap);
+    }
+
+    private static int owner(String graphId, int threads) {
+        return Math.floorMod(graphId.hashCode(), threads);
+    }
+
+    private static Graph build(String graphId, BulkGraphLoader loader) {
+        return Graph.createRecoveryGraph(loader.build(), graphId);
+    }
+
     private void recoverTransaction(List<LoggingInfo> transaction) {
         LoggingInfo transactionLoggingInfo = transaction.getFirst();
         String graphId = transactionLoggingInfo.getSource();
-        if (!graphStorageMap.containsKey(graphId)) {
-            graphStorageMap.put(graphId, InMemoryGraphStorage.create());
+        // a deleted graph is logged as a transaction of its own
+        if (transaction.size() > 2 && transaction.get(1).getOperation() == DELETE_GRAPH) {
+            loaders.remove(graphId);
+            return;
         }
-        GraphStorage graphStorage = graphStorageMap.get(graphId);
+        apply(loaders.computeIfAbsent(graphId, id -> BulkGraphLoader.create()), transaction);
+    }
+
+    // applies the operations between the BEGIN_TRANSACTION and COMMIT records of a transaction to its graph
+    static void apply(BulkGraphLoader loader, List<LoggingInfo> transaction) {
         for (int i = 1; i < transaction.size() - 1; i++) {
-            applyRecoveryOpToGraph(graphStorage, transaction.get(i));
-        }
-    }
-
-    private void applyRecoveryOpToGraph(GraphStorage storage, LoggingInfo loggingInfo) {
-        Map<LoggingOperations, BiConsumer<GraphStorage, LoggingInfo>> operations = Map.ofEntries(
-                Map.entry(ADD_NODE, this::addNode),
-                Map.entry(UPDATE_NODE_ATTRS, this::updateNodeAttrs),
-                Map.entry(UPDATE_NODE_ATTR, this::updateNodeAttr),
-                Map.entry(REMOVE_NODE, this::removeNode),
-                Map.entry(DELETE_NODE, this::deleteNode),
-                Map.entry(ADD_EDGE, this::addEdge),
-                Map.entry(UPDATE_EDGE_PROPS, this::updateEdgeProps),
-                Map.entry(UPDATE_EDGE_PROP, this::updateEdgeProp),
-                Map.entry(UPDATE_EDGE_WEIGHT, this::updateEdgeWeight),
-                Map.entry(REMOVE_EDGE, this::removeEdge),
-                Map.entry(DELETE_EDGE, this::deleteEdge)
-        );
-        LoggingOperations operation = loggingInfo.getOperation();
-        operations.get(operation).accept(storage, loggingInfo);
+            LoggingInfo loggingInfo = transaction.get(i);
+            OPERATIONS.get(loggingInfo.getOperation()).accept(loader, loggingInfo);
+        }
     }
 
-    private void addNode(GraphStorage storage, LoggingInfo loggingInfo) {
+    private static void addNode(BulkGraphLoader loader, LoggingInfo loggingInfo) {
         Node node = new Node(loggingInfo.getId(), loggingInfo.getAttributes());
-        storage.putNode(node);
+        loader.putNode(node);
     }
 
-    private void updateNodeAttrs(GraphStorage storage, LoggingInfo loggingInfo) {
-        Node node = storage.getNode(loggingInfo.getId());
+    private static void updateNodeAttrs(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        Node node = loader.getNode(loggingInfo.getId());
         if (node == null) {
             System.out.println("Skipping updateNodeAttrs for missing node " + loggingInfo.getId());
             return;
@@ -80,8 +133,8 @@ public class RecoveryManager {
         node.setAttributes(loggingInfo.getAttributes());
     }
 
-    private void updateNodeAttr(GraphStorage storage, LoggingInfo loggingInfo) {
-        Node node = storage.getNode(loggingInfo.getId());
+    private static void updateNodeAttr(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        Node node = loader.getNode(loggingInfo.getId());
         if (node == null) {
             System.out.println("Skipping updateNodeAttr for missing node " + loggingInfo.getId());
             return;
@@ -89,8 +142,8 @@ public class RecoveryManager {
         node.setAttribute(loggingInfo.getKey(), loggingInfo.getValue());
     }
 
-    private void removeNode(GraphStorage storage, LoggingInfo loggingInfo) {
-        Node node = storage.getNode(loggingInfo.getId());
+    private static void removeNode(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        Node node = loader.getNode(loggingInfo.getId());
         if (node == null) {
             System.out.println("Skipping removeNode for missing node " + loggingInfo.getId());
             return;
@@ -98,16 +151,16 @@ public class RecoveryManager {
         node.deleteAttribute(loggingInfo.getKey());
     }
 
-    private void deleteNode(GraphStorage storage, LoggingInfo loggingInfo) {
-        if (!storage.containsNode(loggingInfo.getId())) {
+    private static void deleteNode(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        if (!loader.containsNode(loggingInfo.getId())) {
             System.out.println("Skipping deleteNode for missing node " + loggingInfo.getId());
             return;
         }
-        storage.removeNode(loggingInfo.getId());
+        loader.removeNode(loggingInfo.getId());
     }
 
-    private void addEdge(GraphStorage storage, LoggingInfo loggingInfo) {
-        if (!storage.containsNode(loggingInfo.getSource()) || !storage.containsNode(loggingInfo.getTarget())) {
+    private static void addEdge(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        if (!loader.containsNode(loggingInfo.getSource()) || !loader.containsNode(loggingInfo.getTarget())) {
             System.out.println("Skipping addEdge for missing endpoint(s): " + loggingInfo.getSource() + " -> " + loggingInfo.getTarget());
             return;
         }
@@ -118,11 +171,11 @@ public class RecoveryManager {
                 loggingInfo.getWeight(),
                 loggingInfo.getAttributes()
         );
-        storage.putEdge(edge);
+        loader.putEdge(edge);
     }
 
-    private void updateEdgeProps(GraphStorage storage, LoggingInfo loggingInfo) {
-        Edge edge = storage.getEdge(loggingInfo.getId());
+    private static void updateEdgeProps(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        Edge edge = loader.getEdge(loggingInfo.getId());
         if (edge == null) {
             System.out.println("Skipping updateEdgeProps for missing edge " + loggingInfo.getId());
             return;
@@ -130,8 +183,8 @@ public class RecoveryManager {
         edge.setProperties(loggingInfo.getAttributes());
     }
 
-    private void updateEdgeProp(GraphStorage storage, LoggingInfo loggingInfo) {
-        Edge edge = storage.getEdge(loggingInfo.getId());
+    private static void updateEdgeProp(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        Edge edge = loader.getEdge(loggingInfo.getId());
         if (edge == null) {
             System.out.println("Skipping updateEdgeProp for missing edge " + loggingInfo.getId());
             return;
@@ -139,8 +192,8 @@ public class RecoveryManager {
         edge.setProperty(loggingInfo.getKey(), loggingInfo.getValue());
     }
 
-    private void updateEdgeWeight(GraphStorage storage, LoggingInfo loggingInfo) {
-        Edge edge = storage.getEdge(loggingInfo.getId());
+    private static void updateEdgeWeight(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        Edge edge = loader.getEdge(loggingInfo.getId());
         if (edge == null) {
             System.out.println("Skipping updateEdgeWeight for missing edge " + loggingInfo.getId());
             return;
@@ -148,8 +201,8 @@ public class RecoveryManager {
         edge.setWeight(loggingInfo.getWeight());
     }
 
-    private void removeEdge(GraphStorage storage, LoggingInfo loggingInfo) {
-        Edge edge = storage.getEdge(loggingInfo.getId());
+    private static void removeEdge(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        Edge edge = loader.getEdge(loggingInfo.getId());
         if (edge == null) {
             System.out.println("Skipping removeEdge for missing edge " + loggingInfo.getId());
             return;
@@ -157,11 +210,79 @@ public class RecoveryManager {
         edge.deleteProperty(loggingInfo.getKey());
     }
 
-    private void deleteEdge(GraphStorage storage, LoggingInfo loggingInfo) {
-        if (!storage.containsEdge(loggingInfo.getId())) {
+    private static void deleteEdge(BulkGraphLoader loader, LoggingInfo loggingInfo) {
+        if (!loader.containsEdge(loggingInfo.getId())) {
             System.out.println("Skipping deleteEdge for missing edge " + loggingInfo.getId());
             return;
         }
-        storage.removeEdge(loggingInfo.getId());
+        loader.removeEdge(loggingInfo.getId());
+    }
+
+    // applies the transactions queued for its graphs on its own thread, and builds those graphs once the log is read
+    private final class ApplyWorker implements Runnable {
+
+        private static final List<LoggingInfo> END = List.of();
+
+        private final BlockingQueue<List<LoggingInfo>> queue = new ArrayBlockingQueue<>(APPLY_QUEUE_SIZE);
+        private final Thread thread = new Thread(this, "recovery-apply");
+        private final int index;
+        private final int workers;
+        private final Map<String, Graph> built;
+        private volatile RuntimeException failure;
+
+        ApplyWorker(int index, int workers, Map<String, Graph> built) {
+            this.index = index;
+            this.workers = workers;
+            this.built = built;
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void submit(List<LoggingInfo> transaction) {
+            try {
+                queue.put(transaction);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during recovery", e);
+            }
+        }
+
+        void finish() {
+            submit(END);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during recovery", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (List<LoggingInfo> transaction = queue.take(); transaction != END; transaction = queue.take()) {
+                    // after a failure the queue is still drained, so that the reader is never blocked on it
+                    if (failure == null) {
+                        try {
+                            recoverTransaction(transaction);
+                        } catch (RuntimeException e) {
+                            failure = e;
+                        }
+                    }
+                }
+                if (failure == null) {
+                    // only this worker changes its graphs, the ones of the checkpoint included
+                    loaders.forEach((graphId, loader) -> {
+                        if (owner(graphId, workers) == index) {
+                            built.put(graphId, build(graphId, loader));
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
     }
 }
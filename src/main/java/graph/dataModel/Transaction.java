@@ -1,5 +1,6 @@
 package graph.dataModel;
 
+import graph.WAL.Durability;
 import graph.exceptions.EdgeExistsException;
 import graph.exceptions.EdgeNotFoundException;
 import graph.exceptions.NodeNotFoundException;
@@ -115,4 +116,9 @@ public class Transaction implements TransactionOperations {
     public void commit() {
         service.commit();
     }
+
+    @Override
+    public void commit(Durability durability) {
+        service.commit(durability);
+    }
 }
@@ -6,11 +6,15 @@ import graph.dataModel.Transaction;
 import graph.exceptions.EdgeExistsException;
 import graph.exceptions.EdgeNotFoundException;
 import graph.exceptions.NodeNotFoundException;
+import graph.exceptions.SnapshotNotSupportedException;
+import graph.traversalAlgorithms.GraphSnapshot;
+import graph.traversalAlgorithms.NodeHandles;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
 
 import static graph.events.GraphEvent.*;
 
@@ -158,12 +162,62 @@ public class DefaultObservableGraph implements ObservableGraphOperations {
         return service.getNodesIdWithEdgeToNode(nodeId);
     }
 
+    @Override
+    public void forEachNode(Consumer<Node> consumer) {
+        service.forEachNode(consumer);
+    }
+
+    @Override
+    public void forEachEdge(Consumer<Edge> consumer) {
+        service.forEachEdge(consumer);
+    }
+
+    @Override
+    public void forEachEdgeFrom(String nodeId, Consumer<Edge> consumer) {
+        service.forEachEdgeFrom(nodeId, consumer);
+    }
+
+    @Override
+    public void forEachNodeIdWithEdgeTo(String nodeId, Consumer<String> consumer) {
+        service.forEachNodeIdWithEdgeTo(nodeId, consumer);
+    }
+
+    @Override
+    public void forEachNeighbour(String nodeId, ObjDoubleConsumer<String> consumer) {
+        service.forEachNeighbour(nodeId, consumer);
+    }
+
+    @Override
+    public int getNodeCount() {
+        return service.getNodeCount();
+    }
+
+    @Override
+    public NodeHandles nodeHandles() {
+        return service.nodeHandles();
+    }
+
+    @Override
+    public GraphSnapshot openSnapshot() throws SnapshotNotSupportedException {
+        return service.openSnapshot();
+    }
+
     @Override
     public Transaction createTransaction() {
         Consumer<List<GraphEvent>> callback = graphEvents -> graphEvents.forEach(this::notifyListeners);
         return service.createTransactionWithCallback(callback);
     }
 
+    @Override
+    public void createNodeIndex(String attribute) {
+        service.createNodeIndex(attribute);
+    }
+
+    @Override
+    public void createEdgeIndex(String property) {
+        service.createEdgeIndex(property);
+    }
+
     private void notifyListeners(GraphEvent event) {
         for (GraphListener listener : listeners) {
             listener.onGraphChange(event);
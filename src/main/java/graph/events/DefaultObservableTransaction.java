@@ -1,5 +1,6 @@
 package graph.events;
 
+import graph.WAL.Durability;
 import graph.dataModel.Edge;
 import graph.dataModel.Node;
 import graph.exceptions.EdgeExistsException;
@@ -32,6 +33,12 @@ public class DefaultObservableTransaction implements TransactionOperations {
         this.callback.accept(events);
     }
 
+    @Override
+    public void commit(Durability durability) {
+        service.commit(durability);
+        this.callback.accept(events);
+    }
+
     @Override
     public Node addNode(Map<String, Object> attributes) throws IllegalArgumentException {
         Node node = service.addNode(attributes);
@@ -0,0 +1,8 @@
+package graph.exceptions;
+
+// Only graphs kept in a versioned storage can be read as of a point in time
+public class SnapshotNotSupportedException extends Exception {
+    public SnapshotNotSupportedException(String graphId) {
+        super("Graph with " + graphId + " is not on a versioned storage and cannot open snapshots");
+    }
+}
@@ -0,0 +1,10 @@
+package graph.exceptions;
+
+// A transaction read or wrote something another transaction changed since; nothing of it was applied, and it can be
+// retried as a new transaction
+public class TransactionConflictException extends RuntimeException {
+    public TransactionConflictException(String entity, String id) {
+
+        super("Transaction conflicts with a concurrent commit on " + entity + " " + id);
+    }
+}
@@ -1,6 +1,7 @@
 package graph.operations;
 
 import graph.dataModel.Edge;
+import graph.storage.AttributeIndexes;
 import graph.storage.GraphStorage;
 
 public record AddOrUpdateEdge(Edge edge) implements GraphOperation {
@@ -9,4 +10,9 @@ public record AddOrUpdateEdge(Edge edge) implements GraphOperation {
     public void apply(GraphStorage storage) {
         storage.putEdge(edge);
     }
+
+    @Override
+    public void apply(AttributeIndexes indexes) {
+        indexes.indexEdge(edge);
+    }
 }
@@ -1,6 +1,7 @@
 package graph.operations;
 
 import graph.dataModel.Node;
+import graph.storage.AttributeIndexes;
 import graph.storage.GraphStorage;
 
 public record AddOrUpdateNode(Node node) implements GraphOperation {
@@ -9,4 +10,9 @@ public record AddOrUpdateNode(Node node) implements GraphOperation {
     public void apply(GraphStorage storage) {
         storage.putNode(node);
     }
+
+    @Override
+    public void apply(AttributeIndexes indexes) {
+        indexes.indexNode(node);
+    }
 }
@@ -0,0 +1,318 @@
+package graph.operations;
+
+import graph.dataModel.Edge;
+import graph.exceptions.TransactionConflictException;
+import graph.storage.GraphStorage;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Optimistic concurrency control for the transactions of one graph. A transaction locks nothing while it runs: it
+// records the version of every node and edge it reads from the graph (its ReadSet), and on commit is checked against
+// what the transactions committed or committing since have written. What it writes is then claimed until it has been
+// logged and applied, so that it cannot be written by another transaction meanwhile. The check and the publishing of
+// what was applied hold a lock of the graph's own, and only for the in-memory work. Commits on different nodes and
+// edges are applied at the same time only when the storage is thread safe; otherwise they take turns on a second lock
+// of the graph's, which the check also takes to read the storage. Versions are pruned once no running transaction can
+// have read them. A transaction that conflicts fails with a TransactionConflictException and can be retried. Only what
+// a transaction reads by id is validated: scans and attribute lookups are not, and neither are changes made through
+// the graph outside a transaction.
+final class CommitValidator {
+
+    private static final Version INITIAL = new Version(0, false);
+    private static final int PRUNE_INTERVAL = 1024;
+
+    private final GraphStorage storage;
+    private final ReentrantLock lock = new ReentrantLock();
+    // null when the storage takes writes from several threads at once
+    private final ReentrantLock applyLock;
+    // the versions of the nodes and edges transactions have written; read without the lock
+    private final Map<String, Version> nodeVersions = new ConcurrentHashMap<>();
+    private final Map<String, Version> edgeVersions = new ConcurrentHashMap<>();
+    // what the transactions validated but not yet applied have claimed, guarded by the lock
+    private final Map<String, Claim> nodeClaims = new HashMap<>();
+    private final Map<String, ReadSet> edgeClaims = new HashMap<>();
+    private final Map<String, ReadSet> pairClaims = new HashMap<>();
+    // the clock each running transaction began at, guarded by the lock; transactions that are dropped without being
+    // committed or aborted go once they are garbage collected
+    private final Map<ReadSet, Long> running = new WeakHashMap<>();
+    private long clock;
+
+    private CommitValidator(GraphStorage storage) {
+        this.storage = storage;
+        this.applyLock = storage.isThreadSafe() ? null : new ReentrantLock();
+    }
+
+    static CommitValidator create(GraphStorage storage) {
+        return new CommitValidator(storage);
+    }
+
+    ReadSet begin() {
+        lock.lock();
+        try {
+            ReadSet reads = new ReadSet();
+            running.put(reads, clock);
+            return reads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Checks the transaction and claims what it writes, or throws TransactionConflictException. Does nothing for a
+    // transaction that writes nothing or has been prepared already.
+    void prepare(ReadSet reads, List<GraphOperation> operations) {
+        if (reads.writes != null || operations.isEmpty()) {
+            return;
+        }
+        Writes writes = Writes.of(reads, operations);
+        lock.lock();
+        try {
+            try {
+                validate(reads, writes);
+            } catch (TransactionConflictException e) {
+                running.remove(reads);
+                throw e;
+            }
+            writes.nodes.forEach((id, deleting) -> {
+                Claim claim = nodeClaims.computeIfAbsent(id, key -> new Claim());
+                claim.writer = reads;
+                claim.deleting = deleting;
+            });
+            for (String id : writes.existing) {
+                nodeClaims.computeIfAbsent(id, key -> new Claim()).sharers++;
+            }
+            writes.edges.keySet().forEach(id -> edgeClaims.put(id, reads));
+            writes.pairs.keySet().forEach(pair -> pairClaims.put(pair, reads));
+            reads.writes = writes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Prepares the transaction if it has not been, applies it and publishes the new versions of what it wrote. What
+    // it claimed keeps other commits off its nodes and edges while it is applied without the lock.
+    void commit(ReadSet reads, List<GraphOperation> operations, Runnable apply) {
+        prepare(reads, operations);
+        try {
+            if (reads.writes != null) {
+                apply(apply);
+            }
+        } finally {
+            lock.lock();
+            try {
+                running.remove(reads);
+                if (reads.writes != null) {
+                    publish(reads.writes);
+                    release(reads);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // gives up what a transaction claimed, if anything, without applying it
+    void abort(ReadSet reads) {
+        lock.lock();
+        try {
+            if (reads.writes != null) {
+                release(reads);
+            }
+            running.remove(reads);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void validate(ReadSet reads, Writes writes) {
+        reads.nodes.forEach((id, base) -> {
+            Claim claim = nodeClaims.get(id);
+            if (nodeVersion(id).number > base || claim != null && claim.writer != null) {
+                throw new TransactionConflictException("node", id);
+            }
+        });
+        for (String id : writes.existing) {
+            Version version = nodeVersion(id);
+            Claim claim = nodeClaims.get(id);
+            // a node deleted and added again since it was read has lost its edges as well
+            if (version.deleted && version.number > reads.present.get(id) || claim != null && claim.deleting) {
+                throw new TransactionConflictException("node", id);
+            }
+        }
+        writes.nodes.forEach((id, deleting) -> {
+            Claim claim = nodeClaims.get(id);
+            if (deleting && claim != null && claim.sharers > 0) {
+                throw new TransactionConflictException("node", id);
+            }
+        });
+        reads.edges.forEach((id, base) -> {
+            if (edgeVersion(id).number > base || edgeClaims.containsKey(id)) {
+                throw new TransactionConflictException("edge", id);
+            }
+        });
+        writes.pairs.forEach((pair, edge) -> {
+            if (pairClaims.containsKey(pair)) {
+                throw new TransactionConflictException("edge", pair);
+            }
+            // read once, other commits apply without the lock and may remove the edge in between
+            Edge existing = existingEdge(edge);
+            if (existing != null && !writes.edges.getOrDefault(existing.getId(), false)) {
+                throw new TransactionConflictException("edge", pair);
+            }
+        });
+    }
+
+    private void apply(Runnable apply) {
+        if (applyLock == null) {
+            apply.run();
+            return;
+        }
+        applyLock.lock();
+        try {
+            apply.run();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    private Edge existingEdge(Edge edge) {
+        if (applyLock == null) {
+            return storage.getEdgeByNodeIds(edge.getSource(), edge.getDestination());
+        }
+        applyLock.lock();
+        try {
+            return storage.getEdgeByNodeIds(edge.getSource(), edge.getDestination());
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    private void publish(Writes writes) {
+        long version = ++clock;
+        writes.nodes.forEach((id, deleting) -> nodeVersions.put(id, new Version(version, deleting)));
+        writes.edges.forEach((id, deleting) -> edgeVersions.put(id, new Version(version, deleting)));
+        if (version % PRUNE_INTERVAL == 0) {
+            prune();
+        }
+    }
+
+    // A version written before every running transaction began can go: whoever reads it from now on finds no version,
+    // which is older than anything committed after the read, and a conflict is only ever a version newer than the
+    // one read
+    private void prune() {
+        long oldest = clock;
+        for (long began : running.values()) {
+            oldest = Math.min(oldest, began);
+        }
+        long horizon = oldest;
+        nodeVersions.values().removeIf(version -> version.number <= horizon);
+        edgeVersions.values().removeIf(version -> version.number <= horizon);
+    }
+
+    // the number of nodes and edges whose versions are kept
+    int retainedVersions() {
+        return nodeVersions.size() + edgeVersions.size();
+    }
+
+    private void release(ReadSet reads) {
+        Writes writes = reads.writes;
+        writes.nodes.keySet().forEach(id -> {
+            Claim claim = nodeClaims.get(id);
+            claim.writer = null;
+            claim.deleting = false;
+            if (claim.sharers == 0) {
+                nodeClaims.remove(id);
+            }
+        });
+        for (String id : writes.existing) {
+            Claim claim = nodeClaims.get(id);
+            if (--claim.sharers == 0 && claim.writer == null) {
+                nodeClaims.remove(id);
+            }
+        }
+        writes.edges.keySet().forEach(edgeClaims::remove);
+        writes.pairs.keySet().forEach(pairClaims::remove);
+        reads.writes = null;
+    }
+
+    private Version nodeVersion(String id) {
+        return nodeVersions.getOrDefault(id, INITIAL);
+    }
+
+    private Version edgeVersion(String id) {
+        return edgeVersions.getOrDefault(id, INITIAL);
+    }
+
+    private record Version(long number, boolean deleted) {}
+
+    // a node written by one transaction, or needed to stay by others adding edges to it
+    private static final class Claim {
+        private ReadSet writer;
+        private boolean deleting;
+        private int sharers;
+    }
+
+    // What one transaction has read from the graph, with the version each node and edge had before it was read: a
+    // commit in between then shows up as a conflict rather than going unnoticed.
+    final class ReadSet {
+
+        private final Map<String, Long> nodes = new HashMap<>();
+        // nodes that must still exist, such as the ends of an edge, whatever is done to their attributes
+        private final Map<String, Long> present = new HashMap<>();
+        private final Map<String, Long> edges = new HashMap<>();
+        // set while the transaction is prepared
+        private Writes writes;
+
+        private ReadSet() {}
+
+        void readNode(String id) {
+            nodes.putIfAbsent(id, nodeVersion(id).number);
+        }
+
+        void requireNode(String id) {
+            present.putIfAbsent(id, nodeVersion(id).number);
+        }
+
+        void readEdge(String id) {
+            edges.putIfAbsent(id, edgeVersion(id).number);
+        }
+    }
+
+    // What a transaction writes to nodes and edges that existed before it, whether it deletes them, the nodes it needs
+    // to stay without writing them, and the source and target pairs of the edges it adds
+    private record Writes(Map<String, Boolean> nodes, Map<String, Boolean> edges, List<String> existing,
+                          Map<String, Edge> pairs) {
+
+        static Writes of(ReadSet reads, List<GraphOperation> operations) {
+            Map<String, Boolean> nodes = new HashMap<>();
+            Map<String, Boolean> edges = new HashMap<>();
+            Map<String, Edge> added = new HashMap<>();
+            for (GraphOperation operation : operations) {
+                if (operation instanceof AddOrUpdateNode put && reads.nodes.containsKey(put.node().getId())) {
+                    nodes.merge(put.node().getId(), false, Boolean::logicalOr);
+                } else if (operation instanceof DeleteNode delete && reads.nodes.containsKey(delete.nodeId())) {
+                    nodes.put(delete.nodeId(), true);
+                } else if (operation instanceof AddOrUpdateEdge put) {
+                    if (reads.edges.containsKey(put.edge().getId())) {
+                        edges.merge(put.edge().getId(), false, Boolean::logicalOr);
+                    } else {
+                        added.put(put.edge().getId(), put.edge());
+                    }
+                } else if (operation instanceof DeleteEdge delete) {
+                    added.remove(delete.edgeId());
+                    if (reads.edges.containsKey(delete.edgeId())) {
+                        edges.put(delete.edgeId(), true);
+                    }
+                }
+            }
+            List<String> existing = reads.present.keySet().stream().filter(id -> !nodes.containsKey(id)).toList();
+            Map<String, Edge> pairs = new HashMap<>();
+            added.values().forEach(edge -> pairs.put(edge.getSource() + "->" + edge.getDestination(), edge));
+            return new Writes(nodes, edges, existing, pairs);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package graph.operations;
 
+import graph.storage.AttributeIndexes;
 import graph.storage.GraphStorage;
 
 public record DeleteEdge(String edgeId) implements GraphOperation {
@@ -8,4 +9,9 @@ public record DeleteEdge(String edgeId) implements GraphOperation {
     public void apply(GraphStorage storage) {
         storage.removeEdge(edgeId);
     }
+
+    @Override
+    public void apply(AttributeIndexes indexes) {
+        indexes.removeEdge(edgeId);
+    }
 }
@@ -1,5 +1,6 @@
 package graph.operations;
 
+import graph.storage.AttributeIndexes;
 import graph.storage.GraphStorage;
 
 public record DeleteNode(String nodeId) implements GraphOperation {
@@ -8,4 +9,9 @@ public record DeleteNode(String nodeId) implements GraphOperation {
     public void apply(GraphStorage storage) {
         storage.removeNode(nodeId);
     }
+
+    @Override
+    public void apply(AttributeIndexes indexes) {
+        indexes.removeNode(nodeId);
+    }
 }
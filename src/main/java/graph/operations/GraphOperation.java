@@ -1,7 +1,11 @@
 package graph.operations;
 
+import graph.storage.AttributeIndexes;
 import graph.storage.GraphStorage;
 
 public interface GraphOperation {
     void apply(GraphStorage storage);
+
+    // keeps the attribute indexes in line with the storage once the operation has been applied
+    default void apply(AttributeIndexes indexes) {}
 }
@@ -3,11 +3,21 @@ package graph.operations;
 import graph.dataModel.Edge;
 import graph.dataModel.Transaction;
 import graph.exceptions.NodeNotFoundException;
+import graph.exceptions.SnapshotNotSupportedException;
+import graph.traversalAlgorithms.GraphSnapshot;
+import graph.traversalAlgorithms.GraphTraversalView;
 
 import java.util.List;
 
-public interface GraphOperations extends CRUDOperations, EdgeWeightQueryOperations {
+public interface GraphOperations extends CRUDOperations, EdgeWeightQueryOperations, GraphTraversalView {
     List<Edge> getEdgesFromNode(String nodeId) throws NodeNotFoundException;
     List<String> getNodesIdWithEdgeToNode(String nodeId) throws NodeNotFoundException;
     Transaction createTransaction();
+
+    // attribute lookups use an index once one is declared for the attribute
+    void createNodeIndex(String attribute);
+    void createEdgeIndex(String property);
+
+    // reads the graph without seeing the changes made to it meanwhile; only graphs on a versioned storage can
+    GraphSnapshot openSnapshot() throws SnapshotNotSupportedException;
 }
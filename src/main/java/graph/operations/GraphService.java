@@ -9,20 +9,36 @@ import graph.events.InternalGraphOperations;
 import graph.exceptions.EdgeExistsException;
 import graph.exceptions.EdgeNotFoundException;
 import graph.exceptions.NodeNotFoundException;
+import graph.exceptions.SnapshotNotSupportedException;
+import graph.storage.AttributeIndex;
+import graph.storage.AttributeIndexes;
 import graph.storage.GraphStorage;
+import graph.storage.VersionedGraphStorage;
+import graph.traversalAlgorithms.GraphSnapshot;
+import graph.traversalAlgorithms.InternedNodeHandles;
+import graph.traversalAlgorithms.NodeHandles;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
 
 public class GraphService implements InternalGraphOperations {
 
     private final GraphStorage storage;
     private final String graphId;
+    private final AttributeIndexes indexes;
+    private final CommitValidator validator;
 
     public GraphService(GraphStorage storage, String graphId) {
+        this(storage, graphId, new AttributeIndexes());
+    }
+
+    public GraphService(GraphStorage storage, String graphId, AttributeIndexes indexes) {
         this.storage = storage;
         this.graphId = graphId;
+        this.indexes = indexes;
+        this.validator = CommitValidator.create(storage);
     }
 
     @Override
@@ -31,6 +47,7 @@ public class GraphService implements InternalGraphOperations {
         String nodeId = UUID.randomUUID().toString();
         Node newNode = new Node(nodeId, attributes);
         this.storage.putNode(newNode);
+        this.indexes.indexNode(newNode);
         return newNode;
     }
 
@@ -46,6 +63,10 @@ public class GraphService implements InternalGraphOperations {
 
     @Override
     public List<Node> getNodesByAttribute(String attribute, Object value) {
+        AttributeIndex index = this.indexes.getNodeIndex(attribute);
+        if (index != null) {
+            return getIndexedNodes(index, value);
+        }
         List<Node> nodes = getNodes();
         List<Node> filteredNodes = new LinkedList<>();
         for (Node node : nodes) {
@@ -61,23 +82,29 @@ public class GraphService implements InternalGraphOperations {
         checkAttributes(attributes);
         Node currentNode = getNodeIfExists(id);
         currentNode.setAttributes(attributes);
+        this.indexes.indexNode(currentNode);
     }
 
     @Override
     public void updateNode(String id, String attribute, Object value) throws NodeNotFoundException {
         Node currentNode = getNodeIfExists(id);
         currentNode.setAttribute(attribute, value);
+        this.indexes.indexNode(currentNode);
     }
 
     @Override
     public Object removeNodeAttribute(String id, String attribute) throws NodeNotFoundException {
         Node currentNode = getNodeIfExists(id);
-        return currentNode.deleteAttribute(attribute);
+        Object value = currentNode.deleteAttribute(attribute);
+        this.indexes.indexNode(currentNode);
+        return value;
     }
 
     @Override
     public Node deleteNode(String id) throws NodeNotFoundException {
         checkNodeId(id);
+        this.indexes.removeNode(id);
+        this.indexes.removeEdgesOf(id, this.storage);
         return this.storage.removeNode(id);
     }
 
@@ -92,6 +119,7 @@ public class GraphService implements InternalGraphOperations {
         String edgeId = UUID.randomUUID().toString();
         Edge edge = new Edge(edgeId, source, target, weight, properties);
         this.storage.putEdge(edge);
+        this.indexes.indexEdge(edge);
         return edge;
     }
 
@@ -117,6 +145,10 @@ public class GraphService implements InternalGraphOperations {
 
     @Override
     public List<Edge> getEdgesByProperty(String property, Object value) {
+        AttributeIndex index = this.indexes.getEdgeIndex(property);
+        if (index != null) {
+            return getIndexedEdges(index, value);
+        }
         List<Edge> edges = this.storage.getAllEdges();
         List<Edge> filteredEdges = new LinkedList<>();
         for (Edge edge : edges) {
@@ -162,6 +194,7 @@ public class GraphService implements InternalGraphOperations {
     public void updateEdge(String edgeId, String key, Object value) throws EdgeNotFoundException {
         Edge currentEdge = getEdgeIfExists(edgeId);
         currentEdge.setProperty(key, value);
+        this.indexes.indexEdge(currentEdge);
     }
 
     @Override
@@ -169,17 +202,21 @@ public class GraphService implements InternalGraphOperations {
         checkAttributes(properties);
         Edge currentEdge = getEdgeIfExists(edgeId);
         currentEdge.setProperties(properties);
+        this.indexes.indexEdge(currentEdge);
     }
 
     @Override
     public Object removeEdgeProperty(String edgeId, String property) throws EdgeNotFoundException {
         Edge currentEdge = getEdgeIfExists(edgeId);
-        return currentEdge.deleteProperty(property);
+        Object value = currentEdge.deleteProperty(property);
+        this.indexes.indexEdge(currentEdge);
+        return value;
     }
 
     @Override
     public Edge deleteEdge(String edgeId) throws EdgeNotFoundException {
         checkEdgeId(edgeId);
+        this.indexes.removeEdge(edgeId);
         return this.storage.removeEdge(edgeId);
     }
 
@@ -195,9 +232,56 @@ public class GraphService implements InternalGraphOperations {
         return this.storage.nodesIdsWithEdgesToNode(nodeId);
     }
 
+    @Override
+    public void forEachNode(Consumer<Node> consumer) {
+        this.storage.forEachNode(consumer);
+    }
+
+    @Override
+    public void forEachEdge(Consumer<Edge> consumer) {
+        this.storage.forEachEdge(consumer);
+    }
+
+    @Override
+    public void forEachEdgeFrom(String nodeId, Consumer<Edge> consumer) throws NodeNotFoundException {
+        checkNodeId(nodeId);
+        this.storage.forEachEdgeFrom(nodeId, consumer);
+    }
+
+    @Override
+    public void forEachNodeIdWithEdgeTo(String nodeId, Consumer<String> consumer) throws NodeNotFoundException {
+        checkNodeId(nodeId);
+        this.storage.forEachNodeIdWithEdgeTo(nodeId, consumer);
+    }
+
+    @Override
+    public void forEachNeighbour(String nodeId, ObjDoubleConsumer<String> consumer) throws NodeNotFoundException {
+        checkNodeId(nodeId);
+        this.storage.forEachNeighbour(nodeId, consumer);
+    }
+
+    @Override
+    public int getNodeCount() {
+        return this.storage.nodeCount();
+    }
+
+    @Override
+    public NodeHandles nodeHandles() {
+        NodeHandles handles = this.storage.nodeHandles();
+        return handles != null ? handles : InternedNodeHandles.create(this);
+    }
+
+    @Override
+    public GraphSnapshot openSnapshot() throws SnapshotNotSupportedException {
+        if (this.storage instanceof VersionedGraphStorage versioned) {
+            return versioned.openSnapshot();
+        }
+        throw new SnapshotNotSupportedException(graphId);
+    }
+
     @Override
     public Transaction createTransaction() {
-        TransactionOperations service = TransactionService.create(storage);
+        TransactionOperations service = TransactionService.create(storage, indexes, validator);
         try {
             TransactionOperations logger = TransactionLogger.create(graphId, service);
             return new Transaction(logger);
@@ -208,7 +292,7 @@ public class GraphService implements InternalGraphOperations {
 
     @Override
     public Transaction createTransactionWithCallback(Consumer<List<GraphEvent>> callback) {
-        TransactionOperations service = TransactionService.create(storage);
+        TransactionOperations service = TransactionService.create(storage, indexes, validator);
         try {
             TransactionOperations logger = TransactionLogger.create(graphId, service);
             TransactionOperations observableTransaction = new DefaultObservableTransaction(logger, callback);
@@ -218,6 +302,47 @@ public class GraphService implements InternalGraphOperations {
         }
     }
 
+    @Override
+    public void createNodeIndex(String attribute) {
+        this.indexes.createNodeIndex(attribute, this.storage.getAllNodes());
+    }
+
+    @Override
+    public void createEdgeIndex(String property) {
+        this.indexes.createEdgeIndex(property, this.storage.getAllEdges());
+    }
+
+    // Hits are checked against the storage, so a node or edge changed without going through the service is not
+    // returned for a value it no longer has. The lookups only read the index; every write keeps it in line. A null
+    // value matches nothing, the same as in an unindexed lookup.
+    private List<Node> getIndexedNodes(AttributeIndex index, Object value) {
+        List<Node> filteredNodes = new LinkedList<>();
+        if (value == null) {
+            return filteredNodes;
+        }
+        for (String id : index.lookup(value)) {
+            Node node = this.storage.getNode(id);
+            if (node != null && value.equals(node.getAttributes().get(index.getAttribute()))) {
+                filteredNodes.add(node);
+            }
+        }
+        return filteredNodes;
+    }
+
+    private List<Edge> getIndexedEdges(AttributeIndex index, Object value) {
+        List<Edge> filteredEdges = new LinkedList<>();
+        if (value == null) {
+            return filteredEdges;
+        }
+        for (String id : index.lookup(value)) {
+            Edge edge = this.storage.getEdge(id);
+            if (edge != null && value.equals(edge.getProperties().get(index.getAttribute()))) {
+                filteredEdges.add(edge);
+            }
+        }
+        return filteredEdges;
+    }
+
     private Node getNodeIfExists(String nodeId) throws NodeNotFoundException {
         checkNodeId(nodeId);
         return this.storage.getNode(nodeId);
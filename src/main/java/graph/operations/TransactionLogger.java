@@ -1,7 +1,8 @@
 package graph.operations;
 
+import graph.WAL.Durability;
 import graph.WAL.LoggingInfo;
-import graph.WAL.WALFormatter;
+import graph.WAL.WALRecordBuffer;
 import graph.WAL.WALWriter;
 import graph.dataModel.Edge;
 import graph.dataModel.Node;
@@ -17,35 +18,55 @@ import java.util.UUID;
 import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
 import static graph.WAL.LoggingOperations.*;
 
+// Encodes the operations of a transaction into memory and hands them to the shared WAL writer as one append on
+// commit, so a transaction costs a single group commit and one that never commits costs no disk I/O at all.
 public class TransactionLogger implements TransactionOperations {
 
     private final TransactionOperations transaction;
     private final WALWriter writer;
+    private final WALRecordBuffer records = new WALRecordBuffer();
 
     TransactionLogger(String graphId, TransactionOperations transaction, WALWriter writer) {
         this.transaction = transaction;
         this.writer = writer;
         LoggingInfo loggingInfo = aLoggingInfo(BEGIN_TRANSACTION).withId(UUID.randomUUID().toString()).withSource(graphId).build();
-        safeWriteToFile(loggingInfo);
+        records.append(loggingInfo);
     }
 
     static TransactionLogger create(String graphId, TransactionOperations transaction) throws IOException {
-        WALWriter writer = new WALWriter(new WALFormatter(), "log");
-        return new TransactionLogger(graphId, transaction, writer);
+        return new TransactionLogger(graphId, transaction, WALWriter.defaultWALWriter());
     }
 
+    // a transaction that conflicts is rejected before it is logged, so that recovery never replays it
     @Override
     public void commit() {
-        LoggingInfo loggingInfo = aLoggingInfo(COMMIT).build();
-        safeWriteToFile(loggingInfo);
-        transaction.commit();
+        transaction.prepare();
+        records.append(aLoggingInfo(COMMIT).build());
+        try {
+            writer.commit(records, transaction::commit);
+        } catch (IOException e) {
+            transaction.abort();
+            throw new RuntimeException("Failed to write transaction to WAL", e);
+        }
+    }
+
+    @Override
+    public void commit(Durability durability) {
+        transaction.prepare();
+        records.append(aLoggingInfo(COMMIT).build());
+        try {
+            writer.commit(records, transaction::commit, durability);
+        } catch (IOException e) {
+            transaction.abort();
+            throw new RuntimeException("Failed to write transaction to WAL", e);
+        }
     }
 
     @Override
     public Node addNode(Map<String, Object> attributes) throws IllegalArgumentException {
         Node node = transaction.addNode(attributes);
         LoggingInfo loggingInfo = aLoggingInfo(ADD_NODE).withId(node.getId()).withAttributes(attributes).build();
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
         return node;
     }
 
@@ -68,21 +89,21 @@ public class TransactionLogger implements TransactionOperations {
     public void updateNode(String id, Map<String, Object> attributes) throws NodeNotFoundException, IllegalArgumentException {
         LoggingInfo loggingInfo = aLoggingInfo(UPDATE_NODE_ATTRS).withId(id).withAttributes(attributes).build();
         transaction.updateNode(id, attributes);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
     }
 
     @Override
     public void updateNode(String id, String attribute, Object value) throws NodeNotFoundException {
         LoggingInfo loggingInfo = aLoggingInfo(UPDATE_NODE_ATTR).withId(id).withKeyValuePair(attribute, value).build();
         transaction.updateNode(id, attribute, value);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
     }
 
     @Override
     public Object removeNodeAttribute(String id, String attribute) throws NodeNotFoundException {
         LoggingInfo loggingInfo = aLoggingInfo(REMOVE_NODE).withId(id).withKey(attribute).build();
         Object value = transaction.removeNodeAttribute(id, attribute);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
         return value;
     }
 
@@ -90,7 +111,7 @@ public class TransactionLogger implements TransactionOperations {
     public Node deleteNode(String id) throws NodeNotFoundException {
         LoggingInfo loggingInfo = aLoggingInfo(DELETE_NODE).withId(id).build();
         Node deleted = transaction.deleteNode(id);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
         return deleted;
     }
 
@@ -99,7 +120,7 @@ public class TransactionLogger implements TransactionOperations {
         Edge edge = transaction.addEdge(source, target, properties, weight);
         LoggingInfo loggingInfo = aLoggingInfo(ADD_EDGE).withId(edge.getId())
                 .withSource(source).withTarget(target).withAttributes(properties).withWeight(weight).build();
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
         return edge;
     }
 
@@ -132,28 +153,28 @@ public class TransactionLogger implements TransactionOperations {
     public void updateEdge(String edgeId, double weight) throws EdgeNotFoundException {
         LoggingInfo loggingInfo = aLoggingInfo(UPDATE_EDGE_WEIGHT).withId(edgeId).withWeight(weight).build();
         transaction.updateEdge(edgeId, weight);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
     }
 
     @Override
     public void updateEdge(String edgeId, String key, Object value) throws EdgeNotFoundException {
         LoggingInfo loggingInfo = aLoggingInfo(UPDATE_EDGE_PROP).withId(edgeId).withKeyValuePair(key, value).build();
         transaction.updateEdge(edgeId, key, value);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
     }
 
     @Override
     public void updateEdge(String edgeId, Map<String, Object> properties) throws EdgeNotFoundException, IllegalArgumentException {
         LoggingInfo loggingInfo = aLoggingInfo(UPDATE_EDGE_PROPS).withId(edgeId).withAttributes(properties).build();
         transaction.updateEdge(edgeId, properties);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
     }
 
     @Override
     public Object removeEdgeProperty(String edgeId, String property) throws EdgeNotFoundException {
         LoggingInfo loggingInfo = aLoggingInfo(REMOVE_EDGE).withId(edgeId).withKey(property).build();
         Object value = transaction.removeEdgeProperty(edgeId, property);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
         return value;
     }
 
@@ -161,15 +182,11 @@ public class TransactionLogger implements TransactionOperations {
     public Edge deleteEdge(String edgeId) throws EdgeNotFoundException {
         LoggingInfo loggingInfo = aLoggingInfo(DELETE_EDGE).withId(edgeId).build();
         Edge deletedEdge = transaction.deleteEdge(edgeId);
-        safeWriteToFile(loggingInfo);
+        record(loggingInfo);
         return deletedEdge;
     }
 
-    private void safeWriteToFile(LoggingInfo loggingInfo) {
-        try {
-            writer.writeToFile(loggingInfo);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to write to WAL with this operation " + loggingInfo.getOperation(), e);
-        }
+    private void record(LoggingInfo loggingInfo) {
+        records.append(loggingInfo);
     }
 }
@@ -1,5 +1,20 @@
 package graph.operations;
 
+import graph.WAL.Durability;
+
 public interface TransactionOperations extends CRUDOperations {
     void commit();
+
+    // Checks the transaction against those committed since it began and holds off conflicting ones until it is
+    // committed or aborted; throws TransactionConflictException when it has to be retried. Committing prepares a
+    // transaction that has not been, so this is only needed before work that must not happen for a conflicting one.
+    default void prepare() {}
+
+    // lets go of a prepared transaction that will not be committed
+    default void abort() {}
+
+    // commits with the given durability rather than the database's; only logged transactions make a difference
+    default void commit(Durability durability) {
+        commit();
+    }
 }
@@ -14,10 +14,17 @@ public class TransactionOperationsResolver implements OperationsResolver {
 
     private final GraphStorage storage;
     private final TransactionStorage transactionStorage;
+    // what the transaction reads from the graph, for its commit to be validated; null when it is not validated
+    private final CommitValidator.ReadSet reads;
 
     public TransactionOperationsResolver(GraphStorage storage, TransactionStorage transactionStorage) {
+        this(storage, transactionStorage, null);
+    }
+
+    TransactionOperationsResolver(GraphStorage storage, TransactionStorage transactionStorage, CommitValidator.ReadSet reads) {
         this.storage = storage;
         this.transactionStorage = transactionStorage;
+        this.reads = reads;
     }
 
     @Override
@@ -29,6 +36,9 @@ public class TransactionOperationsResolver implements OperationsResolver {
 
     @Override
     public void checkNodeId(String nodeId) throws NodeNotFoundException {
+        if (reads != null && !this.transactionStorage.containsNode(nodeId)) {
+            reads.requireNode(nodeId);
+        }
         if (!this.transactionStorage.containsNode(nodeId) && (
                 this.transactionStorage.nodeDeleted(nodeId) || !this.storage.containsNode(nodeId)
         )) {
@@ -38,14 +48,23 @@ public class TransactionOperationsResolver implements OperationsResolver {
 
     @Override
     public Node getNodeIfExists(String nodeId) throws NodeNotFoundException {
+        // versions are recorded before what they version is read, so that a commit in between is a conflict
+        if (reads != null && !this.transactionStorage.containsNode(nodeId)) {
+            reads.readNode(nodeId);
+        }
         checkNodeId(nodeId);
         return getMostUpdatedNode(nodeId);
     }
 
     @Override
     public Edge getEdgeIfExists(String edgeId) throws EdgeNotFoundException {
+        boolean committed = !this.transactionStorage.containsEdge(edgeId);
+        if (reads != null && committed) {
+            reads.readEdge(edgeId);
+        }
         checkEdgeId(edgeId);
-        return getMostUpdatedEdge(edgeId);
+        Edge edge = getMostUpdatedEdge(edgeId);
+        return reads != null && committed ? requireEnds(edge) : edge;
     }
 
     @Override
@@ -86,6 +105,10 @@ public class TransactionOperationsResolver implements OperationsResolver {
                 edge = null;
             }
         }
+        if (edge != null && reads != null && !inTransactionStorage) {
+            reads.readEdge(edge.getId());
+            edge = requireEnds(edge);
+        }
         // deleted in transaction -> need to check if there is a new edge for source to target
         if (inTransactionStorage) {
             edge = this.transactionStorage.getEdgesByNodeIds(source, target);
@@ -96,6 +119,18 @@ public class TransactionOperationsResolver implements OperationsResolver {
         return edge;
     }
 
+    // Writing an edge back requires its nodes to still be there, as deleting one deletes the edge without writing it.
+    // The edge is read again once they are recorded, in case it went with one of them meanwhile.
+    private Edge requireEnds(Edge edge) throws EdgeNotFoundException {
+        reads.requireNode(edge.getSource());
+        reads.requireNode(edge.getDestination());
+        Edge current = this.storage.getEdge(edge.getId());
+        if (current == null) {
+            throw new EdgeNotFoundException(edge.getId());
+        }
+        return current;
+    }
+
     private Node getMostUpdatedNode(String nodeId) {
         // pre-condition: the node exists
         return this.transactionStorage.containsNode(nodeId)
@@ -5,6 +5,8 @@ import graph.dataModel.Node;
 import graph.exceptions.EdgeExistsException;
 import graph.exceptions.EdgeNotFoundException;
 import graph.exceptions.NodeNotFoundException;
+import graph.storage.AttributeIndex;
+import graph.storage.AttributeIndexes;
 import graph.storage.GraphStorage;
 import graph.storage.TransactionStorage;
 import graph.storage.TransactionTemporaryStorage;
@@ -16,17 +18,34 @@ public class TransactionService implements TransactionOperations {
     private final GraphStorage storage;
     private final TransactionStorage transactionStorage;
     private final OperationsResolver resolver;
+    private final AttributeIndexes indexes;
+    // null when commits are not validated against other transactions
+    private final CommitValidator validator;
+    private final CommitValidator.ReadSet reads;
 
     protected TransactionService(GraphStorage storage, TransactionStorage transactionStorage, OperationsResolver resolver) {
+        this(storage, transactionStorage, resolver, new AttributeIndexes());
+    }
+
+    protected TransactionService(GraphStorage storage, TransactionStorage transactionStorage, OperationsResolver resolver, AttributeIndexes indexes) {
+        this(storage, transactionStorage, resolver, indexes, null, null);
+    }
+
+    private TransactionService(GraphStorage storage, TransactionStorage transactionStorage, OperationsResolver resolver,
+                               AttributeIndexes indexes, CommitValidator validator, CommitValidator.ReadSet reads) {
         this.storage = storage;
         this.transactionStorage = transactionStorage;
         this.resolver = resolver;
+        this.indexes = indexes;
+        this.validator = validator;
+        this.reads = reads;
     }
 
-    static TransactionService create(GraphStorage storage) {
+    static TransactionService create(GraphStorage storage, AttributeIndexes indexes, CommitValidator validator) {
         TransactionStorage transactionStorage = new TransactionTemporaryStorage();
-        OperationsResolver resolver = new TransactionOperationsResolver(storage, transactionStorage);
-        return new TransactionService(storage, transactionStorage, resolver);
+        CommitValidator.ReadSet reads = validator.begin();
+        OperationsResolver resolver = new TransactionOperationsResolver(storage, transactionStorage, reads);
+        return new TransactionService(storage, transactionStorage, resolver, indexes, validator, reads);
     }
 
     @Override
@@ -67,6 +86,10 @@ public class TransactionService implements TransactionOperations {
 
     @Override
     public List<Node> getNodesByAttribute(String attribute, Object value) {
+        AttributeIndex index = this.indexes.getNodeIndex(attribute);
+        if (index != null) {
+            return getIndexedNodes(index, value);
+        }
         List<Node> filteredNodes = new LinkedList<>();
         List<Node> nodes = this.getNodes();
 
@@ -157,6 +180,10 @@ public class TransactionService implements TransactionOperations {
 
     @Override
     public List<Edge> getEdgesByProperty(String property, Object value) {
+        AttributeIndex index = this.indexes.getEdgeIndex(property);
+        if (index != null) {
+            return getIndexedEdges(index, value);
+        }
         List<Edge> edges = this.getEdges();
         List<Edge> newEdges = new LinkedList<>();
 
@@ -221,8 +248,87 @@ public class TransactionService implements TransactionOperations {
         return currentEdge;
     }
 
+    @Override
+    public void prepare() {
+        if (this.validator != null) {
+            this.validator.prepare(this.reads, this.transactionStorage.getOperations());
+        }
+    }
+
+    @Override
+    public void abort() {
+        if (this.validator != null) {
+            this.validator.abort(this.reads);
+        }
+    }
+
     @Override
     public void commit() {
-        this.transactionStorage.getOperations().forEach(operation -> operation.apply(this.storage));
+        List<GraphOperation> operations = this.transactionStorage.getOperations();
+        if (this.validator == null) {
+            apply(operations);
+        } else {
+            this.validator.commit(this.reads, operations, () -> apply(operations));
+        }
+    }
+
+    private void apply(List<GraphOperation> operations) {
+        this.storage.writeAtomically(() -> operations.forEach(operation -> {
+            // the edges a deleted node takes with it are only known while the storage still has them
+            if (operation instanceof DeleteNode delete) {
+                this.indexes.removeEdgesOf(delete.nodeId(), this.storage);
+            }
+            operation.apply(this.storage);
+        }));
+        operations.forEach(operation -> operation.apply(this.indexes));
+    }
+
+    // nodes changed in the transaction are matched directly, the index only answers for the committed ones
+    private List<Node> getIndexedNodes(AttributeIndex index, Object value) {
+        List<Node> filteredNodes = new LinkedList<>();
+        if (value == null) {
+            return filteredNodes;
+        }
+        Set<String> changedIds = new HashSet<>();
+        for (Node node : this.transactionStorage.getAllNodes()) {
+            changedIds.add(node.getId());
+            if (value.equals(node.getAttributes().get(index.getAttribute()))) {
+                filteredNodes.add(node);
+            }
+        }
+        for (String id : index.lookup(value)) {
+            if (changedIds.contains(id) || this.transactionStorage.nodeDeleted(id)) {
+                continue;
+            }
+            Node node = this.storage.getNode(id);
+            if (node != null && value.equals(node.getAttributes().get(index.getAttribute()))) {
+                filteredNodes.add(node);
+            }
+        }
+        return filteredNodes;
+    }
+
+    private List<Edge> getIndexedEdges(AttributeIndex index, Object value) {
+        List<Edge> filteredEdges = new LinkedList<>();
+        if (value == null) {
+            return filteredEdges;
+        }
+        Set<String> changedIds = new HashSet<>();
+        for (Edge edge : this.transactionStorage.getAllEdges()) {
+            changedIds.add(edge.getId());
+            if (value.equals(edge.getProperties().get(index.getAttribute()))) {
+                filteredEdges.add(edge);
+            }
+        }
+        for (String id : index.lookup(value)) {
+            if (changedIds.contains(id) || this.transactionStorage.edgeDeleted(id)) {
+                continue;
+            }
+            Edge edge = this.storage.getEdge(id);
+            if (edge != null && value.equals(edge.getProperties().get(index.getAttribute()))) {
+                filteredEdges.add(edge);
+            }
+        }
+        return filteredEdges;
     }
 }
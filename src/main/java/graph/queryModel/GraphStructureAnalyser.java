@@ -22,12 +22,17 @@ public class GraphStructureAnalyser {
         this.graph = graph;
     }
 
+    // counted while visiting the adjacency in place rather than from a copy of it
     public int getInDegree(String nodeId) throws NodeNotFoundException {
-        return graph.getNodesIdWithEdgeToNode(nodeId).size();
+        int[] degree = {0};
+        graph.forEachNodeIdWithEdgeTo(nodeId, source -> degree[0]++);
+        return degree[0];
     }
 
     public int getOutDegree(String nodeId) throws NodeNotFoundException {
-        return graph.getEdgesFromNode(nodeId).size();
+        int[] degree = {0};
+        graph.forEachEdgeFrom(nodeId, edge -> degree[0]++);
+        return degree[0];
     }
 
     public double getGraphDiameter() throws NegativeCycleException, IllegalStateException {
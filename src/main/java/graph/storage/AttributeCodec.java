@@ -0,0 +1,215 @@
+package graph.storage;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Type tagged binary encoding of attribute maps, used wherever attributes are written outside the heap
+public final class AttributeCodec {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+
+    private static final ThreadLocal<EntryWriter> ENTRY_WRITER = ThreadLocal.withInitial(EntryWriter::new);
+
+    private AttributeCodec() {}
+
+    public static byte[] encode(Map<String, Object> attributes) {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        while (true) {
+            try {
+                encode(attributes, buffer);
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    // writes at the buffer's position; throws BufferOverflowException when the buffer is too small
+    public static void encode(Map<String, Object> attributes, ByteBuffer buffer) {
+        writeMap(buffer, attributes);
+    }
+
+    public static Map<String, Object> decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    public static Map<String, Object> decode(ByteBuffer buffer) {
+        try {
+            return readMap(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated attribute encoding");
+        }
+    }
+
+    public static void encodeValue(Object value, ByteBuffer buffer) {
+        writeValue(buffer, value);
+    }
+
+    public static Object decodeValue(ByteBuffer buffer) {
+        try {
+            return readValue(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated attribute encoding");
+        }
+    }
+
+    public static void encodeString(String string, ByteBuffer buffer) {
+        writeString(buffer, string);
+    }
+
+    public static String decodeString(ByteBuffer buffer) {
+        try {
+            return readString(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated attribute encoding");
+        }
+    }
+
+    // Maps are walked with forEach and a writer reused per thread rather than an entry iterator, which escapes and
+    // is allocated for every map once the call site has seen several map types.
+    private static void writeMap(ByteBuffer buffer, Map<?, ?> map) {
+        buffer.putInt(map.size());
+        EntryWriter writer = ENTRY_WRITER.get();
+        ByteBuffer enclosing = writer.buffer;
+        writer.buffer = buffer;
+        try {
+            map.forEach(writer);
+        } finally {
+            writer.buffer = enclosing;
+        }
+    }
+
+    private static final class EntryWriter implements BiConsumer<Object, Object> {
+        private ByteBuffer buffer;
+
+        @Override
+        public void accept(Object key, Object value) {
+            writeString(buffer, String.valueOf(key));
+            writeValue(buffer, value);
+        }
+    }
+
+    private static void writeValue(ByteBuffer buffer, Object value) {
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value instanceof String string) {
+            buffer.put(STRING);
+            writeString(buffer, string);
+        } else if (value instanceof Integer integer) {
+            buffer.put(INT).putInt(integer);
+        } else if (value instanceof Long longValue) {
+            buffer.put(LONG).putLong(longValue);
+        } else if (value instanceof Double doubleValue) {
+            buffer.put(DOUBLE).putDouble(doubleValue);
+        } else if (value instanceof Float floatValue) {
+            buffer.put(FLOAT).putFloat(floatValue);
+        } else if (value instanceof Boolean bool) {
+            buffer.put(BOOLEAN).put((byte) (bool ? 1 : 0));
+        } else if (value instanceof List<?> list) {
+            buffer.put(LIST).putInt(list.size());
+            for (Object element : list) {
+                writeValue(buffer, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            buffer.put(MAP);
+            writeMap(buffer, map);
+        } else {
+            throw new IllegalArgumentException("Unsupported attribute type " + value.getClass().getName());
+        }
+    }
+
+    // UTF-8 written straight into the buffer; unpaired surrogates become '?' as in String.getBytes
+    private static void writeString(ByteBuffer buffer, String string) {
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        int length = string.length();
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    private static Map<String, Object> readMap(ByteBuffer buffer) {
+        int size = readLength(buffer);
+        Map<String, Object> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = readString(buffer);
+            map.put(key, readValue(buffer));
+        }
+        return map;
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte type = buffer.get();
+        return switch (type) {
+            case NULL -> null;
+            case STRING -> readString(buffer);
+            case INT -> buffer.getInt();
+            case LONG -> buffer.getLong();
+            case DOUBLE -> buffer.getDouble();
+            case FLOAT -> buffer.getFloat();
+            case BOOLEAN -> buffer.get() != 0;
+            case LIST -> readList(buffer);
+            case MAP -> readMap(buffer);
+            default -> throw new IllegalArgumentException("Unknown attribute type tag " + type);
+        };
+    }
+
+    private static List<Object> readList(ByteBuffer buffer) {
+        int size = readLength(buffer);
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readValue(buffer));
+        }
+        return list;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        if (buffer.hasArray()) {
+            String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return string;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readLength(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Corrupt attribute length " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,45 @@
+package graph.storage;
+
+import java.util.*;
+
+// Index of the ids of the nodes (or edges) by the value they have for one attribute
+public class AttributeIndex {
+
+    private final String attribute;
+    private final Map<Object, Set<String>> idsByValue = new HashMap<>();
+    private final Map<String, Object> valueById = new HashMap<>();
+
+    AttributeIndex(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public synchronized void index(String id, Map<String, Object> attributes) {
+        remove(id);
+        Object value = attributes.get(attribute);
+        if (value != null) {
+            valueById.put(id, value);
+            idsByValue.computeIfAbsent(value, v -> new HashSet<>()).add(id);
+        }
+    }
+
+    public synchronized void remove(String id) {
+        Object value = valueById.remove(id);
+        if (value == null) {
+            return;
+        }
+        Set<String> ids = idsByValue.get(value);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            idsByValue.remove(value);
+        }
+    }
+
+    public synchronized Set<String> lookup(Object value) {
+        Set<String> ids = idsByValue.get(value);
+        return ids == null ? new HashSet<>() : new HashSet<>(ids);
+    }
+}
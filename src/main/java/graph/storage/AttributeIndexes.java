@@ -0,0 +1,65 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The attribute indexes declared on the nodes and the edge properties of one graph
+public class AttributeIndexes {
+
+    private final Map<String, AttributeIndex> nodeIndexes = new ConcurrentHashMap<>();
+    private final Map<String, AttributeIndex> edgeIndexes = new ConcurrentHashMap<>();
+
+    public void createNodeIndex(String attribute, Collection<Node> nodes) {
+        nodeIndexes.computeIfAbsent(attribute, a -> {
+            AttributeIndex index = new AttributeIndex(a);
+            nodes.forEach(node -> index.index(node.getId(), node.getAttributes()));
+            return index;
+        });
+    }
+
+    public void createEdgeIndex(String property, Collection<Edge> edges) {
+        edgeIndexes.computeIfAbsent(property, p -> {
+            AttributeIndex index = new AttributeIndex(p);
+            edges.forEach(edge -> index.index(edge.getId(), edge.getProperties()));
+            return index;
+        });
+    }
+
+    // null when the attribute is not indexed
+    public AttributeIndex getNodeIndex(String attribute) {
+        return nodeIndexes.get(attribute);
+    }
+
+    public AttributeIndex getEdgeIndex(String property) {
+        return edgeIndexes.get(property);
+    }
+
+    public void indexNode(Node node) {
+        nodeIndexes.values().forEach(index -> index.index(node.getId(), node.getAttributes()));
+    }
+
+    public void removeNode(String id) {
+        nodeIndexes.values().forEach(index -> index.remove(id));
+    }
+
+    public void indexEdge(Edge edge) {
+        edgeIndexes.values().forEach(index -> index.index(edge.getId(), edge.getProperties()));
+    }
+
+    public void removeEdge(String id) {
+        edgeIndexes.values().forEach(index -> index.remove(id));
+    }
+
+    // drops the edges of a node the storage is about to remove, as they go together with it
+    public void removeEdgesOf(String nodeId, GraphStorage storage) {
+        if (edgeIndexes.isEmpty()) {
+            return;
+        }
+        storage.forEachEdgeFrom(nodeId, edge -> removeEdge(edge.getId()));
+        storage.forEachNodeIdWithEdgeTo(nodeId, source -> removeEdge(storage.getEdgeByNodeIds(source, nodeId).getId()));
+    }
+}
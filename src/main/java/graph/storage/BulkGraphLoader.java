@@ -0,0 +1,93 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Loads a graph in bulk, as recovery and checkpoint reads do: nodes and edges go into plain tables with no adjacency
+// lists or weight index to keep up, and build() then links every edge in one pass and sorts them all into the weight
+// index at once. Deleting a node leaves its edges in the table until the build drops the ones left without an
+// endpoint, so a deletion costs no more than an insertion. Each deletion starts a new incarnation of the node id and
+// every edge remembers the incarnations of its endpoints, so edges of a node deleted and added again are dropped too.
+// The storage built shares the nodes and edges of the loader.
+public class BulkGraphLoader {
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Map<String, LoadedEdge> edges = new HashMap<>();
+    // times each node id was deleted; ids never deleted are at incarnation 0 and not kept
+    private final Map<String, Integer> incarnations = new HashMap<>();
+
+    private BulkGraphLoader() {}
+
+    public static BulkGraphLoader create() {
+        return new BulkGraphLoader();
+    }
+
+    public Node getNode(String id) {
+        return nodes.get(id);
+    }
+
+    public boolean containsNode(String id) {
+        return nodes.containsKey(id);
+    }
+
+    public void putNode(Node node) {
+        nodes.put(node.getId(), node);
+    }
+
+    public void removeNode(String id) {
+        if (nodes.remove(id) != null) {
+            incarnations.merge(id, 1, Integer::sum);
+        }
+    }
+
+    public Edge getEdge(String id) {
+        LoadedEdge loaded = edges.get(id);
+        return loaded == null ? null : loaded.edge();
+    }
+
+    public boolean containsEdge(String id) {
+        return edges.containsKey(id);
+    }
+
+    public void putEdge(Edge edge) {
+        edges.put(edge.getId(), new LoadedEdge(edge, incarnation(edge.getSource()), incarnation(edge.getDestination())));
+    }
+
+    public void removeEdge(String id) {
+        edges.remove(id);
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    public int edgeCount() {
+        return edges.size();
+    }
+
+    public InMemoryGraphStorage build() {
+        Edge[] live = edges.values().stream()
+                .filter(this::isLive)
+                .map(LoadedEdge::edge)
+                .toArray(Edge[]::new);
+        InMemoryGraphStorage storage = InMemoryGraphStorage.create();
+        storage.load(nodes, live);
+        return storage;
+    }
+
+    private boolean isLive(LoadedEdge loaded) {
+        Edge edge = loaded.edge();
+        return nodes.containsKey(edge.getSource()) && nodes.containsKey(edge.getDestination())
+                && incarnation(edge.getSource()) == loaded.sourceIncarnation()
+                && incarnation(edge.getDestination()) == loaded.destinationIncarnation();
+    }
+
+    private int incarnation(String nodeId) {
+        return incarnations.isEmpty() ? 0 : incarnations.getOrDefault(nodeId, 0);
+    }
+
+    private record LoadedEdge(Edge edge, int sourceIncarnation, int destinationIncarnation) {}
+}
@@ -0,0 +1,93 @@
+package graph.storage;
+
+import graph.dataModel.AttributeStore;
+import graph.dataModel.ColumnarAttributeTable;
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// In memory storage that keeps node attributes and edge properties in columnar tables rather than a map per
+// entity. Stored nodes and edges read and write their attributes through a row of the table, so numeric values
+// are not boxed and repeated strings are kept once. The row of a stored node or edge is the store it was wrapped
+// with, so no map from ids to rows is kept beside the storage's own.
+public class ColumnarGraphStorage extends InMemoryGraphStorage {
+
+    private final ColumnarAttributeTable nodeAttributes = new ColumnarAttributeTable();
+    private final ColumnarAttributeTable edgeProperties = new ColumnarAttributeTable();
+
+    protected ColumnarGraphStorage(MutableEdgeWeightIndex edgeWeightIndex) {
+        super(edgeWeightIndex);
+    }
+
+    public static ColumnarGraphStorage create() {
+        return new ColumnarGraphStorage(new SortedRunEdgeWeightIndex());
+    }
+
+    @Override
+    public void putNode(Node node) {
+        Node stored = super.getNode(node.getId());
+        ColumnarAttributeTable.Row row = rowFor(nodeAttributes, stored == null ? null : stored.getAttributeStore(),
+                node.getAttributes());
+        super.putNode(new Node(node.getId(), row));
+    }
+
+    @Override
+    public Node removeNode(String id) {
+        if (containsNode(id)) {
+            // the incident edges are removed together with the node
+            forEachEdgeFrom(id, edge -> release(edgeProperties, edge.getPropertyStore()));
+            forEachNodeIdWithEdgeTo(id, source -> release(edgeProperties, getEdgeByNodeIds(source, id).getPropertyStore()));
+        }
+        Node removed = super.removeNode(id);
+        if (removed != null) {
+            release(nodeAttributes, removed.getAttributeStore());
+        }
+        return removed;
+    }
+
+    @Override
+    public void putEdge(Edge edge) {
+        Edge stored = super.getEdge(edge.getId());
+        ColumnarAttributeTable.Row row = rowFor(edgeProperties, stored == null ? null : stored.getPropertyStore(),
+                edge.getProperties());
+        super.putEdge(new Edge(edge.getId(), edge.getSource(), edge.getDestination(), edge.getWeight(), row));
+    }
+
+    @Override
+    public Edge removeEdge(String id) {
+        Edge removed = super.removeEdge(id);
+        if (removed != null) {
+            release(edgeProperties, removed.getPropertyStore());
+        }
+        return removed;
+    }
+
+    int liveNodeRows() {
+        return nodeAttributes.liveRows();
+    }
+
+    int liveEdgeRows() {
+        return edgeProperties.liveRows();
+    }
+
+    // the row of the stored entity with its values replaced, or a new row when nothing is stored under the id yet
+    private static ColumnarAttributeTable.Row rowFor(ColumnarAttributeTable table, AttributeStore stored,
+                                                     Map<String, Object> values) {
+        if (stored == null) {
+            return table.newRow(values);
+        }
+        ColumnarAttributeTable.Row row = (ColumnarAttributeTable.Row) stored;
+        // the values may be a view of this row, so they are copied before it is cleared
+        Map<String, Object> copy = new HashMap<>(values);
+        row.clear();
+        row.putAll(copy);
+        return row;
+    }
+
+    // every stored node and edge was wrapped with a row of its table
+    private static void release(ColumnarAttributeTable table, AttributeStore stored) {
+        table.release((ColumnarAttributeTable.Row) stored);
+    }
+}
@@ -0,0 +1,543 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import graph.traversalAlgorithms.NodeHandles;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjDoubleConsumer;
+
+// Graph storage that interns node ids to dense ints and keeps the adjacency in compressed sparse row arrays.
+// Recent mutations are kept in a small delta and merged into the arrays once enough of them build up. The slots of
+// removed nodes are given out again to the next nodes added, so the node arrays stay about as long as the number of
+// nodes held even when no edge mutation triggers a merge.
+public class CompressedGraphStorage implements GraphStorage {
+
+    private static final int MIN_MERGE_THRESHOLD = 64;
+    // a merge happens once pending mutations exceed 1 / MERGE_RATIO of the edges
+    private static final int MERGE_RATIO = 4;
+
+    private final Map<String, Integer> nodeIndex = new HashMap<>();
+    private Node[] nodes = new Node[16];
+    private int nodeSlots;
+    // slots of removed nodes, none of which has an edge left
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private final Map<String, Edge> edges = new HashMap<>();
+    // only the outgoing direction keeps weights, for walks that follow edges by destination and weight
+    private final CompressedAdjacency outgoing = new CompressedAdjacency(true);
+    private final CompressedAdjacency incoming = new CompressedAdjacency(false);
+    private final MutableEdgeWeightIndex edgeWeightIndex;
+    private final NodeHandles nodeHandles = new SlotNodeHandles();
+
+    protected CompressedGraphStorage(MutableEdgeWeightIndex edgeWeightIndex) {
+        this.edgeWeightIndex = edgeWeightIndex;
+    }
+
+    public static CompressedGraphStorage create() {
+        MutableEdgeWeightIndex edgeWeightIndex = new SortedRunEdgeWeightIndex();
+        return new CompressedGraphStorage(edgeWeightIndex);
+    }
+
+    @Override
+    public Node getNode(String id) {
+        Integer slot = nodeIndex.get(id);
+        return slot == null ? null : nodes[slot];
+    }
+
+    @Override
+    public void putNode(Node node) {
+        Integer slot = nodeIndex.get(node.getId());
+        if (slot != null) {
+            nodes[slot] = node;
+            return;
+        }
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            if (nodeSlots == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+            }
+            slot = nodeSlots++;
+        }
+        nodes[slot] = node;
+        nodeIndex.put(node.getId(), slot);
+    }
+
+    @Override
+    public Node removeNode(String id) {
+        Integer slot = nodeIndex.get(id);
+        if (slot == null) {
+            return null;
+        }
+        List<Edge> incidentEdges = new ArrayList<>();
+        outgoing.forEach(slot, incidentEdges::add);
+        incoming.forEach(slot, edge -> {
+            // self loops were already collected as outgoing edges
+            if (!edge.getSource().equals(id)) incidentEdges.add(edge);
+        });
+        incidentEdges.forEach(edge -> removeEdge(edge.getId()));
+
+        // removing the edges may have merged and renumbered the slots
+        int currentSlot = nodeIndex.remove(id);
+        Node removedNode = nodes[currentSlot];
+        nodes[currentSlot] = null;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = currentSlot;
+        return removedNode;
+    }
+
+    @Override
+    public List<Node> getAllNodes() {
+        List<Node> nodeList = new ArrayList<>(nodeIndex.size());
+        for (int slot = 0; slot < nodeSlots; slot++) {
+            if (nodes[slot] != null) {
+                nodeList.add(nodes[slot]);
+            }
+        }
+        return nodeList;
+    }
+
+    @Override
+    public boolean containsNode(String id) {
+        return nodeIndex.containsKey(id);
+    }
+
+    @Override
+    public Edge getEdge(String id) {
+        return edges.get(id);
+    }
+
+    @Override
+    public Edge getEdgeByNodeIds(String source, String target) {
+        Integer sourceSlot = nodeIndex.get(source);
+        Integer targetSlot = nodeIndex.get(target);
+        if (sourceSlot == null || targetSlot == null) {
+            return null;
+        }
+        return outgoing.find(sourceSlot, targetSlot);
+    }
+
+    @Override
+    public void putEdge(Edge edge) {
+        Edge previousEdge = edges.put(edge.getId(), edge);
+        if (previousEdge != null) {
+            unlinkEdge(previousEdge);
+        }
+        int sourceSlot = nodeIndex.get(edge.getSource());
+        int targetSlot = nodeIndex.get(edge.getDestination());
+        outgoing.add(sourceSlot, targetSlot, edge);
+        incoming.add(targetSlot, sourceSlot, edge);
+        edgeWeightIndex.putEdge(edge);
+        mergeIfNeeded();
+    }
+
+    @Override
+    public Edge removeEdge(String id) {
+        Edge removedEdge = edges.remove(id);
+        unlinkEdge(removedEdge);
+        mergeIfNeeded();
+        return removedEdge;
+    }
+
+    private void unlinkEdge(Edge edge) {
+        outgoing.remove(nodeIndex.get(edge.getSource()), edge);
+        incoming.remove(nodeIndex.get(edge.getDestination()), edge);
+        edgeWeightIndex.removeEdge(edge);
+    }
+
+    @Override
+    public List<Edge> getAllEdges() {
+        return new ArrayList<>(edges.values());
+    }
+
+    @Override
+    public boolean containsEdge(String id) {
+        return edges.containsKey(id);
+    }
+
+    @Override
+    public List<Edge> getEdgesFromNode(String id) {
+        Integer slot = nodeIndex.get(id);
+        if (slot == null) {
+            return new ArrayList<>();
+        }
+        List<Edge> edgeList = new ArrayList<>(outgoing.degree(slot));
+        outgoing.forEach(slot, edgeList::add);
+        return edgeList;
+    }
+
+    @Override
+    public List<String> nodesIdsWithEdgesToNode(String id) {
+        Integer slot = nodeIndex.get(id);
+        if (slot == null) {
+            return new ArrayList<>();
+        }
+        List<String> nodeIds = new ArrayList<>(incoming.degree(slot));
+        incoming.forEach(slot, edge -> nodeIds.add(edge.getSource()));
+        return nodeIds;
+    }
+
+    @Override
+    public void forEachNode(Consumer<Node> consumer) {
+        for (int slot = 0; slot < nodeSlots; slot++) {
+            if (nodes[slot] != null) {
+                consumer.accept(nodes[slot]);
+            }
+        }
+    }
+
+    @Override
+    public void forEachEdge(Consumer<Edge> consumer) {
+        edges.values().forEach(consumer);
+    }
+
+    @Override
+    public void forEachEdgeFrom(String id, Consumer<Edge> consumer) {
+        Integer slot = nodeIndex.get(id);
+        if (slot != null) {
+            outgoing.forEach(slot, consumer);
+        }
+    }
+
+    @Override
+    public void forEachNeighbour(String id, ObjDoubleConsumer<String> consumer) {
+        Integer slot = nodeIndex.get(id);
+        if (slot != null) {
+            outgoing.forEachNeighbour(slot, (neighbour, weight) -> consumer.accept(nodes[neighbour].getId(), weight));
+        }
+    }
+
+    @Override
+    public void forEachNodeIdWithEdgeTo(String id, Consumer<String> consumer) {
+        Integer slot = nodeIndex.get(id);
+        if (slot != null) {
+            incoming.forEach(slot, edge -> consumer.accept(edge.getSource()));
+        }
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeIndex.size();
+    }
+
+    @Override
+    public NodeHandles nodeHandles() {
+        return nodeHandles;
+    }
+
+    @Override
+    public boolean edgeExists(String source, String target) {
+        return getEdgeByNodeIds(source, target) != null;
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeight(double weight) {
+        return edgeWeightIndex.getEdgesByWeight(weight);
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeightRange(double min, double max) {
+        return edgeWeightIndex.getEdgesByWeightRange(min, max);
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightGreaterThan(double weight) {
+        return edgeWeightIndex.getEdgesWithWeightGreaterThan(weight);
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightLessThan(double weight) {
+        return edgeWeightIndex.getEdgesWithWeightLessThan(weight);
+    }
+
+    @Override
+    public void updateEdgeWeight(double previousWeight, double currentWeight, Edge edge) {
+        outgoing.updateWeight(nodeIndex.get(edge.getSource()), edge, currentWeight);
+        edgeWeightIndex.updateEdgeWeight(previousWeight, currentWeight, edge);
+    }
+
+    private void mergeIfNeeded() {
+        int pending = outgoing.pendingMutations();
+        if (pending > MIN_MERGE_THRESHOLD && pending * MERGE_RATIO > edges.size()) {
+            merge();
+        }
+    }
+
+    // compacts the node slots and rebuilds both adjacency arrays from the live edges
+    private void merge() {
+        Node[] compactedNodes = new Node[Math.max(16, nodeIndex.size() * 2)];
+        int liveSlots = 0;
+        for (int slot = 0; slot < nodeSlots; slot++) {
+            Node node = nodes[slot];
+            if (node != null) {
+                compactedNodes[liveSlots] = node;
+                nodeIndex.put(node.getId(), liveSlots++);
+            }
+        }
+        nodes = compactedNodes;
+        nodeSlots = liveSlots;
+        freeSlotCount = 0;
+
+        Edge[] liveEdges = edges.values().toArray(new Edge[0]);
+        int[] sourceSlots = new int[liveEdges.length];
+        int[] targetSlots = new int[liveEdges.length];
+        for (int i = 0; i < liveEdges.length; i++) {
+            sourceSlots[i] = nodeIndex.get(liveEdges[i].getSource());
+            targetSlots[i] = nodeIndex.get(liveEdges[i].getDestination());
+        }
+        outgoing.rebuild(nodeSlots, liveEdges, sourceSlots, targetSlots);
+        incoming.rebuild(nodeSlots, liveEdges, targetSlots, sourceSlots);
+    }
+
+    // the node slots as handles, so walks over the storage follow the adjacency arrays without looking up ids; a
+    // merge renumbers the slots, which only happens when the graph is changed
+    private class SlotNodeHandles implements NodeHandles {
+
+        @Override
+        public int handleBound() {
+            return nodeSlots;
+        }
+
+        @Override
+        public int handleOf(String nodeId) {
+            Integer slot = nodeIndex.get(nodeId);
+            return slot == null ? -1 : slot;
+        }
+
+        @Override
+        public String idOf(int handle) {
+            return nodes[handle].getId();
+        }
+
+        @Override
+        public void forEachHandle(IntConsumer consumer) {
+            for (int slot = 0; slot < nodeSlots; slot++) {
+                if (nodes[slot] != null) consumer.accept(slot);
+            }
+        }
+
+        @Override
+        public void forEachNeighbour(int handle, NeighbourConsumer consumer) {
+            outgoing.forEachNeighbour(handle, consumer::accept);
+        }
+
+        @Override
+        public void forEachPredecessor(int handle, IntConsumer consumer) {
+            incoming.forEachNeighbour(handle, consumer);
+        }
+    }
+
+    // One direction of the adjacency: for every node slot the edges leaving it (or entering it) are stored
+    // contiguously in edges[offsets[slot] .. offsets[slot + 1]), next to the slot of the node on the other end and,
+    // when weighted, the weight of the edge, so a walk by neighbour and weight never loads an Edge. Edges added since
+    // the last rebuild are chained per slot in parallel arrays, in the order they were added.
+    private static class CompressedAdjacency {
+
+        private static final int REMOVED = -1;
+        private static final int NONE = -1;
+
+        private final boolean weighted;
+        private int[] offsets = new int[1];
+        private int[] neighbours = new int[0];
+        private double[] weights;
+        private Edge[] edges = new Edge[0];
+        // first and last delta entry of every slot, and for every entry the one after it
+        private int[] deltaHead = new int[0];
+        private int[] deltaTail = new int[0];
+        private int[] deltaNext = new int[16];
+        private int[] deltaNeighbours = new int[16];
+        private double[] deltaWeights;
+        private Edge[] deltaEdges = new Edge[16];
+        private int deltaSize;
+        private int pendingMutations;
+
+        CompressedAdjacency(boolean weighted) {
+            this.weighted = weighted;
+            if (weighted) {
+                weights = new double[0];
+                deltaWeights = new double[16];
+            }
+        }
+
+        int pendingMutations() {
+            return pendingMutations;
+        }
+
+        int degree(int slot) {
+            int degree = 0;
+            if (slot + 1 < offsets.length) {
+                for (int i = offsets[slot]; i < offsets[slot + 1]; i++) {
+                    if (neighbours[i] != REMOVED) degree++;
+                }
+            }
+            for (int entry = firstAdded(slot); entry != NONE; entry = deltaNext[entry]) {
+                degree++;
+            }
+            return degree;
+        }
+
+        void forEach(int slot, Consumer<Edge> consumer) {
+            if (slot + 1 < offsets.length) {
+                for (int i = offsets[slot]; i < offsets[slot + 1]; i++) {
+                    if (neighbours[i] != REMOVED) consumer.accept(edges[i]);
+                }
+            }
+            for (int entry = firstAdded(slot); entry != NONE; entry = deltaNext[entry]) {
+                consumer.accept(deltaEdges[entry]);
+            }
+        }
+
+        void forEachNeighbour(int slot, NeighbourConsumer consumer) {
+            if (slot + 1 < offsets.length) {
+                for (int i = offsets[slot]; i < offsets[slot + 1]; i++) {
+                    if (neighbours[i] != REMOVED) consumer.accept(neighbours[i], weights[i]);
+                }
+            }
+            for (int entry = firstAdded(slot); entry != NONE; entry = deltaNext[entry]) {
+                consumer.accept(deltaNeighbours[entry], deltaWeights[entry]);
+            }
+        }
+
+        void forEachNeighbour(int slot, IntConsumer consumer) {
+            if (slot + 1 < offsets.length) {
+                for (int i = offsets[slot]; i < offsets[slot + 1]; i++) {
+                    if (neighbours[i] != REMOVED) consumer.accept(neighbours[i]);
+                }
+            }
+            for (int entry = firstAdded(slot); entry != NONE; entry = deltaNext[entry]) {
+                consumer.accept(deltaNeighbours[entry]);
+            }
+        }
+
+        void updateWeight(int slot, Edge edge, double weight) {
+            if (!weighted) return;
+            if (slot + 1 < offsets.length) {
+                for (int i = offsets[slot]; i < offsets[slot + 1]; i++) {
+                    if (edges[i] == edge) {
+                        weights[i] = weight;
+                        return;
+                    }
+                }
+            }
+            for (int entry = firstAdded(slot); entry != NONE; entry = deltaNext[entry]) {
+                if (deltaEdges[entry] == edge) {
+                    deltaWeights[entry] = weight;
+                    return;
+                }
+            }
+        }
+
+        Edge find(int slot, int neighbour) {
+            if (slot + 1 < offsets.length) {
+                for (int i = offsets[slot]; i < offsets[slot + 1]; i++) {
+                    if (neighbours[i] == neighbour) return edges[i];
+                }
+            }
+            for (int entry = firstAdded(slot); entry != NONE; entry = deltaNext[entry]) {
+                if (deltaNeighbours[entry] == neighbour) return deltaEdges[entry];
+            }
+            return null;
+        }
+
+        void add(int slot, int neighbour, Edge edge) {
+            if (slot >= deltaHead.length) {
+                int length = Math.max(slot + 1, deltaHead.length * 2);
+                int previousLength = deltaHead.length;
+                deltaHead = Arrays.copyOf(deltaHead, length);
+                deltaTail = Arrays.copyOf(deltaTail, length);
+                Arrays.fill(deltaHead, previousLength, length, NONE);
+            }
+            if (deltaSize == deltaNext.length) {
+                deltaNext = Arrays.copyOf(deltaNext, deltaSize * 2);
+                deltaNeighbours = Arrays.copyOf(deltaNeighbours, deltaSize * 2);
+                deltaEdges = Arrays.copyOf(deltaEdges, deltaSize * 2);
+                if (weighted) deltaWeights = Arrays.copyOf(deltaWeights, deltaSize * 2);
+            }
+            int entry = deltaSize++;
+            deltaNext[entry] = NONE;
+            deltaNeighbours[entry] = neighbour;
+            deltaEdges[entry] = edge;
+            if (weighted) deltaWeights[entry] = edge.getWeight();
+            if (deltaHead[slot] == NONE) {
+                deltaHead[slot] = entry;
+            } else {
+                deltaNext[deltaTail[slot]] = entry;
+            }
+            deltaTail[slot] = entry;
+            pendingMutations++;
+        }
+
+        void remove(int slot, Edge edge) {
+            pendingMutations++;
+            if (slot + 1 < offsets.length) {
+                for (int i = offsets[slot]; i < offsets[slot + 1]; i++) {
+                    if (edges[i] == edge) {
+                        neighbours[i] = REMOVED;
+                        edges[i] = null;
+                        return;
+                    }
+                }
+            }
+            // the entry is unlinked from the chain of the slot; its place is reclaimed by the next rebuild
+            int previous = NONE;
+            for (int entry = firstAdded(slot); entry != NONE; previous = entry, entry = deltaNext[entry]) {
+                if (deltaEdges[entry] == edge) {
+                    if (previous == NONE) {
+                        deltaHead[slot] = deltaNext[entry];
+                    } else {
+                        deltaNext[previous] = deltaNext[entry];
+                    }
+                    if (deltaTail[slot] == entry) {
+                        deltaTail[slot] = previous;
+                    }
+                    deltaEdges[entry] = null;
+                    return;
+                }
+            }
+        }
+
+        private int firstAdded(int slot) {
+            return slot < deltaHead.length ? deltaHead[slot] : NONE;
+        }
+
+        // counting sort of the edges by the slot they are stored under
+        void rebuild(int slots, Edge[] liveEdges, int[] keySlots, int[] neighbourSlots) {
+            int[] newOffsets = new int[slots + 1];
+            for (int keySlot : keySlots) {
+                newOffsets[keySlot + 1]++;
+            }
+            for (int slot = 0; slot < slots; slot++) {
+                newOffsets[slot + 1] += newOffsets[slot];
+            }
+
+            int[] cursor = Arrays.copyOf(newOffsets, slots);
+            int[] newNeighbours = new int[liveEdges.length];
+            double[] newWeights = weighted ? new double[liveEdges.length] : null;
+            Edge[] newEdges = new Edge[liveEdges.length];
+            for (int i = 0; i < liveEdges.length; i++) {
+                int position = cursor[keySlots[i]]++;
+                newNeighbours[position] = neighbourSlots[i];
+                if (weighted) newWeights[position] = liveEdges[i].getWeight();
+                newEdges[position] = liveEdges[i];
+            }
+
+            offsets = newOffsets;
+            neighbours = newNeighbours;
+            weights = newWeights;
+            edges = newEdges;
+            Arrays.fill(deltaHead, NONE);
+            Arrays.fill(deltaEdges, 0, deltaSize, null);
+            deltaSize = 0;
+            pendingMutations = 0;
+        }
+
+        interface NeighbourConsumer {
+            void accept(int neighbour, double weight);
+        }
+    }
+}
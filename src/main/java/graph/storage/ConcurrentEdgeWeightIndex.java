@@ -0,0 +1,104 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Edge weight index that can be read and written from several threads at once. Readers take no lock; writers lock
+// the stripe of the weight they change, so that a bucket emptied by one is removed without dropping an edge another
+// is adding to it.
+public class ConcurrentEdgeWeightIndex implements MutableEdgeWeightIndex {
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentSkipListMap<Double, Set<Edge>> edgeWeightIndex;
+    private final ReentrantLock[] stripes;
+
+    ConcurrentEdgeWeightIndex() {
+        this.edgeWeightIndex = new ConcurrentSkipListMap<>();
+        this.stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void putEdge(Edge edge) {
+        add(edge.getWeight(), edge);
+    }
+
+    @Override
+    public void removeEdge(Edge edge) {
+        remove(edge.getWeight(), edge);
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeight(double weight) {
+        Set<Edge> edgeSet = edgeWeightIndex.get(weight);
+        if (edgeSet != null) {
+            return new ArrayList<>(edgeSet);
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeightRange(double min, double max) {
+        return edgeWeightIndex.subMap(min, true, max, true).values()
+                .stream().flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightGreaterThan(double weight) {
+        return edgeWeightIndex.tailMap(weight, false).values()
+                .stream().flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightLessThan(double weight) {
+        return edgeWeightIndex.headMap(weight, false).values()
+                .stream().flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+    @Override
+    public void updateEdgeWeight(double previousWeight, double currentWeight, Edge edge) {
+        remove(previousWeight, edge);
+        add(currentWeight, edge);
+    }
+
+    // the number of weights with a bucket
+    int bucketCount() {
+        return edgeWeightIndex.size();
+    }
+
+    private void add(double weight, Edge edge) {
+        ReentrantLock stripe = stripe(weight);
+        stripe.lock();
+        try {
+            edgeWeightIndex.computeIfAbsent(weight, w -> ConcurrentHashMap.newKeySet()).add(edge);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private void remove(double weight, Edge edge) {
+        ReentrantLock stripe = stripe(weight);
+        stripe.lock();
+        try {
+            Set<Edge> edgeSet = edgeWeightIndex.get(weight);
+            if (edgeSet != null && edgeSet.remove(edge) && edgeSet.isEmpty()) {
+                edgeWeightIndex.remove(weight);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(double weight) {
+        int hash = Double.hashCode(weight);
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,326 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import graph.exceptions.NodeNotFoundException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Graph storage that can be shared between threads. Reads go straight to concurrent maps without locking.
+// Writers lock the stripes of the nodes they touch, so writes to disjoint parts of the graph run in parallel:
+// anything that changes the adjacency of an edge holds the stripes of both of its end nodes.
+public class ConcurrentGraphStorage implements GraphStorage {
+
+    private static final int STRIPES = 64;
+
+    private final Map<String, Node> nodes;
+    private final Map<String, Edge> edges;
+    private final Map<String, Map<String, String>> adjacencyList;
+    // reverse of adjacencyList: target -> (source -> edge id)
+    private final Map<String, Map<String, String>> incomingAdjacencyList;
+    private final MutableEdgeWeightIndex edgeWeightIndex;
+    private final ReentrantLock[] stripes;
+
+    protected ConcurrentGraphStorage(MutableEdgeWeightIndex edgeWeightIndex) {
+        this.nodes = new ConcurrentHashMap<>();
+        this.edges = new ConcurrentHashMap<>();
+        this.adjacencyList = new ConcurrentHashMap<>();
+        this.incomingAdjacencyList = new ConcurrentHashMap<>();
+        this.edgeWeightIndex = edgeWeightIndex;
+        this.stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public static ConcurrentGraphStorage create() {
+        MutableEdgeWeightIndex edgeWeightIndex = new ConcurrentEdgeWeightIndex();
+        return new ConcurrentGraphStorage(edgeWeightIndex);
+    }
+
+    @Override
+    public Node getNode(String id) {
+        return this.nodes.get(id);
+    }
+
+    @Override
+    public void putNode(Node node) {
+        int[] locked = lock(node.getId());
+        try {
+            // the adjacency maps exist before the node becomes visible; an existing node keeps its edges
+            this.adjacencyList.putIfAbsent(node.getId(), new ConcurrentHashMap<>());
+            this.incomingAdjacencyList.putIfAbsent(node.getId(), new ConcurrentHashMap<>());
+            this.nodes.put(node.getId(), node);
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    @Override
+    public Node removeNode(String id) {
+        while (true) {
+            Set<String> neighbours = neighboursOf(id);
+            neighbours.add(id);
+            int[] locked = lock(neighbours.toArray(new String[0]));
+            try {
+                // an edge to a node outside the locked stripes may have been added before the lock was taken
+                Set<String> currentNeighbours = neighboursOf(id);
+                if (!neighbours.containsAll(currentNeighbours)) {
+                    continue;
+                }
+                Map<String, String> outgoing = adjacencyList.remove(id);
+                Map<String, String> incoming = incomingAdjacencyList.remove(id);
+                if (outgoing != null) {
+                    outgoing.values().forEach(this::removeIncidentEdge);
+                }
+                if (incoming != null) {
+                    incoming.values().forEach(this::removeIncidentEdge);
+                }
+                return this.nodes.remove(id);
+            } finally {
+                unlock(locked);
+            }
+        }
+    }
+
+    private Set<String> neighboursOf(String id) {
+        Set<String> neighbours = new HashSet<>();
+        Map<String, String> outgoing = adjacencyList.get(id);
+        Map<String, String> incoming = incomingAdjacencyList.get(id);
+        if (outgoing != null) {
+            neighbours.addAll(outgoing.keySet());
+        }
+        if (incoming != null) {
+            neighbours.addAll(incoming.keySet());
+        }
+        return neighbours;
+    }
+
+    private void removeIncidentEdge(String edgeId) {
+        // a self loop appears in both adjacency lists of the removed node
+        Edge edge = this.edges.remove(edgeId);
+        if (edge != null) {
+            unlinkEdge(edge);
+        }
+    }
+
+    @Override
+    public List<Node> getAllNodes() {
+        return new ArrayList<>(this.nodes.values());
+    }
+
+    @Override
+    public boolean containsNode(String id) {
+        return this.nodes.containsKey(id);
+    }
+
+    @Override
+    public Edge getEdge(String id) {
+        return this.edges.get(id);
+    }
+
+    @Override
+    public Edge getEdgeByNodeIds(String source, String target) {
+        Map<String, String> outgoing = adjacencyList.get(source);
+        String edgeId = outgoing == null ? null : outgoing.get(target);
+        return edgeId == null ? null : this.edges.get(edgeId);
+    }
+
+    @Override
+    public void putEdge(Edge edge) {
+        while (true) {
+            Edge previousEdge = this.edges.get(edge.getId());
+            int[] locked = previousEdge == null
+                    ? lock(edge.getSource(), edge.getDestination())
+                    : lock(edge.getSource(), edge.getDestination(), previousEdge.getSource(), previousEdge.getDestination());
+            try {
+                // the edge being replaced must not have changed before its end nodes were locked
+                if (this.edges.get(edge.getId()) != previousEdge) {
+                    continue;
+                }
+                // an end node may have been removed by another writer, check before changing anything
+                Map<String, String> outgoing = adjacencyList.get(edge.getSource());
+                Map<String, String> incoming = incomingAdjacencyList.get(edge.getDestination());
+                if (outgoing == null) {
+                    throw new NodeNotFoundException(edge.getSource());
+                }
+                if (incoming == null) {
+                    throw new NodeNotFoundException(edge.getDestination());
+                }
+                if (previousEdge != null) {
+                    unlinkEdge(previousEdge);
+                }
+                this.edges.put(edge.getId(), edge);
+                outgoing.put(edge.getDestination(), edge.getId());
+                incoming.put(edge.getSource(), edge.getId());
+                edgeWeightIndex.putEdge(edge);
+                return;
+            } finally {
+                unlock(locked);
+            }
+        }
+    }
+
+    @Override
+    public Edge removeEdge(String id) {
+        Edge edge = this.edges.get(id);
+        if (edge == null) {
+            return null;
+        }
+        int[] locked = lock(edge.getSource(), edge.getDestination());
+        try {
+            // a concurrent writer may have removed or replaced the edge first
+            if (!this.edges.remove(id, edge)) {
+                return null;
+            }
+            unlinkEdge(edge);
+            return edge;
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    // removes the edge from both adjacency lists and the weight index, but not from edges
+    private void unlinkEdge(Edge edge) {
+        Map<String, String> outgoing = adjacencyList.get(edge.getSource());
+        if (outgoing != null) {
+            outgoing.remove(edge.getDestination(), edge.getId());
+        }
+        Map<String, String> incoming = incomingAdjacencyList.get(edge.getDestination());
+        if (incoming != null) {
+            incoming.remove(edge.getSource(), edge.getId());
+        }
+        edgeWeightIndex.removeEdge(edge);
+    }
+
+    @Override
+    public List<Edge> getAllEdges() {
+        return new ArrayList<>(this.edges.values());
+    }
+
+    @Override
+    public boolean containsEdge(String id) {
+        return this.edges.containsKey(id);
+    }
+
+    @Override
+    public List<Edge> getEdgesFromNode(String id) {
+        Map<String, String> neighbours = adjacencyList.get(id);
+        List<Edge> edgeList = new ArrayList<>();
+        if (neighbours != null) {
+            for (String edgeId : neighbours.values()) {
+                Edge edge = edges.get(edgeId);
+                if (edge != null) {
+                    edgeList.add(edge);
+                }
+            }
+        }
+        return edgeList;
+    }
+
+    @Override
+    public List<String> nodesIdsWithEdgesToNode(String id) {
+        Map<String, String> incoming = incomingAdjacencyList.get(id);
+        return incoming == null ? new ArrayList<>() : new ArrayList<>(incoming.keySet());
+    }
+
+    @Override
+    public boolean edgeExists(String source, String target) {
+        Map<String, String> outgoing = adjacencyList.get(source);
+        return outgoing != null && outgoing.containsKey(target);
+    }
+
+    @Override
+    public void forEachNode(Consumer<Node> consumer) {
+        this.nodes.values().forEach(consumer);
+    }
+
+    @Override
+    public void forEachEdge(Consumer<Edge> consumer) {
+        this.edges.values().forEach(consumer);
+    }
+
+    @Override
+    public void forEachEdgeFrom(String id, Consumer<Edge> consumer) {
+        Map<String, String> neighbours = adjacencyList.get(id);
+        if (neighbours != null) {
+            for (String edgeId : neighbours.values()) {
+                Edge edge = edges.get(edgeId);
+                if (edge != null) {
+                    consumer.accept(edge);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachNodeIdWithEdgeTo(String id, Consumer<String> consumer) {
+        Map<String, String> incoming = incomingAdjacencyList.get(id);
+        if (incoming != null) {
+            incoming.keySet().forEach(consumer);
+        }
+    }
+
+    @Override
+    public int nodeCount() {
+        return this.nodes.size();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeight(double weight) {
+        return edgeWeightIndex.getEdgesByWeight(weight);
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeightRange(double min, double max) {
+        return edgeWeightIndex.getEdgesByWeightRange(min, max);
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightGreaterThan(double weight) {
+        return edgeWeightIndex.getEdgesWithWeightGreaterThan(weight);
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightLessThan(double weight) {
+        return edgeWeightIndex.getEdgesWithWeightLessThan(weight);
+    }
+
+    @Override
+    public void updateEdgeWeight(double previousWeight, double currentWeight, Edge edge) {
+        int[] locked = lock(edge.getSource(), edge.getDestination());
+        try {
+            edgeWeightIndex.updateEdgeWeight(previousWeight, currentWeight, edge);
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    // stripes are always taken in ascending order so that writers cannot deadlock
+    private int[] lock(String... nodeIds) {
+        int[] indexes = Arrays.stream(nodeIds).mapToInt(ConcurrentGraphStorage::stripe).distinct().sorted().toArray();
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        return indexes;
+    }
+
+    private void unlock(int[] indexes) {
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    private static int stripe(String nodeId) {
+        int hash = nodeId.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -2,8 +2,11 @@ package graph.storage;
 
 import graph.dataModel.Edge;
 import graph.dataModel.Node;
+import graph.traversalAlgorithms.NodeHandles;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
 
 public interface GraphStorage extends EdgeWeightIndex {
     // nodes
@@ -25,4 +28,46 @@ public interface GraphStorage extends EdgeWeightIndex {
     List<Edge> getEdgesFromNode(String id);
     List<String> nodesIdsWithEdgesToNode(String id);
     boolean edgeExists(String source, String target);
+
+    // streaming access without copying into a list; the consumer must not modify the storage
+    default void forEachNode(Consumer<Node> consumer) {
+        getAllNodes().forEach(consumer);
+    }
+
+    default void forEachEdge(Consumer<Edge> consumer) {
+        getAllEdges().forEach(consumer);
+    }
+
+    default void forEachEdgeFrom(String id, Consumer<Edge> consumer) {
+        getEdgesFromNode(id).forEach(consumer);
+    }
+
+    default void forEachNodeIdWithEdgeTo(String id, Consumer<String> consumer) {
+        nodesIdsWithEdgesToNode(id).forEach(consumer);
+    }
+
+    // the destination and weight of every edge leaving a node, for walks that need nothing else of the edge
+    default void forEachNeighbour(String id, ObjDoubleConsumer<String> consumer) {
+        forEachEdgeFrom(id, edge -> consumer.accept(edge.getDestination(), edge.getWeight()));
+    }
+
+    default int nodeCount() {
+        return getAllNodes().size();
+    }
+
+    // dense handles for the nodes, for storages that keep them; walks over the others number the nodes themselves
+    default NodeHandles nodeHandles() {
+        return null;
+    }
+
+    // runs the writes of a committed transaction; storages that version their contents publish them as one
+    default void writeAtomically(Runnable writes) {
+        writes.run();
+    }
+
+    // whether writes from several threads may run at the same time; the commits of storages that cannot take them
+    // are applied one at a time
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
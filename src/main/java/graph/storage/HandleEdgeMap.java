@@ -0,0 +1,129 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+
+import java.util.Arrays;
+
+// The edges between a node and its neighbours, keyed by the handle of the neighbour. An open addressing table with
+// linear probing, so finding an edge neither boxes the handle nor hashes an id.
+final class HandleEdgeMap {
+
+    private static final int FREE = -1;
+
+    private int[] keys = newKeys(4);
+    private Edge[] edges = new Edge[4];
+    private int size;
+
+    Edge get(int neighbour) {
+        int slot = find(neighbour);
+        return slot < 0 ? null : edges[slot];
+    }
+
+    // maps the neighbour to the edge, returning the edge it was mapped to before
+    Edge put(int neighbour, Edge edge) {
+        int slot = find(neighbour);
+        if (slot >= 0) {
+            Edge previous = edges[slot];
+            edges[slot] = edge;
+            return previous;
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        slot = home(neighbour);
+        while (keys[slot] != FREE) {
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        keys[slot] = neighbour;
+        edges[slot] = edge;
+        size++;
+        return null;
+    }
+
+    Edge remove(int neighbour) {
+        int slot = find(neighbour);
+        if (slot < 0) {
+            return null;
+        }
+        Edge removed = edges[slot];
+        clearSlot(slot);
+        return removed;
+    }
+
+    // removes the neighbour only while it is mapped to the edge
+    boolean remove(int neighbour, Edge edge) {
+        int slot = find(neighbour);
+        if (slot < 0 || edges[slot] != edge) {
+            return false;
+        }
+        clearSlot(slot);
+        return true;
+    }
+
+    void forEach(EdgeConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) consumer.accept(keys[slot], edges[slot]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(int neighbour) {
+        int mask = keys.length - 1;
+        for (int slot = home(neighbour); keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == neighbour) return slot;
+        }
+        return -1;
+    }
+
+    private int home(int neighbour) {
+        int hash = neighbour * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+
+    // shifts back the entries probed past the slot, so that lookups need no markers for removed entries
+    private void clearSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (slot + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            // the entry may fill the hole unless its home lies after the hole on the way to it
+            if (((next - home(keys[next])) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                edges[hole] = edges[next];
+                hole = next;
+            }
+        }
+        keys[hole] = FREE;
+        edges[hole] = null;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Edge[] oldEdges = edges;
+        keys = newKeys(capacity);
+        edges = new Edge[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                int target = home(oldKeys[slot]);
+                while (keys[target] != FREE) {
+                    target = (target + 1) & (capacity - 1);
+                }
+                keys[target] = oldKeys[slot];
+                edges[target] = oldEdges[slot];
+            }
+        }
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        return keys;
+    }
+
+    interface EdgeConsumer {
+        void accept(int neighbour, Edge edge);
+    }
+}
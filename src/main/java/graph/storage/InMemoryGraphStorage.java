@@ -2,59 +2,113 @@ package graph.storage;
 
 import graph.dataModel.Edge;
 import graph.dataModel.Node;
+import graph.traversalAlgorithms.NodeHandles;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public class InMemoryGraphStorage implements GraphStorage {
 
-    private final Map<String, Node> nodes;
+    // node ids are interned to dense handles, which index the nodes and their adjacency; ids are only looked up
+    // where a call names a node
+    private final NodeHandleTable handles;
+    private Node[] nodes;
+    // for every node, the edges leaving it keyed by the handle of their destination, and the edges reaching it keyed
+    // by the handle of their source; null until the node has such an edge
+    private HandleEdgeMap[] adjacencyList;
+    private HandleEdgeMap[] incomingAdjacencyList;
     private final Map<String, Edge> edges;
-    private final Map<String, Map<String, String>> adjacencyList;
     private final MutableEdgeWeightIndex edgeWeightIndex;
+    private final NodeHandles nodeHandles = new StorageNodeHandles();
 
     protected InMemoryGraphStorage(MutableEdgeWeightIndex edgeWeightIndex) {
-        this.nodes = new HashMap<String, Node>();
+        this.handles = new NodeHandleTable();
+        this.nodes = new Node[16];
+        this.adjacencyList = new HandleEdgeMap[16];
+        this.incomingAdjacencyList = new HandleEdgeMap[16];
         this.edges = new HashMap<String, Edge>();
-        this.adjacencyList = new HashMap<>();
         this.edgeWeightIndex = edgeWeightIndex;
     }
 
     public static InMemoryGraphStorage create() {
-        MutableEdgeWeightIndex edgeWeightIndex = new DefaultEdgeWeightIndex();
+        MutableEdgeWeightIndex edgeWeightIndex = new SortedRunEdgeWeightIndex();
         return new InMemoryGraphStorage(edgeWeightIndex);
     }
 
+    // fills an empty storage with nodes and the edges between them, linking each edge once (see BulkGraphLoader)
+    void load(Map<String, Node> loadedNodes, Edge[] loadedEdges) {
+        loadedNodes.values().forEach(this::placeNode);
+        for (Edge edge : loadedEdges) {
+            edges.put(edge.getId(), edge);
+            linkEdge(edge);
+        }
+        edgeWeightIndex.putAll(loadedEdges);
+    }
+
     @Override
     public Node getNode(String id) {
-        return this.nodes.get(id);
+        int handle = handles.handleOf(id);
+        return handle < 0 ? null : nodes[handle];
     }
 
     @Override
     public void putNode(Node node) {
-        this.nodes.put(node.getId(), node);
-        this.adjacencyList.put(node.getId(), new HashMap<>());
+        placeNode(node);
+    }
+
+    private void placeNode(Node node) {
+        // an existing node is being updated, so its handle and with it its edges are kept
+        int handle = handles.intern(node.getId());
+        if (handle == nodes.length) {
+            nodes = Arrays.copyOf(nodes, handle * 2);
+            adjacencyList = Arrays.copyOf(adjacencyList, handle * 2);
+            incomingAdjacencyList = Arrays.copyOf(incomingAdjacencyList, handle * 2);
+        }
+        nodes[handle] = node;
     }
 
     @Override
     public Node removeNode(String id) {
-        List<String> edgesToRemove = edges.values().stream()
-                .filter(edge -> edge.getSource().equals(id) || edge.getDestination().equals(id))
-                .map(Edge::getId)
-                .toList();
-        edgesToRemove.forEach(this::removeEdge);
-        adjacencyList.remove(id);
-        adjacencyList.forEach((key, neighbours) -> neighbours.remove(id));
-        return this.nodes.remove(id);
+        int handle = handles.handleOf(id);
+        if (handle < 0) {
+            return null;
+        }
+        List<Edge> incidentEdges = new ArrayList<>();
+        if (adjacencyList[handle] != null) {
+            adjacencyList[handle].forEach((destination, edge) -> incidentEdges.add(edge));
+        }
+        if (incomingAdjacencyList[handle] != null) {
+            incomingAdjacencyList[handle].forEach((source, edge) -> incidentEdges.add(edge));
+        }
+        incidentEdges.forEach(edge -> removeIncidentEdge(edge.getId()));
+
+        Node removedNode = nodes[handle];
+        nodes[handle] = null;
+        adjacencyList[handle] = null;
+        incomingAdjacencyList[handle] = null;
+        handles.release(id);
+        return removedNode;
+    }
+
+    private void removeIncidentEdge(String edgeId) {
+        // a self loop appears in both adjacency lists of the removed node
+        Edge edge = this.edges.remove(edgeId);
+        if (edge != null) {
+            unlinkEdge(edge);
+        }
     }
 
     @Override
     public List<Node> getAllNodes() {
-        return new ArrayList<>(this.nodes.values());
+        List<Node> nodeList = new ArrayList<>(handles.size());
+        forEachNode(nodeList::add);
+        return nodeList;
     }
 
     @Override
     public boolean containsNode(String id) {
-        return this.nodes.containsKey(id);
+        return handles.handleOf(id) >= 0;
     }
 
     @Override
@@ -64,24 +118,59 @@ public class InMemoryGraphStorage implements GraphStorage {
 
     @Override
     public Edge getEdgeByNodeIds(String source, String target) {
-        return this.edges.get(adjacencyList.get(source).get(target));
+        int sourceHandle = handles.handleOf(source);
+        int targetHandle = handles.handleOf(target);
+        if (sourceHandle < 0 || targetHandle < 0 || adjacencyList[sourceHandle] == null) {
+            return null;
+        }
+        return adjacencyList[sourceHandle].get(targetHandle);
     }
 
     @Override
     public void putEdge(Edge edge) {
-        this.edges.put(edge.getId(), edge);
-        adjacencyList.get(edge.getSource()).put(edge.getDestination(), edge.getId());
+        Edge previousEdge = this.edges.put(edge.getId(), edge);
+        if (previousEdge != null) {
+            unlinkEdge(previousEdge);
+        }
+        linkEdge(edge);
         edgeWeightIndex.putEdge(edge);
     }
 
     @Override
     public Edge removeEdge(String id) {
         Edge removedEdge = this.edges.remove(id);
-        adjacencyList.get(removedEdge.getSource()).remove(removedEdge.getDestination());
-        edgeWeightIndex.removeEdge(removedEdge);
+        if (removedEdge != null) {
+            unlinkEdge(removedEdge);
+        }
         return removedEdge;
     }
 
+    private void linkEdge(Edge edge) {
+        int source = handles.handleOf(edge.getSource());
+        int destination = handles.handleOf(edge.getDestination());
+        if (adjacencyList[source] == null) {
+            adjacencyList[source] = new HandleEdgeMap();
+        }
+        if (incomingAdjacencyList[destination] == null) {
+            incomingAdjacencyList[destination] = new HandleEdgeMap();
+        }
+        adjacencyList[source].put(destination, edge);
+        incomingAdjacencyList[destination].put(source, edge);
+    }
+
+    // removes the edge from both adjacency lists and the weight index, but not from edges
+    private void unlinkEdge(Edge edge) {
+        int source = handles.handleOf(edge.getSource());
+        int destination = handles.handleOf(edge.getDestination());
+        if (source >= 0 && adjacencyList[source] != null) {
+            adjacencyList[source].remove(destination, edge);
+        }
+        if (destination >= 0 && incomingAdjacencyList[destination] != null) {
+            incomingAdjacencyList[destination].remove(source, edge);
+        }
+        edgeWeightIndex.removeEdge(edge);
+    }
+
     @Override
     public List<Edge> getAllEdges() {
         return new ArrayList<>(this.edges.values());
@@ -94,26 +183,59 @@ public class InMemoryGraphStorage implements GraphStorage {
 
     @Override
     public List<Edge> getEdgesFromNode(String id) {
-        Map<String, String> neighbours = adjacencyList.get(id);
         List<Edge> edgeList = new ArrayList<>();
-        neighbours.values().forEach(edgeId -> edgeList.add(edges.get(edgeId)));
+        forEachEdgeFrom(id, edgeList::add);
         return edgeList;
     }
 
     @Override
     public List<String> nodesIdsWithEdgesToNode(String id) {
         List<String> nodeIds = new ArrayList<>();
-        for (String nodeId : adjacencyList.keySet()) {
-            if (adjacencyList.get(nodeId).containsKey(id)) {
-                nodeIds.add(nodeId);
-            }
-        }
+        forEachNodeIdWithEdgeTo(id, nodeIds::add);
         return nodeIds;
     }
 
     @Override
     public boolean edgeExists(String source, String target) {
-        return adjacencyList.containsKey(source) && adjacencyList.get(source).containsKey(target);
+        return getEdgeByNodeIds(source, target) != null;
+    }
+
+    @Override
+    public void forEachNode(Consumer<Node> consumer) {
+        for (int handle = 0; handle < handles.bound(); handle++) {
+            if (nodes[handle] != null) consumer.accept(nodes[handle]);
+        }
+    }
+
+    @Override
+    public void forEachEdge(Consumer<Edge> consumer) {
+        this.edges.values().forEach(consumer);
+    }
+
+    @Override
+    public void forEachEdgeFrom(String id, Consumer<Edge> consumer) {
+        int handle = handles.handleOf(id);
+        if (handle >= 0 && adjacencyList[handle] != null) {
+            adjacencyList[handle].forEach((destination, edge) -> consumer.accept(edge));
+        }
+    }
+
+    @Override
+    public void forEachNodeIdWithEdgeTo(String id, Consumer<String> consumer) {
+        int handle = handles.handleOf(id);
+        if (handle >= 0 && incomingAdjacencyList[handle] != null) {
+            incomingAdjacencyList[handle].forEach((source, edge) -> consumer.accept(edge.getSource()));
+        }
+    }
+
+    @Override
+    public int nodeCount() {
+        return handles.size();
+    }
+
+    @Override
+    public NodeHandles nodeHandles() {
+        return nodeHandles;
     }
 
     @Override
@@ -140,4 +262,44 @@ public class InMemoryGraphStorage implements GraphStorage {
     public void updateEdgeWeight(double previousWeight, double currentWeight, Edge edge) {
         edgeWeightIndex.updateEdgeWeight(previousWeight, currentWeight, edge);
     }
+
+    // the handles of the storage itself, so walks over it follow edges without looking up ids
+    private class StorageNodeHandles implements NodeHandles {
+
+        @Override
+        public int handleBound() {
+            return handles.bound();
+        }
+
+        @Override
+        public int handleOf(String nodeId) {
+            return handles.handleOf(nodeId);
+        }
+
+        @Override
+        public String idOf(int handle) {
+            return handles.idOf(handle);
+        }
+
+        @Override
+        public void forEachHandle(IntConsumer consumer) {
+            for (int handle = 0; handle < handles.bound(); handle++) {
+                if (nodes[handle] != null) consumer.accept(handle);
+            }
+        }
+
+        @Override
+        public void forEachNeighbour(int handle, NeighbourConsumer consumer) {
+            if (adjacencyList[handle] != null) {
+                adjacencyList[handle].forEach((destination, edge) -> consumer.accept(destination, edge.getWeight()));
+            }
+        }
+
+        @Override
+        public void forEachPredecessor(int handle, IntConsumer consumer) {
+            if (incomingAdjacencyList[handle] != null) {
+                incomingAdjacencyList[handle].forEach((source, edge) -> consumer.accept(source));
+            }
+        }
+    }
 }
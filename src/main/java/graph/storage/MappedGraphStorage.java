@@ -0,0 +1,850 @@
+package graph.storage;
+
+import graph.dataModel.AttributeStore;
+import graph.dataModel.Edge;
+import graph.dataModel.MapAttributeStore;
+import graph.dataModel.Node;
+import graph.exceptions.NodeNotFoundException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+// Graph storage whose node, edge and adjacency records live in memory mapped files, so a graph survives a restart
+// without replaying the WAL. Only the id -> slot maps and the free slots are kept on the heap; opening an existing
+// directory maps the files and validates the records instead of rebuilding the graph.
+// GraphDB does not reopen these directories itself: a graph created on one still logs its transactions and is
+// recovered from the WAL like any other, and the storage is for callers that open the directory again themselves.
+//
+// Every node and edge has a fixed size record. Adjacency is stored as linked chains threaded through the edge
+// records: a node points at the first edge leaving and the first edge entering it, and every edge at the next edge
+// with the same source and the next edge with the same target. Attribute maps are appended to an overflow file; the
+// copies left behind by updates and removals are counted, and once they take up most of the file the live maps are
+// moved down over them so that the file stops growing.
+//
+// An edge is linked into its chains before it is marked in use, and marked out of use before it is unlinked, so a
+// process stopped in between leaves an edge linked but not in use. Opening the directory unlinks such edges.
+//
+// The edge weight index is a file of (weight, edge slot) entries: a run sorted by weight, followed by the entries
+// appended since the run was last merged. An entry is only trusted while its edge is in use with that weight, so
+// removing an edge or changing its weight just leaves a stale entry behind, and an entry is appended before its edge
+// is marked in use or given the weight. The appended entries are merged into the run, and stale ones dropped, once
+// they outnumber the square root of the index or the stale entries outnumber the live ones. A directory without the
+// file, or with a merge cut short, has it rebuilt from the edge records on opening.
+public class MappedGraphStorage implements GraphStorage, AutoCloseable {
+
+    private static final int MAGIC = 0x47444253;
+    private static final int VERSION = 1;
+    private static final int NO_SLOT = -1;
+    private static final int MAX_ID_LENGTH = 64;
+    private static final int RECORDS_PER_SEGMENT = 8192;
+    private static final int OVERFLOW_SEGMENT_SIZE = 1 << 20;
+    private static final int MIN_PENDING_WEIGHTS = 256;
+
+    // meta: magic, version, node slots in use, edge slots in use, overflow tail
+    private static final int META_SIZE = 32;
+    private static final long META_NODE_SLOTS = 8;
+    private static final long META_EDGE_SLOTS = 12;
+    private static final long META_OVERFLOW_TAIL = 16;
+
+    // node record: in use, id, first outgoing edge, first incoming edge, attributes
+    private static final int NODE_RECORD_SIZE = 96;
+    private static final int NODE_FIRST_OUT = 68;
+    private static final int NODE_FIRST_IN = 72;
+    private static final int NODE_ATTRIBUTES = 80;
+
+    // edge record: in use, id, source, target, next outgoing edge, next incoming edge, weight, properties
+    private static final int EDGE_RECORD_SIZE = 112;
+    private static final int EDGE_SOURCE = 68;
+    private static final int EDGE_TARGET = 72;
+    private static final int EDGE_NEXT_OUT = 76;
+    private static final int EDGE_NEXT_IN = 80;
+    private static final int EDGE_WEIGHT = 88;
+    private static final int EDGE_PROPERTIES = 96;
+
+    // weight entry: weight, edge slot; the first entry's place holds the header: entries in the sorted run, entries
+    // in all, and whether a merge is rewriting them
+    private static final int WEIGHT_ENTRY_SIZE = 16;
+    private static final int WEIGHT_SLOT = 8;
+    private static final long WEIGHTS_RUN = 0;
+    private static final long WEIGHTS_COUNT = 4;
+    private static final long WEIGHTS_MERGING = 8;
+
+    // shared by both record types
+    private static final int IN_USE = 0;
+    private static final int ID_LENGTH = 2;
+    private static final int ID = 4;
+
+    private final MappedSegments meta;
+    private final MappedSegments nodes;
+    private final MappedSegments edges;
+    private final MappedSegments overflow;
+    private final MappedSegments weights;
+    private final Map<String, Integer> nodeSlots = new HashMap<>();
+    private final Map<String, Integer> edgeSlots = new HashMap<>();
+    private final Deque<Integer> freeNodeSlots = new ArrayDeque<>();
+    private final Deque<Integer> freeEdgeSlots = new ArrayDeque<>();
+    // bytes of the overflow file below its tail that no record points at
+    private long overflowGarbage;
+
+    private MappedGraphStorage(MappedSegments meta, MappedSegments nodes, MappedSegments edges, MappedSegments overflow,
+                               MappedSegments weights) {
+        this.meta = meta;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.overflow = overflow;
+        this.weights = weights;
+    }
+
+    public static MappedGraphStorage open(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        boolean exists = Files.exists(directory.resolve("graph.meta"));
+        boolean weightsExist = Files.exists(directory.resolve("weights.dat"));
+        MappedGraphStorage storage = new MappedGraphStorage(
+                new MappedSegments(directory.resolve("graph.meta"), META_SIZE),
+                new MappedSegments(directory.resolve("nodes.dat"), NODE_RECORD_SIZE * RECORDS_PER_SEGMENT),
+                new MappedSegments(directory.resolve("edges.dat"), EDGE_RECORD_SIZE * RECORDS_PER_SEGMENT),
+                new MappedSegments(directory.resolve("overflow.dat"), OVERFLOW_SEGMENT_SIZE),
+                new MappedSegments(directory.resolve("weights.dat"), WEIGHT_ENTRY_SIZE * RECORDS_PER_SEGMENT));
+        try {
+            if (exists) {
+                storage.validate(weightsExist);
+            } else {
+                storage.initialise();
+            }
+        } catch (RuntimeException e) {
+            storage.close();
+            throw e;
+        }
+        return storage;
+    }
+
+    // ============ NODES ============
+
+    @Override
+    public Node getNode(String id) {
+        Integer slot = nodeSlots.get(id);
+        return slot == null ? null : new Node(id, new MappedAttributeStore(nodes, nodeSlots, slot, id, NODE_RECORD_SIZE, NODE_ATTRIBUTES));
+    }
+
+    @Override
+    public void putNode(Node node) {
+        String id = node.getId();
+        byte[] idBytes = encodeId(id);
+        Integer existingSlot = nodeSlots.get(id);
+        if (existingSlot != null) {
+            // an existing node is being updated, so its edges must be kept
+            writeAttributes(nodes, nodeRecord(existingSlot) + NODE_ATTRIBUTES, node.getAttributes());
+            compactOverflowIfWasted();
+            return;
+        }
+        int slot = allocate(freeNodeSlots, META_NODE_SLOTS);
+        long record = nodeRecord(slot);
+        writeId(nodes, record, idBytes);
+        nodes.putInt(record + NODE_FIRST_OUT, NO_SLOT);
+        nodes.putInt(record + NODE_FIRST_IN, NO_SLOT);
+        nodes.putInt(record + NODE_ATTRIBUTES + 8, 0);
+        writeAttributes(nodes, record + NODE_ATTRIBUTES, node.getAttributes());
+        nodes.putByte(record + IN_USE, (byte) 1);
+        nodeSlots.put(id, slot);
+        compactOverflowIfWasted();
+    }
+
+    @Override
+    public Node removeNode(String id) {
+        Integer slot = nodeSlots.get(id);
+        if (slot == null) {
+            return null;
+        }
+        long record = nodeRecord(slot);
+        List<String> incidentEdges = new ArrayList<>();
+        forEachEdgeSlot(nodes.getInt(record + NODE_FIRST_OUT), EDGE_NEXT_OUT, edgeSlot -> incidentEdges.add(readId(edges, edgeRecord(edgeSlot))));
+        forEachEdgeSlot(nodes.getInt(record + NODE_FIRST_IN), EDGE_NEXT_IN, edgeSlot -> incidentEdges.add(readId(edges, edgeRecord(edgeSlot))));
+        // a self loop is in both chains of the node
+        incidentEdges.stream().distinct().forEach(this::removeEdge);
+
+        Node removedNode = new Node(id, new MapAttributeStore(readAttributes(nodes, record + NODE_ATTRIBUTES)));
+        overflowGarbage += nodes.getInt(record + NODE_ATTRIBUTES + 8);
+        nodes.putByte(record + IN_USE, (byte) 0);
+        nodeSlots.remove(id);
+        freeNodeSlots.push(slot);
+        return removedNode;
+    }
+
+    @Override
+    public List<Node> getAllNodes() {
+        List<Node> nodeList = new ArrayList<>(nodeSlots.size());
+        nodeSlots.keySet().forEach(id -> nodeList.add(getNode(id)));
+        return nodeList;
+    }
+
+    @Override
+    public void forEachNode(Consumer<Node> consumer) {
+        nodeSlots.keySet().forEach(id -> consumer.accept(getNode(id)));
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeSlots.size();
+    }
+
+    @Override
+    public boolean containsNode(String id) {
+        return nodeSlots.containsKey(id);
+    }
+
+    // ============ EDGES ============
+
+    @Override
+    public Edge getEdge(String id) {
+        Integer slot = edgeSlots.get(id);
+        return slot == null ? null : readEdge(slot);
+    }
+
+    @Override
+    public Edge getEdgeByNodeIds(String source, String target) {
+        int slot = findEdgeSlot(source, target);
+        return slot == NO_SLOT ? null : readEdge(slot);
+    }
+
+    @Override
+    public void putEdge(Edge edge) {
+        Integer sourceSlot = nodeSlots.get(edge.getSource());
+        Integer targetSlot = nodeSlots.get(edge.getDestination());
+        if (sourceSlot == null) {
+            throw new NodeNotFoundException(edge.getSource());
+        }
+        if (targetSlot == null) {
+            throw new NodeNotFoundException(edge.getDestination());
+        }
+        byte[] idBytes = encodeId(edge.getId());
+        if (edgeSlots.containsKey(edge.getId())) {
+            removeEdge(edge.getId());
+        }
+
+        int slot = allocate(freeEdgeSlots, META_EDGE_SLOTS);
+        long record = edgeRecord(slot);
+        long sourceRecord = nodeRecord(sourceSlot);
+        long targetRecord = nodeRecord(targetSlot);
+        writeId(edges, record, idBytes);
+        edges.putInt(record + EDGE_SOURCE, sourceSlot);
+        edges.putInt(record + EDGE_TARGET, targetSlot);
+        edges.putInt(record + EDGE_NEXT_OUT, nodes.getInt(sourceRecord + NODE_FIRST_OUT));
+        edges.putInt(record + EDGE_NEXT_IN, nodes.getInt(targetRecord + NODE_FIRST_IN));
+        edges.putDouble(record + EDGE_WEIGHT, edge.getWeight());
+        edges.putInt(record + EDGE_PROPERTIES + 8, 0);
+        writeAttributes(edges, record + EDGE_PROPERTIES, edge.getProperties());
+        nodes.putInt(sourceRecord + NODE_FIRST_OUT, slot);
+        nodes.putInt(targetRecord + NODE_FIRST_IN, slot);
+        appendWeight(edge.getWeight(), slot);
+        edges.putByte(record + IN_USE, (byte) 1);
+        edgeSlots.put(edge.getId(), slot);
+        mergeWeightsIfNeeded();
+        compactOverflowIfWasted();
+    }
+
+    @Override
+    public Edge removeEdge(String id) {
+        Integer slot = edgeSlots.remove(id);
+        if (slot == null) {
+            return null;
+        }
+        long record = edgeRecord(slot);
+        int sourceSlot = edges.getInt(record + EDGE_SOURCE);
+        int targetSlot = edges.getInt(record + EDGE_TARGET);
+        double weight = edges.getDouble(record + EDGE_WEIGHT);
+        edges.putByte(record + IN_USE, (byte) 0);
+        unlink(nodeRecord(sourceSlot) + NODE_FIRST_OUT, EDGE_NEXT_OUT, slot);
+        unlink(nodeRecord(targetSlot) + NODE_FIRST_IN, EDGE_NEXT_IN, slot);
+
+        Edge removedEdge = new Edge(id, readId(nodes, nodeRecord(sourceSlot)), readId(nodes, nodeRecord(targetSlot)),
+                weight, new MapAttributeStore(readAttributes(edges, record + EDGE_PROPERTIES)));
+        overflowGarbage += edges.getInt(record + EDGE_PROPERTIES + 8);
+        freeEdgeSlots.push(slot);
+        mergeWeightsIfNeeded();
+        return removedEdge;
+    }
+
+    @Override
+    public List<Edge> getAllEdges() {
+        List<Edge> edgeList = new ArrayList<>(edgeSlots.size());
+        edgeSlots.values().forEach(slot -> edgeList.add(readEdge(slot)));
+        return edgeList;
+    }
+
+    @Override
+    public boolean containsEdge(String id) {
+        return edgeSlots.containsKey(id);
+    }
+
+    // ============ ADJACENCY ============
+
+    @Override
+    public List<Edge> getEdgesFromNode(String id) {
+        List<Edge> edgeList = new ArrayList<>();
+        Integer slot = nodeSlots.get(id);
+        if (slot != null) {
+            forEachEdgeSlot(nodes.getInt(nodeRecord(slot) + NODE_FIRST_OUT), EDGE_NEXT_OUT, edgeSlot -> edgeList.add(readEdge(edgeSlot)));
+        }
+        return edgeList;
+    }
+
+    @Override
+    public List<String> nodesIdsWithEdgesToNode(String id) {
+        List<String> nodeIds = new ArrayList<>();
+        Integer slot = nodeSlots.get(id);
+        if (slot != null) {
+            forEachEdgeSlot(nodes.getInt(nodeRecord(slot) + NODE_FIRST_IN), EDGE_NEXT_IN,
+                    edgeSlot -> nodeIds.add(readId(nodes, nodeRecord(edges.getInt(edgeRecord(edgeSlot) + EDGE_SOURCE)))));
+        }
+        return nodeIds;
+    }
+
+    @Override
+    public boolean edgeExists(String source, String target) {
+        return findEdgeSlot(source, target) != NO_SLOT;
+    }
+
+    // ============ EDGE WEIGHT QUERIES ============
+
+    @Override
+    public List<Edge> getEdgesByWeight(double weight) {
+        return edgesWithWeight(weight, true, weight, true);
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeightRange(double min, double max) {
+        return edgesWithWeight(min, true, max, true);
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightGreaterThan(double weight) {
+        return edgesWithWeight(weight, false, Double.POSITIVE_INFINITY, true);
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightLessThan(double weight) {
+        return edgesWithWeight(Double.NEGATIVE_INFINITY, true, weight, false);
+    }
+
+    // the weight stored in the record is the one indexed, whatever the caller passes as the previous one
+    @Override
+    public void updateEdgeWeight(double previousWeight, double currentWeight, Edge edge) {
+        Integer slot = edgeSlots.get(edge.getId());
+        if (slot != null) {
+            appendWeight(currentWeight, slot);
+            edges.putDouble(edgeRecord(slot) + EDGE_WEIGHT, currentWeight);
+            mergeWeightsIfNeeded();
+        }
+    }
+
+    // the bytes of the overflow file in use, live attribute maps and garbage alike
+    long overflowSize() {
+        return meta.getLong(META_OVERFLOW_TAIL);
+    }
+
+    // flushes the mapped files to disk
+    public void force() {
+        nodes.force();
+        edges.force();
+        overflow.force();
+        weights.force();
+        meta.force();
+    }
+
+    @Override
+    public void close() {
+        nodes.close();
+        edges.close();
+        overflow.close();
+        weights.close();
+        meta.close();
+    }
+
+    // ============ WEIGHT INDEX ============
+
+    // The live edges of the run in the range, in weight order, followed by those of the appended entries; when any of
+    // those match, the whole list is sorted by weight. An edge may have more than one entry, so it is only taken once.
+    private List<Edge> edgesWithWeight(double min, boolean minInclusive, double max, boolean maxInclusive) {
+        List<Edge> edgeList = new ArrayList<>();
+        BitSet taken = new BitSet();
+        int run = weights.getInt(WEIGHTS_RUN);
+        int count = weights.getInt(WEIGHTS_COUNT);
+        int to = weightLowerBound(run, max, !maxInclusive);
+        for (int entry = weightLowerBound(run, min, minInclusive); entry < to; entry++) {
+            takeIfLive(entry, taken, edgeList);
+        }
+        int fromRun = edgeList.size();
+        for (int entry = run; entry < count; entry++) {
+            double weight = entryWeight(entry);
+            if ((minInclusive ? weight >= min : weight > min) && (maxInclusive ? weight <= max : weight < max)) {
+                takeIfLive(entry, taken, edgeList);
+            }
+        }
+        if (edgeList.size() > fromRun) {
+            edgeList.sort(Comparator.comparingDouble(Edge::getWeight));
+        }
+        return edgeList;
+    }
+
+    private void takeIfLive(int entry, BitSet taken, List<Edge> edgeList) {
+        int slot = entrySlot(entry);
+        if (!taken.get(slot) && isLiveWeight(entryWeight(entry), slot)) {
+            taken.set(slot);
+            edgeList.add(readEdge(slot));
+        }
+    }
+
+    // the first entry of the run whose weight is at least (or, when not inclusive, above) the bound
+    private int weightLowerBound(int run, double bound, boolean inclusive) {
+        int low = 0;
+        int high = run;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            double weight = entryWeight(middle);
+            if (inclusive ? weight < bound : weight <= bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean isLiveWeight(double weight, int slot) {
+        if (slot < 0 || slot >= meta.getInt(META_EDGE_SLOTS)) {
+            return false;
+        }
+        long record = edgeRecord(slot);
+        return edges.getByte(record + IN_USE) == 1 && Double.compare(edges.getDouble(record + EDGE_WEIGHT), weight) == 0;
+    }
+
+    private static long weightEntry(int entry) {
+        return (long) (entry + 1) * WEIGHT_ENTRY_SIZE;
+    }
+
+    private double entryWeight(int entry) {
+        return weights.getDouble(weightEntry(entry));
+    }
+
+    private int entrySlot(int entry) {
+        return weights.getInt(weightEntry(entry) + WEIGHT_SLOT);
+    }
+
+    private void appendWeight(double weight, int slot) {
+        int count = weights.getInt(WEIGHTS_COUNT);
+        weights.putDouble(weightEntry(count), weight);
+        weights.putInt(weightEntry(count) + WEIGHT_SLOT, slot);
+        weights.putInt(WEIGHTS_COUNT, count + 1);
+    }
+
+    private void mergeWeightsIfNeeded() {
+        int run = weights.getInt(WEIGHTS_RUN);
+        int count = weights.getInt(WEIGHTS_COUNT);
+        int pending = count - run;
+        if (pending > Math.max(MIN_PENDING_WEIGHTS, (int) Math.sqrt(count))
+                || count - edgeSlots.size() > Math.max(MIN_PENDING_WEIGHTS, edgeSlots.size())) {
+            mergeWeights();
+        }
+    }
+
+    // Sorts the appended entries and merges them with the run, dropping stale and repeated entries. The entries are
+    // read onto the heap before any is rewritten; the merging flag makes an interrupted rewrite rebuild on opening.
+    private void mergeWeights() {
+        int run = weights.getInt(WEIGHTS_RUN);
+        int count = weights.getInt(WEIGHTS_COUNT);
+        int[] pending = IntStream.range(run, count).boxed()
+                .sorted(Comparator.comparingDouble(this::entryWeight))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        double[] mergedWeights = new double[edgeSlots.size()];
+        int[] mergedSlots = new int[edgeSlots.size()];
+        BitSet taken = new BitSet();
+        int merged = 0;
+        int fromRun = 0;
+        int fromPending = 0;
+        while (fromRun < run || fromPending < pending.length) {
+            int entry = fromPending == pending.length
+                    || fromRun < run && entryWeight(fromRun) <= entryWeight(pending[fromPending])
+                    ? fromRun++ : pending[fromPending++];
+            double weight = entryWeight(entry);
+            int slot = entrySlot(entry);
+            if (!taken.get(slot) && isLiveWeight(weight, slot)) {
+                taken.set(slot);
+                mergedWeights[merged] = weight;
+                mergedSlots[merged++] = slot;
+            }
+        }
+        writeWeights(mergedWeights, mergedSlots, merged);
+    }
+
+    private void writeWeights(double[] sortedWeights, int[] slots, int count) {
+        weights.putInt(WEIGHTS_MERGING, 1);
+        for (int entry = 0; entry < count; entry++) {
+            weights.putDouble(weightEntry(entry), sortedWeights[entry]);
+            weights.putInt(weightEntry(entry) + WEIGHT_SLOT, slots[entry]);
+        }
+        weights.putInt(WEIGHTS_RUN, count);
+        weights.putInt(WEIGHTS_COUNT, count);
+        weights.putInt(WEIGHTS_MERGING, 0);
+    }
+
+    // writes the weights of the live edges as the run
+    private void rebuildWeights() {
+        int[] slots = edgeSlots.values().stream()
+                .sorted(Comparator.comparingDouble(slot -> edges.getDouble(edgeRecord(slot) + EDGE_WEIGHT)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        double[] sortedWeights = new double[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            sortedWeights[i] = edges.getDouble(edgeRecord(slots[i]) + EDGE_WEIGHT);
+        }
+        writeWeights(sortedWeights, slots, slots.length);
+    }
+
+    // ============ RECORDS ============
+
+    private static long nodeRecord(int slot) {
+        return (long) slot * NODE_RECORD_SIZE;
+    }
+
+    private static long edgeRecord(int slot) {
+        return (long) slot * EDGE_RECORD_SIZE;
+    }
+
+    private Edge readEdge(int slot) {
+        long record = edgeRecord(slot);
+        String id = readId(edges, record);
+        String source = readId(nodes, nodeRecord(edges.getInt(record + EDGE_SOURCE)));
+        String target = readId(nodes, nodeRecord(edges.getInt(record + EDGE_TARGET)));
+        return new Edge(id, source, target, edges.getDouble(record + EDGE_WEIGHT),
+                new MappedAttributeStore(edges, edgeSlots, slot, id, EDGE_RECORD_SIZE, EDGE_PROPERTIES));
+    }
+
+    private int findEdgeSlot(String source, String target) {
+        Integer sourceSlot = nodeSlots.get(source);
+        Integer targetSlot = nodeSlots.get(target);
+        if (sourceSlot == null || targetSlot == null) {
+            return NO_SLOT;
+        }
+        int edgeSlot = nodes.getInt(nodeRecord(sourceSlot) + NODE_FIRST_OUT);
+        while (edgeSlot != NO_SLOT) {
+            long record = edgeRecord(edgeSlot);
+            if (edges.getInt(record + EDGE_TARGET) == targetSlot) {
+                return edgeSlot;
+            }
+            edgeSlot = edges.getInt(record + EDGE_NEXT_OUT);
+        }
+        return NO_SLOT;
+    }
+
+    private void forEachEdgeSlot(int firstSlot, int nextField, IntConsumer consumer) {
+        for (int slot = firstSlot; slot != NO_SLOT; slot = edges.getInt(edgeRecord(slot) + nextField)) {
+            consumer.accept(slot);
+        }
+    }
+
+    // removes an edge from a chain, where head is the position of the pointer to the first edge of the chain
+    private void unlink(long head, int nextField, int slot) {
+        int next = edges.getInt(edgeRecord(slot) + nextField);
+        int current = nodes.getInt(head);
+        if (current == slot) {
+            nodes.putInt(head, next);
+            return;
+        }
+        while (current != NO_SLOT) {
+            long record = edgeRecord(current);
+            if (edges.getInt(record + nextField) == slot) {
+                edges.putInt(record + nextField, next);
+                return;
+            }
+            current = edges.getInt(record + nextField);
+        }
+    }
+
+    private int allocate(Deque<Integer> freeSlots, long slotCounter) {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        int slot = meta.getInt(slotCounter);
+        meta.putInt(slotCounter, slot + 1);
+        return slot;
+    }
+
+    private static byte[] encodeId(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_ID_LENGTH) {
+            throw new IllegalArgumentException("Id " + id + " is longer than " + MAX_ID_LENGTH + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void writeId(MappedSegments file, long record, byte[] idBytes) {
+        file.putShort(record + ID_LENGTH, (short) idBytes.length);
+        file.write(record + ID, idBytes);
+    }
+
+    private static String readId(MappedSegments file, long record) {
+        return new String(file.read(record + ID, file.getShort(record + ID_LENGTH)), StandardCharsets.UTF_8);
+    }
+
+    // attributes are appended to the overflow file and the record points at them; the previous copy is left behind
+    // until the overflow file is compacted
+    private void writeAttributes(MappedSegments file, long position, Map<String, Object> attributes) {
+        overflowGarbage += file.getInt(position + 8);
+        if (attributes.isEmpty()) {
+            file.putLong(position, 0);
+            file.putInt(position + 8, 0);
+            return;
+        }
+        byte[] bytes = AttributeCodec.encode(attributes);
+        long tail = meta.getLong(META_OVERFLOW_TAIL);
+        overflow.write(tail, bytes);
+        meta.putLong(META_OVERFLOW_TAIL, tail + bytes.length);
+        file.putLong(position, tail);
+        file.putInt(position + 8, bytes.length);
+    }
+
+    // Compacts once the garbage is both over a segment and more than the live maps, so a map is moved about once for
+    // every time it was rewritten. Every record must be in the slot maps: a map no slot points at is overwritten.
+    private void compactOverflowIfWasted() {
+        long tail = meta.getLong(META_OVERFLOW_TAIL);
+        if (overflowGarbage <= OVERFLOW_SEGMENT_SIZE || overflowGarbage * 2 <= tail) {
+            return;
+        }
+        List<StoredAttributes> live = new ArrayList<>(nodeSlots.size() + edgeSlots.size());
+        collectAttributes(nodes, nodeSlots.values(), NODE_RECORD_SIZE, NODE_ATTRIBUTES, live);
+        collectAttributes(edges, edgeSlots.values(), EDGE_RECORD_SIZE, EDGE_PROPERTIES, live);
+        live.sort(Comparator.comparingLong(StoredAttributes::offset));
+        // moving the maps down in order only ever overwrites garbage or maps already moved
+        long compactedTail = 0;
+        for (StoredAttributes map : live) {
+            if (map.offset() != compactedTail) {
+                overflow.write(compactedTail, overflow.read(map.offset(), map.length()));
+                map.file().putLong(map.position(), compactedTail);
+            }
+            compactedTail += map.length();
+        }
+        meta.putLong(META_OVERFLOW_TAIL, compactedTail);
+        overflowGarbage = 0;
+    }
+
+    private static void collectAttributes(MappedSegments file, Collection<Integer> slots, int recordSize, int field,
+                                          List<StoredAttributes> live) {
+        for (int slot : slots) {
+            long position = (long) slot * recordSize + field;
+            int length = file.getInt(position + 8);
+            if (length > 0) {
+                live.add(new StoredAttributes(file, position, file.getLong(position), length));
+            }
+        }
+    }
+
+    private Map<String, Object> readAttributes(MappedSegments file, long position) {
+        int length = file.getInt(position + 8);
+        if (length == 0) {
+            return new HashMap<>();
+        }
+        return AttributeCodec.decode(overflow.read(file.getLong(position), length));
+    }
+
+    // ============ OPENING ============
+
+    private void initialise() {
+        meta.putInt(0, MAGIC);
+        meta.putInt(4, VERSION);
+        meta.putInt(META_NODE_SLOTS, 0);
+        meta.putInt(META_EDGE_SLOTS, 0);
+        meta.putLong(META_OVERFLOW_TAIL, 0);
+        writeWeights(new double[0], new int[0], 0);
+    }
+
+    private void validate(boolean weightsExist) {
+        if (meta.fileSize() < META_SIZE || meta.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a graph storage directory");
+        }
+        if (meta.getInt(4) != VERSION) {
+            throw new IllegalStateException("Unsupported graph storage version " + meta.getInt(4));
+        }
+        int nodeCount = meta.getInt(META_NODE_SLOTS);
+        int edgeCount = meta.getInt(META_EDGE_SLOTS);
+        long overflowTail = meta.getLong(META_OVERFLOW_TAIL);
+        if (nodeCount < 0 || edgeCount < 0 || overflowTail < 0
+                || nodeRecord(nodeCount) > nodes.fileSize() || edgeRecord(edgeCount) > edges.fileSize()
+                || overflowTail > overflow.fileSize()) {
+            throw new IllegalStateException("Graph storage files are truncated");
+        }
+
+        loadSlots(nodes, nodeCount, NODE_RECORD_SIZE, NODE_ATTRIBUTES, overflowTail, nodeSlots, freeNodeSlots);
+        loadSlots(edges, edgeCount, EDGE_RECORD_SIZE, EDGE_PROPERTIES, overflowTail, edgeSlots, freeEdgeSlots);
+        List<StoredAttributes> live = new ArrayList<>();
+        collectAttributes(nodes, nodeSlots.values(), NODE_RECORD_SIZE, NODE_ATTRIBUTES, live);
+        collectAttributes(edges, edgeSlots.values(), EDGE_RECORD_SIZE, EDGE_PROPERTIES, live);
+        overflowGarbage = overflowTail - live.stream().mapToLong(StoredAttributes::length).sum();
+
+        IntPredicate liveNode = slot -> slot >= 0 && slot < nodeCount && nodes.getByte(nodeRecord(slot) + IN_USE) == 1;
+        for (int slot : edgeSlots.values()) {
+            long record = edgeRecord(slot);
+            if (!liveNode.test(edges.getInt(record + EDGE_SOURCE)) || !liveNode.test(edges.getInt(record + EDGE_TARGET))) {
+                throw new IllegalStateException("Edge record " + slot + " points at a missing node");
+            }
+        }
+        validateChains(NODE_FIRST_OUT, EDGE_NEXT_OUT, EDGE_SOURCE, edgeCount);
+        validateChains(NODE_FIRST_IN, EDGE_NEXT_IN, EDGE_TARGET, edgeCount);
+        // a directory written before the weight index was kept in a file has none, and is given one
+        if (!weightsExist || !weightsIntact()) {
+            rebuildWeights();
+        }
+    }
+
+    // false when the header is cut short or out of range, or a merge was rewriting the entries
+    private boolean weightsIntact() {
+        if (weights.fileSize() < WEIGHT_ENTRY_SIZE) {
+            return false;
+        }
+        int run = weights.getInt(WEIGHTS_RUN);
+        int count = weights.getInt(WEIGHTS_COUNT);
+        return weights.getInt(WEIGHTS_MERGING) == 0 && run >= 0 && run <= count && weightEntry(count) <= weights.fileSize();
+    }
+
+    private static void loadSlots(MappedSegments file, int count, int recordSize, int attributesField, long overflowTail,
+                                  Map<String, Integer> slots, Deque<Integer> freeSlots) {
+        for (int slot = count - 1; slot >= 0; slot--) {
+            long record = (long) slot * recordSize;
+            byte inUse = file.getByte(record + IN_USE);
+            if (inUse == 0) {
+                freeSlots.push(slot);
+                continue;
+            }
+            short idLength = file.getShort(record + ID_LENGTH);
+            long attributesOffset = file.getLong(record + attributesField);
+            int attributesLength = file.getInt(record + attributesField + 8);
+            if (inUse != 1 || idLength < 0 || idLength > MAX_ID_LENGTH || attributesOffset < 0 || attributesLength < 0
+                    || attributesOffset + attributesLength > overflowTail) {
+                throw new IllegalStateException("Corrupt record in slot " + slot);
+            }
+            if (slots.put(readId(file, record), slot) != null) {
+                throw new IllegalStateException("Duplicate id " + readId(file, record) + " in slot " + slot);
+            }
+        }
+    }
+
+    // Every live edge must be reachable exactly once, from the chain of the node it names. An edge that is linked but
+    // not in use was being added or removed when the process stopped, and is unlinked.
+    private void validateChains(int firstField, int nextField, int ownerField, int edgeCount) {
+        int reached = 0;
+        for (int nodeSlot : nodeSlots.values()) {
+            MappedSegments pointerFile = nodes;
+            long pointer = nodeRecord(nodeSlot) + firstField;
+            int edgeSlot = nodes.getInt(pointer);
+            int walked = 0;
+            while (edgeSlot != NO_SLOT) {
+                if (edgeSlot < 0 || edgeSlot >= edgeCount || ++walked > edgeCount) {
+                    throw new IllegalStateException("Corrupt adjacency chain of node slot " + nodeSlot);
+                }
+                long record = edgeRecord(edgeSlot);
+                int next = edges.getInt(record + nextField);
+                byte inUse = edges.getByte(record + IN_USE);
+                if (inUse == 0) {
+                    pointerFile.putInt(pointer, next);
+                } else if (inUse != 1 || edges.getInt(record + ownerField) != nodeSlot || ++reached > edgeSlots.size()) {
+                    throw new IllegalStateException("Corrupt adjacency chain of node slot " + nodeSlot);
+                } else {
+                    pointerFile = edges;
+                    pointer = record + nextField;
+                }
+                edgeSlot = next;
+            }
+        }
+        if (reached != edgeSlots.size()) {
+            throw new IllegalStateException("Adjacency chains do not cover every edge");
+        }
+    }
+
+    // the attribute map of one record: where the record points at it, and where it is in the overflow file
+    private record StoredAttributes(MappedSegments file, long position, long offset, int length) {}
+
+    // Attributes of a stored node or edge, read from and written back to the overflow file on every access
+    private class MappedAttributeStore implements AttributeStore {
+
+        private final MappedSegments file;
+        private final Map<String, Integer> slots;
+        private final int slot;
+        private final String id;
+        private final long position;
+
+        MappedAttributeStore(MappedSegments file, Map<String, Integer> slots, int slot, String id, int recordSize, int field) {
+            this.file = file;
+            this.slots = slots;
+            this.slot = slot;
+            this.id = id;
+            this.position = (long) slot * recordSize + field;
+        }
+
+        @Override
+        public Object get(String key) {
+            return read().get(key);
+        }
+
+        @Override
+        public void put(String key, Object value) {
+            Map<String, Object> attributes = read();
+            attributes.put(key, value);
+            write(attributes);
+        }
+
+        @Override
+        public void putAll(Map<String, Object> values) {
+            Map<String, Object> attributes = read();
+            attributes.putAll(values);
+            write(attributes);
+        }
+
+        @Override
+        public Object remove(String key) {
+            Map<String, Object> attributes = read();
+            Object value = attributes.remove(key);
+            write(attributes);
+            return value;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return read().containsKey(key);
+        }
+
+        @Override
+        public Map<String, Object> asMap() {
+            return Collections.unmodifiableMap(read());
+        }
+
+        private Map<String, Object> read() {
+            checkStillStored();
+            return readAttributes(file, position);
+        }
+
+        private void write(Map<String, Object> attributes) {
+            writeAttributes(file, position, attributes);
+            compactOverflowIfWasted();
+        }
+
+        // the slot may have been freed and handed to another node or edge since this store was created
+        private void checkStillStored() {
+            Integer currentSlot = slots.get(id);
+            if (currentSlot == null || currentSlot != slot) {
+                throw new IllegalStateException(id + " is no longer stored");
+            }
+        }
+    }
+}
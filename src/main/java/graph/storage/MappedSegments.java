@@ -0,0 +1,136 @@
+package graph.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// A file mapped into memory in fixed size segments, mapping (and growing the file) lazily as positions are touched.
+// Fixed size records must divide the segment size so that a record never straddles two segments.
+class MappedSegments implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    MappedSegments(Path file, int segmentSize) {
+        this.segmentSize = segmentSize;
+        try {
+            this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long fileSize() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    byte getByte(long position) {
+        return segment(position).get(offset(position));
+    }
+
+    void putByte(long position, byte value) {
+        segment(position).put(offset(position), value);
+    }
+
+    short getShort(long position) {
+        return segment(position).getShort(offset(position));
+    }
+
+    void putShort(long position, short value) {
+        segment(position).putShort(offset(position), value);
+    }
+
+    int getInt(long position) {
+        return segment(position).getInt(offset(position));
+    }
+
+    void putInt(long position, int value) {
+        segment(position).putInt(offset(position), value);
+    }
+
+    long getLong(long position) {
+        return segment(position).getLong(offset(position));
+    }
+
+    void putLong(long position, long value) {
+        segment(position).putLong(offset(position), value);
+    }
+
+    double getDouble(long position) {
+        return segment(position).getDouble(offset(position));
+    }
+
+    void putDouble(long position, double value) {
+        segment(position).putDouble(offset(position), value);
+    }
+
+    // bulk reads and writes may cross segment boundaries
+    byte[] read(long position, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            MappedByteBuffer segment = segment(position + copied);
+            int offset = offset(position + copied);
+            int chunk = Math.min(length - copied, segmentSize - offset);
+            segment.get(offset, bytes, copied, chunk);
+            copied += chunk;
+        }
+        return bytes;
+    }
+
+    void write(long position, byte[] bytes) {
+        int copied = 0;
+        while (copied < bytes.length) {
+            MappedByteBuffer segment = segment(position + copied);
+            int offset = offset(position + copied);
+            int chunk = Math.min(bytes.length - copied, segmentSize - offset);
+            segment.put(offset, bytes, copied, chunk);
+            copied += chunk;
+        }
+    }
+
+    void force() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() {
+        force();
+        segments.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int offset(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private MappedByteBuffer segment(long position) {
+        int index = (int) (position / segmentSize);
+        while (segments.size() <= index) {
+            try {
+                long start = (long) segments.size() * segmentSize;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, segmentSize));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segments.get(index);
+    }
+}
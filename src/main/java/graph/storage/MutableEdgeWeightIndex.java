@@ -6,4 +6,11 @@ public interface MutableEdgeWeightIndex extends EdgeWeightIndex {
 
     void putEdge(Edge edge);
     void removeEdge(Edge edge);
+
+    // indexes that can sort many edges in at once do better than one insertion each
+    default void putAll(Edge[] edges) {
+        for (Edge edge : edges) {
+            putEdge(edge);
+        }
+    }
 }
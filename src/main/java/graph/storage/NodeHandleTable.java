@@ -0,0 +1,71 @@
+package graph.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Interns node ids to dense int handles. The handles of released ids are given out again, so arrays indexed by
+// handle stay about as long as the number of ids held.
+final class NodeHandleTable {
+
+    private final Map<String, Integer> handles = new HashMap<>();
+    private String[] ids = new String[16];
+    private int[] released = new int[16];
+    private int releasedCount;
+    private int bound;
+
+    // the handle of an id, or -1 if it has none
+    int handleOf(String id) {
+        Integer handle = handles.get(id);
+        return handle == null ? -1 : handle;
+    }
+
+    // the handle of an id, giving it one if it has none
+    int intern(String id) {
+        Integer existing = handles.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        int handle = releasedCount > 0 ? released[--releasedCount] : bound++;
+        if (handle == ids.length) {
+            ids = Arrays.copyOf(ids, handle * 2);
+        }
+        ids[handle] = id;
+        handles.put(id, handle);
+        return handle;
+    }
+
+    // frees the handle of an id to be given out again, returning it, or -1 if the id had none
+    int release(String id) {
+        Integer handle = handles.remove(id);
+        if (handle == null) {
+            return -1;
+        }
+        ids[handle] = null;
+        if (releasedCount == released.length) {
+            released = Arrays.copyOf(released, releasedCount * 2);
+        }
+        released[releasedCount++] = handle;
+        return handle;
+    }
+
+    String idOf(int handle) {
+        return ids[handle];
+    }
+
+    // every handle given out is below the bound
+    int bound() {
+        return bound;
+    }
+
+    int size() {
+        return handles.size();
+    }
+
+    void clear() {
+        handles.clear();
+        Arrays.fill(ids, 0, bound, null);
+        releasedCount = 0;
+        bound = 0;
+    }
+}
@@ -0,0 +1,304 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Edge weight index kept in sorted primitive arrays rather than boxed map entries. Edges live in a main run
+// sorted by weight (and by id hash, so a single edge can be found by binary search) plus a small sorted delta of
+// recent insertions. Removed edges are cleared in place and their positions remembered until the delta and the
+// main run are merged, which happens once either grows past roughly the square root of the index size.
+public class SortedRunEdgeWeightIndex implements MutableEdgeWeightIndex {
+
+    private static final int MIN_PENDING_LIMIT = 256;
+
+    private double[] weights = new double[0];
+    private int[] hashes = new int[0];
+    private Edge[] edges = new Edge[0];
+    private int size;
+    // sorted positions in the main run whose edge was removed
+    private int[] removed = new int[16];
+    private int removedCount;
+
+    private double[] deltaWeights = new double[16];
+    private int[] deltaHashes = new int[16];
+    private Edge[] deltaEdges = new Edge[16];
+    private int deltaSize;
+
+    SortedRunEdgeWeightIndex() {}
+
+    @Override
+    public void putEdge(Edge edge) {
+        insert(edge.getWeight(), edge);
+    }
+
+    @Override
+    public void removeEdge(Edge edge) {
+        remove(edge.getWeight(), edge);
+    }
+
+    // an empty index takes the edges as its main run with one sort, rather than merging them in by the delta
+    @Override
+    public void putAll(Edge[] added) {
+        if (size() > 0) {
+            MutableEdgeWeightIndex.super.putAll(added);
+            return;
+        }
+        Edge[] sorted = added.clone();
+        Arrays.sort(sorted, Comparator.comparingDouble(Edge::getWeight).thenComparingInt(edge -> edge.getId().hashCode()));
+        weights = new double[sorted.length];
+        hashes = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            weights[i] = sorted[i].getWeight();
+            hashes[i] = sorted[i].getId().hashCode();
+        }
+        edges = sorted;
+        size = sorted.length;
+        removedCount = 0;
+        Arrays.fill(deltaEdges, 0, deltaSize, null);
+        deltaSize = 0;
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeight(double weight) {
+        return toList(cursor(weight, true, weight, true));
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeightRange(double min, double max) {
+        return toList(cursor(min, true, max, true));
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightGreaterThan(double weight) {
+        return toList(cursor(weight, false, Double.POSITIVE_INFINITY, true));
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightLessThan(double weight) {
+        return toList(cursor(Double.NEGATIVE_INFINITY, true, weight, false));
+    }
+
+    @Override
+    public void updateEdgeWeight(double previousWeight, double currentWeight, Edge edge) {
+        remove(previousWeight, edge);
+        insert(currentWeight, edge);
+    }
+
+    // edges with min <= weight <= max in ascending weight order, read lazily; not valid across modifications
+    public WeightCursor cursor(double min, double max) {
+        return cursor(min, true, max, true);
+    }
+
+    public int countInRange(double min, double max) {
+        int from = lowerBound(weights, size, min, true);
+        int to = Math.max(from, lowerBound(weights, size, max, false));
+        int removedInRange = lowerBound(removed, removedCount, to) - lowerBound(removed, removedCount, from);
+        int deltaFrom = lowerBound(deltaWeights, deltaSize, min, true);
+        int deltaTo = lowerBound(deltaWeights, deltaSize, max, false);
+        return to - from - removedInRange + Math.max(0, deltaTo - deltaFrom);
+    }
+
+    public int size() {
+        return size - removedCount + deltaSize;
+    }
+
+    private WeightCursor cursor(double min, boolean minInclusive, double max, boolean maxInclusive) {
+        return new WeightCursor(
+                lowerBound(weights, size, min, minInclusive), lowerBound(weights, size, max, !maxInclusive),
+                lowerBound(deltaWeights, deltaSize, min, minInclusive), lowerBound(deltaWeights, deltaSize, max, !maxInclusive));
+    }
+
+    private static List<Edge> toList(WeightCursor cursor) {
+        List<Edge> edgeList = new ArrayList<>();
+        while (cursor.next()) {
+            edgeList.add(cursor.edge());
+        }
+        return edgeList;
+    }
+
+    private void insert(double weight, Edge edge) {
+        int hash = edge.getId().hashCode();
+        int position = lowerBound(deltaWeights, deltaHashes, deltaSize, weight, hash);
+        if (deltaSize == deltaEdges.length) {
+            deltaWeights = Arrays.copyOf(deltaWeights, deltaSize * 2);
+            deltaHashes = Arrays.copyOf(deltaHashes, deltaSize * 2);
+            deltaEdges = Arrays.copyOf(deltaEdges, deltaSize * 2);
+        }
+        System.arraycopy(deltaWeights, position, deltaWeights, position + 1, deltaSize - position);
+        System.arraycopy(deltaHashes, position, deltaHashes, position + 1, deltaSize - position);
+        System.arraycopy(deltaEdges, position, deltaEdges, position + 1, deltaSize - position);
+        deltaWeights[position] = weight;
+        deltaHashes[position] = hash;
+        deltaEdges[position] = edge;
+        deltaSize++;
+        mergeIfNeeded();
+    }
+
+    private void remove(double weight, Edge edge) {
+        int hash = edge.getId().hashCode();
+        for (int i = lowerBound(weights, hashes, size, weight, hash); i < size && compare(weights[i], hashes[i], weight, hash) == 0; i++) {
+            if (edges[i] == edge) {
+                edges[i] = null;
+                markRemoved(i);
+                mergeIfNeeded();
+                return;
+            }
+        }
+        for (int i = lowerBound(deltaWeights, deltaHashes, deltaSize, weight, hash); i < deltaSize && compare(deltaWeights[i], deltaHashes[i], weight, hash) == 0; i++) {
+            if (deltaEdges[i] == edge) {
+                System.arraycopy(deltaWeights, i + 1, deltaWeights, i, deltaSize - i - 1);
+                System.arraycopy(deltaHashes, i + 1, deltaHashes, i, deltaSize - i - 1);
+                System.arraycopy(deltaEdges, i + 1, deltaEdges, i, deltaSize - i - 1);
+                deltaEdges[--deltaSize] = null;
+                return;
+            }
+        }
+    }
+
+    private void markRemoved(int position) {
+        int index = lowerBound(removed, removedCount, position);
+        if (removedCount == removed.length) {
+            removed = Arrays.copyOf(removed, removedCount * 2);
+        }
+        System.arraycopy(removed, index, removed, index + 1, removedCount - index);
+        removed[index] = position;
+        removedCount++;
+    }
+
+    private void mergeIfNeeded() {
+        int limit = Math.max(MIN_PENDING_LIMIT, (int) Math.sqrt(size));
+        if (deltaSize > limit || removedCount > limit) {
+            merge();
+        }
+    }
+
+    private void merge() {
+        int mergedSize = size - removedCount + deltaSize;
+        double[] mergedWeights = new double[mergedSize];
+        int[] mergedHashes = new int[mergedSize];
+        Edge[] mergedEdges = new Edge[mergedSize];
+        int main = 0;
+        int delta = 0;
+        for (int i = 0; i < mergedSize; i++) {
+            while (main < size && edges[main] == null) {
+                main++;
+            }
+            boolean takeMain = delta == deltaSize
+                    || main < size && compare(weights[main], hashes[main], deltaWeights[delta], deltaHashes[delta]) <= 0;
+            if (takeMain) {
+                mergedWeights[i] = weights[main];
+                mergedHashes[i] = hashes[main];
+                mergedEdges[i] = edges[main++];
+            } else {
+                mergedWeights[i] = deltaWeights[delta];
+                mergedHashes[i] = deltaHashes[delta];
+                mergedEdges[i] = deltaEdges[delta++];
+            }
+        }
+        weights = mergedWeights;
+        hashes = mergedHashes;
+        edges = mergedEdges;
+        size = mergedSize;
+        removedCount = 0;
+        Arrays.fill(deltaEdges, 0, deltaSize, null);
+        deltaSize = 0;
+    }
+
+    private static int compare(double weight, int hash, double otherWeight, int otherHash) {
+        int byWeight = Double.compare(weight, otherWeight);
+        return byWeight != 0 ? byWeight : Integer.compare(hash, otherHash);
+    }
+
+    // first position whose weight is >= weight (inclusive) or > weight (exclusive)
+    private static int lowerBound(double[] sorted, int length, double weight, boolean inclusive) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Double.compare(sorted[middle], weight);
+            if (comparison < 0 || !inclusive && comparison == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(double[] sortedWeights, int[] sortedHashes, int length, double weight, int hash) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(sortedWeights[middle], sortedHashes[middle], weight, hash) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(int[] sorted, int length, int value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Walks the main run and the delta side by side, skipping removed edges
+    public class WeightCursor {
+
+        private int main;
+        private final int mainEnd;
+        private int delta;
+        private final int deltaEnd;
+        private double weight;
+        private Edge edge;
+
+        private WeightCursor(int main, int mainEnd, int delta, int deltaEnd) {
+            this.main = main;
+            this.mainEnd = mainEnd;
+            this.delta = delta;
+            this.deltaEnd = deltaEnd;
+        }
+
+        public boolean next() {
+            while (main < mainEnd && edges[main] == null) {
+                main++;
+            }
+            boolean hasMain = main < mainEnd;
+            boolean hasDelta = delta < deltaEnd;
+            if (!hasMain && !hasDelta) {
+                return false;
+            }
+            if (hasMain && (!hasDelta || Double.compare(weights[main], deltaWeights[delta]) <= 0)) {
+                weight = weights[main];
+                edge = edges[main++];
+            } else {
+                weight = deltaWeights[delta];
+                edge = deltaEdges[delta++];
+            }
+            return true;
+        }
+
+        public double weight() {
+            return weight;
+        }
+
+        public Edge edge() {
+            return edge;
+        }
+    }
+}
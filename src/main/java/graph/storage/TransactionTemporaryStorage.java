@@ -9,7 +9,10 @@ import java.util.*;
 public class TransactionTemporaryStorage implements TransactionStorage {
 
     private final Map<String, Node> modifiedNodes = new HashMap<>();
-    private final Map<String, Map<String, String>> adjacencyList = new HashMap<>();
+    // the endpoints of the edges put in the transaction are interned to handles; for every source, its edges keyed by
+    // the handle of their destination
+    private final NodeHandleTable endpoints = new NodeHandleTable();
+    private HandleEdgeMap[] adjacencyList = new HandleEdgeMap[16];
     private final Map<String, Edge> modifiedEdges = new HashMap<>();
     private final Set<String> deletedNodes = new HashSet<>();
     private final Set<String> deletedEdges = new HashSet<>();
@@ -56,15 +59,27 @@ public class TransactionTemporaryStorage implements TransactionStorage {
 
     @Override
     public Edge getEdgesByNodeIds(String source, String target) {
-        return this.modifiedEdges.get(adjacencyList.get(source).get(target));
+        int sourceHandle = endpoints.handleOf(source);
+        int targetHandle = endpoints.handleOf(target);
+        if (sourceHandle < 0 || targetHandle < 0 || adjacencyList[sourceHandle] == null) {
+            return null;
+        }
+        return adjacencyList[sourceHandle].get(targetHandle);
     }
 
     @Override
     public void putEdge(Edge edge) {
         modifiedEdges.put(edge.getId(), edge);
         deletedEdges.remove(edge.getId());
-        adjacencyList.putIfAbsent(edge.getSource(), new HashMap<>());
-        adjacencyList.get(edge.getSource()).put(edge.getDestination(), edge.getId());
+        int source = endpoints.intern(edge.getSource());
+        int destination = endpoints.intern(edge.getDestination());
+        if (endpoints.bound() > adjacencyList.length) {
+            adjacencyList = Arrays.copyOf(adjacencyList, adjacencyList.length * 2);
+        }
+        if (adjacencyList[source] == null) {
+            adjacencyList[source] = new HandleEdgeMap();
+        }
+        adjacencyList[source].put(destination, edge);
         operations.add(new AddOrUpdateEdge(edge));
     }
 
@@ -73,7 +88,7 @@ public class TransactionTemporaryStorage implements TransactionStorage {
         deletedEdges.add(id);
         Edge edge = modifiedEdges.remove(id);
         if (edge != null) {
-            adjacencyList.get(edge.getSource()).remove(edge.getDestination());
+            adjacencyList[endpoints.handleOf(edge.getSource())].remove(endpoints.handleOf(edge.getDestination()));
         }
         operations.add(new DeleteEdge(id));
     }
@@ -90,7 +105,7 @@ public class TransactionTemporaryStorage implements TransactionStorage {
 
     @Override
     public boolean edgeExists(String source, String target) {
-        return adjacencyList.containsKey(source) && adjacencyList.get(source).containsKey(target);
+        return getEdgesByNodeIds(source, target) != null;
     }
 
     @Override
@@ -109,6 +124,8 @@ public class TransactionTemporaryStorage implements TransactionStorage {
         modifiedEdges.clear();
         deletedNodes.clear();
         deletedEdges.clear();
+        Arrays.fill(adjacencyList, 0, endpoints.bound(), null);
+        endpoints.clear();
         operations.clear();
     }
 }
@@ -0,0 +1,727 @@
+package graph.storage;
+
+import graph.dataModel.AttributeStore;
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import graph.exceptions.EdgeNotFoundException;
+import graph.exceptions.NodeNotFoundException;
+import graph.traversalAlgorithms.GraphSnapshot;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+// Multi-version graph storage. Every node and edge keeps a chain of versions, newest first, and every write
+// (a single storage call or a whole committed transaction) publishes one new graph version at once.
+// Snapshots read the graph as of the version they were opened at without taking any locks, so long running
+// traversals neither block writers nor see half applied commits. Reads of the latest version pin it for as long as
+// they run, just like a snapshot does, and versions no snapshot or read in progress can see any more are dropped by
+// the writer after each commit.
+public class VersionedGraphStorage implements GraphStorage {
+
+    private final Map<String, Version<Map<String, Object>>> nodes = new ConcurrentHashMap<>();
+    private final Map<String, Version<EdgeState>> edges = new ConcurrentHashMap<>();
+    // every edge id that has a retained version with the node as its source / target, readers check visibility
+    private final Map<String, Set<String>> outgoing = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> incoming = new ConcurrentHashMap<>();
+    // likewise every edge id that has a retained version with that weight
+    private final ConcurrentSkipListMap<Double, Set<String>> weights = new ConcurrentSkipListMap<>();
+
+    // only writers take the lock, readers go by the published version
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long publishedVersion;
+    private long pendingVersion;
+    private final Set<String> writtenNodes = new HashSet<>();
+    private final Set<String> writtenEdges = new HashSet<>();
+    private final Deque<Superseded> superseded = new ArrayDeque<>();
+    // version -> number of open snapshots and reads in progress at that version
+    private final TreeMap<Long, Integer> pinnedVersions = new TreeMap<>();
+
+    protected VersionedGraphStorage() {}
+
+    public static VersionedGraphStorage create() {
+        return new VersionedGraphStorage();
+    }
+
+    public Snapshot openSnapshot() {
+        return new Snapshot(pin());
+    }
+
+    public long getVersion() {
+        return publishedVersion;
+    }
+
+    // ============ NODES ============
+
+    @Override
+    public Node getNode(String id) {
+        return readLatest(at -> nodeAt(id, at) == null ? null : new Node(id, new LatestAttributeStore(id, false)));
+    }
+
+    @Override
+    public void putNode(Node node) {
+        write(() -> {
+            writeNode(node.getId(), copy(node.getAttributes()));
+            outgoing.computeIfAbsent(node.getId(), id -> ConcurrentHashMap.newKeySet());
+            incoming.computeIfAbsent(node.getId(), id -> ConcurrentHashMap.newKeySet());
+        });
+    }
+
+    @Override
+    public Node removeNode(String id) {
+        List<Node> removed = new ArrayList<>(1);
+        write(() -> {
+            Map<String, Object> attributes = nodeAt(id, pendingVersion);
+            if (attributes == null) {
+                return;
+            }
+            Set<String> incidentEdges = new HashSet<>();
+            forEachEdgeAt(outgoing.get(id), id, pendingVersion, true, (edgeId, state) -> incidentEdges.add(edgeId));
+            forEachEdgeAt(incoming.get(id), id, pendingVersion, false, (edgeId, state) -> incidentEdges.add(edgeId));
+            incidentEdges.forEach(edgeId -> writeEdge(edgeId, null));
+            writeNode(id, null);
+            removed.add(new Node(id, attributes));
+        });
+        return removed.isEmpty() ? null : removed.get(0);
+    }
+
+    @Override
+    public List<Node> getAllNodes() {
+        return readLatest(at -> allNodesAt(at, id -> new Node(id, new LatestAttributeStore(id, false))));
+    }
+
+    @Override
+    public boolean containsNode(String id) {
+        return readLatest(at -> nodeAt(id, at) != null);
+    }
+
+    // ============ EDGES ============
+
+    @Override
+    public Edge getEdge(String id) {
+        EdgeState state = readLatest(at -> edgeAt(id, at));
+        return state == null ? null : latestEdge(id, state);
+    }
+
+    @Override
+    public Edge getEdgeByNodeIds(String source, String target) {
+        return readLatest(at -> edgeByNodeIdsAt(source, target, at, this::latestEdge));
+    }
+
+    @Override
+    public void putEdge(Edge edge) {
+        write(() -> {
+            if (nodeAt(edge.getSource(), pendingVersion) == null) {
+                throw new NodeNotFoundException(edge.getSource());
+            }
+            if (nodeAt(edge.getDestination(), pendingVersion) == null) {
+                throw new NodeNotFoundException(edge.getDestination());
+            }
+            writeEdge(edge.getId(), new EdgeState(edge.getSource(), edge.getDestination(), edge.getWeight(), copy(edge.getProperties())));
+        });
+    }
+
+    @Override
+    public Edge removeEdge(String id) {
+        List<Edge> removed = new ArrayList<>(1);
+        write(() -> {
+            EdgeState state = edgeAt(id, pendingVersion);
+            if (state != null) {
+                writeEdge(id, null);
+                removed.add(detachedEdge(id, state));
+            }
+        });
+        return removed.isEmpty() ? null : removed.get(0);
+    }
+
+    @Override
+    public List<Edge> getAllEdges() {
+        return readLatest(at -> allEdgesAt(at, this::latestEdge));
+    }
+
+    @Override
+    public boolean containsEdge(String id) {
+        return readLatest(at -> edgeAt(id, at) != null);
+    }
+
+    // ============ ADJACENCY ============
+
+    @Override
+    public List<Edge> getEdgesFromNode(String id) {
+        return readLatest(at -> edgesFromNodeAt(id, at, this::latestEdge));
+    }
+
+    @Override
+    public List<String> nodesIdsWithEdgesToNode(String id) {
+        return readLatest(at -> nodeIdsWithEdgesToNodeAt(id, at));
+    }
+
+    // the version read stays pinned while the consumer runs
+    @Override
+    public void forEachEdgeFrom(String id, Consumer<Edge> consumer) {
+        readLatest(at -> {
+            forEachEdgeAt(outgoing.get(id), id, at, true, (edgeId, state) -> consumer.accept(latestEdge(edgeId, state)));
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachNodeIdWithEdgeTo(String id, Consumer<String> consumer) {
+        readLatest(at -> {
+            forEachEdgeAt(incoming.get(id), id, at, false, (edgeId, state) -> consumer.accept(state.source()));
+            return null;
+        });
+    }
+
+    @Override
+    public boolean edgeExists(String source, String target) {
+        return readLatest(at -> edgeByNodeIdsAt(source, target, at, (id, state) -> id) != null);
+    }
+
+    // ============ EDGE WEIGHT QUERIES ============
+
+    @Override
+    public List<Edge> getEdgesByWeight(double weight) {
+        return readLatest(at -> edgesWithWeightAt(weights.subMap(weight, true, weight, true), at, this::latestEdge));
+    }
+
+    @Override
+    public List<Edge> getEdgesByWeightRange(double min, double max) {
+        return readLatest(at -> edgesWithWeightAt(weights.subMap(min, true, max, true), at, this::latestEdge));
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightGreaterThan(double weight) {
+        return readLatest(at -> edgesWithWeightAt(weights.tailMap(weight, false), at, this::latestEdge));
+    }
+
+    @Override
+    public List<Edge> getEdgesWithWeightLessThan(double weight) {
+        return readLatest(at -> edgesWithWeightAt(weights.headMap(weight, false), at, this::latestEdge));
+    }
+
+    @Override
+    public void updateEdgeWeight(double previousWeight, double currentWeight, Edge edge) {
+        write(() -> {
+            EdgeState state = edgeAt(edge.getId(), pendingVersion);
+            if (state != null) {
+                writeEdge(edge.getId(), new EdgeState(state.source(), state.target(), currentWeight, state.properties()));
+            }
+        });
+    }
+
+    @Override
+    public void writeAtomically(Runnable writes) {
+        write(writes);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    // ============ READING AT A VERSION ============
+
+    // The writer reads its own pending version, everyone else the published one. That is pinned until the read is
+    // done: the versions it walks would otherwise be collected by a commit published meanwhile.
+    private <T> T readLatest(LongFunction<T> read) {
+        if (writeLock.isHeldByCurrentThread()) {
+            return read.apply(pendingVersion);
+        }
+        long version = pin();
+        try {
+            return read.apply(version);
+        } finally {
+            unpin(version);
+        }
+    }
+
+    private long pin() {
+        synchronized (pinnedVersions) {
+            long version = publishedVersion;
+            pinnedVersions.merge(version, 1, Integer::sum);
+            return version;
+        }
+    }
+
+    private void unpin(long version) {
+        synchronized (pinnedVersions) {
+            pinnedVersions.computeIfPresent(version, (v, readers) -> readers == 1 ? null : readers - 1);
+        }
+    }
+
+    private static <T> T valueAt(Version<T> version, long at) {
+        while (version != null && version.number > at) {
+            version = version.previous;
+        }
+        return version == null ? null : version.value;
+    }
+
+    private Map<String, Object> nodeAt(String id, long at) {
+        return valueAt(nodes.get(id), at);
+    }
+
+    private EdgeState edgeAt(String id, long at) {
+        return valueAt(edges.get(id), at);
+    }
+
+    private List<Node> allNodesAt(long at, Function<String, Node> nodeFactory) {
+        List<Node> nodeList = new ArrayList<>();
+        nodes.forEach((id, version) -> {
+            if (valueAt(version, at) != null) {
+                nodeList.add(nodeFactory.apply(id));
+            }
+        });
+        return nodeList;
+    }
+
+    private List<Edge> allEdgesAt(long at, EdgeFactory<Edge> edgeFactory) {
+        List<Edge> edgeList = new ArrayList<>();
+        edges.forEach((id, version) -> {
+            EdgeState state = valueAt(version, at);
+            if (state != null) {
+                edgeList.add(edgeFactory.create(id, state));
+            }
+        });
+        return edgeList;
+    }
+
+    private List<Edge> edgesFromNodeAt(String id, long at, EdgeFactory<Edge> edgeFactory) {
+        List<Edge> edgeList = new ArrayList<>();
+        forEachEdgeAt(outgoing.get(id), id, at, true, (edgeId, state) -> edgeList.add(edgeFactory.create(edgeId, state)));
+        return edgeList;
+    }
+
+    private List<String> nodeIdsWithEdgesToNodeAt(String id, long at) {
+        List<String> nodeIds = new ArrayList<>();
+        forEachEdgeAt(incoming.get(id), id, at, false, (edgeId, state) -> nodeIds.add(state.source()));
+        return nodeIds;
+    }
+
+    private <T> T edgeByNodeIdsAt(String source, String target, long at, EdgeFactory<T> edgeFactory) {
+        Set<String> edgeIds = outgoing.get(source);
+        if (edgeIds == null) {
+            return null;
+        }
+        for (String edgeId : edgeIds) {
+            EdgeState state = edgeAt(edgeId, at);
+            if (state != null && state.source().equals(source) && state.target().equals(target)) {
+                return edgeFactory.create(edgeId, state);
+            }
+        }
+        return null;
+    }
+
+    // an edge id can be in the adjacency of a node it no longer (or not yet) touches at this version
+    private void forEachEdgeAt(Set<String> edgeIds, String nodeId, long at, boolean fromNode, BiConsumer<String, EdgeState> consumer) {
+        if (edgeIds == null) {
+            return;
+        }
+        for (String edgeId : edgeIds) {
+            EdgeState state = edgeAt(edgeId, at);
+            if (state != null && (fromNode ? state.source() : state.target()).equals(nodeId)) {
+                consumer.accept(edgeId, state);
+            }
+        }
+    }
+
+    private List<Edge> edgesWithWeightAt(NavigableMap<Double, Set<String>> buckets, long at, EdgeFactory<Edge> edgeFactory) {
+        List<Edge> edgeList = new ArrayList<>();
+        buckets.forEach((weight, edgeIds) -> {
+            for (String edgeId : edgeIds) {
+                EdgeState state = edgeAt(edgeId, at);
+                // the edge is listed under every weight it has had, only report it under the current one
+                if (state != null && state.weight() == weight) {
+                    edgeList.add(edgeFactory.create(edgeId, state));
+                }
+            }
+        });
+        return edgeList;
+    }
+
+    private Edge latestEdge(String id, EdgeState state) {
+        return new Edge(id, state.source(), state.target(), state.weight(), new LatestAttributeStore(id, true));
+    }
+
+    private static Edge detachedEdge(String id, EdgeState state) {
+        return new Edge(id, state.source(), state.target(), state.weight(), state.properties());
+    }
+
+    private static Map<String, Object> copy(Map<String, Object> attributes) {
+        return Collections.unmodifiableMap(new HashMap<>(attributes));
+    }
+
+    // ============ WRITING ============
+
+    // runs the mutation as one new version, or as part of the enclosing one if called from inside a mutation
+    private void write(Runnable mutation) {
+        writeLock.lock();
+        try {
+            if (writeLock.getHoldCount() > 1) {
+                mutation.run();
+                return;
+            }
+            pendingVersion = publishedVersion + 1;
+            try {
+                mutation.run();
+            } catch (RuntimeException e) {
+                rollback();
+                throw e;
+            }
+            publishedVersion = pendingVersion;
+            writtenNodes.clear();
+            writtenEdges.clear();
+            collectGarbage();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeNode(String id, Map<String, Object> attributes) {
+        writtenNodes.add(id);
+        pushVersion(nodes, id, attributes, false);
+    }
+
+    private void writeEdge(String id, EdgeState state) {
+        writtenEdges.add(id);
+        Version<EdgeState> head = edges.get(id);
+        EdgeState replaced = head != null && head.number == pendingVersion ? head.value : null;
+        pushVersion(edges, id, state, true);
+        if (state != null) {
+            outgoing.computeIfAbsent(state.source(), nodeId -> ConcurrentHashMap.newKeySet()).add(id);
+            incoming.computeIfAbsent(state.target(), nodeId -> ConcurrentHashMap.newKeySet()).add(id);
+            weights.computeIfAbsent(state.weight(), weight -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        if (replaced != null) {
+            unindex(id, replaced, edges.get(id));
+        }
+    }
+
+    private <T> void pushVersion(Map<String, Version<T>> versions, String id, T value, boolean edge) {
+        Version<T> head = versions.get(id);
+        // a second write in the same version replaces the first, nobody can have seen it yet
+        Version<T> previous = head != null && head.number == pendingVersion ? head.previous : head;
+        versions.put(id, new Version<>(pendingVersion, value, previous));
+        if (previous != null || value == null) {
+            superseded.add(new Superseded(pendingVersion, id, edge));
+        }
+    }
+
+    // drops the pending version of everything written by a failed mutation
+    private void rollback() {
+        writtenNodes.forEach(id -> dropPending(nodes, id));
+        writtenEdges.forEach(id -> {
+            EdgeState state = edges.get(id).value;
+            dropPending(edges, id);
+            if (state != null) {
+                unindex(id, state, edges.get(id));
+            }
+        });
+        writtenNodes.clear();
+        writtenEdges.clear();
+        superseded.removeIf(entry -> entry.version() == pendingVersion);
+    }
+
+    private static <T> void dropPending(Map<String, Version<T>> versions, String id) {
+        Version<T> head = versions.get(id);
+        if (head.previous == null) {
+            versions.remove(id);
+        } else {
+            versions.put(id, head.previous);
+        }
+    }
+
+    // ============ GARBAGE COLLECTION ============
+
+    private void collectGarbage() {
+        long oldestVisible;
+        synchronized (pinnedVersions) {
+            oldestVisible = pinnedVersions.isEmpty() ? publishedVersion : Math.min(pinnedVersions.firstKey(), publishedVersion);
+        }
+        while (!superseded.isEmpty() && superseded.peekFirst().version() <= oldestVisible) {
+            Superseded entry = superseded.pollFirst();
+            if (entry.edge()) {
+                pruneEdge(entry.id(), oldestVisible);
+            } else {
+                pruneNode(entry.id(), oldestVisible);
+            }
+        }
+    }
+
+    private void pruneNode(String id, long oldestVisible) {
+        Version<Map<String, Object>> head = nodes.get(id);
+        Version<Map<String, Object>> visible = visibleVersion(head, oldestVisible);
+        if (visible == null) {
+            return;
+        }
+        visible.previous = null;
+        if (visible == head && visible.value == null) {
+            nodes.remove(id);
+            outgoing.remove(id);
+            incoming.remove(id);
+        }
+    }
+
+    private void pruneEdge(String id, long oldestVisible) {
+        Version<EdgeState> head = edges.get(id);
+        Version<EdgeState> visible = visibleVersion(head, oldestVisible);
+        if (visible == null) {
+            return;
+        }
+        Version<EdgeState> dropped = visible.previous;
+        visible.previous = null;
+        if (visible == head && visible.value == null) {
+            edges.remove(id);
+            head = null;
+        }
+        for (Version<EdgeState> version = dropped; version != null; version = version.previous) {
+            if (version.value != null) {
+                unindex(id, version.value, head);
+            }
+        }
+    }
+
+    // removes the edge from the adjacency and weight entries of a state that none of the retained versions share
+    private void unindex(String id, EdgeState state, Version<EdgeState> retained) {
+        if (!retains(retained, s -> s.source().equals(state.source()))) {
+            removeFrom(outgoing.get(state.source()), id);
+        }
+        if (!retains(retained, s -> s.target().equals(state.target()))) {
+            removeFrom(incoming.get(state.target()), id);
+        }
+        if (!retains(retained, s -> s.weight() == state.weight())) {
+            Set<String> bucket = weights.get(state.weight());
+            // only the writer changes the buckets, so an emptied one can be dropped
+            if (bucket != null && bucket.remove(id) && bucket.isEmpty()) {
+                weights.remove(state.weight(), bucket);
+            }
+        }
+    }
+
+    private static boolean retains(Version<EdgeState> versions, Predicate<EdgeState> predicate) {
+        for (Version<EdgeState> version = versions; version != null; version = version.previous) {
+            if (version.value != null && predicate.test(version.value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void removeFrom(Set<String> edgeIds, String id) {
+        if (edgeIds != null) {
+            edgeIds.remove(id);
+        }
+    }
+
+    private static <T> Version<T> visibleVersion(Version<T> version, long at) {
+        while (version != null && version.number > at) {
+            version = version.previous;
+        }
+        return version;
+    }
+
+    // number of versions kept for a node, including a trailing deletion
+    int retainedVersions(String nodeId) {
+        int count = 0;
+        for (Version<Map<String, Object>> version = nodes.get(nodeId); version != null; version = version.previous) {
+            count++;
+        }
+        return count;
+    }
+
+    private static final class Version<T> {
+        private final long number;
+        // null once deleted
+        private final T value;
+        private volatile Version<T> previous;
+
+        private Version(long number, T value, Version<T> previous) {
+            this.number = number;
+            this.value = value;
+            this.previous = previous;
+        }
+    }
+
+    private record EdgeState(String source, String target, double weight, Map<String, Object> properties) {}
+
+    private record Superseded(long version, String id, boolean edge) {}
+
+    private interface EdgeFactory<T> {
+        T create(String id, EdgeState state);
+    }
+
+    // Attributes of the latest version of a node or edge, each update is written as a new version
+    private class LatestAttributeStore implements AttributeStore {
+
+        private final String id;
+        private final boolean edge;
+
+        LatestAttributeStore(String id, boolean edge) {
+            this.id = id;
+            this.edge = edge;
+        }
+
+        @Override
+        public Object get(String key) {
+            return readLatest(at -> read(at).get(key));
+        }
+
+        @Override
+        public void put(String key, Object value) {
+            update(attributes -> attributes.put(key, value));
+        }
+
+        @Override
+        public void putAll(Map<String, Object> values) {
+            update(attributes -> attributes.putAll(values));
+        }
+
+        @Override
+        public Object remove(String key) {
+            List<Object> removed = new ArrayList<>(1);
+            update(attributes -> removed.add(attributes.remove(key)));
+            return removed.get(0);
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return readLatest(at -> read(at).containsKey(key));
+        }
+
+        @Override
+        public Map<String, Object> asMap() {
+            return readLatest(this::read);
+        }
+
+        private Map<String, Object> read(long at) {
+            Map<String, Object> attributes = edge ? Optional.ofNullable(edgeAt(id, at)).map(EdgeState::properties).orElse(null) : nodeAt(id, at);
+            if (attributes == null) {
+                throw new IllegalStateException(id + " is no longer stored");
+            }
+            return attributes;
+        }
+
+        private void update(Consumer<Map<String, Object>> change) {
+            write(() -> {
+                Map<String, Object> attributes = new HashMap<>(read(pendingVersion));
+                change.accept(attributes);
+                if (edge) {
+                    EdgeState state = edgeAt(id, pendingVersion);
+                    writeEdge(id, new EdgeState(state.source(), state.target(), state.weight(), copy(attributes)));
+                } else {
+                    writeNode(id, copy(attributes));
+                }
+            });
+        }
+    }
+
+    // The graph as of one version. Close it once done so the versions it holds on to can be collected.
+    public class Snapshot implements GraphSnapshot {
+
+        private final long version;
+        private boolean closed;
+
+        private Snapshot(long version) {
+            this.version = version;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public List<Node> getNodes() {
+            return allNodesAt(checkOpen(), id -> new Node(id, nodeAt(id, version)));
+        }
+
+        @Override
+        public List<Edge> getEdges() {
+            return allEdgesAt(checkOpen(), VersionedGraphStorage::detachedEdge);
+        }
+
+        @Override
+        public List<Edge> getEdgesFromNode(String nodeId) {
+            checkNode(nodeId);
+            return edgesFromNodeAt(nodeId, version, VersionedGraphStorage::detachedEdge);
+        }
+
+        @Override
+        public List<String> getNodesIdWithEdgeToNode(String nodeId) {
+            checkNode(nodeId);
+            return nodeIdsWithEdgesToNodeAt(nodeId, version);
+        }
+
+        @Override
+        public void forEachEdgeFrom(String nodeId, Consumer<Edge> consumer) {
+            checkNode(nodeId);
+            forEachEdgeAt(outgoing.get(nodeId), nodeId, version, true, (edgeId, state) -> consumer.accept(detachedEdge(edgeId, state)));
+        }
+
+        @Override
+        public void forEachNodeIdWithEdgeTo(String nodeId, Consumer<String> consumer) {
+            checkNode(nodeId);
+            forEachEdgeAt(incoming.get(nodeId), nodeId, version, false, (edgeId, state) -> consumer.accept(state.source()));
+        }
+
+        @Override
+        public Edge getEdgeByNodeIds(String source, String destination) {
+            checkNode(source);
+            checkNode(destination);
+            Edge edge = edgeByNodeIdsAt(source, destination, version, VersionedGraphStorage::detachedEdge);
+            if (edge == null) {
+                throw new EdgeNotFoundException(source, destination);
+            }
+            return edge;
+        }
+
+        @Override
+        public Node getNodeById(String id) {
+            return new Node(id, checkNode(id));
+        }
+
+        @Override
+        public Edge getEdgeById(String id) {
+            EdgeState state = edgeAt(id, checkOpen());
+            if (state == null) {
+                throw new EdgeNotFoundException(id);
+            }
+            return detachedEdge(id, state);
+        }
+
+        public List<Edge> getEdgesByWeightRange(double min, double max) {
+            return edgesWithWeightAt(weights.subMap(min, true, max, true), checkOpen(), VersionedGraphStorage::detachedEdge);
+        }
+
+        @Override
+        public void close() {
+            synchronized (pinnedVersions) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            unpin(version);
+        }
+
+        private long checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Snapshot at version " + version + " is closed");
+            }
+            return version;
+        }
+
+        private Map<String, Object> checkNode(String id) {
+            Map<String, Object> attributes = nodeAt(id, checkOpen());
+            if (attributes == null) {
+                throw new NodeNotFoundException(id);
+            }
+            return attributes;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package graph.traversalAlgorithms;
+
+import java.util.Arrays;
+
+// An explicit stack for depth first searches, so deep graphs do not run out of call stack. Every frame is a node and
+// a cursor over the successors it has left to visit; the successors are read once, when the frame is pushed, into a
+// buffer shared by all frames. Nodes are named by their handles (see NodeHandles).
+public final class DepthFirstStack {
+
+    private final NodeHandles handles;
+    private int[] nodes = new int[16];
+    // for every frame, the next successor to visit and the end of its successors in the buffer
+    private int[] cursors = new int[16];
+    private int[] ends = new int[16];
+    private int[] successors = new int[64];
+    private int size;
+    private int depth;
+
+    private DepthFirstStack(NodeHandles handles) {
+        this.handles = handles;
+    }
+
+    public static DepthFirstStack create(NodeHandles handles) {
+        return new DepthFirstStack(handles);
+    }
+
+    public void push(int node) {
+        if (depth == nodes.length) {
+            nodes = Arrays.copyOf(nodes, depth * 2);
+            cursors = Arrays.copyOf(cursors, depth * 2);
+            ends = Arrays.copyOf(ends, depth * 2);
+        }
+        nodes[depth] = node;
+        cursors[depth] = size;
+        handles.forEachNeighbour(node, (destination, weight) -> {
+            if (size == successors.length) {
+                successors = Arrays.copyOf(successors, size * 2);
+            }
+            successors[size++] = destination;
+        });
+        ends[depth++] = size;
+    }
+
+    // the next successor of the node on top, or -1 once all of them were visited
+    public int nextSuccessor() {
+        int top = depth - 1;
+        return cursors[top] < ends[top] ? successors[cursors[top]++] : -1;
+    }
+
+    public int peek() {
+        return nodes[depth - 1];
+    }
+
+    public int pop() {
+        int node = nodes[--depth];
+        size = depth == 0 ? 0 : ends[depth - 1];
+        return node;
+    }
+
+    public boolean isEmpty() {
+        return depth == 0;
+    }
+
+    public int depth() {
+        return depth;
+    }
+}
@@ -0,0 +1,9 @@
+package graph.traversalAlgorithms;
+
+// A view of the graph as of the moment it was opened, which later changes to the graph do not show up in. Close it
+// once done with it.
+public interface GraphSnapshot extends GraphTraversalView, AutoCloseable {
+
+    @Override
+    void close();
+}
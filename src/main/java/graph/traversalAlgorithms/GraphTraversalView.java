@@ -4,6 +4,8 @@ import graph.dataModel.Edge;
 import graph.dataModel.Node;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
 
 public interface GraphTraversalView {
 
@@ -14,4 +16,35 @@ public interface GraphTraversalView {
     Edge getEdgeByNodeIds(String source, String destination);
     Node getNodeById(String id);
     Edge getEdgeById(String id);
+
+    // visit the graph without copying it; views backed by a storage override these to read it in place
+    default void forEachNode(Consumer<Node> consumer) {
+        getNodes().forEach(consumer);
+    }
+
+    default void forEachEdge(Consumer<Edge> consumer) {
+        getEdges().forEach(consumer);
+    }
+
+    default void forEachEdgeFrom(String nodeId, Consumer<Edge> consumer) {
+        getEdgesFromNode(nodeId).forEach(consumer);
+    }
+
+    default void forEachNodeIdWithEdgeTo(String nodeId, Consumer<String> consumer) {
+        getNodesIdWithEdgeToNode(nodeId).forEach(consumer);
+    }
+
+    default void forEachNeighbour(String nodeId, ObjDoubleConsumer<String> consumer) {
+        forEachEdgeFrom(nodeId, edge -> consumer.accept(edge.getDestination(), edge.getWeight()));
+    }
+
+    default int getNodeCount() {
+        return getNodes().size();
+    }
+
+    // the nodes under dense handles, for walks that keep their state in arrays; views that keep no handles of their
+    // own number their nodes when asked
+    default NodeHandles nodeHandles() {
+        return InternedNodeHandles.create(this);
+    }
 }
@@ -0,0 +1,68 @@
+package graph.traversalAlgorithms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+// Handles for a view that keeps none of its own, numbering its nodes in the order it lists them. Following an edge
+// still looks up the id of the node it leads to.
+public final class InternedNodeHandles implements NodeHandles {
+
+    private final GraphTraversalView graph;
+    private final Map<String, Integer> handles = new HashMap<>();
+    private final String[] ids;
+
+    private InternedNodeHandles(GraphTraversalView graph) {
+        this.graph = graph;
+        List<String> nodeIds = new ArrayList<>();
+        graph.forEachNode(node -> {
+            handles.put(node.getId(), nodeIds.size());
+            nodeIds.add(node.getId());
+        });
+        this.ids = nodeIds.toArray(String[]::new);
+    }
+
+    public static InternedNodeHandles create(GraphTraversalView graph) {
+        return new InternedNodeHandles(graph);
+    }
+
+    @Override
+    public int handleBound() {
+        return ids.length;
+    }
+
+    @Override
+    public int handleOf(String nodeId) {
+        return handles.getOrDefault(nodeId, -1);
+    }
+
+    @Override
+    public String idOf(int handle) {
+        return ids[handle];
+    }
+
+    @Override
+    public void forEachHandle(IntConsumer consumer) {
+        for (int handle = 0; handle < ids.length; handle++) {
+            consumer.accept(handle);
+        }
+    }
+
+    @Override
+    public void forEachNeighbour(int handle, NeighbourConsumer consumer) {
+        graph.forEachNeighbour(ids[handle], (destination, weight) -> {
+            Integer neighbour = handles.get(destination);
+            if (neighbour != null) consumer.accept(neighbour, weight);
+        });
+    }
+
+    @Override
+    public void forEachPredecessor(int handle, IntConsumer consumer) {
+        graph.forEachNodeIdWithEdgeTo(ids[handle], source -> {
+            Integer predecessor = handles.get(source);
+            if (predecessor != null) consumer.accept(predecessor);
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package graph.traversalAlgorithms;
+
+import java.util.function.IntConsumer;
+
+// The nodes of a view under dense int handles, so that a walk can keep its state in arrays indexed by handle rather
+// than in maps keyed by node id. Ids are only looked up where a walk starts and where it reports its result. Every
+// handle is below handleBound(), and the handles only hold while the graph is not changed.
+public interface NodeHandles {
+
+    int handleBound();
+
+    // the handle of a node, or -1 if the view does not have it
+    int handleOf(String nodeId);
+
+    String idOf(int handle);
+
+    void forEachHandle(IntConsumer consumer);
+
+    // the handle and weight of every edge leaving a node
+    void forEachNeighbour(int handle, NeighbourConsumer consumer);
+
+    // the handle of every node with an edge to a node
+    void forEachPredecessor(int handle, IntConsumer consumer);
+
+    interface NeighbourConsumer {
+        void accept(int neighbour, double weight);
+    }
+}
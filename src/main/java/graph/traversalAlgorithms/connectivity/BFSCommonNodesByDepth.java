@@ -1,28 +1,26 @@
 package graph.traversalAlgorithms.connectivity;
 
-import graph.dataModel.Edge;
-import graph.helper.Pair;
 import graph.traversalAlgorithms.Algorithm;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.Set;
 
 class BFSCommonNodesByDepth implements Algorithm {
 
-    private final GraphTraversalView graph;
+    private final NodeHandles handles;
     private final int maxDepth;
     private final String fromNodeId;
     private final String toNodeId;
     private final boolean condition;  // if true, we only add nodes with exactly maxDepth nodes, otherwise we add <= maxDepth nodes
 
     BFSCommonNodesByDepth(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
+        this.handles = graph.nodeHandles();
         this.fromNodeId = input.getFromNodeId();
         this.toNodeId = input.getToNodeId();
         this.maxDepth = input.getMaxLength();
@@ -31,27 +29,29 @@ class BFSCommonNodesByDepth implements Algorithm {
 
     @Override
     public TraversalResult performAlgorithm() {
-        Set<String> connectedNodesFromNodeId = getNodesWithinDepth(fromNodeId);
-        Set<String> connectedNodesToNodeId = getNodesWithinDepth(toNodeId);
-        connectedNodesFromNodeId.retainAll(connectedNodesToNodeId);
-        return new TraversalResultBuilder().setNodeIds(connectedNodesFromNodeId).build();
+        BitSet commonNodes = getNodesWithinDepth(handles.handleOf(fromNodeId));
+        commonNodes.and(getNodesWithinDepth(handles.handleOf(toNodeId)));
+        Set<String> nodeIds = new HashSet<>();
+        commonNodes.stream().forEach(node -> nodeIds.add(handles.idOf(node)));
+        return new TraversalResultBuilder().setNodeIds(nodeIds).build();
     }
 
-    private Set<String> getNodesWithinDepth(String nodeId) {
-        Set<String> nodesWithinDepth = new HashSet<String>();
-        Queue<Pair<String, Integer>> queue = new LinkedList<>();
-        queue.add(new Pair<>(nodeId, 0));
-        while (!queue.isEmpty()) {
-            Pair<String, Integer> nextPair = queue.poll();
-            String nextNode = nextPair.getFirst();
-            Integer nodeDepth = nextPair.getSecond();
-            if (!condition || nodeDepth == maxDepth) {
-                nodesWithinDepth.add(nextNode);
+    // walks a level at a time; a level holds every node at the end of a walk of that many edges from the start
+    private BitSet getNodesWithinDepth(int startNode) {
+        BitSet nodesWithinDepth = new BitSet();
+        BitSet level = new BitSet();
+        if (startNode >= 0) {
+            level.set(startNode);
+        }
+        for (int depth = 0; depth <= maxDepth && !level.isEmpty(); depth++) {
+            if (!condition || depth == maxDepth) {
+                nodesWithinDepth.or(level);
             }
-            if (nodeDepth < maxDepth) {
-                for (Edge edge : graph.getEdgesFromNode(nextNode)) {
-                    queue.add(new Pair<>(edge.getDestination(), nodeDepth + 1));
-                }
+            if (depth < maxDepth) {
+                BitSet nextLevel = new BitSet();
+                level.stream().forEach(node ->
+                        handles.forEachNeighbour(node, (destination, weight) -> nextLevel.set(destination)));
+                level = nextLevel;
             }
         }
         return nodesWithinDepth;
@@ -1,51 +1,56 @@
 package graph.traversalAlgorithms.connectivity;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Node;
 import graph.traversalAlgorithms.Algorithm;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
 
 // Determines whether all nodes are reachable from the current node id
 class DFSGraphConnector implements Algorithm {
 
-    private final GraphTraversalView graph;
-    private final List<Node> nodes;
+    private final NodeHandles handles;
+    private final int nodeCount;
     private final String currentNodeId;
+    private final BitSet visited = new BitSet();
+    private int visitedCount;
 
     DFSGraphConnector(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
-        this.nodes = graph.getNodes();
+        this.handles = graph.nodeHandles();
+        this.nodeCount = graph.getNodeCount();
         this.currentNodeId = input.getFromNodeId();
     }
 
     @Override
     public TraversalResult performAlgorithm() {
-        boolean result = this.nodes.size() == 1 || isConnected(currentNodeId, new HashSet<>());
+        boolean result = this.nodeCount == 1 || isConnected(handles.handleOf(currentNodeId));
         return new TraversalResultBuilder().setConditionResult(result).build();
     }
 
-    private boolean isConnected(String currentNodeId, Set<String> visited) {
-        visited.add(currentNodeId);
-
-        if (visited.size() == this.nodes.size()) {
-            return true;
-        }
-
-        for (Edge edge : graph.getEdgesFromNode(currentNodeId)) {
-            String destination = edge.getDestination();
-            if (!visited.contains(destination)) {
-                if (isConnected(destination, visited)) {
-                    return true;
+    private boolean isConnected(int startNode) {
+        if (startNode < 0) return false;
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        visit(startNode);
+        toVisit.push(startNode);
+
+        while (!toVisit.isEmpty() && visitedCount < this.nodeCount) {
+            handles.forEachNeighbour(toVisit.pop(), (destination, weight) -> {
+                if (!visited.get(destination)) {
+                    visit(destination);
+                    toVisit.push(destination);
                 }
-            }
+            });
         }
-        return false;
+        return visitedCount == this.nodeCount;
+    }
+
+    private void visit(int node) {
+        visited.set(node);
+        visitedCount++;
     }
 }
@@ -1,40 +1,50 @@
 package graph.traversalAlgorithms.connectivity;
 
-import graph.dataModel.Edge;
 import graph.traversalAlgorithms.Algorithm;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 // Returns a set of nodeIds that the node is connected to
 public class DFSNodesConnectedTo implements Algorithm {
 
-    private final GraphTraversalView graph;
+    private final NodeHandles handles;
     private final String fromNodeId;
-    private final Set<String> nodeIds = new HashSet<>();
+    private final BitSet connected = new BitSet();
 
     DFSNodesConnectedTo(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
+        this.handles = graph.nodeHandles();
         this.fromNodeId = input.getFromNodeId();
     }
 
     @Override
     public TraversalResult performAlgorithm() {
-        findConnected(fromNodeId);
+        Set<String> nodeIds = new HashSet<>();
+        nodeIds.add(fromNodeId);
+        int fromNode = handles.handleOf(fromNodeId);
+        if (fromNode >= 0) {
+            findConnected(fromNode);
+            connected.stream().forEach(node -> nodeIds.add(handles.idOf(node)));
+        }
         return new TraversalResultBuilder().setNodeIds(nodeIds).build();
     }
 
-    private void findConnected(String fromNodeId) {
-        nodeIds.add(fromNodeId);
-        for (Edge edge : graph.getEdgesFromNode(fromNodeId)) {
-            String destination = edge.getDestination();
-            if (!nodeIds.contains(destination)) {
-                findConnected(destination);
-            }
+    private void findConnected(int fromNode) {
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        connected.set(fromNode);
+        toVisit.push(fromNode);
+
+        while (!toVisit.isEmpty()) {
+            handles.forEachNeighbour(toVisit.pop(), (destination, weight) -> {
+                if (!connected.get(destination)) {
+                    connected.set(destination);
+                    toVisit.push(destination);
+                }
+            });
         }
     }
 }
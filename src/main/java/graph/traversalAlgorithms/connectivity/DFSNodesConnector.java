@@ -1,48 +1,52 @@
 package graph.traversalAlgorithms.connectivity;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Graph;
 import graph.traversalAlgorithms.Algorithm;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
 
 // Determines if the node with fromNodeId is connected to the node with toNodeId
 class DFSNodesConnector implements Algorithm {
 
     private final String fromNodeId;
     private final String toNodeId;
-    private final GraphTraversalView graph;
-    private final Set<String> visited = new HashSet<>();
+    private final NodeHandles handles;
+    private final BitSet visited = new BitSet();
 
     DFSNodesConnector(TraversalInput input, GraphTraversalView graph) {
         this.fromNodeId = input.getFromNodeId();
         this.toNodeId = input.getToNodeId();
-        this.graph = graph;
+        this.handles = graph.nodeHandles();
     }
 
     @Override
     public TraversalResult performAlgorithm() {
         return new TraversalResultBuilder()
-                .setConditionResult(fromNodeId.equals(toNodeId) || isConnected(fromNodeId))
+                .setConditionResult(fromNodeId.equals(toNodeId) || isConnected(handles.handleOf(fromNodeId)))
                 .build();
     }
 
-    private boolean isConnected(String currentNodeId) {
-        visited.add(currentNodeId);
-        for (Edge edge : graph.getEdgesFromNode(currentNodeId)) {
-            String destination = edge.getDestination();
-            if (visited.contains(destination)) {
-                continue;
-            }
-            if (destination.equals(toNodeId) || isConnected(destination)) {
-                return true;
-            }
+    private boolean isConnected(int startNode) {
+        int toNode = handles.handleOf(toNodeId);
+        if (startNode < 0 || toNode < 0) return false;
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        visited.set(startNode);
+        toVisit.push(startNode);
+
+        while (!toVisit.isEmpty() && !visited.get(toNode)) {
+            handles.forEachNeighbour(toVisit.pop(), (destination, weight) -> {
+                if (!visited.get(destination)) {
+                    visited.set(destination);
+                    toVisit.push(destination);
+                }
+            });
         }
-        return false;
+        return visited.get(toNode);
     }
 }
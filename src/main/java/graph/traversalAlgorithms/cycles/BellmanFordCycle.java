@@ -1,63 +1,44 @@
 package graph.traversalAlgorithms.cycles;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Node;
 import graph.traversalAlgorithms.Algorithm;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
-import java.util.HashMap;
-import java.util.Map;
-
 class BellmanFordCycle implements Algorithm {
 
     private final GraphTraversalView graph;
-    protected final Map<String, Double> store = new HashMap<>();
+    private final NodeHandles handles;
+    // the distance of every node by its handle, all starting at 0
+    protected final double[] store;
 
     BellmanFordCycle(TraversalInput input, GraphTraversalView graph) {
         this.graph = graph;
-        for (Node node : graph.getNodes()) {
-            String currentNodeId = node.getId();
-            store.put(currentNodeId, 0.0);
-        }
+        this.handles = graph.nodeHandles();
+        this.store = new double[handles.handleBound()];
     }
 
     @Override
     public TraversalResult performAlgorithm() {
-        int numberOfNodes = graph.getNodes().size();
+        int numberOfNodes = graph.getNodeCount();
         for (int i = 0; i < numberOfNodes - 1; i++) {
-            for (Edge edge : graph.getEdges()) {
-                relaxEdge(edge);
-            }
+            handles.forEachHandle(source -> handles.forEachNeighbour(source, (destination, weight) -> {
+                double alternativePath = store[source] + weight;
+                if (alternativePath < store[destination]) {
+                    store[destination] = alternativePath;
+                }
+            }));
         }
         return detectNegativeCycle();
     }
 
-    private void relaxEdge(Edge edge) {
-        String sourceId = edge.getSource();
-        String destinationId = edge.getDestination();
-        double weight = edge.getWeight();
-        double alternativePath = store.get(sourceId) + weight;
-        if (alternativePath < store.get(destinationId)) {
-            store.put(destinationId, alternativePath);
-        }
-    }
-
     private TraversalResult detectNegativeCycle() {
-        boolean foundNegativeCycle = false;
-        for (Edge edge : graph.getEdges()) {
-            String sourceId = edge.getSource();
-            String destinationId = edge.getDestination();
-            double weight = edge.getWeight();
-            double alternativePath = store.get(sourceId) + weight;
-            if (alternativePath < store.get(destinationId)) {
-                foundNegativeCycle = true;
-                break;
-            }
-        }
-        return new TraversalResultBuilder().setConditionResult(foundNegativeCycle).build();
+        boolean[] foundNegativeCycle = {false};
+        handles.forEachHandle(source -> handles.forEachNeighbour(source, (destination, weight) ->
+                foundNegativeCycle[0] |= store[source] + weight < store[destination]
+        ));
+        return new TraversalResultBuilder().setConditionResult(foundNegativeCycle[0]).build();
     }
 }
-
@@ -1,54 +1,55 @@
 package graph.traversalAlgorithms.cycles;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Node;
 import graph.traversalAlgorithms.Algorithm;
+import graph.traversalAlgorithms.DepthFirstStack;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.BitSet;
 
 class DFSHasCycle implements Algorithm {
 
-    private final GraphTraversalView graph;
-    private final Set<String> visited = new HashSet<>();
-    private final Set<String> inStack = new HashSet<>();
+    private final NodeHandles handles;
+    private final DepthFirstStack stack;
+    private final BitSet visited = new BitSet();
+    private final BitSet inStack = new BitSet();
+    // set once a cycle is found, so that the nodes left to visit are skipped
+    private boolean cycleFound;
 
     DFSHasCycle(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
+        this.handles = graph.nodeHandles();
+        this.stack = DepthFirstStack.create(handles);
     }
 
     @Override
     public TraversalResult performAlgorithm() {
-        boolean condition = false;
-        for (Node node : graph.getNodes()) {
-            if (!visited.contains(node.getId()) && dfsHelper(node.getId())) {
-                condition = true;
-                break;
+        handles.forEachHandle(node -> {
+            if (!cycleFound && !visited.get(node)) {
+                cycleFound = hasCycleFrom(node);
             }
-        }
-        return new TraversalResultBuilder().setConditionResult(condition).build();
+        });
+        return new TraversalResultBuilder().setConditionResult(cycleFound).build();
     }
 
-    private boolean dfsHelper(String currentNode) {
-        if (inStack.contains(currentNode)) {
-            return true;
-        }
-        if (visited.contains(currentNode)) {
-            return false;
-        }
-
-        inStack.add(currentNode);
-        for (Edge edge : graph.getEdgesFromNode(currentNode)) {
-            String destination = edge.getDestination();
-            if (dfsHelper(destination)) return true;
+    private boolean hasCycleFrom(int startNode) {
+        inStack.set(startNode);
+        stack.push(startNode);
+        while (!stack.isEmpty()) {
+            int nextNode = stack.nextSuccessor();
+            if (nextNode == -1) {
+                int currentNode = stack.pop();
+                inStack.clear(currentNode);
+                visited.set(currentNode);
+            } else if (inStack.get(nextNode)) {
+                return true;
+            } else if (!visited.get(nextNode)) {
+                inStack.set(nextNode);
+                stack.push(nextNode);
+            }
         }
-
-        inStack.remove(currentNode);
-        visited.add(currentNode);
         return false;
     }
 }
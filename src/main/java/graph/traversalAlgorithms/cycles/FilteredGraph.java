@@ -5,16 +5,23 @@ import graph.dataModel.Node;
 import graph.events.GraphListener;
 import graph.events.ObservableGraphView;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 class FilteredGraph implements ObservableGraphView {
 
     private final GraphTraversalView graph;
     private final Set<String> filteredNodes = new HashSet<String>();
+    // the handles of the graph, taken when first asked for, and the filtered nodes among them
+    private NodeHandles handles;
+    private final BitSet filteredHandles = new BitSet();
 
     FilteredGraph(GraphTraversalView graph) {
         this.graph = graph;
@@ -22,6 +29,14 @@ class FilteredGraph implements ObservableGraphView {
 
     void addFilterNodeId(String nodeId) {
         filteredNodes.add(nodeId);
+        if (handles != null) {
+            filterHandle(nodeId);
+        }
+    }
+
+    private void filterHandle(String nodeId) {
+        int handle = handles.handleOf(nodeId);
+        if (handle >= 0) filteredHandles.set(handle);
     }
 
     @Override
@@ -31,6 +46,13 @@ class FilteredGraph implements ObservableGraphView {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void forEachNode(Consumer<Node> consumer) {
+        graph.forEachNode(n -> {
+            if (!filteredNodes.contains(n.getId())) consumer.accept(n);
+        });
+    }
+
     @Override
     public List<Edge> getEdges() {
         return List.of();
@@ -44,6 +66,14 @@ class FilteredGraph implements ObservableGraphView {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void forEachEdgeFrom(String nodeId, Consumer<Edge> consumer) {
+        if (filteredNodes.contains(nodeId)) return;
+        graph.forEachEdgeFrom(nodeId, e -> {
+            if (!filteredNodes.contains(e.getDestination())) consumer.accept(e);
+        });
+    }
+
     @Override
     public List<String> getNodesIdWithEdgeToNode(String nodeId) {
         return List.of();
@@ -64,6 +94,58 @@ class FilteredGraph implements ObservableGraphView {
         return null;
     }
 
+    @Override
+    public NodeHandles nodeHandles() {
+        if (handles == null) {
+            handles = graph.nodeHandles();
+            filteredNodes.forEach(this::filterHandle);
+        }
+        return new FilteredNodeHandles();
+    }
+
     @Override
     public void addListener(GraphListener listener) {}
+
+    // the handles of the graph, skipping the filtered nodes and the edges that lead to or from them
+    private class FilteredNodeHandles implements NodeHandles {
+
+        @Override
+        public int handleBound() {
+            return handles.handleBound();
+        }
+
+        @Override
+        public int handleOf(String nodeId) {
+            int handle = handles.handleOf(nodeId);
+            return handle < 0 || filteredHandles.get(handle) ? -1 : handle;
+        }
+
+        @Override
+        public String idOf(int handle) {
+            return handles.idOf(handle);
+        }
+
+        @Override
+        public void forEachHandle(IntConsumer consumer) {
+            handles.forEachHandle(handle -> {
+                if (!filteredHandles.get(handle)) consumer.accept(handle);
+            });
+        }
+
+        @Override
+        public void forEachNeighbour(int handle, NeighbourConsumer consumer) {
+            if (filteredHandles.get(handle)) return;
+            handles.forEachNeighbour(handle, (neighbour, weight) -> {
+                if (!filteredHandles.get(neighbour)) consumer.accept(neighbour, weight);
+            });
+        }
+
+        @Override
+        public void forEachPredecessor(int handle, IntConsumer consumer) {
+            if (filteredHandles.get(handle)) return;
+            handles.forEachPredecessor(handle, predecessor -> {
+                if (!filteredHandles.get(predecessor)) consumer.accept(predecessor);
+            });
+        }
+    }
 }
@@ -1,7 +1,5 @@
 package graph.traversalAlgorithms.cycles;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Node;
 import graph.traversalAlgorithms.*;
 import graph.traversalAlgorithms.stronglyConnected.StronglyConnectedAlgorithmManager;
 
@@ -12,91 +10,129 @@ import static graph.traversalAlgorithms.AlgorithmType.TARJAN;
 class Johnsons implements Algorithm {
 
     private final FilteredGraph filteredGraph;
+    private final NodeHandles handles;
+    private final DepthFirstStack dfsStack;
+    // the path explored so far, and for every node on it whether a cycle was found through it
+    private final List<Integer> stack = new ArrayList<>();
+    private final BitSet foundCycle = new BitSet();
     private final List<List<String>> cycles = new ArrayList<>();
-    private final Map<String, Set<String>> blockedMap = new HashMap<>();
-    private final Set<String> blockedSet = new HashSet<>();
+    private final Map<Integer, BitSet> blockedMap = new HashMap<>();
+    private final BitSet blockedSet = new BitSet();
 
     Johnsons(TraversalInput input, GraphTraversalView graph) {
         this.filteredGraph = new FilteredGraph(graph);
+        this.handles = filteredGraph.nodeHandles();
+        this.dfsStack = DepthFirstStack.create(handles);
     }
 
     @Override
     public TraversalResult performAlgorithm() {
-        Set<String> allNodes = new HashSet<>(filteredGraph.getNodes().stream().map(Node::getId).toList());
+        BitSet allNodes = new BitSet();
+        handles.forEachHandle(allNodes::set);
         while (!allNodes.isEmpty()) {
             List<Set<String>> SCCs = findSCCs();
-            String nodeId = allNodes.stream().min(String::compareTo).orElse(null);
-            Set<String> SCC = findSCC(SCCs, nodeId);
+            int node = nodeWithSmallestId(allNodes);
+            BitSet SCC = findSCC(SCCs, node);
 
-            if (SCC.size() > 1 || hasSelfLoop(nodeId)) {
+            if (SCC.cardinality() > 1 || hasSelfLoop(node)) {
                 blockedSet.clear();
                 blockedMap.clear();
-                exploreNode(nodeId, nodeId, SCC, new Stack<>());
+                exploreNode(node, SCC);
             }
-            filteredGraph.addFilterNodeId(nodeId);
-            allNodes.remove(nodeId);
+            filteredGraph.addFilterNodeId(handles.idOf(node));
+            allNodes.clear(node);
         }
         return new TraversalResult.TraversalResultBuilder().setCycles(cycles).build();
     }
 
-    private boolean hasSelfLoop(String nodeId) {
-        return filteredGraph.getEdgesFromNode(nodeId).stream()
-                .anyMatch(e -> e.getDestination().equals(nodeId));
+    private int nodeWithSmallestId(BitSet nodes) {
+        int smallest = nodes.nextSetBit(0);
+        for (int node = nodes.nextSetBit(smallest + 1); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            if (handles.idOf(node).compareTo(handles.idOf(smallest)) < 0) smallest = node;
+        }
+        return smallest;
+    }
+
+    private boolean hasSelfLoop(int node) {
+        boolean[] selfLoop = {false};
+        handles.forEachNeighbour(node, (neighbour, weight) -> selfLoop[0] |= neighbour == node);
+        return selfLoop[0];
     }
 
-    private Set<String> findSCC(List<Set<String>> SCCs, String nodeId) {
+    private BitSet findSCC(List<Set<String>> SCCs, int node) {
+        String nodeId = handles.idOf(node);
         for (Set<String> SCC : SCCs) {
-            if (SCC.contains(nodeId)) return SCC;
+            if (SCC.contains(nodeId)) {
+                BitSet members = new BitSet();
+                SCC.forEach(member -> members.set(handles.handleOf(member)));
+                return members;
+            }
         }
         throw new RuntimeException();
     }
 
-    private boolean exploreNode(String startNode, String currentNode, Set<String> SCC, Stack<String> stack) {
-        boolean foundCycle = false;
-        stack.push(currentNode);
-        blockedSet.add(currentNode);
-
-        for (Edge edge : filteredGraph.getEdgesFromNode(currentNode)) {
-            String nextNode = edge.getDestination();
-            if (!SCC.contains(nextNode)) {
+    private void exploreNode(int startNode, BitSet SCC) {
+        enter(startNode);
+        while (!dfsStack.isEmpty()) {
+            int currentNode = dfsStack.peek();
+            int nextNode = dfsStack.nextSuccessor();
+            if (nextNode == -1) {
+                leave(currentNode, SCC);
+            } else if (!SCC.get(nextNode)) {
                 continue;
-            }
-            if (nextNode.equals(startNode)) {
-                List<String> cycle = new ArrayList<>(stack);
-                cycle.add(startNode);
+            } else if (nextNode == startNode) {
+                List<String> cycle = new ArrayList<>(stack.size() + 1);
+                stack.forEach(node -> cycle.add(handles.idOf(node)));
+                cycle.add(handles.idOf(startNode));
                 cycles.add(cycle);
-                foundCycle = true;
-            } else if (!blockedSet.contains(nextNode)) {
-                foundCycle |= exploreNode(startNode, nextNode, SCC, stack);
+                foundCycle.set(stack.size() - 1);
+            } else if (!blockedSet.get(nextNode)) {
+                enter(nextNode);
             } else {
-                blockedMap.computeIfAbsent(nextNode, k -> new HashSet<>()).add(currentNode);
+                blockedMap.computeIfAbsent(nextNode, k -> new BitSet()).set(currentNode);
             }
         }
+    }
 
-        if (foundCycle) {
+    private void enter(int node) {
+        foundCycle.clear(stack.size());
+        stack.add(node);
+        blockedSet.set(node);
+        dfsStack.push(node);
+    }
+
+    // all successors of the node were explored; a cycle found through it is one found through the node before it too
+    private void leave(int currentNode, BitSet SCC) {
+        boolean found = foundCycle.get(stack.size() - 1);
+        if (found) {
             unblock(currentNode);
         } else {
-            for (Edge edge : filteredGraph.getEdgesFromNode(currentNode)) {
-                String nextNode = edge.getDestination();
-                if (SCC.contains(nextNode)) {
-                    blockedMap.computeIfAbsent(nextNode, k -> new HashSet<>()).add(currentNode);
+            handles.forEachNeighbour(currentNode, (nextNode, weight) -> {
+                if (SCC.get(nextNode)) {
+                    blockedMap.computeIfAbsent(nextNode, k -> new BitSet()).set(currentNode);
                 }
-            }
+            });
+        }
+        dfsStack.pop();
+        stack.removeLast();
+        if (found && !stack.isEmpty()) {
+            foundCycle.set(stack.size() - 1);
         }
-
-        stack.pop();
-        return foundCycle;
     }
 
-    private void unblock(String currentNode) {
-        if (!blockedSet.contains(currentNode)) return;
-
-        blockedSet.remove(currentNode);
-        Set<String> blockedNodes = blockedMap.get(currentNode);
-        while (blockedNodes != null && !blockedNodes.isEmpty()) {
-            String nextNode = blockedNodes.iterator().next();
-            blockedNodes.remove(nextNode);
-            unblock(nextNode);
+    private void unblock(int currentNode) {
+        Deque<Integer> toUnblock = new ArrayDeque<>();
+        toUnblock.push(currentNode);
+        while (!toUnblock.isEmpty()) {
+            int nextNode = toUnblock.pop();
+            if (blockedSet.get(nextNode)) {
+                blockedSet.clear(nextNode);
+                BitSet blockedNodes = blockedMap.get(nextNode);
+                if (blockedNodes != null) {
+                    blockedNodes.stream().forEach(toUnblock::add);
+                    blockedNodes.clear();
+                }
+            }
         }
     }
 
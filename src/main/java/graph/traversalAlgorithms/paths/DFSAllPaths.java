@@ -1,27 +1,35 @@
 package graph.traversalAlgorithms.paths;
 
-import graph.dataModel.Edge;
 import graph.queryModel.Path;
 import graph.traversalAlgorithms.Algorithm;
+import graph.traversalAlgorithms.DepthFirstStack;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 
 class DFSAllPaths implements Algorithm {
 
-    private final GraphTraversalView graph;
+    private final NodeHandles handles;
+    private final DepthFirstStack stack;
     private final String fromNodeId;
     private final String toNodeId;
     private final Integer maxLength;
     private final List<Path> paths = new LinkedList<>();
+    // the nodes of the path explored so far, in order and as a set
+    private final List<Integer> path = new ArrayList<>();
+    private final BitSet onPath = new BitSet();
+    private int toNode;
 
     DFSAllPaths(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
+        this.handles = graph.nodeHandles();
+        this.stack = DepthFirstStack.create(handles);
         this.fromNodeId = input.getFromNodeId();
         this.toNodeId = input.getToNodeId();
         this.maxLength = input.getMaxLength();
@@ -29,25 +37,35 @@ class DFSAllPaths implements Algorithm {
 
     @Override
     public TraversalResult performAlgorithm() {
-        findAllPathsHelper(fromNodeId, toNodeId, new LinkedList<>(), maxLength);
+        int fromNode = handles.handleOf(fromNodeId);
+        toNode = handles.handleOf(toNodeId);
+        if (fromNode >= 0) {
+            enter(fromNode);
+        }
+        while (!stack.isEmpty()) {
+            int nextSource = stack.nextSuccessor();
+            if (nextSource == -1) {
+                stack.pop();
+                onPath.clear(path.removeLast());
+            } else if (!onPath.get(nextSource)) {
+                enter(nextSource);
+            }
+        }
         return new TraversalResultBuilder().setAllPaths(paths).build();
     }
 
-    private void findAllPathsHelper(String fromNodeId, String toNodeId, List<String> path, Integer maxLength) {
-        path.add(fromNodeId);
-        if (fromNodeId.equals(toNodeId)) {
-            paths.add(new Path(new ArrayList<>(path)));
-        } else {
-            if (maxLength == null || maxLength > 0) {
-                List<Edge> edgesFromNode = graph.getEdgesFromNode(fromNodeId);
-                for (Edge edge : edgesFromNode) {
-                    String nextSource = edge.getDestination();
-                    if (!path.contains(nextSource)) {
-                        findAllPathsHelper(nextSource, toNodeId, path, maxLength == null ? null : maxLength - 1);
-                    }
-                }
-            }
+    // extends the path by a node, and keeps exploring from it unless it ends the path
+    private void enter(int node) {
+        path.add(node);
+        onPath.set(node);
+        if (node == toNode) {
+            List<String> nodeIds = new ArrayList<>(path.size());
+            path.forEach(pathNode -> nodeIds.add(handles.idOf(pathNode)));
+            paths.add(new Path(nodeIds));
+        } else if (maxLength == null || path.size() <= maxLength) {
+            stack.push(node);
+            return;
         }
-        path.removeLast();
+        onPath.clear(path.removeLast());
     }
 }
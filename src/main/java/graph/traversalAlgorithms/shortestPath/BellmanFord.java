@@ -1,55 +1,41 @@
 package graph.traversalAlgorithms.shortestPath;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Node;
 import graph.exceptions.NegativeCycleException;
 import graph.traversalAlgorithms.GraphTraversalView;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
-class BellmanFord extends ShortestPathAlgorithm<BellmanFordNodeStats> {
+class BellmanFord extends ShortestPathAlgorithm {
     // pre-condition: no negative cycles
+    private final int numberOfNodes;
+
     BellmanFord(TraversalInput input, GraphTraversalView graph) {
         super(input.getFromNodeId(), input.getToNodeId(), graph);
-        for (Node node : graph.getNodes()) {
-            String currentNodeId = node.getId();
-            store.put(currentNodeId, new BellmanFordNodeStats(null, currentNodeId.equals(fromNodeId) ? 0 : Double.POSITIVE_INFINITY));
-        }
+        this.numberOfNodes = graph.getNodeCount();
     }
 
     @Override
     public TraversalResult performAlgorithm() {
-        int numberOfNodes = graph.getNodes().size();
         for (int i = 0; i < numberOfNodes - 1; i++) {
-            for (Edge edge : graph.getEdges()) {
-                relaxEdge(edge);
-            }
+            handles.forEachHandle(source -> handles.forEachNeighbour(source, (destination, weight) -> {
+                double alternativePath = distances[source] + weight;
+                if (alternativePath < distances[destination]) {
+                    distances[destination] = alternativePath;
+                    parents[destination] = source;
+                }
+            }));
         }
         return checkAndShortestPath();
     }
 
-    private void relaxEdge(Edge edge) {
-        String sourceId = edge.getSource();
-        String destinationId = edge.getDestination();
-        double weight = edge.getWeight();
-        double alternativePath = store.get(sourceId).getDistance() + weight;
-        BellmanFordNodeStats destNodeStats = store.get(destinationId);
-        if (alternativePath < destNodeStats.getDistance()) {
-            destNodeStats.setDistance(alternativePath);
-            destNodeStats.setParent(sourceId);
-        }
-    }
-
     private TraversalResult checkAndShortestPath() {
-        for (Edge edge : graph.getEdges()) {
-            String sourceId = edge.getSource();
-            String destinationId = edge.getDestination();
-            double weight = edge.getWeight();
-            double alternativePath = store.get(sourceId).getDistance() + weight;
-            if (alternativePath < store.get(destinationId).getDistance()) {
-                return new TraversalResultBuilder().setException(new NegativeCycleException()).build();
-            }
+        boolean[] foundNegativeCycle = {false};
+        handles.forEachHandle(source -> handles.forEachNeighbour(source, (destination, weight) ->
+                foundNegativeCycle[0] |= distances[source] + weight < distances[destination]
+        ));
+        if (foundNegativeCycle[0]) {
+            return new TraversalResultBuilder().setException(new NegativeCycleException()).build();
         }
         return new TraversalResultBuilder().setPath(constructPath()).build();
     }
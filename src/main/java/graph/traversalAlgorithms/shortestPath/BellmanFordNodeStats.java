@@ -1,9 +0,0 @@
-package graph.traversalAlgorithms.shortestPath;
-
-class BellmanFordNodeStats extends NodeStats {
-
-    BellmanFordNodeStats(String parent, double distance) {
-        super(parent, distance);
-    }
-
-}
@@ -1,52 +1,50 @@
 package graph.traversalAlgorithms.shortestPath;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Node;
-import graph.exceptions.EdgeNotFoundException;
 import graph.exceptions.NegativeCycleException;
 import graph.traversalAlgorithms.Algorithm;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
-import java.util.List;
+import java.util.Arrays;
 
 class FloydWarshall implements Algorithm {
     // pre-condition: no negative cycles
-    private final GraphTraversalView graph;
-    private final List<Node> nodes;
+    // position of every node in the store by its handle, in the order the graph lists its nodes
+    private final int[] positions;
     private final double[][] store;
 
     FloydWarshall(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
-        this.nodes = graph.getNodes();
-        this.store = new double[nodes.size()][nodes.size()];
-        initialiseStore();
+        NodeHandles handles = graph.nodeHandles();
+        this.positions = new int[handles.handleBound()];
+        int[] size = {0};
+        handles.forEachHandle(handle -> positions[handle] = size[0]++);
+        this.store = new double[size[0]][size[0]];
+        initialiseStore(handles);
     }
 
-    private void initialiseStore() {
-        for (int i = 0; i < nodes.size(); i++) {
-            for (int j = 0; j < nodes.size(); j++) {
-                if (i == j) {
-                    store[i][j] = 0;
-                } else {
-                    try {
-                        Edge edge = graph.getEdgeByNodeIds(this.nodes.get(i).getId(), this.nodes.get(j).getId());
-                        store[i][j] = edge.getWeight();
-                    } catch (EdgeNotFoundException e) {
-                        store[i][j] = Double.POSITIVE_INFINITY;
-                    }
-                }
-            }
+    private void initialiseStore(NodeHandles handles) {
+        for (int i = 0; i < store.length; i++) {
+            Arrays.fill(store[i], Double.POSITIVE_INFINITY);
+            store[i][i] = 0;
         }
+        handles.forEachHandle(source -> handles.forEachNeighbour(source, (destination, weight) -> {
+            int i = positions[source];
+            int j = positions[destination];
+            if (i != j) {
+                store[i][j] = weight;
+            }
+        }));
     }
 
     @Override
     public TraversalResult performAlgorithm() {
-        for (int i = 0; i < nodes.size(); i++) {
-            for (int j = 0; j < nodes.size(); j++) {
-                for (int k = 0; k < nodes.size(); k++) {
+        int size = store.length;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                for (int k = 0; k < size; k++) {
                     if (store[j][i] != Double.POSITIVE_INFINITY && store[i][k] != Double.POSITIVE_INFINITY) {
                         double alternativeWeight = store[j][i] + store[i][k];
                         if (alternativeWeight < store[j][k]) {
@@ -57,7 +55,7 @@ class FloydWarshall implements Algorithm {
             }
         }
         // negative cycle check
-        for (int i = 0; i < nodes.size(); i++) {
+        for (int i = 0; i < size; i++) {
             if (store[i][i] < 0) {
                 return new TraversalResultBuilder().setException(new NegativeCycleException()).build();
             }
@@ -3,38 +3,49 @@ package graph.traversalAlgorithms.shortestPath;
 import graph.queryModel.Path;
 import graph.traversalAlgorithms.Algorithm;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalResult;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
-abstract class ShortestPathAlgorithm<N extends NodeStats> implements Algorithm {
+abstract class ShortestPathAlgorithm implements Algorithm {
 
-    protected final Map<String, N> store = new HashMap<>();
-    protected final String fromNodeId;
-    protected final String toNodeId;
-    protected final GraphTraversalView graph;
+    protected final NodeHandles handles;
+    protected final int from;
+    protected final int to;
+    // indexed by node handle: the shortest distance found from the start, and the node it is reached from (-1 if none)
+    protected final double[] distances;
+    protected final int[] parents;
 
     ShortestPathAlgorithm(String fromNodeId, String toNodeId, GraphTraversalView graph) {
-        this.fromNodeId = fromNodeId;
-        this.toNodeId = toNodeId;
-        this.graph = graph;
+        this.handles = graph.nodeHandles();
+        this.from = handles.handleOf(fromNodeId);
+        this.to = handles.handleOf(toNodeId);
+        this.distances = new double[handles.handleBound()];
+        this.parents = new int[handles.handleBound()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parents, -1);
+        if (from >= 0) {
+            distances[from] = 0.0;
+        }
     }
 
     abstract public TraversalResult performAlgorithm();
 
     protected Path constructPath() {
-        String currentNode = toNodeId;
+        if (from < 0 || to < 0) {
+            return new Path(List.of());
+        }
+        int currentNode = to;
         LinkedList<String> nodeIds = new LinkedList<>();
-        nodeIds.add(currentNode);
-        while (currentNode != null && !currentNode.equals(fromNodeId)) {
-            String parent = store.get(currentNode).getParent();
-            nodeIds.addFirst(parent);
-            currentNode = parent;
+        nodeIds.add(handles.idOf(currentNode));
+        while (currentNode != -1 && currentNode != from) {
+            currentNode = parents[currentNode];
+            if (currentNode != -1) nodeIds.addFirst(handles.idOf(currentNode));
         }
-        if (currentNode == null) {
+        if (currentNode == -1) {
             return new Path(List.of());
         }
         return new Path(nodeIds);
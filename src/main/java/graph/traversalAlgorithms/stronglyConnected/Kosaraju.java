@@ -1,55 +1,58 @@
 package graph.traversalAlgorithms.stronglyConnected;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Graph;
-import graph.dataModel.Node;
 import graph.traversalAlgorithms.Algorithm;
+import graph.traversalAlgorithms.DepthFirstStack;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 class Kosaraju implements Algorithm {
 
-    private final GraphTraversalView graph;
-    private final Set<String> notVisited;
+    private final NodeHandles handles;
+    private final DepthFirstStack dfsStack;
+    private final BitSet notVisited = new BitSet();
     private final Map<Integer, Set<String>> components = new HashMap<>();
     private int counter = 1;
-    private final Stack<String> stack = new Stack<>();
+    // the nodes in the order their first search finished
+    private final Deque<Integer> stack = new ArrayDeque<>();
 
     Kosaraju(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
-        this.notVisited = graph.getNodes().stream().map(Node::getId).collect(Collectors.toSet());
+        this.handles = graph.nodeHandles();
+        this.dfsStack = DepthFirstStack.create(handles);
+        handles.forEachHandle(notVisited::set);
     }
 
     @Override
     public TraversalResult performAlgorithm() {
         while (!notVisited.isEmpty()) {
-            populateStackOrder(notVisited.iterator().next());
+            populateStackOrder(notVisited.nextSetBit(0));
         }
-        populateComponents(new HashSet<>());
+        populateComponents(new BitSet());
         return new TraversalResultBuilder().setComponents(components).build();
     }
 
-    private void populateStackOrder(String fromNodeId) {
-        notVisited.remove(fromNodeId);
-
-        for (Edge edge : graph.getEdgesFromNode(fromNodeId)) {
-            String destination = edge.getDestination();
-            if (notVisited.contains(destination)) {
-                populateStackOrder(destination);
+    private void populateStackOrder(int fromNode) {
+        notVisited.clear(fromNode);
+        dfsStack.push(fromNode);
+        while (!dfsStack.isEmpty()) {
+            int destination = dfsStack.nextSuccessor();
+            if (destination == -1) {
+                stack.push(dfsStack.pop());
+            } else if (notVisited.get(destination)) {
+                notVisited.clear(destination);
+                dfsStack.push(destination);
             }
         }
-        stack.push(fromNodeId);
     }
 
-    private void populateComponents(Set<String> visited) {
+    private void populateComponents(BitSet visited) {
         while (!stack.isEmpty()) {
-            String nextNode = stack.pop();
-            if (!visited.contains(nextNode)) {
+            int nextNode = stack.pop();
+            if (!visited.get(nextNode)) {
                 // new strongly component created
                 Set<String> componentSet = new HashSet<>();
                 components.put(counter, componentSet);
@@ -59,13 +62,20 @@ class Kosaraju implements Algorithm {
         }
     }
 
-    private void secondDfsHelper(String fromNodeId, Set<String> visited) {
-        visited.add(fromNodeId);
-        components.get(counter).add(fromNodeId);
-        for (String nodeId : graph.getNodesIdWithEdgeToNode(fromNodeId)) {
-            if (!visited.contains(nodeId)) {
-                secondDfsHelper(nodeId, visited);
-            }
+    private void secondDfsHelper(int fromNode, BitSet visited) {
+        Set<String> component = components.get(counter);
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        visited.set(fromNode);
+        component.add(handles.idOf(fromNode));
+        toVisit.push(fromNode);
+        while (!toVisit.isEmpty()) {
+            handles.forEachPredecessor(toVisit.pop(), node -> {
+                if (!visited.get(node)) {
+                    visited.set(node);
+                    component.add(handles.idOf(node));
+                    toVisit.push(node);
+                }
+            });
         }
     }
 }
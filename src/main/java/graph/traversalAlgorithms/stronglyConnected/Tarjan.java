@@ -1,85 +1,91 @@
 package graph.traversalAlgorithms.stronglyConnected;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Node;
 import graph.traversalAlgorithms.Algorithm;
+import graph.traversalAlgorithms.DepthFirstStack;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import graph.traversalAlgorithms.TraversalResult.TraversalResultBuilder;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 class Tarjan implements Algorithm {
 
-    private final GraphTraversalView graph;
+    private final NodeHandles handles;
+    private final DepthFirstStack dfsStack;
     // keeps track of currently visited nodes that have not been classified into an SCC
-    private final Stack<String> stack = new Stack<>();
-    // set to track which ids are on the stack
-    private final Set<String> onStack = new HashSet<>();
-    // mapping from string id to new assigned integer id
-    private final Map<String, Integer> idMap = new HashMap<>();
-    // mapping that stores the low link value corresponding to the new assigned integer id
-    private final Map<Integer, Integer> lowLinkStore = new HashMap<>();
+    private final Deque<Integer> stack = new ArrayDeque<>();
+    // set to track which nodes are on the stack
+    private final BitSet onStack = new BitSet();
+    // the order every node was reached in, counting from 1, and its low link value; both indexed by node handle
+    private final int[] order;
+    private final int[] lowLink;
     private final Map<Integer, Set<String>> components = new HashMap<>();
     // counter for component id
     private int counter = 1;
-    // counter for node id
-    private int nodeIdCounter = 1;
-    private final Set<String> notVisited;
+    // counter for the order nodes are reached in
+    private int orderCounter = 1;
+    private final BitSet notVisited = new BitSet();
 
     Tarjan(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
-        this.notVisited = graph.getNodes().stream().map(Node::getId).collect(Collectors.toSet());
+        this.handles = graph.nodeHandles();
+        this.dfsStack = DepthFirstStack.create(handles);
+        this.order = new int[handles.handleBound()];
+        this.lowLink = new int[handles.handleBound()];
+        handles.forEachHandle(notVisited::set);
     }
 
     @Override
     public TraversalResult performAlgorithm() {
         while (!notVisited.isEmpty()) {
-            dfsHelper(notVisited.iterator().next());
+            dfsHelper(notVisited.nextSetBit(0));
         }
         return new TraversalResultBuilder().setComponents(components).build();
     }
 
-    private void dfsHelper(String fromNodeId) {
-        // initial set up when reaching a new node
-        Integer currentNodeIdCounter = nodeIdCounter;
-        notVisited.remove(fromNodeId);
-        stack.push(fromNodeId);
-        onStack.add(fromNodeId);
-        idMap.put(fromNodeId, currentNodeIdCounter);
-        lowLinkStore.put(currentNodeIdCounter, currentNodeIdCounter);
-        nodeIdCounter++;
-
-        // perform dfs
-        for (Edge edge : graph.getEdgesFromNode(fromNodeId)) {
-            String destination = edge.getDestination();
-            if (notVisited.contains(destination)) {
-                dfsHelper(destination);
-                Integer destinationId = idMap.get(destination);
-                lowLinkStore.put(
-                        currentNodeIdCounter,
-                        Math.min(lowLinkStore.get(currentNodeIdCounter), lowLinkStore.get(destinationId))
-                );
-            } else if (onStack.contains(destination)) {
+    private void dfsHelper(int startNode) {
+        visit(startNode);
+        while (!dfsStack.isEmpty()) {
+            int fromNode = dfsStack.peek();
+            int destination = dfsStack.nextSuccessor();
+            if (destination == -1) {
+                dfsStack.pop();
+                closeComponent(fromNode);
+                if (!dfsStack.isEmpty()) {
+                    // the node explored is done, its low link carries over to the node it was reached from
+                    int parent = dfsStack.peek();
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[fromNode]);
+                }
+            } else if (notVisited.get(destination)) {
+                visit(destination);
+            } else if (onStack.get(destination)) {
                 // back edge to an existing node on the stack
-                Integer destinationId = idMap.get(destination);
-                lowLinkStore.put(
-                        currentNodeIdCounter,
-                        Math.min(lowLinkStore.get(currentNodeIdCounter), destinationId)
-                );
+                lowLink[fromNode] = Math.min(lowLink[fromNode], order[destination]);
             }
         }
+    }
+
+    private void visit(int node) {
+        // initial set up when reaching a new node
+        notVisited.clear(node);
+        stack.push(node);
+        onStack.set(node);
+        order[node] = orderCounter;
+        lowLink[node] = orderCounter;
+        orderCounter++;
+        dfsStack.push(node);
+    }
 
+    private void closeComponent(int fromNode) {
         // reach the starting node of the strongly connected component
-        if (lowLinkStore.get(currentNodeIdCounter).equals(currentNodeIdCounter)) {
+        if (lowLink[fromNode] == order[fromNode]) {
             Set<String> componentNodeIdSet = new HashSet<>();
             while (!stack.isEmpty()) {
-                String nextId = stack.pop();
-                onStack.remove(nextId);
-                componentNodeIdSet.add(nextId);
-                if (nextId.equals(fromNodeId)) break;
+                int next = stack.pop();
+                onStack.clear(next);
+                componentNodeIdSet.add(handles.idOf(next));
+                if (next == fromNode) break;
             }
             components.put(counter++, componentNodeIdSet);
         }
@@ -1,33 +1,35 @@
 package graph.traversalAlgorithms.structure;
 
-import graph.dataModel.Edge;
-import graph.dataModel.Node;
 import graph.exceptions.CycleFoundException;
 import graph.traversalAlgorithms.Algorithm;
+import graph.traversalAlgorithms.DepthFirstStack;
 import graph.traversalAlgorithms.GraphTraversalView;
+import graph.traversalAlgorithms.NodeHandles;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 class TopologicalSort implements Algorithm {
 
-    private final GraphTraversalView graph;
-    private final Set<String> notVisited;
+    private final NodeHandles handles;
+    private final DepthFirstStack stack;
+    private final BitSet notVisited = new BitSet();
+    private final BitSet onPath = new BitSet();
     private final List<String> order = new LinkedList<String>();
 
     TopologicalSort(TraversalInput input, GraphTraversalView graph) {
-        this.graph = graph;
-        this.notVisited = graph.getNodes().stream().map(Node::getId).collect(Collectors.toSet());
+        this.handles = graph.nodeHandles();
+        this.stack = DepthFirstStack.create(handles);
+        handles.forEachHandle(notVisited::set);
     }
 
     @Override
     public TraversalResult performAlgorithm() {
         while (!notVisited.isEmpty()) {
-            String nextNode = notVisited.iterator().next();
+            int nextNode = notVisited.nextSetBit(0);
             try {
-                performSort(nextNode, new HashSet<>());
+                performSort(nextNode);
             } catch (CycleFoundException e) {
                 return new TraversalResult.TraversalResultBuilder().setException(e).build();
             }
@@ -36,22 +38,22 @@ class TopologicalSort implements Algorithm {
         return new TraversalResult.TraversalResultBuilder().setOrderedNodeIds(new LinkedList<>(order)).build();
     }
 
-    private void performSort(String nodeId, Set<String> onPath) {
-        if (!notVisited.contains(nodeId)) {
-            return;
-        }
-        if (onPath.contains(nodeId)) {
-            throw new CycleFoundException(nodeId);
-        }
-        onPath.add(nodeId);
-
-        for (Edge edge : graph.getEdgesFromNode(nodeId)) {
-            String destination = edge.getDestination();
-            performSort(destination, onPath);
+    private void performSort(int startNode) {
+        onPath.set(startNode);
+        stack.push(startNode);
+        while (!stack.isEmpty()) {
+            int node = stack.nextSuccessor();
+            if (node == -1) {
+                int sortedNode = stack.pop();
+                onPath.clear(sortedNode);
+                notVisited.clear(sortedNode);
+                order.addFirst(handles.idOf(sortedNode));
+            } else if (onPath.get(node)) {
+                throw new CycleFoundException(handles.idOf(node));
+            } else if (notVisited.get(node)) {
+                onPath.set(node);
+                stack.push(node);
+            }
         }
-
-        onPath.remove(nodeId);
-        notVisited.remove(nodeId);
-        order.addFirst(nodeId);
     }
 }
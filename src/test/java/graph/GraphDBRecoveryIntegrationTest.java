@@ -1,5 +1,6 @@
 package graph;
 
+import graph.WAL.WALWriter;
 import graph.dataModel.Edge;
 import graph.dataModel.Graph;
 import graph.dataModel.Node;
@@ -16,7 +17,9 @@ import java.nio.file.Path;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class GraphDBRecoveryIntegrationTest {
@@ -30,7 +33,9 @@ public class GraphDBRecoveryIntegrationTest {
     public void setUp() throws Exception {
         originalUserDir = System.getProperty("user.dir");
         System.setProperty("user.dir", temp.getRoot().getAbsolutePath());
+        WALWriter.closeDefaultWALWriter();
         Files.deleteIfExists(Path.of(temp.getRoot().getAbsolutePath(), "log"));
+        Files.deleteIfExists(Path.of("log.checkpoint"));
         resetGraphDBSingleton();
     }
 
@@ -38,7 +43,117 @@ public class GraphDBRecoveryIntegrationTest {
     public void tearDown() throws Exception {
         resetGraphDBSingleton();
         System.setProperty("user.dir", originalUserDir);
+        WALWriter.closeDefaultWALWriter();
         Files.deleteIfExists(Path.of(temp.getRoot().getAbsolutePath(), "log"));
+        Files.deleteIfExists(Path.of("log.checkpoint"));
+    }
+
+    @Test
+    public void graphDbRecoversFromTheCheckpointAndTheLogAfterIt() throws Exception {
+        GraphDB db = GraphDB.getInstance();
+        Graph graph = db.createGraph();
+
+        Transaction before = graph.createTransaction();
+        Node alice = before.addNode(Map.of("name", "Alice"));
+        before.commit();
+
+        db.checkpoint();
+        assertTrue(Files.exists(Path.of("log.checkpoint")));
+
+        Transaction after = graph.createTransaction();
+        Node bob = after.addNode(Map.of("name", "Bob"));
+        after.addEdge(alice.getId(), bob.getId(), Map.of("relation", "knows"), 2.0);
+        after.updateNode(alice.getId(), "age", 30);
+        after.commit();
+
+        resetGraphDBSingleton();
+        Graph recovered = GraphDB.getInstance().getGraph(graph.getId());
+
+        assertNotNull(recovered);
+        assertEquals(2, recovered.getNodes().size());
+        assertEquals(1, recovered.getEdges().size());
+        assertEquals(30, recovered.getNodeById(alice.getId()).getAttribute("age"));
+        assertEquals("Alice", recovered.getNodeById(alice.getId()).getAttribute("name"));
+    }
+
+    @Test
+    public void graphsCreatedOutsideTheDatabaseSurviveACheckpoint() throws Exception {
+        GraphDB db = GraphDB.getInstance();
+        Graph standalone = Graph.createGraph();
+        Transaction transaction = standalone.createTransaction();
+        Node alice = transaction.addNode(Map.of("name", "Alice"));
+        transaction.commit();
+
+        db.checkpoint();
+
+        resetGraphDBSingleton();
+        Graph recovered = GraphDB.getInstance().getGraph(standalone.getId());
+        assertNotNull(recovered);
+        assertEquals("Alice", recovered.getNodeById(alice.getId()).getAttribute("name"));
+    }
+
+    @Test
+    public void deletedGraphIsNotRecovered() throws Exception {
+        GraphDB db = GraphDB.getInstance();
+        Graph deleted = db.createGraph();
+        Graph kept = db.createGraph();
+        for (Graph graph : new Graph[]{deleted, kept}) {
+            Transaction transaction = graph.createTransaction();
+            transaction.addNode(Map.of("name", "Alice"));
+            transaction.commit();
+        }
+
+        assertTrue(db.deleteGraph(deleted.getId()));
+        assertNull(db.getGraph(deleted.getId()));
+
+        resetGraphDBSingleton();
+        GraphDB recoveredDb = GraphDB.getInstance();
+
+        assertNull(recoveredDb.getGraph(deleted.getId()));
+        assertEquals(1, recoveredDb.getGraph(kept.getId()).getNodes().size());
+    }
+
+    @Test
+    public void aCheckpointLeavesGraphsThatAreNotLoadedUnloaded() throws Exception {
+        GraphDB db = GraphDB.getInstance();
+        Graph checkpointed = db.createGraph();
+        Graph changed = db.createGraph();
+        Transaction first = checkpointed.createTransaction();
+        Node alice = first.addNode(Map.of("name", "Alice"));
+        first.commit();
+        db.checkpoint();
+        Transaction second = changed.createTransaction();
+        Node bob = second.addNode(Map.of("name", "Bob"));
+        second.commit();
+
+        resetGraphDBSingleton();
+        GraphDB restarted = GraphDB.getInstance();
+        restarted.checkpoint();
+        assertTrue(loadedGraphs(restarted).isEmpty());
+
+        resetGraphDBSingleton();
+        GraphDB recovered = GraphDB.getInstance();
+        assertEquals("Alice", recovered.getGraph(checkpointed.getId()).getNodeById(alice.getId()).getAttribute("name"));
+        assertEquals("Bob", recovered.getGraph(changed.getId()).getNodeById(bob.getId()).getAttribute("name"));
+    }
+
+    @Test
+    public void aGraphThatIsNotLoadedIsDeletedWithoutLoadingIt() throws Exception {
+        GraphDB db = GraphDB.getInstance();
+        Graph graph = db.createGraph();
+        Transaction transaction = graph.createTransaction();
+        transaction.addNode(Map.of("name", "Alice"));
+        transaction.commit();
+
+        resetGraphDBSingleton();
+        GraphDB restarted = GraphDB.getInstance();
+        assertTrue(restarted.deleteGraph(graph.getId()));
+        assertTrue(loadedGraphs(restarted).isEmpty());
+        assertNull(restarted.getGraph(graph.getId()));
+        assertFalse(restarted.deleteGraph(graph.getId()));
+
+        resetGraphDBSingleton();
+        assertNull(GraphDB.getInstance().getGraph(graph.getId()));
     }
 
     @Test
@@ -98,6 +213,13 @@ public class GraphDBRecoveryIntegrationTest {
         assertTrue(recoveredSecond.getEdges().isEmpty());
     }
 
+    @SuppressWarnings("unchecked")
+    private Map<String, Graph> loadedGraphs(GraphDB db) throws Exception {
+        Field graphsField = GraphDB.class.getDeclaredField("graphs");
+        graphsField.setAccessible(true);
+        return (Map<String, Graph>) graphsField.get(db);
+    }
+
     private void resetGraphDBSingleton() throws Exception {
         Field instanceField = GraphDB.class.getDeclaredField("instance");
         instanceField.setAccessible(true);
@@ -1,5 +1,6 @@
 package graph;
 
+import graph.WAL.WALWriter;
 import graph.dataModel.Edge;
 import graph.dataModel.Graph;
 import graph.dataModel.Node;
@@ -37,6 +38,7 @@ public class GraphIntegrationTest {
 
     @After
     public void tearDown() throws Exception {
+        WALWriter.closeDefaultWALWriter();
         Files.deleteIfExists(Path.of("log"));
     }
 
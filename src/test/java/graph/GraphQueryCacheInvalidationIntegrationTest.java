@@ -1,5 +1,6 @@
 package graph;
 
+import graph.WAL.WALWriter;
 import graph.dataModel.Edge;
 import graph.dataModel.Graph;
 import graph.dataModel.Node;
@@ -23,6 +24,7 @@ public class GraphQueryCacheInvalidationIntegrationTest {
 
     @After
     public void tearDown() throws Exception {
+        WALWriter.closeDefaultWALWriter();
         java.nio.file.Files.deleteIfExists(java.nio.file.Path.of("log"));
     }
 
@@ -0,0 +1,75 @@
+package graph.WAL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Checksum;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class LogWindowTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void recordsAreReadAcrossRegionsAndRecordsLargerThanARegionAreMappedWhole() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<LoggingInfo> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String value = i % 10 == 0 ? "v".repeat(500) : "v" + i;
+            records.add(aLoggingInfo(UPDATE_NODE_ATTR).withId("n" + i).withKeyValuePair("k", value).build());
+        }
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.commit(records);
+        }
+
+        List<LoggingInfo> read = new ArrayList<>();
+        try (LogWindow window = LogWindow.open(log, null, 64)) {
+            Checksum crc = window.newChecksum();
+            while (window.fill()) {
+                read.add(WALCodec.decode(window.buffer(), crc));
+            }
+            assertFalse(window.fill());
+        }
+
+        assertEquals(100, read.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(records.get(i).getId(), read.get(i).getId());
+            assertEquals(records.get(i).getValue(), read.get(i).getValue());
+        }
+    }
+
+    @Test
+    public void openingAtACheckpointPositionSkipsTheRecordsBeforeIt() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<WALPosition> covered = new ArrayList<>();
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.writeToFile(aLoggingInfo(ADD_NODE).withId("n1").withAttributes(Map.of()).build());
+            // a failed checkpoint keeps the log, so the position points into it
+            try {
+                writer.checkpoint(position -> {
+                    covered.add(position);
+                    throw new IOException("no space");
+                });
+            } catch (IOException expected) {
+            }
+            writer.writeToFile(aLoggingInfo(ADD_NODE).withId("n2").withAttributes(Map.of()).build());
+        }
+
+        try (LogWindow window = LogWindow.open(log, covered.getFirst(), 64)) {
+            window.fill();
+            assertEquals("n2", WALCodec.decode(window.buffer(), window.newChecksum()).getId());
+            assertFalse(window.fill());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package graph.WAL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class WALAppenderTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private void writeTransaction(WALWriter writer, String id, Durability durability) throws Exception {
+        WALRecordBuffer records = new WALRecordBuffer();
+        records.append(aLoggingInfo(BEGIN_TRANSACTION).withId(id).withSource("graph1").build());
+        records.append(aLoggingInfo(ADD_NODE).withId(id).withAttributes(Map.of()).build());
+        records.append(aLoggingInfo(COMMIT).build());
+        writer.commit(records, () -> {}, durability);
+    }
+
+    @Test
+    public void concurrentCommitsThroughASmallRingAreAllWrittenWhole() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        int threads = 8;
+        int transactionsPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.startAppender(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < transactionsPerThread; i++) {
+                        writeTransaction(writer, thread + "-" + i, i % 2 == 0 ? Durability.SYNC : Durability.ASYNC);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<List<LoggingInfo>> transactions = WALReader.forLog(log).readFromFile();
+        assertEquals(threads * transactionsPerThread, transactions.size());
+        for (List<LoggingInfo> transaction : transactions) {
+            assertEquals(3, transaction.size());
+            assertEquals(transaction.get(0).getId(), transaction.get(1).getId());
+        }
+    }
+
+    @Test
+    public void syncCommitsAreForcedAndAsyncOnesOnlyWhenTheAppenderStops() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.startAppender(16);
+            for (int i = 0; i < 5; i++) {
+                writeTransaction(writer, "s" + i, Durability.SYNC);
+            }
+            assertEquals(5, writer.forceCount());
+            for (int i = 0; i < 5; i++) {
+                writeTransaction(writer, "a" + i, Durability.ASYNC);
+            }
+            assertEquals(5, writer.forceCount());
+            writer.close();
+            assertEquals(6, writer.forceCount());
+        }
+
+        assertEquals(10, WALReader.forLog(log).readFromFile().size());
+    }
+
+    @Test
+    public void groupCommitsLeftBehindAreForcedByTheAppender() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.setGroupForce(20, 1000);
+            writer.startAppender(16);
+            writeTransaction(writer, "g1", Durability.GROUP);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (writer.forceCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, writer.forceCount());
+        }
+    }
+
+    @Test
+    public void checkpointWaitsForTheAppendedCommits() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<WALPosition> covered = new ArrayList<>();
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.startAppender(16);
+            writeTransaction(writer, "t1", Durability.SYNC);
+            writer.checkpoint(covered::add);
+            writeTransaction(writer, "t2", Durability.SYNC);
+        }
+
+        assertTrue(covered.getFirst().getOffset() > WALCodec.HEADER_SIZE);
+        List<List<LoggingInfo>> tail = WALReader.forLog(log, covered.getFirst()).readFromFile();
+        assertEquals(1, tail.size());
+        assertEquals("t2", tail.getFirst().get(1).getId());
+    }
+
+    @Test
+    public void ringCapacityMustBeAPowerOfTwo() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            assertThrows(IllegalArgumentException.class, () -> writer.startAppender(6));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package graph.WAL;
+
+import graph.exceptions.InvalidLogOperationException;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class WALCodecTest {
+
+    private final Checksum crc = new CRC32C();
+
+    private ByteBuffer encode(LoggingInfo... infos) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        WALCodec.writeHeader(buffer, 1L);
+        for (LoggingInfo info : infos) {
+            WALCodec.encode(info, buffer);
+        }
+        return buffer.flip();
+    }
+
+    @Test
+    public void valuesWithSeparatorCharactersSurviveTheRoundTrip() {
+        Map<String, Object> attributes = Map.of(
+                "text", "a,b=c~d|e {x}", "nested", Map.of("list", List.of(1, 2L, 3.5, true)), "unicode", "é中😀");
+        ByteBuffer buffer = encode(
+                aLoggingInfo(ADD_EDGE).withId("e1").withSource("n1").withTarget("n2").withWeight(2.5).withAttributes(attributes).build(),
+                aLoggingInfo(UPDATE_NODE_ATTR).withId("n1").withKeyValuePair("k=1", "v~2").build());
+        WALCodec.readHeader(buffer);
+
+        LoggingInfo edge = WALCodec.decode(buffer, crc);
+        assertEquals(ADD_EDGE, edge.getOperation());
+        assertEquals("n2", edge.getTarget());
+        assertEquals(2.5, edge.getWeight(), 0.0);
+        assertEquals(attributes, edge.getAttributes());
+        LoggingInfo update = WALCodec.decode(buffer, crc);
+        assertEquals("k=1", update.getKey());
+        assertEquals("v~2", update.getValue());
+        assertNull(WALCodec.decode(buffer, crc));
+    }
+
+    @Test
+    public void tornRecordReadsAsEndOfLog() {
+        ByteBuffer buffer = encode(aLoggingInfo(DELETE_NODE).withId("n1").build());
+        buffer.limit(buffer.limit() - 3);
+        WALCodec.readHeader(buffer);
+
+        assertNull(WALCodec.decode(buffer, crc));
+    }
+
+    @Test
+    public void corruptRecordFailsTheChecksum() {
+        ByteBuffer buffer = encode(aLoggingInfo(DELETE_NODE).withId("n1").build());
+        buffer.put(buffer.limit() - 1, (byte) 'x');
+        WALCodec.readHeader(buffer);
+
+        assertThrows(InvalidLogOperationException.class, () -> WALCodec.decode(buffer, crc));
+    }
+
+    @Test
+    public void readingStopsAtTheFirstCorruptRecordAndDropsUncommittedWork() {
+        ByteBuffer buffer = encode(
+                aLoggingInfo(BEGIN_TRANSACTION).withId("t1").withSource("g1").build(),
+                aLoggingInfo(DELETE_NODE).withId("n1").build(),
+                aLoggingInfo(COMMIT).build(),
+                aLoggingInfo(BEGIN_TRANSACTION).withId("t2").withSource("g1").build(),
+                aLoggingInfo(DELETE_NODE).withId("n2").build());
+
+        List<List<LoggingInfo>> transactions = BinaryWALReader.readBinaryLog(buffer);
+        assertEquals(1, transactions.size());
+        assertEquals(3, transactions.getFirst().size());
+    }
+
+    @Test
+    public void recordsRoundTripThroughADirectBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        WALCodec.encode(aLoggingInfo(ADD_NODE).withId("n1").withAttributes(Map.of("name", "é")).build(), buffer);
+        WALCodec.encode(aLoggingInfo(COMMIT).build(), buffer);
+        buffer.flip();
+
+        assertEquals(Map.of("name", "é"), WALCodec.decode(buffer).getAttributes());
+        assertEquals(COMMIT, WALCodec.decode(buffer).getOperation());
+        assertNull(WALCodec.decode(buffer));
+    }
+
+    @Test
+    public void recordsOfOlderVersionsAreCheckedWithCrc32() {
+        assertTrue(WALCodec.newChecksum(2) instanceof CRC32);
+        assertTrue(WALCodec.newChecksum(WALCodec.VERSION) instanceof CRC32C);
+        ByteBuffer header = ByteBuffer.allocate(WALCodec.HEADER_SIZE).putInt(WALCodec.MAGIC).putInt(2).putLong(7L).flip();
+        assertEquals(2, WALCodec.readVersion(header));
+        assertEquals(7L, WALCodec.readHeader(header));
+    }
+
+    @Test
+    public void encodingAnOperationAllocatesNothingOnceCompiled() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<String, Object> attributes = new HashMap<>(Map.of("name", "n1", "rank", 3, "tags", List.of("a", "b")));
+        LoggingInfo info = aLoggingInfo(UPDATE_NODE_ATTRS).withId("n1").withAttributes(attributes).build();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        int operations = 100_000;
+
+        // rounds go on until the encoder has been compiled, the measurement itself may allocate a little
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 50 && allocated >= operations; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < operations; i++) {
+                WALCodec.encode(info, buffer.clear());
+            }
+            allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        }
+
+        assertTrue("allocated " + allocated + " bytes", allocated < operations);
+    }
+}
@@ -0,0 +1,137 @@
+package graph.WAL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WALIndexTest {
+
+    private static final long SEGMENT_SIZE = 512;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private void writeTransaction(WALWriter writer, String graphId, LoggingInfo operation) throws Exception {
+        writer.commit(List.of(
+                aLoggingInfo(BEGIN_TRANSACTION).withId("t-" + operation.getId()).withSource(graphId).build(),
+                operation,
+                aLoggingInfo(COMMIT).build()));
+    }
+
+    private void addNode(WALWriter writer, String graphId, String nodeId) throws Exception {
+        writeTransaction(writer, graphId, aLoggingInfo(ADD_NODE).withId(nodeId).withAttributes(Map.of()).build());
+    }
+
+    private List<String> readIds(WALIndex index, String graphId) throws Exception {
+        List<String> ids = new ArrayList<>();
+        index.readTransactions(graphId, transaction -> {
+            assertEquals(graphId, transaction.getFirst().getSource());
+            ids.add(transaction.get(1).getId());
+        });
+        return ids;
+    }
+
+    @Test
+    public void readsTheTransactionsOfOneGraphAcrossSegments() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<String> first = new ArrayList<>();
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            for (int i = 0; i < 30; i++) {
+                addNode(writer, i % 3 == 0 ? "g1" : "g2", "n" + i);
+                if (i % 3 == 0) {
+                    first.add("n" + i);
+                }
+            }
+        }
+        assertTrue(WALSegments.sealed(log).size() > 2);
+
+        try (WALIndex index = WALIndex.build(log, null)) {
+            assertEquals(Set.of("g1", "g2"), index.graphIds());
+            assertEquals(first, readIds(index, "g1"));
+            assertEquals(20, readIds(index, "g2").size());
+            assertTrue(readIds(index, "g3").isEmpty());
+        }
+    }
+
+    @Test
+    public void onlyWhatAGraphCommittedSinceItWasDeletedIsRead() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            addNode(writer, "g1", "a");
+            addNode(writer, "g2", "x");
+            writeTransaction(writer, "g1", aLoggingInfo(DELETE_GRAPH).withId("g1").build());
+            writeTransaction(writer, "g2", aLoggingInfo(DELETE_GRAPH).withId("g2").build());
+            addNode(writer, "g2", "y");
+        }
+
+        try (WALIndex index = WALIndex.build(log, null)) {
+            assertTrue(index.isDeleted("g1"));
+            assertFalse(index.exists("g1", true));
+            assertTrue(index.exists("g2", false));
+            assertEquals(List.of("y"), readIds(index, "g2"));
+            assertTrue(index.exists("g3", true));
+            assertFalse(index.exists("g3", false));
+        }
+    }
+
+    @Test
+    public void readsOnlyWhatFollowsTheCheckpointPosition() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        WALPosition[] checkpointed = new WALPosition[1];
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            addNode(writer, "g1", "a");
+            writer.checkpoint(position -> checkpointed[0] = position);
+            addNode(writer, "g1", "b");
+
+            try (WALIndex index = WALIndex.build(log, checkpointed[0])) {
+                addNode(writer, "g1", "c");
+                // what is appended after the index is built is not part of it
+                assertEquals(List.of("b"), readIds(index, "g1"));
+            }
+        }
+    }
+
+    @Test
+    public void stopsAtACorruptRecord() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            addNode(writer, "g1", "a");
+        }
+        long intact = Files.size(log);
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            addNode(writer, "g1", "b");
+            addNode(writer, "g2", "c");
+        }
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[(int) intact + 12] ^= 0x7f;
+        Files.write(log, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+
+        try (WALIndex index = WALIndex.build(log, null)) {
+            assertEquals(List.of("a"), readIds(index, "g1"));
+            assertFalse(index.graphIds().contains("g2"));
+        }
+    }
+
+    @Test
+    public void textLogsCannotBeIndexed() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        Files.writeString(log, "BEGIN_TRANSACTION id=1~source=g1\n");
+
+        assertNull(WALIndex.build(log, null));
+    }
+}
@@ -0,0 +1,28 @@
+package graph.WAL;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+import static org.junit.Assert.assertEquals;
+
+public class WALRecordBufferTest {
+
+    @Test
+    public void recordsLargerThanTheBufferGrowItAndDecodeBack() {
+        WALRecordBuffer buffer = new WALRecordBuffer();
+        String large = "x".repeat(1000);
+        buffer.append(aLoggingInfo(BEGIN_TRANSACTION).withId("t1").withSource("graph1").build());
+        buffer.append(aLoggingInfo(ADD_NODE).withId("n1").withAttributes(Map.of("text", large)).build());
+        buffer.append(aLoggingInfo(COMMIT).build());
+
+        List<LoggingInfo> records = buffer.records();
+        assertEquals(3, buffer.recordCount());
+        assertEquals(3, records.size());
+        assertEquals(large, records.get(1).getAttributes().get("text"));
+        assertEquals(COMMIT, records.get(2).getOperation());
+    }
+}
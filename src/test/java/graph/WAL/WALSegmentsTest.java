@@ -0,0 +1,154 @@
+package graph.WAL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WALSegmentsTest {
+
+    private static final long SEGMENT_SIZE = 512;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private void writeTransaction(WALWriter writer, String graphId, String nodeId) throws Exception {
+        writer.commit(List.of(
+                aLoggingInfo(BEGIN_TRANSACTION).withId("t-" + nodeId).withSource(graphId).build(),
+                aLoggingInfo(ADD_NODE).withId(nodeId).withAttributes(Map.of("name", nodeId)).build(),
+                aLoggingInfo(COMMIT).build()));
+    }
+
+    private List<String> nodeIds(List<List<LoggingInfo>> transactions) {
+        List<String> nodeIds = new ArrayList<>();
+        transactions.forEach(transaction -> nodeIds.add(transaction.get(1).getId()));
+        return nodeIds;
+    }
+
+    @Test
+    public void fullSegmentsAreSealedAndReadInOrderWithTheActiveOne() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<String> written = new ArrayList<>();
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            for (int i = 0; i < 40; i++) {
+                String nodeId = String.format("n%02d", i);
+                writeTransaction(writer, "graph1", nodeId);
+                written.add(nodeId);
+            }
+        }
+
+        List<Path> sealed = WALSegments.sealed(log);
+        assertTrue(sealed.size() > 2);
+        assertEquals(WALSegments.segment(log, 1), sealed.getFirst());
+        for (Path segment : sealed) {
+            assertTrue(WALCodec.isBinaryLog(segment));
+        }
+        assertEquals(written, nodeIds(WALReader.forLog(log).readFromFile()));
+
+        ExecutorService decoders = Executors.newFixedThreadPool(2);
+        try {
+            List<List<LoggingInfo>> parallel = new ArrayList<>();
+            WALReader.forLog(log).readTransactions(decoders, parallel::add);
+            assertEquals(written, nodeIds(parallel));
+        } finally {
+            decoders.shutdown();
+        }
+    }
+
+    @Test
+    public void eachSealedSegmentListsTheGraphsItHolds() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "graph1", "a" + i);
+            }
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "graph2", "b" + i);
+            }
+        }
+
+        List<Path> sealed = WALSegments.sealed(log);
+        assertEquals(Set.of("graph1"), WALSegments.graphIds(sealed.getFirst()));
+        assertTrue(WALSegments.graphIds(sealed.getLast()).contains("graph2"));
+    }
+
+    @Test
+    public void segmentWithoutAnIndexMayHoldAnyGraph() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "graph1", "n" + i);
+            }
+        }
+        Path segment = WALSegments.sealed(log).getFirst();
+        Files.delete(WALSegments.index(segment));
+
+        assertNull(WALSegments.graphIds(segment));
+    }
+
+    @Test
+    public void checkpointDeletesTheSealedSegments() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<WALPosition> covered = new ArrayList<>();
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "graph1", "n" + i);
+            }
+            assertFalse(WALSegments.sealed(log).isEmpty());
+            writer.checkpoint(covered::add);
+            assertTrue(WALSegments.sealed(log).isEmpty());
+            assertEquals(WALCodec.HEADER_SIZE, writer.logSize());
+            writeTransaction(writer, "graph1", "after");
+        }
+
+        assertEquals(List.of("after"), nodeIds(WALReader.forLog(log, covered.getFirst()).readFromFile()));
+    }
+
+    @Test
+    public void sealedSegmentEndingInsideARecordIsReadUpToItsLastWholeTransaction() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "graph1", "n" + i);
+            }
+        }
+        Path first = WALSegments.sealed(log).getFirst();
+        List<String> inFirst = nodeIds(WALReader.forLog(first).readFromFile());
+        byte[] bytes = Files.readAllBytes(first);
+        Files.write(first, Arrays.copyOf(bytes, bytes.length - 5));
+
+        List<String> read = nodeIds(WALReader.forLog(log).readFromFile());
+        assertFalse(read.contains(inFirst.getLast()));
+        assertEquals(9, read.size());
+        assertEquals("n9", read.getLast());
+    }
+
+    @Test
+    public void logWithOnlySealedSegmentsIsStillFound() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "graph1", "n" + i);
+            }
+        }
+        Files.deleteIfExists(log);
+
+        assertFalse(WALReader.forLog(log).readFromFile().isEmpty());
+    }
+}
@@ -1,35 +1,386 @@
 package graph.WAL;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
-import java.io.StringWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.CRC32;
 
 import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
-import static graph.WAL.LoggingOperations.DELETE_NODE;
+import static graph.WAL.LoggingOperations.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 public class WALWriterTest {
 
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
     private String withChecksum(String line) {
         CRC32 crc = new CRC32();
         crc.update(line.getBytes());
         return line + " | " + Long.toHexString(crc.getValue());
     }
 
+    private void writeTransaction(WALWriter writer, String transactionId, String nodeId) throws Exception {
+        writer.commit(List.of(
+                aLoggingInfo(BEGIN_TRANSACTION).withId(transactionId).withSource("graph1").build(),
+                aLoggingInfo(ADD_NODE).withId(nodeId).withAttributes(Map.of("name", nodeId)).build(),
+                aLoggingInfo(COMMIT).build()));
+    }
+
+    @Test
+    public void writesBinaryRecordsThatReadBack() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t1", "n1");
+        }
+
+        assertTrue(WALCodec.isBinaryLog(log));
+        List<List<LoggingInfo>> transactions = WALReader.forLog(log).readFromFile();
+        assertEquals(1, transactions.size());
+        assertEquals("n1", transactions.getFirst().get(1).getId());
+        assertEquals(Map.of("name", "n1"), transactions.getFirst().get(1).getAttributes());
+    }
+
     @Test
-    public void writesFormattedLogWithCorrectCheckSum() throws Exception {
-        StringWriter output = new StringWriter();
+    public void reopeningAppendsWithoutASecondHeader() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t1", "n1");
+        }
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t2", "n2");
+        }
+
+        assertEquals(2, WALReader.forLog(log).readFromFile().size());
+    }
+
+    @Test
+    public void textLogIsMovedAsideAndStillRecovered() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
         WALFormatter formatter = new WALFormatter();
-        WALWriter writer = new WALWriter(formatter, output);
+        Files.write(log, List.of(
+                withChecksum(formatter.formatLogEntry(aLoggingInfo(BEGIN_TRANSACTION).withId("t1").withSource("graph1").build())),
+                withChecksum(formatter.formatLogEntry(aLoggingInfo(DELETE_NODE).withId("old").build())),
+                withChecksum(formatter.formatLogEntry(aLoggingInfo(COMMIT).build()))));
 
-        LoggingInfo loggingInfo = aLoggingInfo(DELETE_NODE).withId("n1").build();
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t2", "n2");
+        }
 
-        writer.writeToFile(loggingInfo);
-        writer.close();
+        assertTrue(Files.exists(WALWriter.legacyLog(log)));
+        assertTrue(WALCodec.isBinaryLog(log));
+        List<List<LoggingInfo>> transactions = WALReader.forLog(log).readFromFile();
+        assertEquals(2, transactions.size());
+        assertEquals("old", transactions.get(0).get(1).getId());
+        assertEquals("n2", transactions.get(1).get(1).getId());
+    }
 
-        String written = output.toString().trim();
-        String expected = withChecksum("DELETE_NODE id=n1");
-        assertEquals(expected, written);
+    @Test
+    public void concurrentCommitsAreAllDurableAndKeepTheirRecordsTogether() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        int threads = 8;
+        int transactionsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < transactionsPerThread; i++) {
+                        String id = thread + "-" + i;
+                        writer.commit(List.of(
+                                aLoggingInfo(BEGIN_TRANSACTION).withId(id).withSource("graph1").build(),
+                                aLoggingInfo(ADD_NODE).withId(id).withAttributes(Map.of()).build(),
+                                aLoggingInfo(COMMIT).build()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<List<LoggingInfo>> transactions = WALReader.forLog(log).readFromFile();
+        assertEquals(threads * transactionsPerThread, transactions.size());
+        for (List<LoggingInfo> transaction : transactions) {
+            assertEquals(3, transaction.size());
+            assertEquals(transaction.get(0).getId(), transaction.get(1).getId());
+        }
+    }
+
+    @Test
+    public void aLogDeletedUnderTheWriterFailsTheCheckpoint() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<WALPosition> covered = new ArrayList<>();
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t1", "n1");
+            Files.delete(log);
+
+            assertThrows(IOException.class, () -> writer.checkpoint(covered::add));
+        }
+        assertTrue(covered.isEmpty());
+    }
+
+    @Test
+    public void aLogReplacedUnderTheWriterIsNotSealed() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), WALCodec.HEADER_SIZE + 1)) {
+            Files.delete(log);
+            Files.write(log, new byte[0]);
+
+            assertThrows(IOException.class, () -> writeTransaction(writer, "t1", "n1"));
+        }
+        assertTrue(WALSegments.sealed(log).isEmpty());
+    }
+
+    @Test
+    public void checkpointReplacesTheLogSoOnlyLaterCommitsAreRead() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<WALPosition> covered = new ArrayList<>();
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t1", "n1");
+            writer.checkpoint(covered::add);
+            writeTransaction(writer, "t2", "n2");
+        }
+
+        assertEquals(1, WALReader.forLog(log).readFromFile().size());
+        List<List<LoggingInfo>> tail = WALReader.forLog(log, covered.getFirst()).readFromFile();
+        assertEquals(1, tail.size());
+        assertEquals("n2", tail.getFirst().get(1).getId());
+    }
+
+    @Test
+    public void logKeptAfterAFailedCheckpointIsReadFromTheCoveredPosition() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        List<WALPosition> covered = new ArrayList<>();
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t1", "n1");
+            assertThrows(IOException.class, () -> writer.checkpoint(position -> {
+                covered.add(position);
+                throw new IOException("disk full");
+            }));
+            writeTransaction(writer, "t2", "n2");
+        }
+
+        assertEquals(2, WALReader.forLog(log).readFromFile().size());
+        List<List<LoggingInfo>> tail = WALReader.forLog(log, covered.getFirst()).readFromFile();
+        assertEquals(1, tail.size());
+        assertEquals("n2", tail.getFirst().get(1).getId());
+    }
+
+    @Test
+    public void parallelReadSeesTheSameTransactionsInLogOrderAndStopsAtCorruption() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        // fixed width ids keep every transaction the same size
+        List<LoggingInfo> records = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String id = String.format("%05d", i);
+            records.add(aLoggingInfo(BEGIN_TRANSACTION).withId("t" + id).withSource("graph1").build());
+            records.add(aLoggingInfo(ADD_NODE).withId("n" + id).withAttributes(Map.of("name", id)).build());
+            records.add(aLoggingInfo(COMMIT).build());
+        }
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.commit(records);
+        }
+        ExecutorService decoders = Executors.newFixedThreadPool(4);
+        try {
+            List<List<LoggingInfo>> parallel = new ArrayList<>();
+            WALReader.forLog(log).readTransactions(decoders, parallel::add);
+            List<List<LoggingInfo>> serial = WALReader.forLog(log).readFromFile();
+            assertEquals(5000, parallel.size());
+            for (int i = 0; i < serial.size(); i++) {
+                assertEquals(serial.get(i).get(1).getId(), parallel.get(i).get(1).getId());
+            }
+
+            // corrupt the last byte of a record in the middle of the log
+            byte[] bytes = Files.readAllBytes(log);
+            int transactionSize = (bytes.length - WALCodec.HEADER_SIZE) / 5000;
+            bytes[WALCodec.HEADER_SIZE + 3000 * transactionSize - 1] ^= 0x5A;
+            Files.write(log, bytes);
+            List<List<LoggingInfo>> truncated = new ArrayList<>();
+            WALReader.forLog(log).readTransactions(decoders, truncated::add);
+            assertEquals(2999, truncated.size());
+        } finally {
+            decoders.shutdown();
+        }
+    }
+
+    @Test
+    public void recordsLargerThanTheReadWindowAreStreamedWhole() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        String large = "x".repeat(3 << 20);
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t1", "n1");
+            writer.commit(List.of(
+                    aLoggingInfo(BEGIN_TRANSACTION).withId("t2").withSource("graph1").build(),
+                    aLoggingInfo(ADD_NODE).withId("n2").withAttributes(Map.of("blob", large)).build(),
+                    aLoggingInfo(COMMIT).build()));
+            writeTransaction(writer, "t3", "n3");
+        }
+
+        List<String> nodeIds = new ArrayList<>();
+        WALReader.forLog(log).readTransactions(transaction -> nodeIds.add(transaction.get(1).getId()));
+        assertEquals(List.of("n1", "n2", "n3"), nodeIds);
+        assertEquals(large, WALReader.forLog(log).readFromFile().get(1).get(1).getAttributes().get("blob"));
+    }
+
+    @Test
+    public void logEndingInsideARecordReadsUpToTheLastWholeTransaction() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t1", "n1");
+            writeTransaction(writer, "t2", "n2");
+        }
+        byte[] bytes = Files.readAllBytes(log);
+        Files.write(log, Arrays.copyOf(bytes, bytes.length - 5));
+
+        List<List<LoggingInfo>> transactions = WALReader.forLog(log).readFromFile();
+        assertEquals(1, transactions.size());
+        assertEquals("n1", transactions.getFirst().get(1).getId());
+    }
+
+    @Test
+    public void reopeningALogEndingInsideARecordCutsItBackBeforeAppending() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t1", "n1");
+            writeTransaction(writer, "t2", "n2");
+        }
+        byte[] bytes = Files.readAllBytes(log);
+        Files.write(log, Arrays.copyOf(bytes, bytes.length - 5));
+
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t3", "n3");
+            writeTransaction(writer, "t4", "n4");
+        }
+
+        List<String> nodeIds = new ArrayList<>();
+        WALReader.forLog(log).readTransactions(transaction -> nodeIds.add(transaction.get(1).getId()));
+        assertEquals(List.of("n1", "n3", "n4"), nodeIds);
+    }
+
+    private void writeTransaction(WALWriter writer, String nodeId, Durability durability) throws Exception {
+        WALRecordBuffer records = new WALRecordBuffer();
+        records.append(aLoggingInfo(BEGIN_TRANSACTION).withId("t-" + nodeId).withSource("graph1").build());
+        records.append(aLoggingInfo(ADD_NODE).withId(nodeId).withAttributes(Map.of()).build());
+        records.append(aLoggingInfo(COMMIT).build());
+        writer.commit(records, () -> {}, durability);
+    }
+
+    @Test
+    public void syncCommitsAreEachForced() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "n" + i, Durability.SYNC);
+            }
+            assertEquals(10, writer.forceCount());
+        }
+    }
+
+    @Test
+    public void asyncCommitsAreNotForcedButReadBackAfterClose() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.setDurability(Durability.ASYNC);
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "t" + i, "n" + i);
+            }
+            assertEquals(0, writer.forceCount());
+            // a SYNC commit forces the ASYNC ones written before it as well
+            writeTransaction(writer, "n10", Durability.SYNC);
+            assertEquals(1, writer.forceCount());
+        }
+
+        assertEquals(11, WALReader.forLog(log).readFromFile().size());
+    }
+
+    @Test
+    public void groupCommitsAreForcedOnceEnoughOfThemWait() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.setGroupForce(TimeUnit.HOURS.toMillis(1), 4);
+            for (int i = 0; i < 10; i++) {
+                writeTransaction(writer, "n" + i, Durability.GROUP);
+            }
+            assertEquals(2, writer.forceCount());
+        }
+    }
+
+    @Test
+    public void groupCommitsLeftBehindAreForcedByTheFlusher() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.setGroupForce(20, 1000);
+            writeTransaction(writer, "n1", Durability.GROUP);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (writer.forceCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, writer.forceCount());
+        }
+    }
+
+    @Test
+    public void groupForceLimitsMustBePositive() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            assertThrows(IllegalArgumentException.class, () -> writer.setGroupForce(0, 10));
+            assertThrows(IllegalArgumentException.class, () -> writer.setGroupForce(10, 0));
+        }
+    }
+
+    @Test
+    public void logOfAnOlderVersionIsSealedAsItIsAndStillRead() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        // a version 2 log, whose records are checksummed with crc32
+        ByteBuffer buffer = ByteBuffer.allocate(4096).putInt(WALCodec.MAGIC).putInt(2).putLong(5L);
+        for (LoggingInfo info : List.of(
+                aLoggingInfo(BEGIN_TRANSACTION).withId("t1").withSource("graph1").build(),
+                aLoggingInfo(ADD_NODE).withId("n1").withAttributes(Map.of()).build(),
+                aLoggingInfo(COMMIT).build())) {
+            int start = buffer.position();
+            WALCodec.encode(info, buffer);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), start + WALCodec.RECORD_HEADER_SIZE, buffer.position() - start - WALCodec.RECORD_HEADER_SIZE);
+            buffer.putInt(start + 4, (int) crc.getValue());
+        }
+        Files.write(log, Arrays.copyOf(buffer.array(), buffer.position()));
+
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeTransaction(writer, "t2", "n2");
+        }
+
+        assertEquals(List.of(WALSegments.segment(log, 1)), WALSegments.sealed(log));
+        assertEquals(WALCodec.VERSION, WALCodec.readVersion(log));
+        List<List<LoggingInfo>> transactions = WALReader.forLog(log).readFromFile();
+        assertEquals(2, transactions.size());
+        assertEquals("n1", transactions.getFirst().get(1).getId());
+        assertEquals("n2", transactions.getLast().get(1).getId());
+    }
+
+    @Test
+    public void missingLogIsReportedAsNotFound() {
+        Path log = temp.getRoot().toPath().resolve("log");
+        assertThrows(FileNotFoundException.class, () -> WALReader.forLog(log));
     }
 }
@@ -0,0 +1,108 @@
+package graph.benchmarks;
+
+import graph.WAL.Durability;
+import graph.WAL.LoggingInfo;
+import graph.WAL.WALReader;
+import graph.WAL.WALWriter;
+import graph.dataModel.RecoveryManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+
+// Time to recover a log of node and edge insertions followed by edge weight updates and node deletions, replayed
+// serially and by the pipelined recovery. Run with:
+// java -cp target/classes:target/test-classes graph.benchmarks.RecoveryBenchmark [nodes]
+public class RecoveryBenchmark {
+
+    private static final int GRAPHS = 8;
+    private static final int EDGES_PER_NODE = 4;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Path directory = Files.createTempDirectory("recovery-benchmark");
+        Path log = directory.resolve("log");
+        try {
+            long records = writeLog(log, nodes);
+            System.out.printf("%d records over %d graphs%n", records, GRAPHS);
+            System.out.printf("%-10s %10s%n", "recovery", "ms");
+            for (int round = 0; round < ROUNDS; round++) {
+                long serial = time(() -> new RecoveryManager(WALReader.forLog(log)).recoverGraphs());
+                long parallel = time(() -> new RecoveryManager(WALReader.forLog(log)).recoverGraphs(4));
+                if (round == ROUNDS - 1) {
+                    System.out.printf("%-10s %10d%n", "serial", serial);
+                    System.out.printf("%-10s %10d%n", "parallel", parallel);
+                }
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static long writeLog(Path log, int nodes) throws Exception {
+        long records = 0;
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.setDurability(Durability.ASYNC);
+            for (int g = 0; g < GRAPHS; g++) {
+                String graphId = "g" + g;
+                for (int from = 0; from < nodes / GRAPHS; from += 100) {
+                    List<LoggingInfo> transaction = begin(graphId);
+                    for (int n = from; n < from + 100; n++) {
+                        transaction.add(aLoggingInfo(ADD_NODE).withId(graphId + "n" + n).withAttributes(Map.of("rank", n)).build());
+                        for (int e = 1; e <= EDGES_PER_NODE && n >= e; e++) {
+                            transaction.add(aLoggingInfo(ADD_EDGE).withId(graphId + "e" + n + "-" + e).withSource(graphId + "n" + n)
+                                    .withTarget(graphId + "n" + (n - e)).withWeight((double) (n % 97)).withAttributes(Map.of()).build());
+                        }
+                    }
+                    records += commit(writer, transaction);
+                }
+                for (int from = 0; from < nodes / GRAPHS; from += 100) {
+                    List<LoggingInfo> transaction = begin(graphId);
+                    for (int n = Math.max(from, 1); n < from + 100; n++) {
+                        transaction.add(aLoggingInfo(UPDATE_EDGE_WEIGHT).withId(graphId + "e" + n + "-1").withWeight((double) (n % 89)).build());
+                    }
+                    records += commit(writer, transaction);
+                }
+                List<LoggingInfo> deletions = begin(graphId);
+                for (int n = 0; n < nodes / GRAPHS; n += 10) {
+                    deletions.add(aLoggingInfo(DELETE_NODE).withId(graphId + "n" + n).build());
+                }
+                records += commit(writer, deletions);
+            }
+        }
+        return records;
+    }
+
+    private static List<LoggingInfo> begin(String graphId) {
+        List<LoggingInfo> transaction = new ArrayList<>();
+        transaction.add(aLoggingInfo(BEGIN_TRANSACTION).withId("t").withSource(graphId).build());
+        return transaction;
+    }
+
+    private static int commit(WALWriter writer, List<LoggingInfo> transaction) throws Exception {
+        transaction.add(aLoggingInfo(COMMIT).build());
+        writer.commit(transaction);
+        return transaction.size();
+    }
+
+    private static long time(Recovery recovery) throws Exception {
+        long start = System.nanoTime();
+        recovery.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private interface Recovery {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,61 @@
+package graph.benchmarks;
+
+import graph.WAL.LoggingInfo;
+import graph.WAL.WALCodec;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+
+// Time and heap allocation per operation of encoding and decoding WAL records, measured with the thread allocation
+// counters after the codec has been compiled. Encoding should allocate nothing; decoding allocates only the records
+// and values it returns. Run with: java -cp target/classes:target/test-classes graph.benchmarks.WALCodecBenchmark
+public class WALCodecBenchmark {
+
+    private static final int OPERATIONS = 1_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        Map<String, Object> attributes = new HashMap<>(Map.of("name", "node", "rank", 42, "tags", List.of("a", "b")));
+        LoggingInfo info = aLoggingInfo(UPDATE_NODE_ATTRS).withId("n-0001").withAttributes(attributes).build();
+
+        System.out.printf("%-14s %10s %12s%n", "operation", "ns/op", "bytes/op");
+        measure("encode heap", ByteBuffer.allocate(1 << 16), buffer -> WALCodec.encode(info, buffer.clear()));
+        measure("encode direct", ByteBuffer.allocateDirect(1 << 16), buffer -> WALCodec.encode(info, buffer.clear()));
+
+        ByteBuffer encoded = ByteBuffer.allocateDirect(1 << 16);
+        WALCodec.encode(info, encoded);
+        encoded.flip();
+        measure("decode direct", encoded, buffer -> WALCodec.decode(buffer.rewind()));
+    }
+
+    private static void measure(String name, ByteBuffer buffer, Operation operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(buffer, operation);
+        }
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        run(buffer, operation);
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%-14s %10.1f %12.2f%n", name, (double) elapsed / OPERATIONS, (double) allocated / OPERATIONS);
+    }
+
+    private static void run(ByteBuffer buffer, Operation operation) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            operation.run(buffer);
+        }
+    }
+
+    private interface Operation {
+        void run(ByteBuffer buffer);
+    }
+}
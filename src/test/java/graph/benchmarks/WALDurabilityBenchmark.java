@@ -0,0 +1,106 @@
+package graph.benchmarks;
+
+import graph.WAL.Durability;
+import graph.WAL.WALRecordBuffer;
+import graph.WAL.WALWriter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+
+// Commit latency of each durability mode, with committing threads taking turns writing (leader) and with the appender
+// thread doing all writing (appender), committing small transactions from a few threads to a log in a temporary
+// directory. Run with: java -cp target/classes:target/test-classes graph.benchmarks.WALDurabilityBenchmark [commits]
+public class WALDurabilityBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 8};
+    private static final int WARMUP_COMMITS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int commits = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        System.out.printf("%-9s %-6s %7s %10s %10s %10s %12s%n",
+                "pipeline", "mode", "threads", "mean us", "p50 us", "p99 us", "commits/s");
+        for (boolean appender : new boolean[]{false, true}) {
+            for (Durability durability : Durability.values()) {
+                for (int threads : THREAD_COUNTS) {
+                    run(appender, durability, threads, commits);
+                }
+            }
+        }
+    }
+
+    private static void run(boolean appender, Durability durability, int threads, int commits) throws Exception {
+        Path directory = Files.createTempDirectory("wal-benchmark");
+        Path log = directory.resolve("log");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writer.setDurability(durability);
+            if (appender) {
+                writer.startAppender();
+            }
+            commitAll(writer, executor, threads, WARMUP_COMMITS);
+            long start = System.nanoTime();
+            long[] latencies = commitAll(writer, executor, threads, commits);
+            long elapsed = System.nanoTime() - start;
+            report(appender ? "appender" : "leader", durability, threads, latencies, elapsed);
+        } finally {
+            executor.shutdown();
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    // each thread commits its share of the transactions and records how long every commit took
+    private static long[] commitAll(WALWriter writer, ExecutorService executor, int threads, int commits) throws Exception {
+        int perThread = commits / threads;
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    WALRecordBuffer records = transaction(thread + "-" + i);
+                    long start = System.nanoTime();
+                    writer.commit(records);
+                    latencies[i] = System.nanoTime() - start;
+                }
+                return latencies;
+            }));
+        }
+        long[] all = new long[perThread * threads];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(futures.get(t).get(), 0, all, t * perThread, perThread);
+        }
+        return all;
+    }
+
+    private static WALRecordBuffer transaction(String id) {
+        WALRecordBuffer records = new WALRecordBuffer();
+        records.append(aLoggingInfo(BEGIN_TRANSACTION).withId("t" + id).withSource("benchmark").build());
+        records.append(aLoggingInfo(ADD_NODE).withId("n" + id).withAttributes(Map.of("name", id)).build());
+        records.append(aLoggingInfo(COMMIT).build());
+        return records;
+    }
+
+    private static void report(String pipeline, Durability durability, int threads, long[] latencies, long elapsed) {
+        Arrays.sort(latencies);
+        double mean = Arrays.stream(latencies).average().orElse(0) / 1000;
+        double p50 = latencies[latencies.length / 2] / 1000.0;
+        double p99 = latencies[(int) (latencies.length * 0.99)] / 1000.0;
+        double throughput = latencies.length / (elapsed / 1e9);
+        System.out.printf("%-9s %-6s %7d %10.1f %10.1f %10.1f %12.0f%n", pipeline, durability, threads, mean, p50, p99, throughput);
+    }
+}
@@ -0,0 +1,105 @@
+package graph.dataModel;
+
+import graph.WAL.WALPosition;
+import graph.exceptions.InvalidLogOperationException;
+import graph.storage.BulkGraphLoader;
+import graph.storage.GraphStorage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+public class CheckpointTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void graphsAndPositionSurviveTheRoundTrip() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("log.checkpoint");
+        Graph graph = Graph.createGraph();
+        Node a = graph.addNode(Map.of("name", "A", "tags", List.of("x", "y")));
+        Node b = graph.addNode(Map.of("name", "B"));
+        Edge edge = graph.addEdge(a.getId(), b.getId(), Map.of("type", "road"), 4.5);
+        Graph empty = Graph.createGraph();
+
+        Checkpoint.write(file, WALPosition.of(42L, 128L), Map.of(graph.getId(), graph, empty.getId(), empty));
+        Checkpoint checkpoint = Checkpoint.read(file);
+
+        assertEquals(WALPosition.of(42L, 128L), checkpoint.getPosition());
+        assertEquals(2, checkpoint.getStorages().size());
+        GraphStorage storage = checkpoint.getStorages().get(graph.getId());
+        assertEquals(a.getAttributes(), storage.getNode(a.getId()).getAttributes());
+        assertEquals(b.getAttributes(), storage.getNode(b.getId()).getAttributes());
+        Edge restored = storage.getEdge(edge.getId());
+        assertEquals(b.getId(), restored.getDestination());
+        assertEquals(4.5, restored.getWeight(), 0.0);
+        assertEquals(Map.of("type", "road"), restored.getProperties());
+        assertEquals(0, checkpoint.getStorages().get(empty.getId()).nodeCount());
+    }
+
+    @Test
+    public void missingCheckpointReadsAsNull() throws Exception {
+        assertNull(Checkpoint.read(temp.getRoot().toPath().resolve("log.checkpoint")));
+    }
+
+    @Test
+    public void corruptCheckpointIsRejected() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("log.checkpoint");
+        Graph graph = Graph.createGraph();
+        graph.addNode(Map.of("name", "A"));
+        Checkpoint.write(file, WALPosition.of(1L, 16L), Map.of(graph.getId(), graph));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 6] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertThrows(InvalidLogOperationException.class, () -> Checkpoint.read(file));
+    }
+
+    @Test
+    public void indexedGraphsLoadOneAtATime() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("log.checkpoint");
+        Graph first = Graph.createGraph();
+        Node a = first.addNode(Map.of("name", "A"));
+        Node b = first.addNode(Map.of("name", "B"));
+        Edge edge = first.addEdge(a.getId(), b.getId(), Map.of("type", "road"), 4.5);
+        Graph second = Graph.createGraph();
+        Node c = second.addNode(Map.of("name", "C"));
+        Checkpoint.write(file, WALPosition.of(7L, 64L), Map.of(first.getId(), first, second.getId(), second));
+
+        try (Checkpoint.Index index = Checkpoint.index(file)) {
+            assertEquals(WALPosition.of(7L, 64L), index.getPosition());
+            assertEquals(Set.of(first.getId(), second.getId()), index.graphIds());
+
+            BulkGraphLoader loaded = index.load(second.getId());
+            assertEquals(1, loaded.nodeCount());
+            assertEquals(c.getAttributes(), loaded.getNode(c.getId()).getAttributes());
+            loaded = index.load(first.getId());
+            assertEquals(2, loaded.nodeCount());
+            assertEquals(4.5, loaded.getEdge(edge.getId()).getWeight(), 0.0);
+            assertNull(index.load("missing"));
+        }
+    }
+
+    @Test
+    public void corruptCheckpointIsRejectedWhenIndexed() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("log.checkpoint");
+        Graph graph = Graph.createGraph();
+        graph.addNode(Map.of("name", "A"));
+        Checkpoint.write(file, WALPosition.of(1L, 16L), Map.of(graph.getId(), graph));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 6] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertThrows(InvalidLogOperationException.class, () -> Checkpoint.index(file));
+    }
+}
@@ -0,0 +1,93 @@
+package graph.dataModel;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ColumnarAttributeTableTest {
+
+    private final ColumnarAttributeTable table = new ColumnarAttributeTable();
+
+    @Test
+    public void valuesKeepTheirTypeInTypedColumns() {
+        Node node = new Node("node1", table.newRow(Map.of(
+                "count", 3, "total", 4L, "score", 1.5, "active", true, "name", "alice", "tags", List.of("a"))));
+
+        assertThat(node.getAttribute("count"), is(3));
+        assertThat(node.getAttribute("total"), is(4L));
+        assertThat(node.getAttribute("score"), is(1.5));
+        assertThat(node.getAttribute("active"), is(true));
+        assertThat(node.getAttribute("name"), is("alice"));
+        assertThat(node.getAttribute("tags"), is(List.of("a")));
+        assertThat(table.column("count"), instanceOf(ColumnarAttributeTable.IntColumn.class));
+        assertThat(table.column("name"), instanceOf(ColumnarAttributeTable.StringColumn.class));
+    }
+
+    @Test
+    public void repeatedStringsShareOneDictionaryEntry() {
+        for (int i = 0; i < 100; i++) {
+            table.newRow(Map.of("city", i % 2 == 0 ? "london" : "paris"));
+        }
+
+        assertThat(((ColumnarAttributeTable.StringColumn) table.column("city")).dictionarySize(), is(2));
+    }
+
+    @Test
+    public void stringsNoRowUsesAnyMoreLeaveTheDictionary() {
+        ColumnarAttributeTable.Row counter = table.newRow(Map.of("status", "step 0"));
+        ColumnarAttributeTable.Row other = table.newRow(Map.of("status", "done"));
+        for (int i = 1; i < 100; i++) {
+            counter.put("status", "step " + i);
+        }
+        ColumnarAttributeTable.StringColumn column = (ColumnarAttributeTable.StringColumn) table.column("status");
+
+        assertThat(column.dictionarySize(), is(2));
+        assertThat(column.dictionaryCapacity(), is(2));
+        assertThat(counter.get("status"), is("step 99"));
+        assertThat(other.get("status"), is("done"));
+        table.release(other);
+        counter.remove("status");
+        assertThat(column.dictionarySize(), is(0));
+    }
+
+    @Test
+    public void aValueOfAnotherTypeTurnsTheColumnIntoAnObjectColumn() {
+        ColumnarAttributeTable.Row first = table.newRow(Map.of("age", 30));
+        ColumnarAttributeTable.Row second = table.newRow(Map.of("age", "unknown"));
+
+        assertThat(table.column("age"), instanceOf(ColumnarAttributeTable.ObjectColumn.class));
+        assertThat(first.get("age"), is(30));
+        assertThat(second.get("age"), is("unknown"));
+    }
+
+    @Test
+    public void releasedRowsAreReusedButKeepTheirValuesForHolders() {
+        ColumnarAttributeTable.Row released = table.newRow(Map.of("name", "old", "size", 1));
+        table.release(released);
+        ColumnarAttributeTable.Row reused = table.newRow(Map.of("name", "new"));
+
+        assertThat(table.liveRows(), is(1));
+        assertThat(released.get("name"), is("old"));
+        assertThat(released.get("size"), is(1));
+        assertThat(reused.get("name"), is("new"));
+        assertFalse(reused.contains("size"));
+    }
+
+    @Test
+    public void removeAndClearDropValues() {
+        ColumnarAttributeTable.Row row = table.newRow(Map.of("name", "alice", "age", 30));
+
+        assertThat(row.remove("age"), is(30));
+        assertNull(row.get("age"));
+        assertThat(row.asMap(), is(Map.of("name", "alice")));
+        row.clear();
+        assertThat(row.asMap().size(), is(0));
+    }
+}
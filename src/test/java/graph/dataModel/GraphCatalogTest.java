@@ -0,0 +1,150 @@
+package graph.dataModel;
+
+import graph.WAL.LoggingInfo;
+import graph.WAL.WALPosition;
+import graph.WAL.WALReader;
+import graph.WAL.WALWriter;
+import graph.storage.GraphStorage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GraphCatalogTest {
+
+    private static final long SEGMENT_SIZE = 512;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private void commit(WALWriter writer, String graphId, LoggingInfo... operations) throws Exception {
+        List<LoggingInfo> records = new ArrayList<>();
+        records.add(aLoggingInfo(BEGIN_TRANSACTION).withId(UUID.randomUUID().toString()).withSource(graphId).build());
+        records.addAll(List.of(operations));
+        records.add(aLoggingInfo(COMMIT).build());
+        writer.commit(records);
+    }
+
+    private static LoggingInfo addNode(String id) {
+        return aLoggingInfo(ADD_NODE).withId(id).withAttributes(Map.of("name", id)).build();
+    }
+
+    private static Map<String, Graph> recover(Path log) throws Exception {
+        Checkpoint checkpoint = Checkpoint.read(Checkpoint.checkpointFor(log));
+        WALReader reader = checkpoint == null ? WALReader.forLog(log) : WALReader.forLog(log, checkpoint.getPosition());
+        return new RecoveryManager(reader, checkpoint).recoverGraphs();
+    }
+
+    private static Map<String, Object> state(Graph graph) {
+        Map<String, Object> entities = new HashMap<>();
+        graph.forEachNode(node -> entities.put(node.getId(), node.getAttributes()));
+        graph.forEachEdge(edge -> entities.put(edge.getId(),
+                List.of(edge.getSource(), edge.getDestination(), edge.getWeight(), edge.getProperties())));
+        return entities;
+    }
+
+    // g1 is in the checkpoint and changed after it, g2 only in the checkpoint, g3 only in the log, g4 deleted after
+    // the checkpoint and g5 deleted and created again
+    private void writeHistory(Path log) throws Exception {
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            commit(writer, "g1", addNode("a"), addNode("b"),
+                    aLoggingInfo(ADD_EDGE).withId("ab").withSource("a").withTarget("b")
+                            .withWeight(1.0).withAttributes(Map.of()).build());
+            commit(writer, "g2", addNode("x"));
+            commit(writer, "g4", addNode("y"));
+            commit(writer, "g5", addNode("z"));
+            Map<String, Graph> checkpointed = recover(log);
+            writer.checkpoint(position -> Checkpoint.write(Checkpoint.checkpointFor(log), position, checkpointed));
+            for (int i = 0; i < 10; i++) {
+                commit(writer, "g1", aLoggingInfo(UPDATE_EDGE_WEIGHT).withId("ab").withWeight((double) i).build());
+                commit(writer, "g3", addNode("n" + i));
+            }
+            commit(writer, "g1", aLoggingInfo(DELETE_NODE).withId("b").build());
+            commit(writer, "g4", aLoggingInfo(DELETE_GRAPH).withId("g4").build());
+            commit(writer, "g5", aLoggingInfo(DELETE_GRAPH).withId("g5").build());
+            commit(writer, "g5", addNode("w"));
+        }
+    }
+
+    @Test
+    public void loadedGraphsMatchRecoveringTheWholeLog() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        writeHistory(log);
+        Map<String, Graph> expected = recover(log);
+
+        try (GraphCatalog catalog = GraphCatalog.open(log)) {
+            assertEquals(expected.keySet(), catalog.graphIds());
+            assertEquals(Set.of("g1", "g2", "g3", "g5"), catalog.graphIds());
+            for (String graphId : expected.keySet()) {
+                Graph loaded = catalog.load(graphId);
+                assertEquals(graphId, loaded.getId());
+                assertEquals(state(expected.get(graphId)), state(loaded));
+            }
+            assertTrue(catalog.graphIds().isEmpty());
+            assertNull(catalog.load("g1"));
+            assertNull(catalog.load("g4"));
+        }
+    }
+
+    @Test
+    public void aCatalogKeepsReadingTheFilesItWasOpenedOn() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        writeHistory(log);
+        Map<String, Graph> expected = recover(log);
+
+        try (GraphCatalog catalog = GraphCatalog.open(log)) {
+            try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+                writer.compact(LogCompactor.create(log));
+                commit(writer, "g3", aLoggingInfo(DELETE_NODE).withId("n0").build());
+            }
+
+            assertEquals(state(expected.get("g3")), state(catalog.load("g3")));
+            assertEquals(state(expected.get("g1")), state(catalog.load("g1")));
+        }
+    }
+
+    @Test
+    public void aCheckpointOfTheCatalogHoldsEveryGraphWithoutLoadingAny() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        writeHistory(log);
+        Map<String, Graph> expected = recover(log);
+        Path file = temp.getRoot().toPath().resolve("written.checkpoint");
+
+        try (GraphCatalog catalog = GraphCatalog.open(log)) {
+            Graph loaded = catalog.load("g3");
+            catalog.writeCheckpoint(file, WALPosition.of(7, 0), Map.of("g3", loaded));
+
+            assertEquals(Set.of("g1", "g2", "g5"), catalog.graphIds());
+        }
+
+        Checkpoint written = Checkpoint.read(file);
+        assertEquals(WALPosition.of(7, 0), written.getPosition());
+        Map<String, GraphStorage> storages = written.getStorages();
+        assertEquals(expected.keySet(), storages.keySet());
+        for (String graphId : expected.keySet()) {
+            assertEquals(state(expected.get(graphId)), state(Graph.createRecoveryGraph(storages.get(graphId), graphId)));
+        }
+    }
+
+    @Test
+    public void aTextLogCannotBeCatalogued() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        Files.writeString(log, "BEGIN_TRANSACTION id=1~source=g1\n");
+
+        assertNull(GraphCatalog.open(log));
+    }
+}
@@ -0,0 +1,213 @@
+package graph.dataModel;
+
+import graph.WAL.LoggingInfo;
+import graph.WAL.WALReader;
+import graph.WAL.WALSegments;
+import graph.WAL.WALWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
+import static graph.WAL.LoggingOperations.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class LogCompactorTest {
+
+    private static final long SEGMENT_SIZE = 512;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private void commit(WALWriter writer, String graphId, LoggingInfo... operations) throws Exception {
+        List<LoggingInfo> records = new ArrayList<>();
+        records.add(aLoggingInfo(BEGIN_TRANSACTION).withId(UUID.randomUUID().toString()).withSource(graphId).build());
+        records.addAll(List.of(operations));
+        records.add(aLoggingInfo(COMMIT).build());
+        writer.commit(records);
+    }
+
+    // a history in which most records are superseded: a weight updated over and over, a node and edge deleted
+    // again, and a whole graph deleted
+    private void writeHistory(WALWriter writer, String prefix) throws Exception {
+        commit(writer, "g1",
+                aLoggingInfo(ADD_NODE).withId(prefix + "a").withAttributes(Map.of("name", "A")).build(),
+                aLoggingInfo(ADD_NODE).withId(prefix + "b").withAttributes(Map.of("name", "B")).build(),
+                aLoggingInfo(ADD_EDGE).withId(prefix + "ab").withSource(prefix + "a").withTarget(prefix + "b")
+                        .withWeight(1.0).withAttributes(Map.of()).build());
+        for (int i = 0; i < 20; i++) {
+            commit(writer, "g1", aLoggingInfo(UPDATE_EDGE_WEIGHT).withId(prefix + "ab").withWeight((double) i).build());
+        }
+        commit(writer, "g1",
+                aLoggingInfo(ADD_NODE).withId(prefix + "c").withAttributes(Map.of("name", "C")).build(),
+                aLoggingInfo(UPDATE_NODE_ATTR).withId(prefix + "a").withKey("rank").withValue(7).build());
+        commit(writer, "g1",
+                aLoggingInfo(DELETE_EDGE).withId(prefix + "ab").build(),
+                aLoggingInfo(DELETE_NODE).withId(prefix + "b").build());
+        commit(writer, "g2", aLoggingInfo(ADD_NODE).withId(prefix + "x").withAttributes(Map.of()).build());
+        commit(writer, "g2", aLoggingInfo(DELETE_GRAPH).withId("g2").build());
+    }
+
+    private static Map<String, Map<String, Object>> state(Map<String, Graph> graphs) {
+        Map<String, Map<String, Object>> state = new HashMap<>();
+        graphs.forEach((graphId, graph) -> {
+            Map<String, Object> entities = new HashMap<>();
+            graph.forEachNode(node -> entities.put(node.getId(), node.getAttributes()));
+            graph.forEachEdge(edge -> entities.put(edge.getId(),
+                    List.of(edge.getSource(), edge.getDestination(), edge.getWeight(), edge.getProperties())));
+            state.put(graphId, entities);
+        });
+        return state;
+    }
+
+    private static Map<String, Graph> recover(Path log) throws Exception {
+        Checkpoint checkpoint = Checkpoint.read(Checkpoint.checkpointFor(log));
+        WALReader reader = checkpoint == null ? WALReader.forLog(log) : WALReader.forLog(log, checkpoint.getPosition());
+        return new RecoveryManager(reader, checkpoint).recoverGraphs();
+    }
+
+    @Test
+    public void compactedSegmentsRecoverTheSameGraphsFromLiveDataOnly() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            writeHistory(writer, "");
+            assertTrue(WALSegments.sealed(log).size() > 2);
+            Map<String, Map<String, Object>> expected = state(recover(log));
+
+            assertTrue(writer.compact(LogCompactor.create(log)));
+
+            assertTrue(WALSegments.sealed(log).isEmpty());
+            assertEquals(expected, state(recover(log)));
+            Checkpoint checkpoint = Checkpoint.read(Checkpoint.checkpointFor(log));
+            assertEquals(Map.of("g1", Map.of("a", Map.of("name", "A", "rank", 7), "c", Map.of("name", "C"))),
+                    state(Map.of("g1", Graph.createRecoveryGraph(checkpoint.getStorages().get("g1"), "g1"))));
+            assertFalse(checkpoint.getStorages().containsKey("g2"));
+
+            // what is committed after the compaction is replayed on top of it
+            commit(writer, "g1", aLoggingInfo(UPDATE_NODE_ATTR).withId("c").withKey("rank").withValue(1).build());
+        }
+
+        Map<String, Graph> recovered = recover(log);
+        assertEquals(Map.of("name", "C", "rank", 1), recovered.get("g1").getNodeById("c").getAttributes());
+        assertEquals(2, recovered.get("g1").getNodes().size());
+    }
+
+    @Test
+    public void laterCompactionsBuildOnTheEarlierOnes() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            writeHistory(writer, "");
+            assertTrue(writer.compact(LogCompactor.create(log)));
+            writeHistory(writer, "second-");
+            assertFalse(WALSegments.sealed(log).isEmpty());
+            Map<String, Map<String, Object>> expected = state(recover(log));
+
+            assertTrue(writer.compact(LogCompactor.create(log)));
+
+            assertEquals(expected, state(recover(log)));
+            assertEquals(4, recover(log).get("g1").getNodes().size());
+        }
+    }
+
+    @Test
+    public void segmentsACheckpointAlreadyCoversAreLeftAlone() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            writeHistory(writer, "");
+            List<Path> sealed = WALSegments.sealed(log);
+            Map<String, Graph> graphs = recover(log);
+            // as if a crash came between writing a checkpoint and deleting the segments it covers
+            assertThrows(IOException.class, () -> writer.checkpoint(position -> {
+                Checkpoint.write(Checkpoint.checkpointFor(log), position, graphs);
+                throw new IOException("crash");
+            }));
+            byte[] checkpoint = Files.readAllBytes(Checkpoint.checkpointFor(log));
+
+            assertFalse(writer.compact(LogCompactor.create(log)));
+
+            assertEquals(sealed, WALSegments.sealed(log));
+            assertTrue(Arrays.equals(checkpoint, Files.readAllBytes(Checkpoint.checkpointFor(log))));
+        }
+    }
+
+    @Test
+    public void segmentsSealedAfterAFullCheckpointAreCompacted() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            writeHistory(writer, "");
+            Map<String, Graph> graphs = recover(log);
+            writer.checkpoint(position -> Checkpoint.write(Checkpoint.checkpointFor(log), position, graphs));
+            writeHistory(writer, "second-");
+            assertFalse(WALSegments.sealed(log).isEmpty());
+            Map<String, Map<String, Object>> expected = state(recover(log));
+
+            assertTrue(writer.compact(LogCompactor.create(log)));
+
+            assertTrue(WALSegments.sealed(log).isEmpty());
+            assertEquals(expected, state(recover(log)));
+            assertEquals(4, recover(log).get("g1").getNodes().size());
+        }
+    }
+
+    // g3 is only in the checkpoint, which the segments sealed after it do not touch
+    private Map<String, Map<String, Object>> writeHistoryAfterCheckpointOfG3(WALWriter writer, Path log) throws Exception {
+        commit(writer, "g3", aLoggingInfo(ADD_NODE).withId("z").withAttributes(Map.of("name", "Z")).build());
+        Map<String, Graph> graphs = recover(log);
+        writer.checkpoint(position -> Checkpoint.write(Checkpoint.checkpointFor(log), position, graphs));
+        writeHistory(writer, "");
+        assertFalse(WALSegments.sealed(log).isEmpty());
+        return state(recover(log));
+    }
+
+    @Test
+    public void graphsNoSegmentTouchesAreCopiedFromTheCheckpoint() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            Map<String, Map<String, Object>> expected = writeHistoryAfterCheckpointOfG3(writer, log);
+            for (Path segment : WALSegments.sealed(log)) {
+                assertFalse(WALSegments.graphIds(segment).contains("g3"));
+            }
+
+            assertTrue(writer.compact(LogCompactor.create(log)));
+
+            assertEquals(expected, state(recover(log)));
+            assertEquals(Map.of("name", "Z"), recover(log).get("g3").getNodeById("z").getAttributes());
+        }
+    }
+
+    @Test
+    public void segmentsWithoutAnIndexReplayEveryGraph() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString(), SEGMENT_SIZE)) {
+            Map<String, Map<String, Object>> expected = writeHistoryAfterCheckpointOfG3(writer, log);
+            Files.delete(log.resolveSibling(WALSegments.sealed(log).getFirst().getFileName() + ".graphs"));
+
+            assertTrue(writer.compact(LogCompactor.create(log)));
+
+            assertEquals(expected, state(recover(log)));
+        }
+    }
+
+    @Test
+    public void nothingIsCompactedWithoutSealedSegments() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("log");
+        try (WALWriter writer = new WALWriter(log.toString())) {
+            writeHistory(writer, "");
+            assertFalse(writer.compact(LogCompactor.create(log)));
+        }
+        assertFalse(Files.exists(Checkpoint.checkpointFor(log)));
+    }
+}
@@ -12,10 +12,13 @@ import org.mockito.MockitoAnnotations;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static graph.WAL.LoggingInfo.LoggingInfoBuilder.aLoggingInfo;
 import static graph.WAL.LoggingOperations.*;
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 public class RecoveryManagerTest {
@@ -51,8 +54,14 @@ public class RecoveryManagerTest {
     LoggingInfo deleteEdgeInfo = aLoggingInfo(DELETE_EDGE).withId("e1").build();
 
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
         MockitoAnnotations.openMocks(this);
+        // the transactions stubbed below are streamed to the recovery sink
+        doAnswer(invocation -> {
+            Consumer<List<LoggingInfo>> sink = invocation.getArgument(0);
+            reader.readFromFile().forEach(sink);
+            return null;
+        }).when(reader).readTransactions(any());
         recoveryManager = new RecoveryManager(reader);
     }
 
@@ -310,6 +319,61 @@ public class RecoveryManagerTest {
         assertTrue("no nodes should be present because updates were skipped", graph.getNodes().isEmpty());
     }
 
+    @Test
+    public void parallelRecoveryAppliesEachGraphInLogOrder() throws IOException {
+        List<List<LoggingInfo>> transactions = List.of(
+                List.of(beginTransactionInfo, addNodeInfo, addNode2Info, commitInfo),
+                List.of(beginTransactionInfo2, addNodeInfo, commitInfo),
+                List.of(beginTransactionInfo, addEdgeInfo, updateEdgeWeightInfo, commitInfo),
+                List.of(beginTransactionInfo2, deleteNodeInfo, commitInfo),
+                List.of(beginTransactionInfo, updateNodeAttrInfo, deleteEdgeInfo, commitInfo));
+        doAnswer(invocation -> {
+            Consumer<List<LoggingInfo>> sink = invocation.getArgument(1);
+            transactions.forEach(sink);
+            return null;
+        }).when(reader).readTransactions(any(), any());
+
+        Map<String, Graph> graphs = recoveryManager.recoverGraphs(4);
+
+        assertEquals(2, graphs.size());
+        assertEquals(2, graphs.get("g1").getNodes().size());
+        assertEquals(COMBINED_ATTRS_1_2, graphs.get("g1").getNodeById("n1").getAttributes());
+        assertTrue(graphs.get("g1").getEdges().isEmpty());
+        assertTrue(graphs.get("g2").getNodes().isEmpty());
+    }
+
+    @Test
+    public void recoveredIndexesHoldTheStateTheLogEndsIn() throws IOException {
+        LoggingInfo addNode3Info = aLoggingInfo(ADD_NODE).withId("n3").withAttributes(ATTRIBUTES).build();
+        LoggingInfo addEdge2Info = aLoggingInfo(ADD_EDGE).withId("e2").withSource("n3").withTarget("n1").withWeight(5.0).withAttributes(ATTRIBUTES).build();
+        LoggingInfo deleteNode3Info = aLoggingInfo(DELETE_NODE).withId("n3").build();
+        when(reader.readFromFile()).thenReturn(List.of(
+                List.of(beginTransactionInfo, addNodeInfo, addNode2Info, addNode3Info, addEdgeInfo, addEdge2Info, commitInfo),
+                List.of(beginTransactionInfo, updateEdgeWeightInfo, deleteNode3Info, commitInfo)
+        ));
+
+        Graph graph = recoveryManager.recoverGraphs().get("g1");
+        assertTrue(graph.getEdgesByWeight(1.5).isEmpty());
+        assertEquals("e1", graph.getEdgesByWeight(2.0).getFirst().getId());
+        assertEquals(1, graph.getEdgesByWeightRange(0.0, 10.0).size());
+        assertEquals(1, graph.getEdges().size());
+    }
+
+    @Test
+    public void deletedGraphIsNotRecovered() throws IOException {
+        LoggingInfo deleteGraphInfo = aLoggingInfo(DELETE_GRAPH).withId("g1").build();
+        when(reader.readFromFile()).thenReturn(List.of(
+                List.of(beginTransactionInfo, addNodeInfo, commitInfo),
+                List.of(beginTransactionInfo2, addNode2Info, commitInfo),
+                List.of(beginTransactionInfo, deleteGraphInfo, commitInfo)
+        ));
+
+        Map<String, Graph> graphs = recoveryManager.recoverGraphs();
+        assertEquals(1, graphs.size());
+        assertNull(graphs.get("g1"));
+        checkNodeComponents("n2", ATTRIBUTES2, graphs.get("g2").getNodes().getFirst());
+    }
+
     // ============ Helper Functions ============
 
     private void checkNodeComponents(String id, Map<String, Object> attributes, Node node) {
@@ -0,0 +1,104 @@
+package graph.operations;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import graph.storage.AttributeIndexes;
+import graph.storage.GraphStorage;
+import graph.storage.InMemoryGraphStorage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AttributeIndexLookupTest {
+
+    private GraphStorage storage;
+    private AttributeIndexes indexes;
+    private GraphService service;
+    private Node alice;
+    private Node bob;
+    private Edge friends;
+
+    @Before
+    public void setUp() {
+        indexes = new AttributeIndexes();
+        storage = InMemoryGraphStorage.create();
+        service = new GraphService(storage, "1", indexes);
+        alice = service.addNode(Map.of("name", "alice", "city", "london"));
+        bob = service.addNode(Map.of("name", "bob", "city", "london"));
+        friends = service.addEdge(alice.getId(), bob.getId(), Map.of("type", "friend"), 1.0);
+        service.createNodeIndex("city");
+        service.createEdgeIndex("type");
+    }
+
+    @Test
+    public void indexIsBuiltFromExistingNodesAndEdges() {
+        assertThat(indexes.getNodeIndex("city").lookup("london").size(), is(2));
+        assertThat(service.getNodesByAttribute("city", "london"), hasItems(alice, bob));
+        assertThat(service.getEdgesByProperty("type", "friend"), is(List.of(friends)));
+    }
+
+    @Test
+    public void indexFollowsUpdatesAndDeletes() {
+        service.updateNode(bob.getId(), "city", "paris");
+        Node carol = service.addNode(Map.of("city", "paris"));
+        service.removeNodeAttribute(alice.getId(), "city");
+
+        assertThat(service.getNodesByAttribute("city", "london").size(), is(0));
+        assertThat(service.getNodesByAttribute("city", "paris").size(), is(2));
+
+        service.deleteNode(carol.getId());
+        assertThat(indexes.getNodeIndex("city").lookup("paris").size(), is(1));
+    }
+
+    @Test
+    public void lookingUpANullValueFindsNothing() {
+        TransactionService transaction = TransactionService.create(storage, indexes, CommitValidator.create(storage));
+        transaction.addNode(Map.of("city", "london"));
+
+        assertThat(service.getNodesByAttribute("city", null).size(), is(0));
+        assertThat(service.getEdgesByProperty("type", null).size(), is(0));
+        assertThat(transaction.getNodesByAttribute("city", null).size(), is(0));
+        assertThat(transaction.getEdgesByProperty("type", null).size(), is(0));
+    }
+
+    @Test
+    public void edgesOfDeletedNodesAreDroppedFromTheIndex() {
+        service.deleteNode(bob.getId());
+
+        assertThat(indexes.getEdgeIndex("type").lookup("friend").size(), is(0));
+        assertThat(service.getEdgesByProperty("type", "friend").size(), is(0));
+    }
+
+    @Test
+    public void edgesOfNodesDeletedInATransactionAreDroppedFromTheIndexOnCommit() {
+        TransactionService transaction = TransactionService.create(storage, indexes, CommitValidator.create(storage));
+        transaction.deleteNode(alice.getId());
+        transaction.commit();
+
+        assertThat(indexes.getEdgeIndex("type").lookup("friend").size(), is(0));
+    }
+
+    @Test
+    public void transactionsSeeTheirOwnChangesAndCommitIntoTheIndex() {
+        TransactionService transaction = TransactionService.create(storage, indexes, CommitValidator.create(storage));
+        Node carol = transaction.addNode(Map.of("city", "london"));
+        transaction.updateNode(alice.getId(), "city", "rome");
+        transaction.deleteEdge(friends.getId());
+
+        assertThat(transaction.getNodesByAttribute("city", "london").size(), is(2));
+        assertThat(transaction.getNodesByAttribute("city", "london"), hasItems(carol));
+        assertThat(transaction.getEdgesByProperty("type", "friend").size(), is(0));
+        assertThat(service.getNodesByAttribute("city", "london").size(), is(2));
+
+        transaction.commit();
+        assertThat(indexes.getNodeIndex("city").lookup("london").size(), is(2));
+        assertThat(indexes.getNodeIndex("city").lookup("rome").size(), is(1));
+        assertThat(indexes.getEdgeIndex("type").lookup("friend").size(), is(0));
+    }
+}
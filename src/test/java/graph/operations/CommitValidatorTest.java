@@ -0,0 +1,305 @@
+package graph.operations;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import graph.exceptions.TransactionConflictException;
+import graph.storage.AttributeIndexes;
+import graph.storage.GraphStorage;
+import graph.storage.InMemoryGraphStorage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class CommitValidatorTest {
+
+    private GraphStorage storage;
+    private GraphService graph;
+    private CommitValidator validator;
+    private Node alice;
+    private Node bob;
+    private Edge friends;
+
+    @Before
+    public void setUp() {
+        storage = InMemoryGraphStorage.create();
+        graph = new GraphService(storage, "1");
+        validator = CommitValidator.create(storage);
+        alice = graph.addNode(Map.of("name", "alice"));
+        bob = graph.addNode(Map.of("name", "bob"));
+        friends = graph.addEdge(alice.getId(), bob.getId(), Map.of("type", "friend"), 1.0);
+    }
+
+    private TransactionService begin() {
+        return TransactionService.create(storage, new AttributeIndexes(), validator);
+    }
+
+    private void update(String nodeId, int age) {
+        TransactionService transaction = begin();
+        transaction.updateNode(nodeId, "age", age);
+        transaction.commit();
+    }
+
+    @Test
+    public void concurrentUpdatesOfOneNodeConflict() {
+        TransactionService first = begin();
+        TransactionService second = begin();
+        first.updateNode(alice.getId(), "age", 30);
+        second.updateNode(alice.getId(), "age", 31);
+
+        first.commit();
+
+        assertThrows(TransactionConflictException.class, second::commit);
+        assertEquals(30, storage.getNode(alice.getId()).getAttribute("age"));
+    }
+
+    @Test
+    public void aNodeCannotBeDeletedTwice() {
+        TransactionService first = begin();
+        TransactionService second = begin();
+        first.deleteNode(bob.getId());
+        second.deleteNode(bob.getId());
+
+        first.commit();
+
+        assertThrows(TransactionConflictException.class, second::commit);
+    }
+
+    @Test
+    public void transactionsOnDifferentEntitiesAllCommit() {
+        TransactionService first = begin();
+        TransactionService second = begin();
+        TransactionService third = begin();
+        first.updateNode(alice.getId(), "age", 30);
+        second.updateNode(bob.getId(), "age", 40);
+        third.updateEdge(friends.getId(), 2.0);
+        Node carol = third.addNode(Map.of("name", "carol"));
+
+        first.commit();
+        second.commit();
+        third.commit();
+
+        assertEquals(30, storage.getNode(alice.getId()).getAttribute("age"));
+        assertEquals(40, storage.getNode(bob.getId()).getAttribute("age"));
+        assertEquals(2.0, storage.getEdge(friends.getId()).getWeight(), 0.0);
+        assertTrue(storage.containsNode(carol.getId()));
+    }
+
+    @Test
+    public void edgesCannotBeAddedToANodeDeletedMeanwhile() {
+        Node carol = graph.addNode(Map.of("name", "carol"));
+        TransactionService deleting = begin();
+        TransactionService adding = begin();
+        deleting.deleteNode(carol.getId());
+        adding.addEdge(alice.getId(), carol.getId(), Map.of(), 1.0);
+
+        deleting.commit();
+
+        assertThrows(TransactionConflictException.class, adding::commit);
+        assertFalse(storage.edgeExists(alice.getId(), carol.getId()));
+    }
+
+    @Test
+    public void aNodeCannotBeDeletedWhileAnEdgeToItIsBeingCommitted() {
+        Node carol = graph.addNode(Map.of("name", "carol"));
+        TransactionService adding = begin();
+        TransactionService deleting = begin();
+        adding.addEdge(alice.getId(), carol.getId(), Map.of(), 1.0);
+        deleting.deleteNode(carol.getId());
+
+        adding.prepare();
+
+        assertThrows(TransactionConflictException.class, deleting::prepare);
+        adding.commit();
+        assertTrue(storage.edgeExists(alice.getId(), carol.getId()));
+    }
+
+    @Test
+    public void edgesCannotBeUpdatedOnceOneOfTheirNodesIsDeleted() {
+        TransactionService updating = begin();
+        TransactionService deleting = begin();
+        updating.updateEdge(friends.getId(), 3.0);
+        deleting.deleteNode(bob.getId());
+
+        deleting.commit();
+
+        assertThrows(TransactionConflictException.class, updating::commit);
+        assertNull(storage.getEdge(friends.getId()));
+    }
+
+    @Test
+    public void addingEdgesToANodeDoesNotConflictWithUpdatingIt() {
+        Node carol = graph.addNode(Map.of("name", "carol"));
+        TransactionService adding = begin();
+        TransactionService updating = begin();
+        adding.addEdge(carol.getId(), alice.getId(), Map.of(), 1.0);
+        updating.updateNode(carol.getId(), "age", 20);
+
+        updating.commit();
+        adding.commit();
+
+        assertTrue(storage.edgeExists(carol.getId(), alice.getId()));
+        assertEquals(20, storage.getNode(carol.getId()).getAttribute("age"));
+    }
+
+    @Test
+    public void theSameEdgeCannotBeAddedTwice() {
+        TransactionService first = begin();
+        TransactionService second = begin();
+        first.addEdge(bob.getId(), alice.getId(), Map.of(), 1.0);
+        second.addEdge(bob.getId(), alice.getId(), Map.of(), 2.0);
+
+        first.commit();
+
+        assertThrows(TransactionConflictException.class, second::commit);
+        assertEquals(1.0, storage.getEdgeByNodeIds(bob.getId(), alice.getId()).getWeight(), 0.0);
+    }
+
+    @Test
+    public void edgesFromANodeAddedInTheSameTransactionCommit() {
+        TransactionService transaction = begin();
+        Node carol = transaction.addNode(Map.of("name", "carol"));
+        transaction.addEdge(carol.getId(), alice.getId(), Map.of(), 1.0);
+
+        transaction.commit();
+
+        assertTrue(storage.edgeExists(carol.getId(), alice.getId()));
+    }
+
+    @Test
+    public void anAbortedTransactionLetsGoOfWhatItClaimed() {
+        TransactionService aborted = begin();
+        aborted.updateNode(alice.getId(), "age", 30);
+        aborted.prepare();
+        TransactionService blocked = begin();
+        blocked.updateNode(alice.getId(), "age", 31);
+        assertThrows(TransactionConflictException.class, blocked::prepare);
+
+        aborted.abort();
+        TransactionService retried = begin();
+        retried.updateNode(alice.getId(), "age", 31);
+        retried.commit();
+
+        assertEquals(31, storage.getNode(alice.getId()).getAttribute("age"));
+    }
+
+    @Test
+    public void readOnlyTransactionsNeverConflict() {
+        TransactionService reading = begin();
+        reading.getNodeById(alice.getId());
+        TransactionService writing = begin();
+        writing.updateNode(alice.getId(), "age", 30);
+        writing.commit();
+
+        reading.commit();
+    }
+
+    @Test
+    public void retriedIncrementsAreNeverLost() throws Exception {
+        int threads = 4;
+        int increments = 200;
+        graph.updateNode(alice.getId(), "count", 0);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < increments; i++) {
+                        while (true) {
+                            TransactionService transaction = begin();
+                            int count = (int) transaction.getNodeById(alice.getId()).getAttribute("count");
+                            transaction.updateNode(alice.getId(), "count", count + 1);
+                            try {
+                                transaction.commit();
+                                break;
+                            } catch (TransactionConflictException retry) {
+                                // retried as a new transaction
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * increments, storage.getNode(alice.getId()).getAttribute("count"));
+    }
+
+    @Test
+    public void disjointCommitsKeepTheDefaultStorageConsistent() throws Exception {
+        int threads = 8;
+        int commits = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < commits; i++) {
+                        TransactionService transaction = begin();
+                        Node source = transaction.addNode(Map.of("thread", thread));
+                        Node target = transaction.addNode(Map.of("thread", thread));
+                        transaction.addEdge(source.getId(), target.getId(), Map.of(), thread);
+                        transaction.commit();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int edges = threads * commits;
+        assertEquals(2 + 2 * edges, storage.getAllNodes().size());
+        assertEquals(1 + edges, storage.getAllEdges().size());
+        for (Edge edge : storage.getAllEdges()) {
+            assertEquals(edge, storage.getEdgeByNodeIds(edge.getSource(), edge.getDestination()));
+            assertTrue(storage.nodesIdsWithEdgesToNode(edge.getDestination()).contains(edge.getSource()));
+        }
+        for (int thread = 0; thread < threads; thread++) {
+            List<Edge> weighted = storage.getEdgesByWeight(thread);
+            assertEquals(thread == 1 ? commits + 1 : commits, weighted.size());
+        }
+        assertEquals(1 + edges, storage.getEdgesByWeightRange(0, threads).size());
+    }
+
+    @Test
+    public void versionsNoRunningTransactionCanHaveReadArePruned() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2048; i++) {
+            ids.add(graph.addNode(Map.of()).getId());
+        }
+        update(ids.get(0), 0);
+        TransactionService stale = begin();
+        stale.updateNode(ids.get(0), "age", -1);
+        for (int i = 1; i < 1024; i++) {
+            update(ids.get(i), i);
+        }
+        // only what was written before the stale transaction began has gone
+        assertEquals(1023, validator.retainedVersions());
+
+        update(ids.get(0), 1024);
+        assertThrows(TransactionConflictException.class, stale::commit);
+        for (int i = 1024; i < 2047; i++) {
+            update(ids.get(i), i);
+        }
+        assertEquals(0, validator.retainedVersions());
+    }
+}
@@ -40,6 +40,7 @@ public class GraphOperationsUnitTest {
 
     @After
     public void tearDown() throws Exception {
+        graph.WAL.WALWriter.closeDefaultWALWriter();
         java.nio.file.Files.deleteIfExists(java.nio.file.Path.of("log"));
     }
 
@@ -1,12 +1,15 @@
 package graph.operations;
 
+import graph.WAL.Durability;
 import graph.WAL.LoggingInfo;
+import graph.WAL.WALRecordBuffer;
 import graph.WAL.WALWriter;
 import graph.dataModel.Edge;
 import graph.dataModel.Node;
 import graph.exceptions.EdgeExistsException;
 import graph.exceptions.EdgeNotFoundException;
 import graph.exceptions.NodeNotFoundException;
+import graph.exceptions.TransactionConflictException;
 import org.jmock.Expectations;
 import org.jmock.integration.junit4.JUnitRuleMockery;
 import org.junit.Before;
@@ -17,11 +20,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static graph.WAL.LoggingOperations.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 import static org.mockito.Mockito.*;
 
 public class TransactionLoggerTest {
@@ -52,6 +57,10 @@ public class TransactionLoggerTest {
         MockitoAnnotations.openMocks(this);
         transactionLogger = new TransactionLogger("1", service, writer);
         reset(writer);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(writer).commit(any(WALRecordBuffer.class), any(Runnable.class));
     }
 
     // ============ Node Operations ============
@@ -367,27 +376,99 @@ public class TransactionLoggerTest {
     @Test
     public void loggerLogsCommitOperation() throws IOException {
         context.checking(new Expectations() {{
+            exactly(1).of(service).prepare();
             exactly(1).of(service).commit();
         }});
 
         transactionLogger.commit();
 
-        LoggingInfo info = getLoggingInfo();
-        assertEquals(COMMIT, info.getOperation());
+        List<LoggingInfo> records = getCommittedRecords();
+        assertEquals(2, records.size());
+        assertEquals(BEGIN_TRANSACTION, records.get(0).getOperation());
+        assertEquals("1", records.get(0).getSource());
+        assertEquals(COMMIT, records.get(1).getOperation());
+    }
+
+    @Test
+    public void operationsAreOnlyWrittenOnCommit() {
+        context.checking(new Expectations() {{
+            exactly(1).of(service).addNode(ATTRIBUTES); will(returnValue(NODE));
+        }});
+
+        transactionLogger.addNode(ATTRIBUTES);
+
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    public void loggedAttributesAreASnapshotOfTheOperation() throws IOException {
+        Map<String, Object> attributes = new HashMap<>(ATTRIBUTES);
+        context.checking(new Expectations() {{
+            exactly(1).of(service).addNode(attributes); will(returnValue(NODE));
+        }});
+
+        transactionLogger.addNode(attributes);
+        attributes.put("label", "changed");
+
+        assertEquals(ATTRIBUTES, getLoggingInfo().getAttributes());
+    }
+
+    @Test
+    public void commitPassesTheChosenDurabilityToTheWriter() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(writer).commit(any(WALRecordBuffer.class), any(Runnable.class), eq(Durability.ASYNC));
+        context.checking(new Expectations() {{
+            exactly(1).of(service).prepare();
+            exactly(1).of(service).commit();
+        }});
+
+        transactionLogger.commit(Durability.ASYNC);
+
+        verify(writer, only()).commit(any(WALRecordBuffer.class), any(Runnable.class), eq(Durability.ASYNC));
     }
 
     @Test(expected = RuntimeException.class)
     public void runTimeExceptionThrownWhenWriterFailsToWrite() throws IOException {
-        doThrow(new IOException()).when(writer).writeToFile(any());
+        doThrow(new IOException()).when(writer).commit(any(WALRecordBuffer.class), any(Runnable.class));
+        context.checking(new Expectations() {{
+            exactly(1).of(service).prepare();
+            exactly(1).of(service).abort();
+        }});
 
         transactionLogger.commit();
     }
 
+    @Test
+    public void conflictingTransactionsAreNotLogged() {
+        context.checking(new Expectations() {{
+            exactly(1).of(service).prepare(); will(throwException(new TransactionConflictException("node", NODE_ID)));
+        }});
+
+        assertThrows(TransactionConflictException.class, () -> transactionLogger.commit());
+
+        verifyNoInteractions(writer);
+    }
+
     // ============ Helper Functions ============
 
+    private List<LoggingInfo> getCommittedRecords() throws IOException {
+        ArgumentCaptor<WALRecordBuffer> captor = ArgumentCaptor.forClass(WALRecordBuffer.class);
+        verify(writer, only()).commit(captor.capture(), any(Runnable.class));
+        return captor.getValue().records();
+    }
+
+    // commits the transaction and returns the one operation logged between BEGIN and COMMIT
     private LoggingInfo getLoggingInfo() throws IOException {
-        ArgumentCaptor<LoggingInfo> captor = ArgumentCaptor.forClass(LoggingInfo.class);
-        verify(writer, only()).writeToFile(captor.capture());
-        return captor.getValue();
+        context.checking(new Expectations() {{
+            exactly(1).of(service).prepare();
+            exactly(1).of(service).commit();
+        }});
+        transactionLogger.commit();
+
+        List<LoggingInfo> records = getCommittedRecords();
+        assertEquals(3, records.size());
+        return records.get(1);
     }
 }
@@ -355,8 +355,10 @@ public class TransactionOperationsTest {
 
     @Test
     public void commitsAllOperationsInTheTransaction() {
+        List<GraphOperation> operations = List.of(new AddOrUpdateNode(NODE), new DeleteEdge(EDGE_ID));
         context.checking(new Expectations() {{
-            oneOf(transactionStorage).getOperations();
+            oneOf(transactionStorage).getOperations(); will(returnValue(operations));
+            oneOf(storage).writeAtomically(with(any(Runnable.class)));
         }});
 
         this.service.commit();
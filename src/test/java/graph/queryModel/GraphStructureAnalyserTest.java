@@ -7,12 +7,15 @@ import graph.traversalAlgorithms.AlgorithmManager;
 import graph.traversalAlgorithms.GraphTraversalView;
 import graph.traversalAlgorithms.TraversalResult;
 import org.jmock.Expectations;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
 import org.junit.Rule;
 import org.junit.Test;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static graph.traversalAlgorithms.AlgorithmType.FLOYD_WARSHALL;
 import static graph.traversalAlgorithms.AlgorithmType.TOPOLOGICAL_SORT;
@@ -27,11 +30,23 @@ public class GraphStructureAnalyserTest {
     GraphStructureAnalyser analyser = new GraphStructureAnalyser(manager, graph);
     String NODE_ID = "n1";
 
+    // feeds the given items to the consumer a forEach method was called with
+    private static <T> CustomAction visits(List<T> items) {
+        return new CustomAction("visit " + items) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object invoke(Invocation invocation) {
+                items.forEach((Consumer<T>) invocation.getParameter(1));
+                return null;
+            }
+        };
+    }
+
     @Test
     public void ableToGetInDegreeOfAGivenNode() {
         context.checking(new Expectations() {{
-            exactly(1).of(graph).getNodesIdWithEdgeToNode(NODE_ID);
-            will(returnValue(List.of("1", "2", "3")));
+            exactly(1).of(graph).forEachNodeIdWithEdgeTo(with(NODE_ID), with(any(Consumer.class)));
+            will(visits(List.of("1", "2", "3")));
         }});
 
         assertEquals(3, analyser.getInDegree(NODE_ID));
@@ -40,8 +55,8 @@ public class GraphStructureAnalyserTest {
     @Test
     public void ableToGetOutDegreeOfAGivenNode() {
         context.checking(new Expectations() {{
-            exactly(1).of(graph).getEdgesFromNode(NODE_ID);
-            will(returnValue(List.of(new Edge("e1", NODE_ID, "n2", 1.0, Map.of()))));
+            exactly(1).of(graph).forEachEdgeFrom(with(NODE_ID), with(any(Consumer.class)));
+            will(visits(List.of(new Edge("e1", NODE_ID, "n2", 1.0, Map.of()))));
         }});
 
         assertEquals(1, analyser.getOutDegree(NODE_ID));
@@ -0,0 +1,96 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BulkGraphLoaderTest {
+
+    private BulkGraphLoader loader;
+
+    @Before
+    public void setUp() {
+        loader = BulkGraphLoader.create();
+        for (String id : List.of("A", "B", "C")) {
+            loader.putNode(new Node(id, Map.of("name", id)));
+        }
+        loader.putEdge(new Edge("ab", "A", "B", 3.0, Map.of()));
+        loader.putEdge(new Edge("bc", "B", "C", 1.0, Map.of()));
+        loader.putEdge(new Edge("ca", "C", "A", 2.0, Map.of()));
+    }
+
+    @Test
+    public void builtStorageHasAdjacencyInBothDirectionsAndTheWeightIndex() {
+        InMemoryGraphStorage storage = loader.build();
+
+        assertThat(storage.nodeCount(), is(3));
+        assertThat(storage.getEdgeByNodeIds("A", "B").getId(), is("ab"));
+        assertThat(storage.getEdgesFromNode("B").size(), is(1));
+        assertThat(storage.nodesIdsWithEdgesToNode("A"), is(List.of("C")));
+        assertThat(storage.getEdgesByWeightRange(1.0, 2.0).size(), is(2));
+        assertThat(storage.getEdgesWithWeightGreaterThan(2.0).getFirst().getId(), is("ab"));
+    }
+
+    @Test
+    public void changesMadeBeforeTheBuildAreIndexedAsTheyEnd() {
+        loader.getEdge("ab").setWeight(9.0);
+        loader.removeEdge("bc");
+
+        InMemoryGraphStorage storage = loader.build();
+
+        assertThat(storage.getEdgesByWeight(3.0).size(), is(0));
+        assertThat(storage.getEdgesByWeight(9.0).getFirst().getId(), is("ab"));
+        assertFalse(storage.containsEdge("bc"));
+        assertFalse(storage.edgeExists("B", "C"));
+    }
+
+    @Test
+    public void deletedNodesTakeTheirEdgesWithThem() {
+        loader.removeNode("C");
+
+        InMemoryGraphStorage storage = loader.build();
+
+        assertFalse(storage.containsNode("C"));
+        assertThat(storage.getAllEdges().size(), is(1));
+        assertTrue(storage.nodesIdsWithEdgesToNode("A").isEmpty());
+        assertThat(storage.getEdgesByWeightRange(0.0, 10.0).size(), is(1));
+    }
+
+    @Test
+    public void nodeAddedAgainAfterItsDeletionStartsWithoutEdges() {
+        loader.removeNode("C");
+        loader.putNode(new Node("C", Map.of("name", "C again")));
+        loader.putEdge(new Edge("cb", "C", "B", 4.0, Map.of()));
+
+        InMemoryGraphStorage storage = loader.build();
+
+        assertThat(storage.getNode("C").getAttributes(), is(Map.of("name", "C again")));
+        assertThat(storage.getEdgesFromNode("C").size(), is(1));
+        assertFalse(storage.containsEdge("bc"));
+        assertFalse(storage.containsEdge("ca"));
+    }
+
+    @Test
+    public void edgesToANodeAddedAgainSurviveOnlyIfAddedAfterIt() {
+        loader.removeNode("C");
+        loader.putNode(new Node("C", Map.of()));
+        loader.putEdge(new Edge("ca", "C", "A", 5.0, Map.of()));
+        loader.removeNode("B");
+        loader.putNode(new Node("B", Map.of()));
+
+        InMemoryGraphStorage storage = loader.build();
+
+        assertThat(storage.getAllEdges().size(), is(1));
+        assertThat(storage.getEdge("ca").getWeight(), is(5.0));
+        assertThat(storage.getEdgesByWeightRange(0.0, 10.0).size(), is(1));
+    }
+}
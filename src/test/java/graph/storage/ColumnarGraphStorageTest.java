@@ -0,0 +1,73 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Graph;
+import graph.dataModel.Node;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ColumnarGraphStorageTest {
+
+    private ColumnarGraphStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = ColumnarGraphStorage.create();
+        storage.putNode(new Node("node1", Map.of("name", "first", "age", 30)));
+        storage.putNode(new Node("node2", Map.of("name", "second")));
+        storage.putEdge(new Edge("edge1", "node1", "node2", 5.0, Map.of("type", "friend")));
+    }
+
+    @Test
+    public void updatesThroughStoredNodesAndEdgesAreKept() {
+        storage.getNode("node1").setAttribute("age", 31);
+        storage.getEdge("edge1").setProperty("since", 2020);
+
+        assertThat(storage.getNode("node1").getAttribute("age"), is(31));
+        assertThat(storage.getEdge("edge1").getProperties(), is(Map.of("type", "friend", "since", 2020)));
+    }
+
+    @Test
+    public void puttingAnExistingNodeReplacesItsAttributes() {
+        storage.putNode(new Node("node1", Map.of("name", "renamed")));
+
+        assertThat(storage.getNode("node1").getAttributes(), is(Map.of("name", "renamed")));
+        assertThat(storage.liveNodeRows(), is(2));
+    }
+
+    @Test
+    public void puttingAnExistingEdgeReusesItsRow() {
+        storage.putEdge(new Edge("edge1", "node1", "node2", 6.0, storage.getEdge("edge1").getProperties()));
+        storage.removeEdge("edge1");
+        storage.removeEdge("edge1");
+
+        assertThat(storage.liveEdgeRows(), is(0));
+        assertThat(storage.liveNodeRows(), is(2));
+    }
+
+    @Test
+    public void removingANodeReleasesItsRowAndTheRowsOfItsEdges() {
+        Node removed = storage.removeNode("node2");
+
+        assertThat(removed.getAttribute("name"), is("second"));
+        assertThat(storage.liveNodeRows(), is(1));
+        assertThat(storage.liveEdgeRows(), is(0));
+    }
+
+    @Test
+    public void graphOperationsWorkOnTopOfTheColumns() {
+        Graph graph = Graph.createGraph(storage);
+        Node node = graph.addNode(Map.of("name", "third"));
+        graph.addEdge("node2", node.getId(), Map.of("type", "colleague"), 2.0);
+        graph.updateNode(node.getId(), "name", "renamed");
+
+        assertThat(graph.getNodeById(node.getId()).getAttribute("name"), is("renamed"));
+        assertThat(graph.getNodesByAttribute("name", "first").size(), is(1));
+        assertThat(graph.getEdgesByProperty("type", "colleague").size(), is(1));
+    }
+}
@@ -0,0 +1,144 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import graph.traversalAlgorithms.NodeHandles;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedGraphStorageTest {
+
+    private static final int NODES = 300;
+    private CompressedGraphStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = CompressedGraphStorage.create();
+        for (int i = 0; i < NODES; i++) {
+            storage.putNode(new Node("n" + i, Map.of()));
+        }
+        // a ring and a chord per node, enough mutations to trigger several merges
+        for (int i = 0; i < NODES; i++) {
+            storage.putEdge(new Edge("ring" + i, "n" + i, "n" + ((i + 1) % NODES), i, Map.of()));
+            storage.putEdge(new Edge("chord" + i, "n" + i, "n" + ((i + 7) % NODES), i, Map.of()));
+        }
+    }
+
+    @Test
+    public void adjacencyIsPreservedAcrossMerges() {
+        for (int i = 0; i < NODES; i++) {
+            List<Edge> edges = storage.getEdgesFromNode("n" + i);
+            assertThat(edges.size(), is(2));
+            assertThat(edges, hasItems(storage.getEdge("ring" + i), storage.getEdge("chord" + i)));
+            assertTrue(storage.edgeExists("n" + i, "n" + ((i + 7) % NODES)));
+            assertThat(new HashSet<>(storage.nodesIdsWithEdgesToNode("n" + i)),
+                    is(Set.of("n" + ((i + NODES - 1) % NODES), "n" + ((i + NODES - 7) % NODES))));
+        }
+    }
+
+    @Test
+    public void removedNodesAreCompactedAwayOnMerge() {
+        for (int i = 0; i < NODES; i += 2) {
+            storage.removeNode("n" + i);
+        }
+
+        assertThat(storage.getAllNodes().size(), is(NODES / 2));
+        for (int i = 1; i < NODES; i += 2) {
+            assertThat(storage.getNode("n" + i).getId(), is("n" + i));
+            // ring edges of odd nodes point at removed even nodes, chords point at even nodes too
+            assertTrue(storage.getEdgesFromNode("n" + i).isEmpty());
+            assertTrue(storage.nodesIdsWithEdgesToNode("n" + i).isEmpty());
+        }
+        assertTrue(storage.getAllEdges().isEmpty());
+        assertFalse(storage.edgeExists("n1", "n2"));
+    }
+
+    @Test
+    public void updatedWeightIsVisibleThroughTheEdge() {
+        Edge edge = storage.getEdge("ring5");
+        double previousWeight = edge.getWeight();
+        edge.setWeight(42.0);
+        storage.updateEdgeWeight(previousWeight, 42.0, edge);
+
+        assertThat(storage.getEdgeByNodeIds("n5", "n6").getWeight(), is(42.0));
+        assertThat(storage.getEdgesByWeight(42.0), hasItems(edge));
+    }
+
+    @Test
+    public void edgesRemovedBeforeAMergeLeaveTheOthersInOrder() {
+        CompressedGraphStorage unmerged = CompressedGraphStorage.create();
+        for (String id : List.of("hub", "a", "b", "c", "d")) {
+            unmerged.putNode(new Node(id, Map.of()));
+        }
+        for (String id : List.of("a", "b", "c")) {
+            unmerged.putEdge(new Edge("hub-" + id, "hub", id, 1.0, Map.of()));
+        }
+        unmerged.removeEdge("hub-c");
+        unmerged.putEdge(new Edge("hub-d", "hub", "d", 1.0, Map.of()));
+        unmerged.removeEdge("hub-a");
+
+        assertThat(unmerged.getEdgesFromNode("hub").stream().map(Edge::getId).toList(), is(List.of("hub-b", "hub-d")));
+        assertThat(unmerged.getEdgeByNodeIds("hub", "a"), is(nullValue()));
+        assertThat(unmerged.getEdgeByNodeIds("hub", "d").getId(), is("hub-d"));
+        assertThat(unmerged.nodesIdsWithEdgesToNode("c"), is(List.of()));
+    }
+
+    @Test
+    public void neighbourWalkSeesTheWeightsOfMergedAndPendingEdges() {
+        storage.putEdge(new Edge("extra", "n5", "n100", 3.0, Map.of()));
+        for (String id : List.of("ring5", "extra")) {
+            Edge edge = storage.getEdge(id);
+            double previousWeight = edge.getWeight();
+            edge.setWeight(previousWeight + 40.0);
+            storage.updateEdgeWeight(previousWeight, previousWeight + 40.0, edge);
+        }
+
+        Map<String, Double> neighbours = new HashMap<>();
+        storage.forEachNeighbour("n5", neighbours::put);
+
+        assertThat(neighbours, is(Map.of("n6", 45.0, "n12", 5.0, "n100", 43.0)));
+    }
+
+    @Test
+    public void slotsOfRemovedNodesAreReusedWithoutAMerge() {
+        CompressedGraphStorage churned = CompressedGraphStorage.create();
+        churned.putNode(new Node("kept", Map.of()));
+        for (int i = 0; i < 1000; i++) {
+            churned.putNode(new Node("churn" + i, Map.of()));
+            churned.removeNode("churn" + i);
+        }
+        churned.putNode(new Node("added", Map.of()));
+
+        assertThat(churned.nodeHandles().handleBound(), is(2));
+        assertThat(churned.getAllNodes().stream().map(Node::getId).toList(), is(List.of("kept", "added")));
+    }
+
+    @Test
+    public void nodeHandlesFollowTheSlots() {
+        NodeHandles handles = storage.nodeHandles();
+        int n5 = handles.handleOf("n5");
+
+        Map<String, Double> neighbours = new HashMap<>();
+        handles.forEachNeighbour(n5, (neighbour, weight) -> neighbours.put(handles.idOf(neighbour), weight));
+        Set<String> predecessors = new HashSet<>();
+        handles.forEachPredecessor(n5, predecessor -> predecessors.add(handles.idOf(predecessor)));
+
+        assertThat(handles.idOf(n5), is("n5"));
+        assertThat(handles.handleOf("missing"), is(-1));
+        assertThat(neighbours, is(Map.of("n6", 5.0, "n12", 5.0)));
+        assertThat(predecessors, is(Set.of("n4", "n" + (NODES - 2))));
+    }
+}
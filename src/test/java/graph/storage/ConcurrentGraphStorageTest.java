@@ -0,0 +1,121 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import graph.exceptions.NodeNotFoundException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentGraphStorageTest {
+
+    private static final int THREADS = 8;
+    private static final int NODES_PER_THREAD = 200;
+    private ConcurrentGraphStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = ConcurrentGraphStorage.create();
+    }
+
+    private void runInParallel(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadId = thread;
+                futures.add(executor.submit(() -> task.run(threadId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int threadId);
+    }
+
+    @Test
+    public void emptiedWeightBucketsAreRemovedWithoutLosingEdges() throws Exception {
+        ConcurrentEdgeWeightIndex index = new ConcurrentEdgeWeightIndex();
+        List<Edge> edges = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            Edge edge = new Edge("e" + thread, "a", "b", 1.0, Map.of());
+            edges.add(edge);
+            index.putEdge(edge);
+        }
+
+        runInParallel(thread -> {
+            Edge edge = edges.get(thread);
+            for (int i = 0; i < 1000; i++) {
+                // every thread keeps leaving and joining the shared bucket while the others do the same
+                double weight = thread * 1000 + i + 0.5;
+                index.updateEdgeWeight(1.0, weight, edge);
+                index.updateEdgeWeight(weight, 1.0, edge);
+            }
+        });
+
+        assertThat(index.bucketCount(), is(1));
+        assertThat(index.getEdgesByWeight(1.0).size(), is(THREADS));
+    }
+
+    @Test
+    public void writersToDisjointNodesDoNotLoseUpdates() throws Exception {
+        runInParallel(thread -> {
+            for (int i = 0; i < NODES_PER_THREAD; i++) {
+                storage.putNode(new Node(thread + "-" + i, Map.of()));
+                if (i > 0) {
+                    storage.putEdge(new Edge(thread + "-e" + i, thread + "-" + (i - 1), thread + "-" + i, i, Map.of()));
+                }
+            }
+        });
+
+        assertThat(storage.getAllNodes().size(), is(THREADS * NODES_PER_THREAD));
+        assertThat(storage.getAllEdges().size(), is(THREADS * (NODES_PER_THREAD - 1)));
+        assertThat(storage.getEdgesByWeight(1.0).size(), is(THREADS));
+        for (int thread = 0; thread < THREADS; thread++) {
+            assertThat(storage.nodesIdsWithEdgesToNode(thread + "-5"), is(List.of(thread + "-4")));
+        }
+    }
+
+    @Test
+    public void removingAHubWhileOthersLinkToItLeavesNoDanglingEdges() throws Exception {
+        storage.putNode(new Node("hub", Map.of()));
+        runInParallel(thread -> {
+            for (int i = 0; i < NODES_PER_THREAD; i++) {
+                String id = thread + "-" + i;
+                storage.putNode(new Node(id, Map.of()));
+                if (thread == 0 && i == NODES_PER_THREAD / 2) {
+                    storage.removeNode("hub");
+                }
+                try {
+                    storage.putEdge(new Edge("e" + id, id, "hub", 1.0, Map.of()));
+                } catch (NodeNotFoundException removed) {
+                    // the hub is already gone
+                }
+            }
+        });
+
+        for (Edge edge : storage.getAllEdges()) {
+            assertTrue(storage.containsNode(edge.getDestination()));
+        }
+        for (Node node : storage.getAllNodes()) {
+            for (Edge edge : storage.getEdgesFromNode(node.getId())) {
+                assertTrue(storage.containsEdge(edge.getId()));
+            }
+        }
+    }
+}
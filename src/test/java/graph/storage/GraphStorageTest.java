@@ -1,7 +1,10 @@
 package graph.storage;
 
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
@@ -9,8 +12,10 @@ import org.junit.runners.Parameterized.Parameters;
 import graph.dataModel.Node;
 import graph.dataModel.Edge;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -22,6 +27,9 @@ import static org.junit.Assert.assertTrue;
 @RunWith(Parameterized.class)
 public class GraphStorageTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private GraphStorage storage;
     private final Edge EDGE_1 = new Edge("edge1", "node1", "node2", 5.0, Map.of());
     private final Edge EDGE_2 = new Edge("edge2", "node2", "node3", 10.0, Map.of());
@@ -30,16 +38,44 @@ public class GraphStorageTest {
     @Parameters(name = "{0}")
     public static Collection<Object> storages() {
         return Arrays.asList(new Object[] {
-                (Supplier<GraphStorage>) InMemoryGraphStorage::create,
+                (Function<Path, GraphStorage>) directory -> InMemoryGraphStorage.create(),
+                (Function<Path, GraphStorage>) directory -> CompressedGraphStorage.create(),
+                (Function<Path, GraphStorage>) directory -> ConcurrentGraphStorage.create(),
+                (Function<Path, GraphStorage>) MappedGraphStorage::open,
         });
     }
 
     @Parameterized.Parameter(value = 0)
-    public Supplier<GraphStorage> storageCreator;
+    public Function<Path, GraphStorage> storageCreator;
 
     @Before
-    public void setUp() {
-        this.storage = storageCreator.get();
+    public void setUp() throws IOException {
+        this.storage = storageCreator.apply(folder.newFolder("graph").toPath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (storage instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    // storages that keep their records off the heap hand out new Node and Edge objects, so these are compared by
+    // what they hold
+    private static List<Object> contents(Node node) {
+        return List.of(node.getId(), node.getAttributes());
+    }
+
+    private static List<Object> contents(Edge edge) {
+        return List.of(edge.getId(), edge.getSource(), edge.getDestination(), edge.getWeight(), edge.getProperties());
+    }
+
+    private static List<List<Object>> nodeContents(Collection<Node> nodes) {
+        return nodes.stream().map(GraphStorageTest::contents).toList();
+    }
+
+    private static List<List<Object>> edgeContents(Collection<Edge> edges) {
+        return edges.stream().map(GraphStorageTest::contents).toList();
     }
 
     private Node createTestNode(String id) {
@@ -66,7 +102,7 @@ public class GraphStorageTest {
         storage.putNode(node);
 
         Node retrieved = storage.getNode("node1");
-        assertThat(retrieved, is(node));
+        assertThat(contents(retrieved), is(contents(node)));
     }
 
     @Test
@@ -84,7 +120,7 @@ public class GraphStorageTest {
         storage.putNode(node);
 
         Node removed = storage.removeNode("node1");
-        assertThat(removed, is(node));
+        assertThat(contents(removed), is(contents(node)));
         assertFalse(storage.containsNode("node1"));
     }
 
@@ -98,7 +134,7 @@ public class GraphStorageTest {
 
         List<Node> nodes = storage.getAllNodes();
         assertThat(nodes.size(), is(2));
-        assertThat(nodes, hasItems(node1, node2));
+        assertThat(nodeContents(nodes), hasItems(contents(node1), contents(node2)));
     }
 
     // ============ EDGE ============
@@ -109,7 +145,7 @@ public class GraphStorageTest {
         storage.putEdge(edge);
 
         Edge retrieved = storage.getEdge("edge1");
-        assertThat(retrieved, is(edge));
+        assertThat(contents(retrieved), is(contents(edge)));
     }
 
     @Test
@@ -118,7 +154,7 @@ public class GraphStorageTest {
         storage.putEdge(edge);
 
         Edge retrieved = storage.getEdgeByNodeIds("node1", "node2");
-        assertThat(retrieved, is(edge));
+        assertThat(contents(retrieved), is(contents(edge)));
     }
 
     @Test
@@ -137,7 +173,7 @@ public class GraphStorageTest {
         storage.putEdge(edge);
 
         Edge removed = storage.removeEdge("edge1");
-        assertThat(removed, is(edge));
+        assertThat(contents(removed), is(contents(edge)));
         assertFalse(storage.containsEdge("edge1"));
         assertFalse(storage.edgeExists("node1", "node2"));
     }
@@ -148,7 +184,7 @@ public class GraphStorageTest {
         storage.putEdge(edge);
 
         Edge removed = storage.removeEdge("edge1");
-        assertThat(removed, is(edge));
+        assertThat(contents(removed), is(contents(edge)));
         assertTrue(storage.containsNode("node2"));
         assertTrue(storage.containsNode("node1"));
     }
@@ -162,7 +198,7 @@ public class GraphStorageTest {
 
         List<Edge> edges = storage.getAllEdges();
         assertThat(edges.size(), is(2));
-        assertThat(edges, hasItems(edge1, edge2));
+        assertThat(edgeContents(edges), hasItems(contents(edge1), contents(edge2)));
     }
 
     @Test
@@ -190,7 +226,7 @@ public class GraphStorageTest {
         List<Node> nodes = storage.getAllNodes();
         assertThat(edges.size(), is(2));
         assertThat(nodes.size(), is(3));
-        assertThat(edges, hasItems(edge1, edge2));
+        assertThat(edgeContents(edges), hasItems(contents(edge1), contents(edge2)));
     }
 
     @Test
@@ -205,6 +241,59 @@ public class GraphStorageTest {
         assertThat(nodes, hasItems("node1", "node2"));
     }
 
+    @Test
+    public void removingAnEdgeShouldRemoveItFromNodesWithEdgesToNode() {
+        Edge edge1 = createTestEdge("edge1", "node1", "node3");
+        Edge edge2 = createTestEdge("edge2", "node2", "node3");
+        storage.putEdge(edge1);
+        storage.putEdge(edge2);
+
+        storage.removeEdge("edge1");
+        assertThat(storage.nodesIdsWithEdgesToNode("node3"), is(List.of("node2")));
+    }
+
+    @Test
+    public void removingANodeShouldRemoveIncomingAndOutgoingEdges() {
+        Edge edge1 = createTestEdge("edge1", "node1", "node2");
+        Edge edge2 = createTestEdge("edge2", "node2", "node3");
+        Edge edge3 = createTestEdge("edge3", "node3", "node1");
+        Edge selfLoop = createTestEdge("edge4", "node2", "node2");
+        storage.putEdge(edge1);
+        storage.putEdge(edge2);
+        storage.putEdge(edge3);
+        storage.putEdge(selfLoop);
+
+        storage.removeNode("node2");
+        assertThat(edgeContents(storage.getAllEdges()), is(List.of(contents(edge3))));
+        assertThat(storage.getEdgesFromNode("node1").size(), is(0));
+        assertThat(storage.nodesIdsWithEdgesToNode("node3").size(), is(0));
+        assertThat(storage.nodesIdsWithEdgesToNode("node1"), is(List.of("node3")));
+    }
+
+    @Test
+    public void puttingAnExistingNodeShouldKeepItsEdges() {
+        Edge edge = createTestEdge("edge1", "node1", "node2");
+        storage.putEdge(edge);
+
+        storage.putNode(new Node("node1", Map.of("name", "updated")));
+        storage.putNode(new Node("node2", Map.of("name", "updated")));
+        assertThat(edgeContents(storage.getEdgesFromNode("node1")), is(List.of(contents(edge))));
+        assertThat(storage.nodesIdsWithEdgesToNode("node2"), is(List.of("node1")));
+    }
+
+    @Test
+    public void puttingAnExistingEdgeShouldReplaceIt() {
+        Edge edge = createTestEdge("edge1", "node1", "node2");
+        Edge updatedEdge = new Edge("edge1", "node1", "node2", 7.0, Map.of());
+        storage.putEdge(edge);
+
+        storage.putEdge(updatedEdge);
+        assertThat(contents(storage.getEdgeByNodeIds("node1", "node2")), is(contents(updatedEdge)));
+        assertThat(edgeContents(storage.getAllEdges()), is(List.of(contents(updatedEdge))));
+        assertThat(storage.getEdgesByWeight(1.0).size(), is(0));
+        assertThat(edgeContents(storage.getEdgesByWeight(7.0)), is(List.of(contents(updatedEdge))));
+    }
+
     @Test
     public void shouldBeAbleToHandleEdgeExistenceCheckWithNodeExistence() {
         Edge edge = createTestEdge("edge1", "node1", "node2");
@@ -226,7 +315,7 @@ public class GraphStorageTest {
 
         List<Edge> result = storage.getEdgesByWeight(5.0);
         assertThat(result.size(), is(1));
-        assertThat(result, hasItems(EDGE_1));
+        assertThat(edgeContents(result), hasItems(contents(EDGE_1)));
     }
 
     @Test
@@ -241,7 +330,7 @@ public class GraphStorageTest {
 
         List<Edge> result = storage.getEdgesByWeightRange(5.0, 15.0);
         assertThat(result.size(), is(2));
-        assertThat(result, hasItems(EDGE_1, EDGE_2));
+        assertThat(edgeContents(result), hasItems(contents(EDGE_1), contents(EDGE_2)));
     }
 
     @Test
@@ -254,7 +343,7 @@ public class GraphStorageTest {
 
         List<Edge> result = storage.getEdgesWithWeightGreaterThan(9.0);
         assertThat(result.size(), is(1));
-        assertThat(result, hasItems(EDGE_2));
+        assertThat(edgeContents(result), hasItems(contents(EDGE_2)));
     }
 
     @Test
@@ -267,7 +356,7 @@ public class GraphStorageTest {
 
         List<Edge> result = storage.getEdgesWithWeightLessThan(9.0);
         assertThat(result.size(), is(1));
-        assertThat(result, hasItems(EDGE_1));
+        assertThat(edgeContents(result), hasItems(contents(EDGE_1)));
     }
 
     @Test
@@ -276,10 +365,37 @@ public class GraphStorageTest {
         initialiseNodes("node3", "node4");
         storage.putEdge(EDGE_1);
         storage.putEdge(EDGE_3);
+        // the weight is set on the edge before the storage is told, as the graph does
+        EDGE_1.setWeight(20.0);
         storage.updateEdgeWeight(5.0, 20.0, EDGE_1);
 
         List<Edge> result = storage.getEdgesByWeight(20.0);
         assertThat(result.size(), is(2));
-        assertThat(result, hasItems(EDGE_1, EDGE_3));
+        assertThat(edgeContents(result), hasItems(contents(EDGE_1), contents(EDGE_3)));
+    }
+
+    // ============ STREAMING ============
+
+    @Test
+    public void forEachVisitsTheSameContentsAsTheListAccessors() {
+        initialiseNodes("node1", "node2");
+        initialiseNodes("node2", "node3");
+        storage.putEdge(EDGE_1);
+        storage.putEdge(EDGE_2);
+
+        List<Node> nodes = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        List<Edge> edgesFromNode2 = new ArrayList<>();
+        List<String> nodeIdsToNode2 = new ArrayList<>();
+        storage.forEachNode(nodes::add);
+        storage.forEachEdge(edges::add);
+        storage.forEachEdgeFrom("node2", edgesFromNode2::add);
+        storage.forEachNodeIdWithEdgeTo("node2", nodeIdsToNode2::add);
+
+        assertThat(storage.nodeCount(), is(3));
+        assertThat(nodes.size(), is(3));
+        assertThat(edgeContents(edges), hasItems(contents(EDGE_1), contents(EDGE_2)));
+        assertThat(edgeContents(edgesFromNode2), is(List.of(contents(EDGE_2))));
+        assertThat(nodeIdsToNode2, is(List.of("node1")));
     }
 }
@@ -0,0 +1,80 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import graph.traversalAlgorithms.NodeHandles;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class InMemoryGraphStorageTest {
+
+    private final InMemoryGraphStorage storage = InMemoryGraphStorage.create();
+    private final NodeHandles handles = storage.nodeHandles();
+
+    private void putNodes(String... ids) {
+        for (String id : ids) {
+            storage.putNode(new Node(id, Map.of()));
+        }
+    }
+
+    private Map<String, Double> neighbours(String id) {
+        Map<String, Double> neighbours = new HashMap<>();
+        handles.forEachNeighbour(handles.handleOf(id), (neighbour, weight) -> neighbours.put(handles.idOf(neighbour), weight));
+        return neighbours;
+    }
+
+    private Set<String> predecessors(String id) {
+        Set<String> predecessors = new HashSet<>();
+        handles.forEachPredecessor(handles.handleOf(id), predecessor -> predecessors.add(handles.idOf(predecessor)));
+        return predecessors;
+    }
+
+    @Test
+    public void walksTheEdgesOfANodeByHandle() {
+        putNodes("a", "b", "c");
+        storage.putEdge(new Edge("ab", "a", "b", 2.0, Map.of()));
+        storage.putEdge(new Edge("ac", "a", "c", 3.0, Map.of()));
+        storage.putEdge(new Edge("ca", "c", "a", 4.0, Map.of()));
+
+        assertEquals(Map.of("b", 2.0, "c", 3.0), neighbours("a"));
+        assertEquals(Set.of("c"), predecessors("a"));
+        assertEquals(-1, handles.handleOf("missing"));
+    }
+
+    @Test
+    public void theHandleOfARemovedNodeIsGivenToTheNextNodeWithoutItsEdges() {
+        putNodes("a", "b", "c");
+        storage.putEdge(new Edge("ab", "a", "b", 1.0, Map.of()));
+        storage.putEdge(new Edge("ba", "b", "a", 1.0, Map.of()));
+        int removedHandle = handles.handleOf("b");
+
+        storage.removeNode("b");
+        putNodes("d");
+
+        assertEquals(removedHandle, handles.handleOf("d"));
+        assertEquals(3, handles.handleBound());
+        assertEquals(Map.of(), neighbours("a"));
+        assertEquals(Map.of(), neighbours("d"));
+        assertEquals(Set.of(), predecessors("a"));
+        assertFalse(storage.edgeExists("a", "d"));
+    }
+
+    @Test
+    public void updatingANodeKeepsItsHandleAndEdges() {
+        putNodes("a", "b");
+        storage.putEdge(new Edge("ab", "a", "b", 1.0, Map.of()));
+        int handle = handles.handleOf("a");
+
+        storage.putNode(new Node("a", Map.of("name", "A")));
+
+        assertEquals(handle, handles.handleOf("a"));
+        assertEquals(Map.of("b", 1.0), neighbours("a"));
+        assertEquals(Map.of("name", "A"), storage.getNode("a").getAttributes());
+    }
+}
@@ -0,0 +1,200 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Node;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class MappedGraphStorageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private MappedGraphStorage storage;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("graph").toPath();
+        storage = MappedGraphStorage.open(directory);
+        storage.putNode(new Node("node1", Map.of("name", "first", "tags", List.of("a", "b"))));
+        storage.putNode(new Node("node2", Map.of("age", 42)));
+        storage.putNode(new Node("node3", Map.of()));
+        storage.putEdge(new Edge("edge1", "node1", "node2", 5.0, Map.of("since", 2020L)));
+        storage.putEdge(new Edge("edge2", "node2", "node3", 10.0, Map.of()));
+        storage.putEdge(new Edge("edge3", "node3", "node1", 20.0, Map.of()));
+    }
+
+    @After
+    public void tearDown() {
+        storage.close();
+    }
+
+    private void reopen() {
+        storage.close();
+        storage = MappedGraphStorage.open(directory);
+    }
+
+    @Test
+    public void graphSurvivesReopening() {
+        reopen();
+
+        assertThat(storage.getAllNodes().size(), is(3));
+        assertThat(storage.getAllEdges().size(), is(3));
+        assertThat(storage.getNode("node1").getAttributes(), is(Map.of("name", "first", "tags", List.of("a", "b"))));
+        assertThat(storage.getNode("node2").getAttribute("age"), is(42));
+        Edge edge = storage.getEdgeByNodeIds("node1", "node2");
+        assertThat(edge.getId(), is("edge1"));
+        assertThat(edge.getWeight(), is(5.0));
+        assertThat(edge.getProperty("since"), is(2020L));
+        assertThat(storage.nodesIdsWithEdgesToNode("node1"), is(List.of("node3")));
+    }
+
+    @Test
+    public void attributeUpdatesOnReturnedNodesAndEdgesAreWrittenThrough() {
+        storage.getNode("node1").setAttribute("name", "renamed");
+        storage.getNode("node2").deleteAttribute("age");
+        storage.getEdge("edge2").setProperties(Map.of("label", "knows"));
+        Edge edge = storage.getEdge("edge3");
+        edge.setWeight(7.0);
+        storage.updateEdgeWeight(20.0, 7.0, edge);
+        reopen();
+
+        assertThat(storage.getNode("node1").getAttribute("name"), is("renamed"));
+        assertFalse(storage.getNode("node2").hasAttribute("age"));
+        assertThat(storage.getEdge("edge2").getProperty("label"), is("knows"));
+        assertThat(storage.getEdgesByWeight(7.0).get(0).getId(), is("edge3"));
+        assertTrue(storage.getEdgesByWeight(20.0).isEmpty());
+    }
+
+    @Test
+    public void removedSlotsAreReusedAfterReopening() {
+        Node removed = storage.removeNode("node2");
+        assertThat(removed.getAttribute("age"), is(42));
+        reopen();
+
+        assertFalse(storage.containsNode("node2"));
+        assertThat(storage.getAllEdges().size(), is(1));
+        storage.putNode(new Node("node4", Map.of()));
+        storage.putEdge(new Edge("edge4", "node4", "node1", 1.0, Map.of()));
+        reopen();
+
+        assertThat(new HashSet<>(storage.nodesIdsWithEdgesToNode("node1")), is(Set.of("node3", "node4")));
+        assertThat(storage.getEdgesFromNode("node1").size(), is(0));
+    }
+
+    @Test
+    public void storesOfRemovedNodesCanNoLongerBeUsed() {
+        Node node = storage.getNode("node3");
+        storage.removeNode("node3");
+        storage.putNode(new Node("node5", Map.of()));
+
+        assertThat(storage.getNode("node3"), is(nullValue()));
+        assertThrows(IllegalStateException.class, () -> node.setAttribute("name", "stale"));
+        assertThat(storage.getNode("node5").getAttributes(), is(Map.of()));
+    }
+
+    @Test
+    public void rewrittenAttributesDoNotGrowTheOverflowFileForever() {
+        String padding = "x".repeat(1000);
+        for (int i = 0; i < 5000; i++) {
+            storage.getNode("node2").setAttribute("age", i);
+            storage.putNode(new Node("node3", Map.of("padding", padding, "round", i)));
+        }
+        assertTrue(storage.overflowSize() < 4 << 20);
+        reopen();
+
+        assertThat(storage.getNode("node1").getAttributes(), is(Map.of("name", "first", "tags", List.of("a", "b"))));
+        assertThat(storage.getNode("node2").getAttribute("age"), is(4999));
+        assertThat(storage.getNode("node3").getAttributes(), is(Map.of("padding", padding, "round", 4999)));
+        assertThat(storage.getEdge("edge1").getProperty("since"), is(2020L));
+    }
+
+    @Test
+    public void weightQueriesFollowUpdatesAndRemovals() {
+        Edge edge = storage.getEdge("edge2");
+        edge.setWeight(30.0);
+        storage.updateEdgeWeight(10.0, 30.0, edge);
+        storage.removeEdge("edge1");
+
+        assertTrue(storage.getEdgesByWeight(10.0).isEmpty());
+        assertTrue(storage.getEdgesByWeight(5.0).isEmpty());
+        assertThat(storage.getEdgesWithWeightGreaterThan(25.0).get(0).getId(), is("edge2"));
+        reopen();
+
+        assertThat(storage.getEdgesByWeightRange(0.0, 100.0).size(), is(2));
+        assertThat(storage.getEdgesWithWeightLessThan(25.0).get(0).getId(), is("edge3"));
+    }
+
+    @Test
+    public void weightIndexIsKeptAcrossMergesAndRebuiltWhenItsFileIsMissing() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            storage.putEdge(new Edge("loop", "node1", "node1", i % 50, Map.of()));
+        }
+        assertThat(storage.getEdgesByWeight(49.0).get(0).getId(), is("loop"));
+        assertThat(storage.getEdgesByWeightRange(0.0, 100.0).stream().map(Edge::getWeight).toList(),
+                is(List.of(5.0, 10.0, 20.0, 49.0)));
+        reopen();
+        assertThat(storage.getEdgesWithWeightGreaterThan(25.0).get(0).getId(), is("loop"));
+
+        storage.close();
+        Files.delete(directory.resolve("weights.dat"));
+        storage = MappedGraphStorage.open(directory);
+
+        assertThat(storage.getEdgesWithWeightLessThan(25.0).size(), is(3));
+        assertThat(storage.getEdgesByWeight(49.0).get(0).getId(), is("loop"));
+    }
+
+    @Test
+    public void anEdgeLinkedButNotInUseIsUnlinkedOnOpening() throws IOException {
+        storage.close();
+        try (RandomAccessFile edges = new RandomAccessFile(directory.resolve("edges.dat").toFile(), "rw")) {
+            // as if the process stopped between linking the first edge and marking it in use
+            edges.seek(0);
+            edges.writeByte(0);
+        }
+        storage = MappedGraphStorage.open(directory);
+
+        assertFalse(storage.containsEdge("edge1"));
+        assertTrue(storage.getEdgesFromNode("node1").isEmpty());
+        assertTrue(storage.nodesIdsWithEdgesToNode("node2").isEmpty());
+        assertTrue(storage.getEdgesByWeight(5.0).isEmpty());
+        storage.putEdge(new Edge("edge4", "node1", "node2", 1.0, Map.of()));
+        reopen();
+
+        assertThat(storage.getEdgeByNodeIds("node1", "node2").getId(), is("edge4"));
+        assertThat(storage.getAllEdges().size(), is(3));
+    }
+
+    @Test
+    public void openingCorruptFilesFails() throws IOException {
+        storage.close();
+        try (RandomAccessFile edges = new RandomAccessFile(directory.resolve("edges.dat").toFile(), "rw")) {
+            // point the next outgoing edge of the first edge record at itself
+            edges.seek(76);
+            edges.writeInt(0);
+        }
+
+        assertThrows(IllegalStateException.class, () -> MappedGraphStorage.open(directory));
+        storage = MappedGraphStorage.open(folder.newFolder("other").toPath());
+    }
+}
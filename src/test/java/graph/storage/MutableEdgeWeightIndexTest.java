@@ -24,6 +24,8 @@ public class MutableEdgeWeightIndexTest {
     public static Collection<Object> storages() {
         return Arrays.asList(new Object[] {
                 (Supplier<MutableEdgeWeightIndex>) DefaultEdgeWeightIndex::new,
+                (Supplier<MutableEdgeWeightIndex>) ConcurrentEdgeWeightIndex::new,
+                (Supplier<MutableEdgeWeightIndex>) SortedRunEdgeWeightIndex::new,
         });
     }
 
@@ -0,0 +1,88 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SortedRunEdgeWeightIndexTest {
+
+    private static final int EDGES = 5000;
+    private SortedRunEdgeWeightIndex index;
+    private List<Edge> edges;
+
+    @Before
+    public void setUp() {
+        index = new SortedRunEdgeWeightIndex();
+        edges = new ArrayList<>();
+        // inserted out of order and with repeated weights so several merges happen
+        for (int i = 0; i < EDGES; i++) {
+            Edge edge = new Edge("e" + i, "A", "B", (i * 7919) % 1000, Map.of());
+            edges.add(edge);
+            index.putEdge(edge);
+        }
+    }
+
+    @Test
+    public void cursorWalksTheRangeInWeightOrder() {
+        SortedRunEdgeWeightIndex.WeightCursor cursor = index.cursor(100.0, 199.0);
+        double previous = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        while (cursor.next()) {
+            assertTrue(cursor.weight() >= previous);
+            assertThat(cursor.edge().getWeight(), is(cursor.weight()));
+            previous = cursor.weight();
+            count++;
+        }
+        assertThat(count, is(500));
+        assertThat(index.countInRange(100.0, 199.0), is(500));
+    }
+
+    @Test
+    public void countsStayExactAcrossRemovalsAndUpdates() {
+        for (int i = 0; i < EDGES; i += 2) {
+            index.removeEdge(edges.get(i));
+        }
+        Edge moved = edges.get(1);
+        double previousWeight = moved.getWeight();
+        moved.setWeight(2000.0);
+        index.updateEdgeWeight(previousWeight, 2000.0, moved);
+
+        assertThat(index.size(), is(EDGES / 2));
+        assertThat(index.countInRange(0.0, 999.0), is(EDGES / 2 - 1));
+        assertThat(index.getEdgesByWeightRange(0.0, 999.0).size(), is(EDGES / 2 - 1));
+        assertThat(index.getEdgesWithWeightGreaterThan(999.0), is(List.of(moved)));
+        assertThat(index.getEdgesByWeight(previousWeight).contains(moved), is(false));
+    }
+
+    @Test
+    public void edgesPutAllAtOnceAreFoundLikeInsertedOnes() {
+        SortedRunEdgeWeightIndex loaded = new SortedRunEdgeWeightIndex();
+        loaded.putAll(edges.toArray(Edge[]::new));
+
+        assertThat(loaded.size(), is(EDGES));
+        assertThat(loaded.countInRange(100.0, 199.0), is(500));
+        assertThat(loaded.getEdgesByWeight(7.0).size(), is(index.getEdgesByWeight(7.0).size()));
+        loaded.removeEdge(edges.get(3));
+        loaded.putAll(new Edge[]{new Edge("extra", "A", "B", 1500.0, Map.of())});
+        assertThat(loaded.size(), is(EDGES));
+        assertThat(loaded.getEdgesByWeight(edges.get(3).getWeight()).contains(edges.get(3)), is(false));
+        assertThat(loaded.getEdgesWithWeightGreaterThan(999.0).size(), is(1));
+    }
+
+    @Test
+    public void emptyRangesHaveNoEdges() {
+        assertThat(index.countInRange(1000.0, 1999.0), is(0));
+        assertThat(index.countInRange(5.0, 4.0), is(0));
+        assertFalse(index.cursor(1000.0, 1999.0).next());
+        assertThat(index.getEdgesWithWeightLessThan(0.0).size(), is(0));
+    }
+}
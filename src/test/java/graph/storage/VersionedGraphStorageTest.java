@@ -0,0 +1,186 @@
+package graph.storage;
+
+import graph.dataModel.Edge;
+import graph.dataModel.Graph;
+import graph.dataModel.Node;
+import graph.dataModel.Transaction;
+import graph.exceptions.NodeNotFoundException;
+import graph.exceptions.SnapshotNotSupportedException;
+import graph.operations.AddOrUpdateEdge;
+import graph.operations.AddOrUpdateNode;
+import graph.operations.DeleteNode;
+import graph.operations.GraphOperation;
+import graph.traversalAlgorithms.GraphSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class VersionedGraphStorageTest {
+
+    private VersionedGraphStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = VersionedGraphStorage.create();
+        storage.putNode(new Node("node1", Map.of("name", "first")));
+        storage.putNode(new Node("node2", Map.of()));
+        storage.putEdge(new Edge("edge1", "node1", "node2", 5.0, Map.of()));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph.WAL.WALWriter.closeDefaultWALWriter();
+        java.nio.file.Files.deleteIfExists(java.nio.file.Path.of("log"));
+    }
+
+    private void apply(GraphOperation... operations) {
+        storage.writeAtomically(() -> List.of(operations).forEach(operation -> operation.apply(storage)));
+    }
+
+    @Test
+    public void snapshotDoesNotSeeLaterCommits() {
+        try (VersionedGraphStorage.Snapshot snapshot = storage.openSnapshot()) {
+            apply(new AddOrUpdateNode(new Node("node3", Map.of())),
+                    new AddOrUpdateEdge(new Edge("edge2", "node2", "node3", 1.0, Map.of())),
+                    new DeleteNode("node1"));
+
+            assertThat(snapshot.getNodes().size(), is(2));
+            assertThat(snapshot.getEdgesFromNode("node1").get(0).getId(), is("edge1"));
+            assertThat(snapshot.getNodesIdWithEdgeToNode("node2"), is(List.of("node1")));
+            assertThrows(NodeNotFoundException.class, () -> snapshot.getNodeById("node3"));
+        }
+        try (VersionedGraphStorage.Snapshot snapshot = storage.openSnapshot()) {
+            assertThat(snapshot.getNodes().size(), is(2));
+            assertThat(snapshot.getNodesIdWithEdgeToNode("node2").size(), is(0));
+            assertThat(snapshot.getEdgeByNodeIds("node2", "node3").getId(), is("edge2"));
+        }
+    }
+
+    @Test
+    public void commitIsPublishedAsOneVersion() {
+        long version = storage.getVersion();
+        GraphOperation checkNothingPublished = s -> {
+            try (VersionedGraphStorage.Snapshot snapshot = storage.openSnapshot()) {
+                assertThat(snapshot.getVersion(), is(version));
+                assertThat(snapshot.getNodes().size(), is(2));
+            }
+            // the committing writer does see its own changes
+            assertTrue(s.containsNode("node3"));
+        };
+        apply(new AddOrUpdateNode(new Node("node3", Map.of())), checkNothingPublished);
+
+        assertThat(storage.getVersion(), is(version + 1));
+        assertTrue(storage.containsNode("node3"));
+    }
+
+    @Test
+    public void failedCommitLeavesNoTrace() {
+        GraphOperation fail = s -> {
+            throw new IllegalStateException("failed");
+        };
+        assertThrows(IllegalStateException.class, () -> apply(
+                new AddOrUpdateNode(new Node("node3", Map.of())),
+                new AddOrUpdateEdge(new Edge("edge1", "node1", "node2", 9.0, Map.of())),
+                fail));
+        storage.putNode(new Node("node4", Map.of()));
+
+        assertFalse(storage.containsNode("node3"));
+        assertThat(storage.getEdge("edge1").getWeight(), is(5.0));
+        assertThat(storage.getEdgesByWeight(9.0).size(), is(0));
+        assertTrue(storage.containsNode("node4"));
+    }
+
+    @Test
+    public void updatesThroughReturnedNodesAndEdgesCreateNewVersions() {
+        try (VersionedGraphStorage.Snapshot snapshot = storage.openSnapshot()) {
+            storage.getNode("node1").setAttribute("name", "renamed");
+            Edge edge = storage.getEdge("edge1");
+            edge.setWeight(7.0);
+            storage.updateEdgeWeight(5.0, 7.0, edge);
+
+            assertThat(snapshot.getNodeById("node1").getAttribute("name"), is("first"));
+            assertThat(snapshot.getEdgeById("edge1").getWeight(), is(5.0));
+            assertThat(snapshot.getEdgesByWeightRange(5.0, 5.0).size(), is(1));
+        }
+        assertThat(storage.getNode("node1").getAttribute("name"), is("renamed"));
+        assertThat(storage.getEdgesByWeight(7.0).get(0).getId(), is("edge1"));
+        assertThat(storage.getEdgesByWeight(5.0).size(), is(0));
+    }
+
+    @Test
+    public void oldVersionsAreCollectedOnceNoSnapshotNeedsThem() {
+        VersionedGraphStorage.Snapshot snapshot = storage.openSnapshot();
+        storage.getNode("node1").setAttribute("name", "second");
+        storage.getNode("node1").setAttribute("name", "third");
+        assertThat(storage.retainedVersions("node1"), is(3));
+
+        snapshot.close();
+        storage.putNode(new Node("node3", Map.of()));
+        assertThat(storage.retainedVersions("node1"), is(1));
+
+        storage.removeNode("node1");
+        assertThat(storage.retainedVersions("node1"), is(0));
+        assertThat(storage.getEdgesWithWeightLessThan(10.0).size(), is(0));
+        assertThrows(IllegalStateException.class, snapshot::getNodes);
+    }
+
+    @Test
+    public void transactionsCommitThroughTheVersionedStorage() {
+        Graph graph = Graph.createGraph(storage);
+        VersionedGraphStorage.Snapshot snapshot = storage.openSnapshot();
+        Transaction transaction = graph.createTransaction();
+        Node node = transaction.addNode(Map.of("name", "new"));
+        transaction.addEdge("node1", node.getId(), Map.of(), 3.0);
+        transaction.commit();
+
+        assertThat(graph.getNodes().size(), is(3));
+        assertThat(graph.getEdgesByWeight(3.0).size(), is(1));
+        assertThat(snapshot.getNodes().size(), is(2));
+        snapshot.close();
+    }
+
+    @Test
+    public void graphsOnTheVersionedStorageOpenSnapshots() throws SnapshotNotSupportedException {
+        Graph graph = Graph.createGraph(storage);
+        try (GraphSnapshot snapshot = graph.openSnapshot()) {
+            graph.deleteNode("node2");
+
+            assertThat(snapshot.getNodes().size(), is(2));
+            assertThat(snapshot.getEdgeByNodeIds("node1", "node2").getId(), is("edge1"));
+        }
+        assertThrows(SnapshotNotSupportedException.class, () -> Graph.createGraph().openSnapshot());
+    }
+
+    @Test
+    public void readsInProgressKeepTheVersionTheyRead() throws Exception {
+        int nodes = 1_000;
+        for (int i = 0; i < nodes; i++) {
+            storage.putNode(new Node("n" + i, Map.of()));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; !done.get(); i++) {
+                storage.getNode("n" + i % nodes).setAttribute("count", i);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 500; i++) {
+                assertThat(storage.getAllNodes().size(), is(nodes + 2));
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+}
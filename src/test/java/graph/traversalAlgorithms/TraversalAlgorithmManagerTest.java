@@ -1,5 +1,6 @@
 package graph.traversalAlgorithms;
 
+import graph.WAL.WALWriter;
 import graph.dataModel.Edge;
 import graph.dataModel.Graph;
 import graph.dataModel.Node;
@@ -24,6 +25,7 @@ public class TraversalAlgorithmManagerTest {
 
     @After
     public void tearDown() throws Exception {
+        WALWriter.closeDefaultWALWriter();
         java.nio.file.Files.deleteIfExists(java.nio.file.Path.of("log"));
     }
 
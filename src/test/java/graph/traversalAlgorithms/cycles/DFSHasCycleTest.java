@@ -96,4 +96,18 @@ public class DFSHasCycleTest {
         TraversalResult result = algorithm.performAlgorithm();
         assertFalse(result.getConditionResult());
     }
+
+    @Test
+    public void findsTheCycleClosingAChainDeeperThanTheCallStack() {
+        Node previous = nodeA;
+        for (int i = 0; i < 100_000; i++) {
+            Node next = graph.addNode(Map.of());
+            graph.addEdge(previous.getId(), next.getId(), Map.of(), 1.0);
+            previous = next;
+        }
+        assertFalse(runAndCheckCycle());
+
+        graph.addEdge(previous.getId(), nodeA.getId(), Map.of(), 1.0);
+        assertTrue(runAndCheckCycle());
+    }
 }
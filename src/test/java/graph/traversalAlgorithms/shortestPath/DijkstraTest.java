@@ -3,6 +3,7 @@ package graph.traversalAlgorithms.shortestPath;
 import graph.dataModel.Graph;
 import graph.dataModel.Node;
 import graph.exceptions.NegativeWeightException;
+import graph.storage.CompressedGraphStorage;
 import graph.traversalAlgorithms.TraversalInput;
 import graph.traversalAlgorithms.TraversalResult;
 import org.junit.Before;
@@ -121,4 +122,18 @@ public class DijkstraTest {
         graph.addEdge(nodeA.getId(), nodeA.getId(), Map.of(), 1.0);
         assertEquals(List.of(nodeA.getId()), runDijkstra(nodeA.getId(), nodeA.getId()).getPath().getNodeIds());
     }
+
+    @Test
+    public void findsTheShortestPathOnAStorageThatKeepsNoNodeHandles() {
+        // A -> B (2), A -> C (10), B -> C (3)
+        graph = Graph.createGraph(CompressedGraphStorage.create());
+        Node a = graph.addNode(Map.of("name", "A"));
+        Node b = graph.addNode(Map.of("name", "B"));
+        Node c = graph.addNode(Map.of("name", "C"));
+        graph.addEdge(a.getId(), b.getId(), Map.of(), 2.0);
+        graph.addEdge(a.getId(), c.getId(), Map.of(), 10.0);
+        graph.addEdge(b.getId(), c.getId(), Map.of(), 3.0);
+
+        assertEquals(List.of(a.getId(), b.getId(), c.getId()), runDijkstra(a.getId(), c.getId()).getPath().getNodeIds());
+    }
 }